@@ -0,0 +1,522 @@
+package ch.epfl.rigel;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * byte-level parser of CSV documents (US-ASCII, one record per line, fields possibly quoted with "" as escaped quote)
+ * the document is split in chunks of whole lines parsed concurrently, the results being merged in the order of the lines;
+ * the fields are only located while reading a line, numbers being then parsed directly from the bytes & strings
+ * only created for the fields asked as such
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class CsvParser {
+
+    /**
+     * approximate size in bytes of the chunks parsed by a single task
+     */
+    static final int CHUNK_SIZE = 1 << 18;
+
+    /**
+     * exact powers of ten, as doubles & floats
+     */
+    private static final double[] DOUBLE_POW10 = new double[23];
+    private static final float[] FLOAT_POW10 = new float[11];
+    static {
+        DOUBLE_POW10[0] = 1;
+        for (int i = 1; i < DOUBLE_POW10.length; ++i) {
+            DOUBLE_POW10[i] = DOUBLE_POW10[i - 1] * 10;
+        }
+        FLOAT_POW10[0] = 1;
+        for (int i = 1; i < FLOAT_POW10.length; ++i) {
+            FLOAT_POW10[i] = FLOAT_POW10[i - 1] * 10;
+        }
+    }
+
+    /**
+     * private default constructor
+     */
+    private CsvParser() {}
+
+    /**
+     * (nested interface)
+     * conversion of a line of a CSV document to a value
+     * @param <T> - type of the values
+     */
+    public interface RowParser<T> {
+
+        /**
+         * converts the line the given row is on
+         * @param row - row positioned on the line, valid during this call only
+         * @return the value of the line, or null to ignore it
+         */
+        T parse(Row row);
+    }
+
+    /**
+     * gives the content of a stream as a buffer : a file stream is memory-mapped from its current position,
+     * any other stream is read at once
+     * @param inputStream - stream to be read
+     * @return buffer whose remaining bytes are the content of the stream
+     * @throws IOException if acting upon the InputStream fails
+     */
+    public static ByteBuffer bufferOf(InputStream inputStream) throws IOException {
+        if (inputStream instanceof FileInputStream) {
+            FileChannel channel = ((FileInputStream) inputStream).getChannel();
+            long position = channel.position();
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, channel.size() - position);
+        }
+        return ByteBuffer.wrap(inputStream.readAllBytes());
+    }
+
+    /**
+     * parses the lines of a CSV document, concurrently in the common pool if it is larger than CHUNK_SIZE
+     * lines end with \n, \r\n or \r, as with BufferedReader.readLine
+     * @param data - the document, from the position to the limit of the buffer (which are not modified)
+     * @param headerLines - number of lines to skip at the start of the document
+     * @param rowParser - conversion of the lines, must be thread-safe
+     * @param <T> - type of the values of the lines
+     * @return values of the lines (but the null ones), in the order of the lines
+     */
+    public static <T> List<T> parse(ByteBuffer data, int headerLines, RowParser<T> rowParser) {
+        int start = data.position();
+        for (int i = 0; i < headerLines && start < data.limit(); ++i) {
+            start = nextLine(data, start);
+        }
+
+        // chunks of whole lines, cut after a \n
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(start);
+        while (start < data.limit()) {
+            int end = Math.min(data.limit(), start + CHUNK_SIZE);
+            while (end < data.limit() && data.get(end - 1) != '\n') {
+                ++end;
+            }
+            bounds.add(end);
+            start = end;
+        }
+
+        List<List<T>> results = new ArrayList<>();
+        for (int c = 1; c < bounds.size(); ++c) {
+            results.add(null);
+        }
+        ChunksTask<T> task = new ChunksTask<>(data, bounds, rowParser, results, 0, results.size());
+        if (results.size() > 1) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
+        }
+
+        List<T> values = new ArrayList<>();
+        for (List<T> result : results) {
+            values.addAll(result);
+        }
+        return values;
+    }
+
+    /**
+     * parses a single line of a CSV document, e.g. one whose start was kept (see Row.lineStart) to read more of its
+     * fields later
+     * @param data - the document (its position & limit are not modified)
+     * @param lineStart - index of the start of the line in data
+     * @param rowParser - conversion of the line
+     * @param <T> - type of the value of the line
+     * @return value of the line
+     * @throws IndexOutOfBoundsException if lineStart is not in [position, limit] of data
+     */
+    public static <T> T parseLine(ByteBuffer data, int lineStart, RowParser<T> rowParser) {
+        Objects.checkFromToIndex(data.position(), lineStart, data.limit());
+        Row row = new Row(data);
+        row.read(lineStart, data.limit());
+        return rowParser.parse(row);
+    }
+
+    /**
+     * gives the start of the line following the one starting at the given index
+     * @param data - the document
+     * @param index - start of a line
+     * @return start of the next line, or the limit of data if there is none
+     */
+    private static int nextLine(ByteBuffer data, int index) {
+        while (index < data.limit()) {
+            byte b = data.get(index++);
+            if (b == '\n') {
+                return index;
+            }
+            if (b == '\r') {
+                return (index < data.limit() && data.get(index) == '\n') ? index + 1 : index;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * (nested static class)
+     * parsing of a range of chunks, split in halves between the threads of a ForkJoinPool
+     * each chunk is parsed independently into its own list, so the result does not depend on the splitting
+     * @param <T> - type of the values of the lines
+     */
+    private static final class ChunksTask<T> extends RecursiveAction {
+
+        /**
+         * version of the serialized form (a RecursiveAction being serializable), the task is never serialized
+         */
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer data;
+        private final List<Integer> bounds;
+        private final RowParser<T> rowParser;
+        private final List<List<T>> results;
+        private final int from;
+        private final int to;
+
+        /**
+         * constructor
+         * @param data - the document
+         * @param bounds - bounds of the chunks, chunk c being [bounds[c], bounds[c + 1][
+         * @param rowParser - conversion of the lines
+         * @param results - list in which the values of chunk c are put at index c
+         * @param from - first chunk to parse (included)
+         * @param to - last chunk to parse (excluded)
+         */
+        private ChunksTask(ByteBuffer data, List<Integer> bounds, RowParser<T> rowParser, List<List<T>> results,
+                           int from, int to) {
+            this.data = data;
+            this.bounds = bounds;
+            this.rowParser = rowParser;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * parses the range directly if it is a single chunk, splits it in two subtasks otherwise
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int c = from; c < to; ++c) {
+                    results.set(c, parseChunk(c));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunksTask<>(data, bounds, rowParser, results, from, middle),
+                        new ChunksTask<>(data, bounds, rowParser, results, middle, to));
+            }
+        }
+
+        /**
+         * parses the lines of a chunk with a single row
+         * @param c - index of the chunk
+         * @return values of its lines
+         */
+        private List<T> parseChunk(int c) {
+            List<T> values = new ArrayList<>();
+            Row row = new Row(data);
+            int index = bounds.get(c);
+            int end = bounds.get(c + 1);
+            while (index < end) {
+                index = row.read(index, end);
+                T value = rowParser.parse(row);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            return values;
+        }
+    }
+
+    /**
+     * (nested static class)
+     * fields of the current line of a document, located by their bounds in the document
+     * the missing fields of a line are empty
+     */
+    public static final class Row {
+
+        private final ByteBuffer data;
+        private int lineStart;
+        private int fieldCount;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private boolean[] escaped = new boolean[16];
+        private boolean[] quoted = new boolean[16];
+        private byte[] scratch = new byte[64];
+
+        /**
+         * last decimal read by decimal : digits as an integer, number of digits after the point & sign
+         */
+        private long decimalDigits;
+        private int decimalScale;
+        private boolean decimalNegative;
+
+        /**
+         * private constructor
+         * @param data - the document
+         */
+        private Row(ByteBuffer data) {
+            this.data = data;
+        }
+
+        /**
+         * locates the fields of the line starting at the given index
+         * @param index - start of the line
+         * @param end - end of the chunk
+         * @return start of the next line
+         */
+        private int read(int index, int end) {
+            lineStart = index;
+            fieldCount = 0;
+            while (true) {
+                if (fieldCount == starts.length) {
+                    starts = Arrays.copyOf(starts, 2 * fieldCount);
+                    ends = Arrays.copyOf(ends, 2 * fieldCount);
+                    escaped = Arrays.copyOf(escaped, 2 * fieldCount);
+                    quoted = Arrays.copyOf(quoted, 2 * fieldCount);
+                }
+                int field = fieldCount++;
+                escaped[field] = false;
+                quoted[field] = index < end && data.get(index) == '"';
+                if (quoted[field]) {
+                    // quoted field, until a quote not followed by another one
+                    starts[field] = ++index;
+                    while (index < end) {
+                        if (data.get(index) == '"') {
+                            if (index + 1 < end && data.get(index + 1) == '"') {
+                                escaped[field] = true;
+                                index += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        ++index;
+                    }
+                    ends[field] = index;
+                    // skips the closing quote & anything up to the separator
+                    while (index < end && data.get(index) != ',' && data.get(index) != '\n' && data.get(index) != '\r') {
+                        ++index;
+                    }
+                } else {
+                    starts[field] = index;
+                    while (index < end && data.get(index) != ',' && data.get(index) != '\n' && data.get(index) != '\r') {
+                        ++index;
+                    }
+                    ends[field] = index;
+                }
+                if (index < end && data.get(index) == ',') {
+                    ++index;
+                } else {
+                    return nextLine(data, index);
+                }
+            }
+        }
+
+        /**
+         * getter method for the start of the line in the document, from which it can be parsed again (see parseLine)
+         * @return index of the first byte of the line in the document
+         */
+        public int lineStart() {
+            return lineStart;
+        }
+
+        /**
+         * getter method for the number of fields of the line
+         * @return number of fields
+         */
+        public int fieldCount() {
+            return fieldCount;
+        }
+
+        /**
+         * gives the start of a field as written in the document, its opening quote included : the bytes of
+         * [fieldStart, fieldEnd[ can be copied as such into another CSV document, without creating a string
+         * @param column - index of the field
+         * @return index of the first byte of the field in the document (fieldEnd(column) if it is missing)
+         */
+        public int fieldStart(int column) {
+            if (column >= fieldCount) {
+                return lineStart;
+            }
+            return quoted[column] ? starts[column] - 1 : starts[column];
+        }
+
+        /**
+         * gives the end of a field as written in the document, its closing quote included (see fieldStart)
+         * @param column - index of the field
+         * @return index following the last byte of the field in the document (fieldStart(column) if it is missing)
+         */
+        public int fieldEnd(int column) {
+            if (column >= fieldCount) {
+                return lineStart;
+            }
+            int end = ends[column];
+            return (quoted[column] && end < data.limit() && data.get(end) == '"') ? end + 1 : end;
+        }
+
+        /**
+         * tells whether a field is empty or only made of white space, as String.isBlank
+         * @param column - index of the field
+         * @return true if the field is blank or missing
+         */
+        public boolean isBlank(int column) {
+            if (column >= fieldCount) {
+                return true;
+            }
+            for (int i = starts[column]; i < ends[column]; ++i) {
+                if (!Character.isWhitespace(data.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * gives a field as a string, decoded as US-ASCII (without its quotes & with its escaped quotes unescaped)
+         * @param column - index of the field
+         * @return content of the field, empty if it is missing
+         */
+        public String string(int column) {
+            if (column >= fieldCount) {
+                return "";
+            }
+            String s = new String(bytes(column), 0, ends[column] - starts[column], StandardCharsets.US_ASCII);
+            return escaped[column] ? s.replace("\"\"", "\"") : s;
+        }
+
+        /**
+         * parses a field as Integer.parseInt would parse its string
+         * @param column - index of the field
+         * @return value of the field
+         * @throws NumberFormatException if the field is not an integer
+         */
+        public int parseInt(int column) {
+            int from = start(column), to = end(column);
+            boolean negative = from < to && data.get(from) == '-';
+            int i = negative ? from + 1 : from;
+            if (i == to || to - i > 9) {
+                return Integer.parseInt(string(column));
+            }
+            int value = 0;
+            for (; i < to; ++i) {
+                int digit = data.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return Integer.parseInt(string(column));
+                }
+                value = 10 * value + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * parses a field as Double.parseDouble would parse its string
+         * plain decimals of at most 15 significant digits & 22 decimals are divided exactly by a power of ten
+         * (a single correctly rounded operation), any other field is parsed by Double.parseDouble
+         * @param column - index of the field
+         * @return value of the field
+         * @throws NumberFormatException if the field is not a number
+         */
+        public double parseDouble(int column) {
+            if (!decimal(column, 15, DOUBLE_POW10.length - 1)) {
+                return Double.parseDouble(string(column));
+            }
+            double value = decimalDigits / DOUBLE_POW10[decimalScale];
+            return decimalNegative ? -value : value;
+        }
+
+        /**
+         * parses a field as Float.parseFloat would parse its string
+         * plain decimals of at most 7 significant digits (below 2^24) & 10 decimals are divided exactly by a power of ten
+         * (a single correctly rounded operation),
+         * any other field is parsed by Float.parseFloat
+         * @param column - index of the field
+         * @return value of the field
+         * @throws NumberFormatException if the field is not a number
+         */
+        public float parseFloat(int column) {
+            if (!decimal(column, 7, FLOAT_POW10.length - 1)) {
+                return Float.parseFloat(string(column));
+            }
+            float value = decimalDigits / FLOAT_POW10[decimalScale];
+            return decimalNegative ? -value : value;
+        }
+
+        /**
+         * reads a plain decimal [-]digits[.digits] into decimalDigits, decimalScale & decimalNegative
+         * @param column - index of the field
+         * @param maxDigits - maximal number of significant digits
+         * @param maxDecimals - maximal number of digits after the point
+         * @return true if the field is such a decimal
+         */
+        private boolean decimal(int column, int maxDigits, int maxDecimals) {
+            int from = start(column), to = end(column);
+            boolean negative = from < to && data.get(from) == '-';
+            int i = negative ? from + 1 : from;
+            long digits = 0;
+            int significant = 0, decimals = 0, digitCount = 0;
+            boolean point = false;
+            for (; i < to; ++i) {
+                byte b = data.get(i);
+                if (b == '.' && !point) {
+                    point = true;
+                } else if (b >= '0' && b <= '9') {
+                    ++digitCount;
+                    if (digits != 0 || b != '0') {
+                        ++significant;
+                    }
+                    digits = 10 * digits + (b - '0');
+                    if (point) {
+                        ++decimals;
+                    }
+                } else {
+                    return false;
+                }
+            }
+            decimalDigits = digits;
+            decimalScale = decimals;
+            decimalNegative = negative;
+            return digitCount > 0 && significant <= maxDigits && decimals <= maxDecimals;
+        }
+
+        /**
+         * gives the start of a field
+         * @param column - index of the field
+         * @return start of the field in the document (0 if it is missing)
+         */
+        private int start(int column) {
+            return (column < fieldCount) ? starts[column] : 0;
+        }
+
+        /**
+         * gives the end of a field
+         * @param column - index of the field
+         * @return end of the field in the document (0 if it is missing)
+         */
+        private int end(int column) {
+            return (column < fieldCount) ? ends[column] : 0;
+        }
+
+        /**
+         * copies the bytes of a field in the scratch array
+         * @param column - index of the field
+         * @return scratch array, starting with the bytes of the field
+         */
+        private byte[] bytes(int column) {
+            int length = ends[column] - starts[column];
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, 2 * scratch.length)];
+            }
+            data.get(starts[column], scratch, 0, length);
+            return scratch;
+        }
+    }
+}
@@ -36,4 +36,19 @@ public final class Preconditions {
         checkArgument(interval.contains(value));
         return value;
     }
+
+    /**
+     * validates a range of indices [from, to[ over the given arrays
+     *
+     * @param from - first index of the range (included)
+     * @param to - last index of the range (excluded)
+     * @param arrays - arrays in which the range must be valid
+     * @throws IllegalArgumentException if from is negative or greater than to, or if to exceeds the length of one of the arrays
+     */
+    public static void checkRange(int from, int to, double[]... arrays) {
+        checkArgument(from >= 0 && from <= to);
+        for (double[] array : arrays) {
+            checkArgument(to <= array.length);
+        }
+    }
 }
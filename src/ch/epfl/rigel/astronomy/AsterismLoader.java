@@ -6,9 +6,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Loader for asterisms from external document
@@ -27,6 +25,7 @@ public enum AsterismLoader implements StarCatalogue.Loader {
      * reads a list of Hipparcos Indices & creates an asterism with corresponding stars
      * each "line" of the document represents a different asterism
      * adds to StarCatalogue.Builder parameter the created asterisms
+     * the stars are found by Hipparcos id in a primitive hash map (the first star of an id being used)
      * @param inputstream - the document
      * @param builder - from StarCatalogue.Builder
      * @throws IOException - if acting upon the InputStream fails
@@ -36,10 +35,11 @@ public enum AsterismLoader implements StarCatalogue.Loader {
         try (BufferedReader r = new BufferedReader(new InputStreamReader(inputstream, StandardCharsets.US_ASCII))) {
             String line;
 
-            Map<Integer, Star> hipparcosToStar = new HashMap<>();
-
-            for(Star s : builder.stars()){
-                hipparcosToStar.putIfAbsent(s.hipparcosId(), s);
+            // index in the builder of the first star of each Hipparcos id
+            List<Star> stars = builder.stars();
+            IntIndexMap hipparcosToStar = new IntIndexMap(stars.size());
+            for(int i = 0; i < stars.size(); ++i){
+                hipparcosToStar.putIfAbsent(stars.get(i).hipparcosId(), i);
             }
 
             while((line = r.readLine()) != null){
@@ -49,9 +49,9 @@ public enum AsterismLoader implements StarCatalogue.Loader {
 
 
                 for (String part : parts) {
-                    int currentID = Integer.parseInt(part);
-                    if (hipparcosToStar.containsKey(currentID)) {
-                        starList.add(hipparcosToStar.get(currentID));
+                    int index = hipparcosToStar.get(Integer.parseInt(part));
+                    if (index != IntIndexMap.ABSENT) {
+                        starList.add(stars.get(index));
                     } else {
                         missingStar = true;
                         break;
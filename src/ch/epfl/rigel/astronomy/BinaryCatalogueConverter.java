@@ -0,0 +1,47 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converter tool compiling a HYG CSV catalogue & its asterisms into the binary catalogue read by BinaryCatalogueLoader
+ * usage : BinaryCatalogueConverter hygdata.csv asterisms.txt catalogue.bin
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class BinaryCatalogueConverter {
+
+    /**
+     * private default constructor
+     */
+    private BinaryCatalogueConverter() {}
+
+    /**
+     * converts the catalogue given by the command line arguments
+     * @param args - paths of the HYG CSV catalogue, of the asterisms & of the binary catalogue to be written
+     * @throws IOException if reading or writing one of the files fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage : BinaryCatalogueConverter <hygdata.csv> <asterisms.txt> <catalogue.bin>");
+            System.exit(1);
+        }
+        StarCatalogue catalogue;
+        try (InputStream hygStream = Files.newInputStream(Path.of(args[0]));
+             InputStream asterismStream = Files.newInputStream(Path.of(args[1]))) {
+            catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(asterismStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Path.of(args[2])))) {
+            BinaryCatalogueLoader.write(catalogue, out);
+        }
+        System.out.printf("%d stars & %d asterisms written to %s%n",
+                catalogue.stars().size(), catalogue.asterisms().size(), args[2]);
+    }
+}
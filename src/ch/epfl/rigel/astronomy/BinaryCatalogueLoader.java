@@ -0,0 +1,204 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.CsvParser;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loader for stars & asterisms from a precompiled binary catalogue, written by write (see BinaryCatalogueConverter)
+ * the file holds a header, the stars in columns (Hipparcos ids, right ascensions, declinations, magnitudes,
+ * color indices, proper motions in right ascension & declination, & offsets of the names), the string table of the names & the asterisms as lists of star indices,
+ * all big-endian; it is read with bulk copies, without any text parsing
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public enum BinaryCatalogueLoader implements StarCatalogue.Loader {
+
+    /**
+     * single element of the enumeration
+     */
+    INSTANCE;
+
+    private static final int MAGIC = 0x52475343;
+    private static final int VERSION = 2;
+
+    /**
+     * redefinition of load method from Loader (super -) interface
+     * adds the stars of the catalogue, then its asterisms, to the builder; the indices of the asterisms' stars are
+     * relative to the first star added, so the builder may already contain stars
+     * a file stream is memory-mapped, any other stream is read at once
+     * @param inputstream - the binary catalogue
+     * @param builder - from StarCatalogue.Builder
+     * @throws IOException if acting upon the InputStream fails or if it does not contain a binary catalogue
+     */
+    @Override
+    public void load(InputStream inputstream, StarCatalogue.Builder builder) throws IOException {
+        ByteBuffer buffer = CsvParser.bufferOf(inputstream);
+
+        try {
+            load(buffer, builder);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("invalid binary catalogue", e);
+        }
+    }
+
+    /**
+     * reads the catalogue from a buffer
+     * @param buffer - buffer holding the binary catalogue from its position
+     * @param builder - from StarCatalogue.Builder
+     * @throws IOException if the buffer does not start with the header of a binary catalogue
+     */
+    private static void load(ByteBuffer buffer, StarCatalogue.Builder builder) throws IOException {
+        if (buffer.remaining() < 4 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("not a binary star catalogue");
+        }
+        int starCount = buffer.getInt();
+        int stringTableSize = buffer.getInt();
+        int asterismCount = buffer.getInt();
+        int asterismStarCount = buffer.getInt();
+
+        int[] hipparcosIds = new int[starCount];
+        double[] ra = new double[starCount];
+        double[] dec = new double[starCount];
+        float[] magnitudes = new float[starCount];
+        float[] colorIndices = new float[starCount];
+        float[] pmRa = new float[starCount];
+        float[] pmDec = new float[starCount];
+        int[] nameOffsets = new int[starCount + 1];
+        buffer.asIntBuffer().get(hipparcosIds);
+        skip(buffer, starCount * Integer.BYTES);
+        buffer.asDoubleBuffer().get(ra);
+        skip(buffer, starCount * Double.BYTES);
+        buffer.asDoubleBuffer().get(dec);
+        skip(buffer, starCount * Double.BYTES);
+        buffer.asFloatBuffer().get(magnitudes);
+        skip(buffer, starCount * Float.BYTES);
+        buffer.asFloatBuffer().get(colorIndices);
+        skip(buffer, starCount * Float.BYTES);
+        buffer.asFloatBuffer().get(pmRa);
+        skip(buffer, starCount * Float.BYTES);
+        buffer.asFloatBuffer().get(pmDec);
+        skip(buffer, starCount * Float.BYTES);
+        buffer.asIntBuffer().get(nameOffsets);
+        skip(buffer, (starCount + 1) * Integer.BYTES);
+        byte[] names = new byte[stringTableSize];
+        buffer.get(names);
+
+        // the names are read from the string table only when asked
+        StarNames starNames = StarNames.of(names, nameOffsets);
+        int firstStar = builder.stars().size();
+        for (int i = 0; i < starCount; ++i) {
+            builder.addStar(new Star(hipparcosIds[i], starNames, StarNames.wholeName(i),
+                    EquatorialCoordinates.of(ra[i], dec[i]), magnitudes[i], colorIndices[i], pmRa[i], pmDec[i]));
+        }
+
+        int[] asterismStarts = new int[asterismCount + 1];
+        int[] asterismStars = new int[asterismStarCount];
+        buffer.asIntBuffer().get(asterismStarts);
+        skip(buffer, (asterismCount + 1) * Integer.BYTES);
+        buffer.asIntBuffer().get(asterismStars);
+        skip(buffer, asterismStarCount * Integer.BYTES);
+
+        List<Star> stars = builder.stars();
+        for (int a = 0; a < asterismCount; ++a) {
+            List<Star> asterism = new ArrayList<>(asterismStarts[a + 1] - asterismStarts[a]);
+            for (int k = asterismStarts[a]; k < asterismStarts[a + 1]; ++k) {
+                asterism.add(stars.get(firstStar + asterismStars[k]));
+            }
+            builder.addAsterism(new Asterism(asterism));
+        }
+    }
+
+    /**
+     * advances the position of a buffer after a bulk read through a view
+     * @param buffer - buffer
+     * @param bytes - number of bytes read through the view
+     */
+    private static void skip(ByteBuffer buffer, int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+
+    /**
+     * writes a catalogue in the binary format read by load
+     * the given stream is flushed but not closed
+     * @param catalogue - catalogue to be written
+     * @param outputStream - output stream in which the catalogue is written
+     * @throws IOException in case of input/output error
+     */
+    public static void write(StarCatalogue catalogue, OutputStream outputStream) throws IOException {
+        List<Star> stars = catalogue.stars();
+        List<byte[]> names = new ArrayList<>(stars.size());
+        int stringTableSize = 0;
+        for (Star s : stars) {
+            byte[] name = s.name().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            stringTableSize += name.length;
+        }
+        List<int[]> asterisms = new ArrayList<>();
+        int asterismStarCount = 0;
+        for (Asterism a : catalogue.asterisms()) {
+            int[] indices = catalogue.asterismStarIndices(a);
+            asterisms.add(indices);
+            asterismStarCount += indices.length;
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(stars.size());
+        out.writeInt(stringTableSize);
+        out.writeInt(asterisms.size());
+        out.writeInt(asterismStarCount);
+        for (Star s : stars) {
+            out.writeInt(s.hipparcosId());
+        }
+        for (Star s : stars) {
+            out.writeDouble(s.equatorialPos().ra());
+        }
+        for (Star s : stars) {
+            out.writeDouble(s.equatorialPos().dec());
+        }
+        for (Star s : stars) {
+            out.writeFloat((float) s.magnitude());
+        }
+        for (Star s : stars) {
+            out.writeFloat(s.colorIndex());
+        }
+        for (Star s : stars) {
+            out.writeFloat(s.properMotionRa());
+        }
+        for (Star s : stars) {
+            out.writeFloat(s.properMotionDec());
+        }
+        int offset = 0;
+        out.writeInt(offset);
+        for (byte[] name : names) {
+            offset += name.length;
+            out.writeInt(offset);
+        }
+        for (byte[] name : names) {
+            out.write(name);
+        }
+        int start = 0;
+        out.writeInt(start);
+        for (int[] indices : asterisms) {
+            start += indices.length;
+            out.writeInt(start);
+        }
+        for (int[] indices : asterisms) {
+            for (int index : indices) {
+                out.writeInt(index);
+            }
+        }
+        out.flush();
+    }
+}
@@ -31,7 +31,31 @@ public abstract class CelestialObject {
      * @throws IllegalArgumentException if the angular size is strictly negative
      */
     CelestialObject(String name, EquatorialCoordinates equatorialPos, float angularSize, float magnitude) {
-        Objects.requireNonNull(name, "no name");
+        this(equatorialPos, angularSize, magnitude, Objects.requireNonNull(name, "no name"));
+    }
+
+    /**
+     * package private constructor for the objects whose name is given by a redefinition of name() (see Star)
+     *
+     * @param equatorialPos - equatorial coordinates of the object
+     * @param angularSize - of the object
+     * @param magnitude - of the object
+     * @throws NullPointerException if the given equatorial position is null
+     * @throws IllegalArgumentException if the angular size is strictly negative
+     */
+    CelestialObject(EquatorialCoordinates equatorialPos, float angularSize, float magnitude) {
+        this(equatorialPos, angularSize, magnitude, null);
+    }
+
+    /**
+     * private constructor
+     *
+     * @param equatorialPos - equatorial coordinates of the object
+     * @param angularSize - of the object
+     * @param magnitude - of the object
+     * @param name - of the object, null if given by a redefinition of name()
+     */
+    private CelestialObject(EquatorialCoordinates equatorialPos, float angularSize, float magnitude, String name) {
         Objects.requireNonNull(equatorialPos, "empty coordinates");
         Preconditions.checkArgument(angularSize >= 0);
         this.name = name;
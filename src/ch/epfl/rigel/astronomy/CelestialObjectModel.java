@@ -16,4 +16,14 @@ public interface CelestialObjectModel<O> {
      * @return Object of type O at given time
      */
     public abstract O at(double daysSinceJ2010, EclipticToEquatorialConversion eclToEq);
-}
\ No newline at end of file
+
+    /**
+     * "model" of Object O at the instant of the given context
+     * models sharing intermediate values (Sun, Earth's orbit) redefine it to take them from the context
+     * @param context ephemeris context of the instant
+     * @return Object of type O at given time
+     */
+    public default O at(EphemerisContext context){
+        return at(context.daysSinceJ2010(), context.eclToEq());
+    }
+}
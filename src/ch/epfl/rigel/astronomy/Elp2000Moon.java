@@ -0,0 +1,298 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.math.Angle;
+
+import java.util.Arrays;
+
+/**
+ * Geocentric position of the Moon (ecliptic & equinox of date) given by the ELP-2000/82 theory,
+ * truncated as in J. Meeus, Astronomical Algorithms, chapter 47
+ * the periodic terms are stored as flattened integer tuples : multiples of the arguments D, M, M' & F, followed by
+ * the amplitudes of the longitude & distance (1e-6 degrees, 1e-3 km) or of the latitude (1e-6 degrees)
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+final class Elp2000Moon {
+
+    /**
+     * mean distance between the Earth & the Moon in km
+     */
+    static final double MEAN_DISTANCE = 385000.56;
+
+    /**
+     * units of the amplitudes of the tables
+     */
+    private static final double ANGLE_UNIT = Angle.ofDeg(1e-6);
+    private static final double DISTANCE_UNIT = 1e-3;
+
+    /**
+     * size of the tuples of the tables
+     */
+    private static final int LR_TUPLE = 6;
+    private static final int B_TUPLE = 5;
+
+    /**
+     * periodic terms of the longitude & of the distance (table 47.A)
+     */
+    private static final int[] LR = {
+            0, 0, 1, 0, 6288774, -20905355,
+            2, 0, -1, 0, 1274027, -3699111,
+            2, 0, 0, 0, 658314, -2955968,
+            0, 0, 2, 0, 213618, -569925,
+            0, 1, 0, 0, -185116, 48888,
+            0, 0, 0, 2, -114332, -3149,
+            2, 0, -2, 0, 58793, 246158,
+            2, -1, -1, 0, 57066, -152138,
+            2, 0, 1, 0, 53322, -170733,
+            2, -1, 0, 0, 45758, -204586,
+            0, 1, -1, 0, -40923, -129620,
+            1, 0, 0, 0, -34720, 108743,
+            0, 1, 1, 0, -30383, 104755,
+            2, 0, 0, -2, 15327, 10321,
+            0, 0, 1, 2, -12528, 0,
+            0, 0, 1, -2, 10980, 79661,
+            4, 0, -1, 0, 10675, -34782,
+            0, 0, 3, 0, 10034, -23210,
+            4, 0, -2, 0, 8548, -21636,
+            2, 1, -1, 0, -7888, 24208,
+            2, 1, 0, 0, -6766, 30824,
+            1, 0, -1, 0, -5163, -8379,
+            1, 1, 0, 0, 4987, -16675,
+            2, -1, 1, 0, 4036, -12831,
+            2, 0, 2, 0, 3994, -10445,
+            4, 0, 0, 0, 3861, -11650,
+            2, 0, -3, 0, 3665, 14403,
+            0, 1, -2, 0, -2689, -7003,
+            2, 0, -1, 2, -2602, 0,
+            2, -1, -2, 0, 2390, 10056,
+            1, 0, 1, 0, -2348, 6322,
+            2, -2, 0, 0, 2236, -9884,
+            0, 1, 2, 0, -2120, 5751,
+            0, 2, 0, 0, -2069, 0,
+            2, -2, -1, 0, 2048, -4950,
+            2, 0, 1, -2, -1773, 4130,
+            2, 0, 0, 2, -1595, 0,
+            4, -1, -1, 0, 1215, -3958,
+            0, 0, 2, 2, -1110, 0,
+            3, 0, -1, 0, -892, 3258,
+            2, 1, 1, 0, -810, 2616,
+            4, -1, -2, 0, 759, -1897,
+            0, 2, -1, 0, -713, -2117,
+            2, 2, -1, 0, -700, 2354,
+            2, 1, -2, 0, 691, 0,
+            2, -1, 0, -2, 596, 0,
+            4, 0, 1, 0, 549, -1423,
+            0, 0, 4, 0, 537, -1117,
+            4, -1, 0, 0, 520, -1571,
+            1, 0, -2, 0, -487, -1739,
+            2, 1, 0, -2, -399, 0,
+            0, 0, 2, -2, -381, -4421,
+            1, 1, 1, 0, 351, 0,
+            3, 0, -2, 0, -340, 0,
+            4, 0, -3, 0, 330, 0,
+            2, -1, 2, 0, 327, 0,
+            0, 2, 1, 0, -323, 1165,
+            1, 1, -1, 0, 299, 0,
+            2, 0, 3, 0, 294, 0,
+            2, 0, -1, -2, 0, 8752
+    };
+
+    /**
+     * periodic terms of the latitude (table 47.B)
+     */
+    private static final int[] B = {
+            0, 0, 0, 1, 5128122,
+            0, 0, 1, 1, 280602,
+            0, 0, 1, -1, 277693,
+            2, 0, 0, -1, 173237,
+            2, 0, -1, 1, 55413,
+            2, 0, -1, -1, 46271,
+            2, 0, 0, 1, 32573,
+            0, 0, 2, 1, 17198,
+            2, 0, 1, -1, 9266,
+            0, 0, 2, -1, 8822,
+            2, -1, 0, -1, 8216,
+            2, 0, -2, -1, 4324,
+            2, 0, 1, 1, 4200,
+            2, 1, 0, -1, -3359,
+            2, -1, -1, 1, 2463,
+            2, -1, 0, 1, 2211,
+            2, -1, -1, -1, 2065,
+            0, 1, -1, -1, -1870,
+            4, 0, -1, -1, 1828,
+            0, 1, 0, 1, -1794,
+            0, 0, 0, 3, -1749,
+            0, 1, -1, 1, -1565,
+            1, 0, 0, 1, -1491,
+            0, 1, 1, 1, -1475,
+            0, 1, 1, -1, -1410,
+            0, 1, 0, -1, -1344,
+            1, 0, 0, -1, -1335,
+            0, 0, 3, 1, 1107,
+            4, 0, 0, -1, 1021,
+            4, 0, -1, 1, 833,
+            0, 0, 1, -3, 777,
+            4, 0, -2, 1, 671,
+            2, 0, 0, -3, 607,
+            2, 0, 2, -1, 596,
+            2, -1, 1, -1, 491,
+            2, 0, -2, 1, -451,
+            0, 0, 3, -1, 439,
+            2, 0, 2, 1, 422,
+            2, 0, -3, -1, 421,
+            2, 1, -1, 1, -366,
+            2, 1, 0, 1, -351,
+            4, 0, 0, 1, 331,
+            2, -1, 1, 1, 315,
+            2, -2, 0, -1, 302,
+            0, 0, 1, 3, -283,
+            2, 1, 1, -1, -229,
+            1, 1, 0, -1, 223,
+            1, 1, 0, 1, 223,
+            0, 1, -2, -1, -220,
+            2, 1, -1, -1, -220,
+            1, 0, 1, 1, -185,
+            2, -1, -2, -1, 181,
+            0, 1, 2, 1, -177,
+            4, 0, -2, -1, 176,
+            4, -1, -1, -1, 166,
+            1, 0, 1, -1, -164,
+            4, 0, 1, -1, 132,
+            1, 0, -1, -1, -119,
+            4, -1, 0, -1, 115,
+            2, -2, 0, 1, 107
+    };
+
+    /**
+     * terms kept at the truncation level of .this : for each table, the arguments & the amplitudes
+     */
+    private final int[] longitudeArguments;
+    private final int[] longitudeAmplitudes;
+    private final int[] distanceArguments;
+    private final int[] distanceAmplitudes;
+    private final int[] latitudeArguments;
+    private final int[] latitudeAmplitudes;
+
+    /**
+     * package-private constructor
+     * @param truncation - truncation level of the series
+     */
+    Elp2000Moon(SeriesTruncation truncation) {
+        int[][] l = truncate(LR, LR_TUPLE, 4, ANGLE_UNIT, truncation);
+        int[][] r = truncate(LR, LR_TUPLE, 5, DISTANCE_UNIT / MEAN_DISTANCE, truncation);
+        int[][] b = truncate(B, B_TUPLE, 4, ANGLE_UNIT, truncation);
+        longitudeArguments = l[0];
+        longitudeAmplitudes = l[1];
+        distanceArguments = r[0];
+        distanceAmplitudes = r[1];
+        latitudeArguments = b[0];
+        latitudeAmplitudes = b[1];
+    }
+
+    /**
+     * computes the position of the Moon
+     * @param t - Julian centuries since J2000
+     * @return geocentric ecliptic longitude (not normalized) & latitude in radians, distance between the centers
+     * of the Earth & of the Moon in km
+     */
+    double[] positionAt(double t) {
+        double t2 = t * t;
+        double t3 = t2 * t;
+        double t4 = t3 * t;
+
+        // mean longitude, mean elongation, mean anomalies of the Sun & of the Moon, argument of latitude
+        double meanLon = Angle.ofDeg(218.3164477 + 481267.88123421 * t - 0.0015786 * t2 + t3 / 538841 - t4 / 65194000);
+        double d = Angle.ofDeg(297.8501921 + 445267.1114034 * t - 0.0018819 * t2 + t3 / 545868 - t4 / 113065000);
+        double m = Angle.ofDeg(357.5291092 + 35999.0502909 * t - 0.0001536 * t2 + t3 / 24490000);
+        double mMoon = Angle.ofDeg(134.9633964 + 477198.8675055 * t + 0.0087414 * t2 + t3 / 69699 - t4 / 14712000);
+        double f = Angle.ofDeg(93.2720950 + 483202.0175233 * t - 0.0036539 * t2 - t3 / 3526000 + t4 / 863310000);
+
+        // actions of Venus & Jupiter, flattening of the Earth
+        double a1 = Angle.ofDeg(119.75 + 131.849 * t);
+        double a2 = Angle.ofDeg(53.09 + 479264.290 * t);
+        double a3 = Angle.ofDeg(313.45 + 481266.484 * t);
+        // decreasing eccentricity of the Earth's orbit, applied to the terms containing M
+        double e = 1 - 0.002516 * t - 0.0000074 * t2;
+
+        double sumL = 0;
+        for (int i = 0; i < longitudeAmplitudes.length; ++i) {
+            sumL += longitudeAmplitudes[i] * eccentricityFactor(longitudeArguments, i, e)
+                    * Math.sin(argument(longitudeArguments, i, d, m, mMoon, f));
+        }
+        double sumR = 0;
+        for (int i = 0; i < distanceAmplitudes.length; ++i) {
+            sumR += distanceAmplitudes[i] * eccentricityFactor(distanceArguments, i, e)
+                    * Math.cos(argument(distanceArguments, i, d, m, mMoon, f));
+        }
+        double sumB = 0;
+        for (int i = 0; i < latitudeAmplitudes.length; ++i) {
+            sumB += latitudeAmplitudes[i] * eccentricityFactor(latitudeArguments, i, e)
+                    * Math.sin(argument(latitudeArguments, i, d, m, mMoon, f));
+        }
+        sumL += 3958 * Math.sin(a1) + 1962 * Math.sin(meanLon - f) + 318 * Math.sin(a2);
+        sumB += -2235 * Math.sin(meanLon) + 382 * Math.sin(a3) + 175 * Math.sin(a1 - f) + 175 * Math.sin(a1 + f)
+                + 127 * Math.sin(meanLon - mMoon) - 115 * Math.sin(meanLon + mMoon);
+
+        return new double[]{meanLon + sumL * ANGLE_UNIT, sumB * ANGLE_UNIT, MEAN_DISTANCE + sumR * DISTANCE_UNIT};
+    }
+
+    /**
+     * gives the number of terms kept at the truncation level of .this
+     * @return number of terms of the three coordinates
+     */
+    int termCount() {
+        return longitudeAmplitudes.length + distanceAmplitudes.length + latitudeAmplitudes.length;
+    }
+
+    /**
+     * computes the argument of a term
+     * @param arguments - multiples of D, M, M' & F of the terms, flattened
+     * @param i - index of the term
+     * @return D, M, M' & F combined by the multiples of the term
+     */
+    private static double argument(int[] arguments, int i, double d, double m, double mMoon, double f) {
+        return arguments[4 * i] * d + arguments[4 * i + 1] * m + arguments[4 * i + 2] * mMoon + arguments[4 * i + 3] * f;
+    }
+
+    /**
+     * computes the factor correcting a term containing M for the decreasing eccentricity of the Earth's orbit
+     * @param arguments - multiples of D, M, M' & F of the terms, flattened
+     * @param i - index of the term
+     * @param e - eccentricity factor
+     * @return 1, e or e^2 depending on the multiple of M
+     */
+    private static double eccentricityFactor(int[] arguments, int i, double e) {
+        switch (Math.abs(arguments[4 * i + 1])) {
+            case 1:
+                return e;
+            case 2:
+                return e * e;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * keeps the terms of a table whose amplitude is at least the one of the truncation level
+     * @param table - table of flattened tuples
+     * @param tuple - size of the tuples
+     * @param column - index of the amplitude in the tuples
+     * @param unit - unit of the amplitude, as an angle in radians
+     * @param truncation - truncation level
+     * @return the multiples of D, M, M' & F of the kept terms (flattened) & their amplitudes
+     */
+    private static int[][] truncate(int[] table, int tuple, int column, double unit, SeriesTruncation truncation) {
+        int[] arguments = new int[4 * table.length / tuple];
+        int[] amplitudes = new int[table.length / tuple];
+        int n = 0;
+        for (int i = 0; i < table.length; i += tuple) {
+            int amplitude = table[i + column];
+            if (amplitude != 0 && truncation.keeps(amplitude * unit)) {
+                System.arraycopy(table, i, arguments, 4 * n, 4);
+                amplitudes[n] = amplitude;
+                ++n;
+            }
+        }
+        return new int[][]{Arrays.copyOf(arguments, 4 * n), Arrays.copyOf(amplitudes, n)};
+    }
+}
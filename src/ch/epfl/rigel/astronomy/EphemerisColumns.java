@@ -0,0 +1,252 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Ephemerides of a set of bodies at many instants for a given observer, stored in columns of primitive values
+ * (right ascension, declination, azimuth, altitude, magnitude & angular size) instead of celestial objects
+ * the value of body b at instant i is at index i * bodyCount() + b of every column
+ * unlike ObservedSky, no star is projected & no object is kept per result
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class EphemerisColumns {
+
+    /**
+     * number of instants under which a range of instants is computed without being split further
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    /**
+     * queried bodies & instants
+     */
+    private final List<CelestialObjectModel<? extends CelestialObject>> bodies;
+    private final long[] epochMillis;
+
+    /**
+     * columns, in radians for the angles
+     */
+    private final double[] ra;
+    private final double[] dec;
+    private final double[] az;
+    private final double[] alt;
+    private final double[] magnitude;
+    private final double[] angularSize;
+
+    /**
+     * public constructor, computes the columns sequentially
+     * @param bodies - models of the bodies
+     * @param epochMillis - instants, in milliseconds since 1970-01-01T00:00Z
+     * @param observer - position of the observer
+     * @throws NullPointerException if one of the arguments or of the bodies is null
+     */
+    public EphemerisColumns(List<? extends CelestialObjectModel<? extends CelestialObject>> bodies,
+                            long[] epochMillis, GeographicCoordinates observer) {
+        this(bodies, epochMillis, observer, null);
+    }
+
+    /**
+     * public constructor, computes the columns in parallel across the instants if a pool is given
+     * the columns are identical to the ones computed sequentially
+     * @param bodies - models of the bodies
+     * @param epochMillis - instants, in milliseconds since 1970-01-01T00:00Z
+     * @param observer - position of the observer
+     * @param pool - pool in which the instants are computed, null to compute them in the calling thread
+     * @throws NullPointerException if one of the arguments (but pool) or of the bodies is null
+     */
+    public EphemerisColumns(List<? extends CelestialObjectModel<? extends CelestialObject>> bodies,
+                            long[] epochMillis, GeographicCoordinates observer, ForkJoinPool pool) {
+        this.bodies = List.copyOf(bodies);
+        this.epochMillis = epochMillis.clone();
+        Objects.requireNonNull(observer, "no observer");
+
+        int size = this.bodies.size() * this.epochMillis.length;
+        ra = new double[size];
+        dec = new double[size];
+        az = new double[size];
+        alt = new double[size];
+        magnitude = new double[size];
+        angularSize = new double[size];
+
+        if (pool != null && this.epochMillis.length > PARALLEL_THRESHOLD) {
+            pool.invoke(new InstantsTask(this, observer, 0, this.epochMillis.length));
+        } else {
+            // the task would fork its halves onto the common pool when invoked outside of a pool
+            computeInstants(observer, 0, this.epochMillis.length);
+        }
+    }
+
+    /**
+     * computes the bodies at the instants of [from, to[
+     * all bodies of an instant share one ephemeris context, their horizontal coordinates being converted in a batch
+     * a body without any object (PlanetModel.EARTH) gets NaN everywhere
+     * @param observer - position of the observer
+     * @param from - first instant (included)
+     * @param to - last instant (excluded)
+     */
+    private void computeInstants(GeographicCoordinates observer, int from, int to) {
+        int n = bodies.size();
+        for (int i = from; i < to; ++i) {
+            EphemerisContext context = new EphemerisContext(epochMillis[i]);
+            int first = i * n;
+            for (int b = 0; b < n; ++b) {
+                CelestialObject object = bodies.get(b).at(context);
+                if (object == null) {
+                    ra[first + b] = dec[first + b] = magnitude[first + b] = angularSize[first + b] = Double.NaN;
+                } else {
+                    ra[first + b] = object.equatorialPos().ra();
+                    dec[first + b] = object.equatorialPos().dec();
+                    magnitude[first + b] = object.magnitude();
+                    angularSize[first + b] = object.angularSize();
+                }
+            }
+            new EquatorialToHorizontalConversion(epochMillis[i], observer)
+                    .applyBatch(ra, dec, az, alt, first, first + n);
+        }
+    }
+
+    /**
+     * gives the index of the values of a body at an instant in the columns
+     * @param body - index of the body in the queried list
+     * @param instant - index of the instant in the queried array
+     * @return index in the columns
+     * @throws IndexOutOfBoundsException if body or instant is not a valid index
+     */
+    public int index(int body, int instant) {
+        Objects.checkIndex(body, bodies.size());
+        Objects.checkIndex(instant, epochMillis.length);
+        return instant * bodies.size() + body;
+    }
+
+    /**
+     * getter method for the number of bodies
+     * @return number of queried bodies
+     */
+    public int bodyCount() {
+        return bodies.size();
+    }
+
+    /**
+     * getter method for the number of instants
+     * @return number of queried instants
+     */
+    public int instantCount() {
+        return epochMillis.length;
+    }
+
+    /**
+     * getter method for the bodies
+     * @return immutable list of the queried bodies
+     */
+    public List<CelestialObjectModel<? extends CelestialObject>> bodies() {
+        return bodies;
+    }
+
+    /**
+     * getter method for the instants
+     * @return copy of the queried instants, in milliseconds since 1970-01-01T00:00Z
+     */
+    public long[] epochMillis() {
+        return epochMillis.clone();
+    }
+
+    /**
+     * getter method for the right ascensions
+     * @return copy of the column of right ascensions, in radians
+     */
+    public double[] ra() {
+        return ra.clone();
+    }
+
+    /**
+     * getter method for the declinations
+     * @return copy of the column of declinations, in radians
+     */
+    public double[] dec() {
+        return dec.clone();
+    }
+
+    /**
+     * getter method for the azimuths
+     * @return copy of the column of azimuths, in radians
+     */
+    public double[] az() {
+        return az.clone();
+    }
+
+    /**
+     * getter method for the altitudes
+     * @return copy of the column of altitudes, in radians
+     */
+    public double[] alt() {
+        return alt.clone();
+    }
+
+    /**
+     * getter method for the magnitudes
+     * @return copy of the column of magnitudes
+     */
+    public double[] magnitude() {
+        return magnitude.clone();
+    }
+
+    /**
+     * getter method for the angular sizes
+     * @return copy of the column of angular sizes, in radians
+     */
+    public double[] angularSize() {
+        return angularSize.clone();
+    }
+
+    /**
+     * (nested static class)
+     * task computing a range of instants, split in two halves as long as it is larger than PARALLEL_THRESHOLD
+     * each half writes to its own disjoint ranges of the columns
+     */
+    private static final class InstantsTask extends RecursiveAction {
+
+        /**
+         * version of the serialized form (a RecursiveAction being serializable), the task is never serialized
+         */
+        private static final long serialVersionUID = 1L;
+
+        private final EphemerisColumns columns;
+        private final GeographicCoordinates observer;
+        private final int from;
+        private final int to;
+
+        /**
+         * constructor
+         * @param columns - columns being computed
+         * @param observer - position of the observer
+         * @param from - first instant (included)
+         * @param to - last instant (excluded)
+         */
+        private InstantsTask(EphemerisColumns columns, GeographicCoordinates observer, int from, int to) {
+            this.columns = columns;
+            this.observer = observer;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * computes the range directly if it is small enough, splits it in two subtasks otherwise
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                columns.computeInstants(observer, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new InstantsTask(columns, observer, from, middle),
+                        new InstantsTask(columns, observer, middle, to));
+            }
+        }
+    }
+}
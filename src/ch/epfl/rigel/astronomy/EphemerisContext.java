@@ -0,0 +1,129 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * Ephemeris context : everything the models of celestial objects share at a given instant
+ * (date, ecliptic to equatorial conversion, Sun & Earth's orbit), each shared value being computed at most once
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class EphemerisContext {
+
+    /**
+     * date & conversion given at construction
+     */
+    private final double daysSinceJ2010;
+    private final EclipticToEquatorialConversion eclToEq;
+
+    /**
+     * memoized values, computed on first access
+     */
+    private Sun sun;
+    private boolean earthComputed;
+    private double earthRadius;
+    private double earthLongitude;
+
+    /**
+     * public constructor
+     * @param daysSinceJ2010 - days (can be negative) since J2010
+     * @param eclToEq - ecliptic to equatorial coordinates conversion at the same instant
+     * @throws NullPointerException if eclToEq is null
+     */
+    public EphemerisContext(double daysSinceJ2010, EclipticToEquatorialConversion eclToEq) {
+        this.daysSinceJ2010 = daysSinceJ2010;
+        this.eclToEq = Objects.requireNonNull(eclToEq, "no conversion");
+    }
+
+    /**
+     * public constructor
+     * @param when - the instant
+     */
+    public EphemerisContext(ZonedDateTime when) {
+        this(when.toInstant().toEpochMilli());
+    }
+
+    /**
+     * public constructor, primitive version of EphemerisContext(ZonedDateTime)
+     * @param epochMillis - the instant, in milliseconds since 1970-01-01T00:00Z
+     */
+    public EphemerisContext(long epochMillis) {
+        this(Epoch.J2010.daysUntil(epochMillis), new EclipticToEquatorialConversion(epochMillis));
+    }
+
+    /**
+     * getter method for the date
+     * @return days since J2010
+     */
+    public double daysSinceJ2010() {
+        return daysSinceJ2010;
+    }
+
+    /**
+     * getter method for the ecliptic to equatorial conversion
+     * @return ecliptic to equatorial coordinates conversion at the instant of .this
+     */
+    public EclipticToEquatorialConversion eclToEq() {
+        return eclToEq;
+    }
+
+    /**
+     * gives the Sun at the instant of .this, computed once
+     * @return the Sun
+     */
+    public Sun sun() {
+        if (sun == null) {
+            sun = SunModel.SUN.at(daysSinceJ2010, eclToEq);
+        }
+        return sun;
+    }
+
+    /**
+     * gives the mean anomaly of the Sun
+     * @return mean anomaly of the Sun in radians
+     */
+    public double sunMeanAnomaly() {
+        return sun().meanAnomaly();
+    }
+
+    /**
+     * gives the geocentric ecliptic longitude of the Sun
+     * @return ecliptic longitude of the Sun in radians
+     */
+    public double sunEclipticLon() {
+        return sun().eclipticPos().lon();
+    }
+
+    /**
+     * gives the distance between the Earth & the Sun, computed once
+     * @return radius of Earth's orbit in UA
+     */
+    public double earthRadius() {
+        computeEarth();
+        return earthRadius;
+    }
+
+    /**
+     * gives the heliocentric ecliptic longitude of the Earth, computed once
+     * @return longitude of the Earth in radians
+     */
+    public double earthLongitude() {
+        computeEarth();
+        return earthLongitude;
+    }
+
+    /**
+     * computes the position of the Earth on its orbit if it was not already done
+     */
+    private void computeEarth() {
+        if (!earthComputed) {
+            double earthTrueAnomaly = PlanetModel.EARTH.trueAnomalyAt(daysSinceJ2010);
+            earthRadius = PlanetModel.EARTH.radiusFor(earthTrueAnomaly);
+            earthLongitude = PlanetModel.EARTH.longitudeFor(earthTrueAnomaly);
+            earthComputed = true;
+        }
+    }
+}
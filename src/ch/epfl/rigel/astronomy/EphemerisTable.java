@@ -0,0 +1,426 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.rigel.math.ChebyshevSeries;
+import ch.epfl.rigel.math.ClosedInterval;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Ephemeris table : the positions, angular sizes & magnitudes of a celestial object over a range of dates,
+ * tabulated once from its analytic model as piecewise Chebyshev series
+ * evaluating a table costs a few multiply-adds per series instead of the full orbital solution of the model
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class EphemerisTable {
+
+    /**
+     * binary format : magic number ("RGET") & version
+     */
+    private static final int MAGIC = 0x52474554;
+    private static final int VERSION = 1;
+
+    /**
+     * fitted quantities of each segment, in this order : components of the equatorial unit vector, angular size,
+     * brightness (10^(-0.4 * magnitude), which stays smooth when the phase of a planet tends to 0 unlike its magnitude)
+     */
+    private static final int UNIT_X = 0, UNIT_Y = 1, UNIT_Z = 2, ANGULAR_SIZE = 3, BRIGHTNESS = 4;
+    private static final int SERIES_PER_SEGMENT = 5;
+
+    /**
+     * a segment is halved at most this number of times when the error bound is not reached
+     */
+    private static final int MAX_SPLITS = 16;
+
+    /**
+     * maximal error of the tabulated magnitude, checked only when the object is brighter than MAGNITUDE_LIMIT
+     * (an inferior planet gets arbitrarily faint at inferior conjunction)
+     */
+    private static final double MAX_MAGNITUDE_ERROR = 1e-3;
+    private static final double MAGNITUDE_LIMIT = 8;
+
+    /**
+     * degree of the series (degree), verified error bound on the position in radians (maxError),
+     * bounds of the segments in days since J2010 (boundaries, increasing, one more than segments)
+     * & series of each segment (series[segment][quantity])
+     */
+    private final int degree;
+    private final double maxError;
+    private final double[] boundaries;
+    private final ChebyshevSeries[][] series;
+
+    /**
+     * private constructor
+     * @param degree - degree of the series
+     * @param maxError - verified error bound on the position in radians
+     * @param boundaries - bounds of the segments
+     * @param series - series of each segment
+     */
+    private EphemerisTable(int degree, double maxError, double[] boundaries, ChebyshevSeries[][] series) {
+        this.degree = degree;
+        this.maxError = maxError;
+        this.boundaries = boundaries;
+        this.series = series;
+    }
+
+    /**
+     * tabulates the given model over the given range of dates
+     * each segment is fitted with series of the given degree, then the angle between the tabulated & the analytic
+     * positions, the error of the angular size & the error of the magnitude (when brighter than MAGNITUDE_LIMIT)
+     * are checked between the nodes of the series ;
+     * a segment failing the check is halved until it passes
+     * @param model - model of the celestial object (Sun, Moon or planet other than the Earth)
+     * @param days - range of dates to tabulate, in days since J2010
+     * @param segmentDays - initial length of the segments, in days
+     * @param degree - degree of the series
+     * @param maxError - maximal error of the tabulated position & angular size, in radians
+     * @return the table
+     * @throws IllegalArgumentException if segmentDays or maxError is not strictly positive, if degree is smaller than 1,
+     * if the model does not give any object (Earth) or if the error bound cannot be reached
+     */
+    public static EphemerisTable tabulate(CelestialObjectModel<? extends CelestialObject> model, ClosedInterval days,
+                                          double segmentDays, int degree, double maxError) {
+        Preconditions.checkArgument(segmentDays > 0 && degree >= 1 && maxError > 0);
+        Preconditions.checkArgument(model.at(new EphemerisContext(days.low(), eclToEqAt(days.low()))) != null);
+
+        Builder builder = new Builder(model, degree, maxError);
+        double start = days.low();
+        while (start < days.high()) {
+            double end = Math.min(start + segmentDays, days.high());
+            builder.fit(start, end, 0);
+            start = end;
+        }
+        return builder.build();
+    }
+
+    /**
+     * reads a table written by writeTo
+     * @param inputStream - input stream of the binary table
+     * @return the table
+     * @throws IOException in case of input/output error or if the stream does not contain a table
+     */
+    public static EphemerisTable readFrom(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("not an ephemeris table");
+        }
+        int degree = in.readInt();
+        double maxError = in.readDouble();
+        int segments = in.readInt();
+        if (degree < 1 || segments < 1) {
+            throw new IOException("invalid ephemeris table header");
+        }
+
+        double[] boundaries = new double[segments + 1];
+        for (int i = 0; i <= segments; ++i) {
+            boundaries[i] = in.readDouble();
+        }
+        ChebyshevSeries[][] series = new ChebyshevSeries[segments][SERIES_PER_SEGMENT];
+        for (int s = 0; s < segments; ++s) {
+            if (!(boundaries[s] < boundaries[s + 1])) {
+                throw new IOException("invalid ephemeris table segments");
+            }
+            ClosedInterval interval = ClosedInterval.of(boundaries[s], boundaries[s + 1]);
+            for (int q = 0; q < SERIES_PER_SEGMENT; ++q) {
+                double[] coefficients = new double[degree + 1];
+                for (int k = 0; k <= degree; ++k) {
+                    coefficients[k] = in.readDouble();
+                }
+                series[s][q] = ChebyshevSeries.of(interval, coefficients);
+            }
+        }
+        return new EphemerisTable(degree, maxError, boundaries, series);
+    }
+
+    /**
+     * writes .this in a compact binary format, readable by readFrom
+     * (header, bounds of the segments, then the coefficients of each series, all big-endian)
+     * the given stream is flushed but not closed
+     * @param outputStream - output stream in which the table is written
+     * @throws IOException in case of input/output error
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(degree);
+        out.writeDouble(maxError);
+        out.writeInt(series.length);
+        for (double boundary : boundaries) {
+            out.writeDouble(boundary);
+        }
+        for (ChebyshevSeries[] segment : series) {
+            for (ChebyshevSeries s : segment) {
+                for (double c : s.coefficients()) {
+                    out.writeDouble(c);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * gives the tabulated equatorial position at the given date
+     * @param daysSinceJ2010 - date, in days since J2010
+     * @return equatorial position of the object
+     * @throws IllegalArgumentException if the date is out of the tabulated range
+     */
+    public EquatorialCoordinates equatorialPosAt(double daysSinceJ2010) {
+        ChebyshevSeries[] segment = series[segmentIndex(daysSinceJ2010)];
+        double x = segment[UNIT_X].at(daysSinceJ2010);
+        double y = segment[UNIT_Y].at(daysSinceJ2010);
+        double z = segment[UNIT_Z].at(daysSinceJ2010);
+
+        double ra = Angle.normalizePositive(Math.atan2(y, x));
+        double dec = Math.atan2(z, Math.hypot(x, y));
+        return EquatorialCoordinates.of(ra < Angle.TAU ? ra : 0, dec);
+    }
+
+    /**
+     * gives the tabulated angular size at the given date
+     * @param daysSinceJ2010 - date, in days since J2010
+     * @return angular size of the object
+     * @throws IllegalArgumentException if the date is out of the tabulated range
+     */
+    public double angularSizeAt(double daysSinceJ2010) {
+        return series[segmentIndex(daysSinceJ2010)][ANGULAR_SIZE].at(daysSinceJ2010);
+    }
+
+    /**
+     * gives the tabulated magnitude at the given date
+     * @param daysSinceJ2010 - date, in days since J2010
+     * @return magnitude of the object
+     * @throws IllegalArgumentException if the date is out of the tabulated range
+     */
+    public double magnitudeAt(double daysSinceJ2010) {
+        return magnitudeOf(series[segmentIndex(daysSinceJ2010)][BRIGHTNESS].at(daysSinceJ2010));
+    }
+
+    /**
+     * getter method for the tabulated range
+     * @return range of dates of the table, in days since J2010
+     */
+    public ClosedInterval range() {
+        return ClosedInterval.of(boundaries[0], boundaries[boundaries.length - 1]);
+    }
+
+    /**
+     * getter method for the error bound
+     * @return maximal error of the tabulated position & angular size, in radians
+     */
+    public double maxError() {
+        return maxError;
+    }
+
+    /**
+     * getter method for the degree
+     * @return degree of the series
+     */
+    public int degree() {
+        return degree;
+    }
+
+    /**
+     * getter method for the number of segments
+     * @return number of segments of the table
+     */
+    public int segmentCount() {
+        return series.length;
+    }
+
+    /**
+     * finds the segment containing the given date by binary search among the bounds
+     * @param daysSinceJ2010 - date, in days since J2010
+     * @return index of the segment
+     * @throws IllegalArgumentException if the date is out of the tabulated range
+     */
+    private int segmentIndex(double daysSinceJ2010) {
+        Preconditions.checkArgument(range().contains(daysSinceJ2010));
+        int i = Arrays.binarySearch(boundaries, daysSinceJ2010);
+        int segment = (i >= 0) ? i : -i - 2;
+        return Math.min(segment, series.length - 1);
+    }
+
+    /**
+     * gives the magnitude corresponding to the given brightness
+     * @param brightness - 10^(-0.4 * magnitude), clamped to the smallest positive double
+     * @return the magnitude
+     */
+    private static double magnitudeOf(double brightness) {
+        return -2.5 * Math.log10(Math.max(brightness, Double.MIN_NORMAL));
+    }
+
+    /**
+     * gives the ecliptic to equatorial conversion at the given date
+     * @param daysSinceJ2010 - date, in days since J2010
+     * @return corresponding conversion
+     */
+    private static EclipticToEquatorialConversion eclToEqAt(double daysSinceJ2010) {
+        return new EclipticToEquatorialConversion(Epoch.J2010.epochMillisAfter(daysSinceJ2010));
+    }
+
+    /**
+     * builder accumulating the fitted segments of a table
+     */
+    private static final class Builder {
+
+        private final CelestialObjectModel<? extends CelestialObject> model;
+        private final int degree;
+        private final double maxError;
+        private double[] boundaries = new double[16];
+        private ChebyshevSeries[][] series = new ChebyshevSeries[16][];
+        private int count;
+
+        /**
+         * private constructor
+         * @param model - tabulated model
+         * @param degree - degree of the series
+         * @param maxError - maximal angular error in radians
+         */
+        private Builder(CelestialObjectModel<? extends CelestialObject> model, int degree, double maxError) {
+            this.model = model;
+            this.degree = degree;
+            this.maxError = maxError;
+        }
+
+        /**
+         * fits the segment [start, end], halving it as long as the error bound is not reached
+         * @param start - start of the segment
+         * @param end - end of the segment
+         * @param splits - number of times the segment was already halved
+         * @throws IllegalArgumentException if the error bound is not reached after MAX_SPLITS halvings
+         */
+        private void fit(double start, double end, int splits) {
+            ClosedInterval interval = ClosedInterval.of(start, end);
+            double[] nodes = ChebyshevSeries.nodes(interval, degree);
+            double[][] values = new double[SERIES_PER_SEGMENT][nodes.length];
+            for (int k = 0; k < nodes.length; ++k) {
+                CelestialObject object = objectAt(nodes[k]);
+                double[] u = unitVector(object.equatorialPos());
+                values[UNIT_X][k] = u[0];
+                values[UNIT_Y][k] = u[1];
+                values[UNIT_Z][k] = u[2];
+                values[ANGULAR_SIZE][k] = object.angularSize();
+                values[BRIGHTNESS][k] = Math.pow(10, -0.4 * object.magnitude());
+            }
+            ChebyshevSeries[] fitted = new ChebyshevSeries[SERIES_PER_SEGMENT];
+            for (int q = 0; q < SERIES_PER_SEGMENT; ++q) {
+                fitted[q] = ChebyshevSeries.interpolating(interval, values[q]);
+            }
+
+            if (withinBound(fitted, interval)) {
+                add(start, end, fitted);
+            } else {
+                Preconditions.checkArgument(splits < MAX_SPLITS);
+                double middle = (start + end) / 2;
+                fit(start, middle, splits + 1);
+                fit(middle, end, splits + 1);
+            }
+        }
+
+        /**
+         * checks the fitted series against the model at the bounds of the segment & between its nodes,
+         * where the interpolation error is the largest
+         * @param fitted - fitted series
+         * @param interval - fitted segment
+         * @return true if the errors are within the bounds at every checked date
+         */
+        private boolean withinBound(ChebyshevSeries[] fitted, ClosedInterval interval) {
+            int checks = 2 * (degree + 1);
+            for (int i = 0; i <= checks; ++i) {
+                double d = interval.low() + interval.size() * i / checks;
+                CelestialObject object = objectAt(d);
+                // angular sizes are given as floats by the models, their rounding is tolerated
+                double maxSizeError = maxError + Math.ulp((float) object.angularSize());
+                double magnitude = magnitudeOf(fitted[BRIGHTNESS].at(d));
+                boolean magnitudeOk = Math.abs(magnitude - object.magnitude()) <= MAX_MAGNITUDE_ERROR
+                        || (magnitude > MAGNITUDE_LIMIT && object.magnitude() > MAGNITUDE_LIMIT);
+                if (!(Math.abs(fitted[ANGULAR_SIZE].at(d) - object.angularSize()) <= maxSizeError && magnitudeOk)) {
+                    return false;
+                }
+                double[] u = unitVector(object.equatorialPos());
+                double x = fitted[UNIT_X].at(d);
+                double y = fitted[UNIT_Y].at(d);
+                double z = fitted[UNIT_Z].at(d);
+                double cross = Math.hypot(Math.hypot(y * u[2] - z * u[1], z * u[0] - x * u[2]), x * u[1] - y * u[0]);
+                double dot = x * u[0] + y * u[1] + z * u[2];
+                if (!(Math.atan2(cross, dot) <= maxError)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * appends a fitted segment
+         * @param start - start of the segment
+         * @param end - end of the segment
+         * @param fitted - series of the segment
+         */
+        private void add(double start, double end, ChebyshevSeries[] fitted) {
+            if (count + 1 >= boundaries.length) {
+                boundaries = Arrays.copyOf(boundaries, 2 * boundaries.length);
+                series = Arrays.copyOf(series, 2 * series.length);
+            }
+            boundaries[count] = start;
+            boundaries[count + 1] = end;
+            series[count] = fitted;
+            ++count;
+        }
+
+        /**
+         * builds the table from the segments fitted so far
+         * @return the table
+         */
+        private EphemerisTable build() {
+            return new EphemerisTable(degree, maxError,
+                    Arrays.copyOf(boundaries, count + 1), Arrays.copyOf(series, count));
+        }
+
+        /**
+         * computes the object at the given date with the analytic model
+         * @param daysSinceJ2010 - date, in days since J2010
+         * @return the object
+         */
+        private CelestialObject objectAt(double daysSinceJ2010) {
+            return model.at(new EphemerisContext(daysSinceJ2010, eclToEqAt(daysSinceJ2010)));
+        }
+
+        /**
+         * computes the unit vector of the given equatorial coordinates
+         * @param eq - equatorial coordinates
+         * @return components x, y & z of the unit vector
+         */
+        private static double[] unitVector(EquatorialCoordinates eq) {
+            double cosDec = Math.cos(eq.dec());
+            return new double[]{cosDec * Math.cos(eq.ra()), cosDec * Math.sin(eq.ra()), Math.sin(eq.dec())};
+        }
+    }
+
+    /**
+     * redefinition of equals
+     * @throws UnsupportedOperationException - can't compare real values
+     */
+    @Override
+    public boolean equals(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * redefinition of hashCode
+     * @throws UnsupportedOperationException - can't compare real values
+     */
+    @Override
+    public int hashCode() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -1,7 +1,6 @@
 package ch.epfl.rigel.astronomy;
 
 import java.time.*;
-import java.time.temporal.ChronoUnit;
 
 import static java.time.ZoneOffset.*;
 
@@ -28,9 +27,10 @@ public enum Epoch {
                     UTC));
 
     /**
-     * attribute of the enumeration
+     * attributes of the enumeration : the instant as a ZonedDateTime & as milliseconds since 1970-01-01T00:00Z
      */
     private final ZonedDateTime zonedDateTime;
+    private final long epochMillis;
     private static final int MILLI_SEC_IN_A_DAY = 1000 * 60 * 60 * 24;
     private static final int DAYS_IN_A_CENTURY = 36525;
 
@@ -38,7 +38,10 @@ public enum Epoch {
      * private constructor
      * @param zonedDateTime1 - a ZonedDateTime
      */
-    private Epoch(ZonedDateTime zonedDateTime1){ this.zonedDateTime = zonedDateTime1; }
+    private Epoch(ZonedDateTime zonedDateTime1){
+        this.zonedDateTime = zonedDateTime1;
+        this.epochMillis = zonedDateTime1.toInstant().toEpochMilli();
+    }
 
     /**
      * return the number of days between the given instant and the instant to which it is applied (can be negative or not an integer)
@@ -47,10 +50,31 @@ public enum Epoch {
      * @return number of days (double) between the given day parameter and one of the enumerations
      */
     public double daysUntil(ZonedDateTime when){
-        long milliSecDiff = this.zonedDateTime.until(when, ChronoUnit.MILLIS);
+        return daysUntil(when.toInstant().toEpochMilli());
+    }
+
+    /**
+     * return the number of days between the given instant and the instant to which it is applied (can be negative or not an integer)
+     * primitive version of daysUntil(ZonedDateTime), no java.time object is used
+     *
+     * @param epochMillis - date to be compared with, in milliseconds since 1970-01-01T00:00Z
+     * @return number of days (double) between the given instant and one of the enumerations
+     */
+    public double daysUntil(long epochMillis){
+        long milliSecDiff = epochMillis - this.epochMillis;
         return (double)milliSecDiff/(MILLI_SEC_IN_A_DAY);
     }
 
+    /**
+     * inverse of daysUntil(long) : gives the instant lying the given number of days after the epoch
+     *
+     * @param days - number of days (can be negative or not an integer) after the epoch
+     * @return the instant, in milliseconds since 1970-01-01T00:00Z, rounded to the nearest millisecond
+     */
+    long epochMillisAfter(double days){
+        return epochMillis + Math.round(days*MILLI_SEC_IN_A_DAY);
+    }
+
     /**
      * gives the number of centuries (can be negative or not an integer) between the given date & time and the used epoch
      *
@@ -58,7 +82,18 @@ public enum Epoch {
      * @return number of julian centuries (double) between the given day parameter and one of the enumerations
      */
     public double julianCenturiesUntil(ZonedDateTime when){
-        double centuries = daysUntil(when);
+        return julianCenturiesUntil(when.toInstant().toEpochMilli());
+    }
+
+    /**
+     * gives the number of centuries (can be negative or not an integer) between the given instant and the used epoch
+     * primitive version of julianCenturiesUntil(ZonedDateTime), no java.time object is used
+     *
+     * @param epochMillis - date to be compared with, in milliseconds since 1970-01-01T00:00Z
+     * @return number of julian centuries (double) between the given instant and one of the enumerations
+     */
+    public double julianCenturiesUntil(long epochMillis){
+        double centuries = daysUntil(epochMillis);
         return centuries/(DAYS_IN_A_CENTURY);
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,13 @@
 package ch.epfl.rigel.astronomy;
 
+import ch.epfl.rigel.CsvParser;
 import ch.epfl.rigel.coordinates.EquatorialCoordinates;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Loader for Stars from an external CSV text document
@@ -17,55 +21,159 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
      */
     INSTANCE;
 
+    /**
+     * columns of the CSV document that are read
+     */
+    private static final int HIP = 1;
+    private static final int PROPER = 6;
+    private static final int MAG = 13;
+    private static final int CI = 16;
+    private static final int RARAD = 23;
+    private static final int DECRAD = 24;
+    private static final int PMRARAD = 25;
+    private static final int PMDECRAD = 26;
+    private static final int BAYER = 27;
+    private static final int CON = 29;
+
     /**
      * redefinition of load method from Loader (super -) interface
      * reads the 37 columns of formatted CSV document
-     * retains only name, hipparcosId, magnitude, coordinates & color index
+     * retains only name, hipparcosId, magnitude, coordinates, color index & proper motion; the fields of the other
+     * attributes (distance, spectral type...) are kept unparsed & only parsed when asked (see StarDetails)
+     * the names are kept in a table shared by the stars of the document (see StarNames)
+     * the document is parsed byte by byte, in chunks of lines parsed concurrently (see CsvParser); the names are then
+     * added to the table in the order of the document, so that their references do not depend on the scheduling of
+     * the chunks & the table is never locked
      *
-     * creates corresponding stars, which will be added to the StarCatalogue.Builder (parameter)
+     * creates corresponding stars, which will be added to the StarCatalogue.Builder (parameter) in the order of the document
      * @param inputstream - the document
      * @param builder - from StarCatalogue.Builder
-     * @throws IOException received from "try with resources" bloc, in which we declare & initialise the Reader
+     * @throws IOException received from "try with resources" bloc, in which we declare the stream
      */
     @Override
     public void load(InputStream inputstream, StarCatalogue.Builder builder) throws IOException {
-        try (BufferedReader r = new BufferedReader(new InputStreamReader(inputstream, StandardCharsets.US_ASCII))) {
-
-            String line = r.readLine();
-            while ((line = r.readLine()) != null) {
-                String[] parts = line.split(",");
-
-                int hipparcosId = 0;
-                String name = "";
-                EquatorialCoordinates eq = EquatorialCoordinates.of(Double.parseDouble(parts[23]), Double.parseDouble(parts[24]));
-                float magnitude = 0;
-                float colorIndex = 0;
-
-                if (!(parts[1].isBlank())){
-                    hipparcosId = Integer.parseInt(parts[1]);
-                }
-
-                if(!(parts[6].isBlank())){
-                    name += parts[6];
-                }
-                else if(!(parts[27].isBlank())){
-                    name += parts[27] + " " + parts[29];
-                }
-                else{
-                    name += "?" + " " + parts[29];
-                }
-
-                if(!(parts[13].isBlank())){
-                   magnitude = Float.parseFloat(parts[13]);
-                }
-
-                if(!(parts[16].isBlank())){
-                    colorIndex = (float)Double.parseDouble(parts[16]);
-                }
-
-                Star s = new Star(hipparcosId, name, eq, magnitude, colorIndex);
+        StarNames names = new StarNames();
+        try (InputStream in = inputstream) {
+            ByteBuffer document = CsvParser.bufferOf(in);
+            StarDetails details = new StarDetails();
+            List<Line> lines = CsvParser.parse(document, 1, row -> line(document, row));
+            List<Star> stars = new ArrayList<>(lines.size());
+            int[] lineStarts = new int[lines.size()];
+            byte[][] detailFields = new byte[lines.size()][];
+            for (int k = 0; k < lines.size(); ++k) {
+                Line line = lines.get(k);
+                stars.add(line.star(names, details));
+                lineStarts[k] = line.lineStart;
+                detailFields[k] = line.detailFields;
+            }
+            // only the fields of the secondary attributes, copied while parsing, are kept, not the document
+            details.keepFields(lineStarts, detailFields);
+            for (Star s : stars) {
                 builder.addStar(s);
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * reads the attributes of the star of a line of the document, without adding its name to the table, & copies the
+     * fields of its secondary attributes (see StarDetails.fieldsOf)
+     * @param document - the document
+     * @param row - the line
+     * @return attributes of the star
+     */
+    private static Line line(ByteBuffer document, CsvParser.Row row) {
+        int hipparcosId = 0;
+        EquatorialCoordinates eq = EquatorialCoordinates.of(row.parseDouble(RARAD), row.parseDouble(DECRAD));
+        float magnitude = 0;
+        float colorIndex = 0;
+        float properMotionRa = 0;
+        float properMotionDec = 0;
+
+        if (!(row.isBlank(HIP))){
+            hipparcosId = row.parseInt(HIP);
+        }
+
+        if(!(row.isBlank(MAG))){
+            magnitude = row.parseFloat(MAG);
+        }
+
+        if(!(row.isBlank(CI))){
+            colorIndex = (float) row.parseDouble(CI);
+        }
+
+        if(!(row.isBlank(PMRARAD))){
+            properMotionRa = (float) row.parseDouble(PMRARAD);
+        }
+
+        if(!(row.isBlank(PMDECRAD))){
+            properMotionDec = (float) row.parseDouble(PMDECRAD);
+        }
+
+        String proper = row.isBlank(PROPER) ? null : row.string(PROPER);
+        String bayer = row.isBlank(BAYER) ? "?" : row.string(BAYER);
+        return new Line(hipparcosId, eq, magnitude, colorIndex, properMotionRa, properMotionDec,
+                proper, bayer, row.string(CON), row.lineStart(), StarDetails.fieldsOf(document, row));
+    }
+
+    /**
+     * (nested static class)
+     * attributes of the star of a line of the document, read concurrently, whose name is not yet in the table
+     */
+    private static final class Line {
+
+        private final int hipparcosId;
+        private final EquatorialCoordinates eq;
+        private final float magnitude;
+        private final float colorIndex;
+        private final float properMotionRa;
+        private final float properMotionDec;
+        private final String proper;
+        private final String bayer;
+        private final String constellation;
+        private final int lineStart;
+        private final byte[] detailFields;
+
+        /**
+         * constructor
+         * @param hipparcosId - the hipparcos index, 0 if unknown
+         * @param eq - equatorial position at J2000
+         * @param magnitude - of the star
+         * @param colorIndex - of the star
+         * @param properMotionRa - proper motion in right ascension, multiplied by cos(dec), in radians per Julian year
+         * @param properMotionDec - proper motion in declination, in radians per Julian year
+         * @param proper - proper name, null if there is none
+         * @param bayer - Bayer code, "?" if there is none
+         * @param constellation - code of the constellation
+         * @param lineStart - start of the line in the document
+         * @param detailFields - fields of the secondary attributes of the star, copied from the line
+         */
+        private Line(int hipparcosId, EquatorialCoordinates eq, float magnitude, float colorIndex,
+                     float properMotionRa, float properMotionDec, String proper, String bayer, String constellation,
+                     int lineStart, byte[] detailFields) {
+            this.hipparcosId = hipparcosId;
+            this.eq = eq;
+            this.magnitude = magnitude;
+            this.colorIndex = colorIndex;
+            this.properMotionRa = properMotionRa;
+            this.properMotionDec = properMotionDec;
+            this.proper = proper;
+            this.bayer = bayer;
+            this.constellation = constellation;
+            this.lineStart = lineStart;
+            this.detailFields = detailFields;
+        }
+
+        /**
+         * creates the star of the line, adding its name to the table : its proper name if it has one, its Bayer &
+         * constellation codes otherwise
+         * @param names - table in which the name of the star is added
+         * @param details - secondary attributes of the stars of the document
+         * @return corresponding star
+         */
+        private Star star(StarNames names, StarDetails details) {
+            int name = (proper != null) ? names.addProper(proper, constellation) : names.add(bayer, constellation);
+            return new Star(hipparcosId, names, name, eq, magnitude, colorIndex, properMotionRa, properMotionDec,
+                    details, lineStart);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from int keys (e.g. Hipparcos ids) to indices (non-negative ints), without boxing
+ * open addressing with linear probing in two arrays whose capacity is a power of two
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+final class IntIndexMap {
+
+    /**
+     * value of the empty slots & of the absent keys
+     */
+    static final int ABSENT = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * package private constructor
+     * @param expectedSize - number of keys the map should hold without growing
+     */
+    IntIndexMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, 2 * expectedSize) - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, ABSENT);
+    }
+
+    /**
+     * gives the index associated with a key
+     * @param key - the key
+     * @return its index, or ABSENT if there is none
+     */
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != ABSENT; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return ABSENT;
+    }
+
+    /**
+     * associates an index with a key, unless the key already has one
+     * @param key - the key
+     * @param index - the index, non-negative
+     * @return the index previously associated with the key (which is kept), or ABSENT if there was none
+     */
+    int putIfAbsent(int key, int index) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; values[slot] != ABSENT; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        keys[slot] = key;
+        values[slot] = index;
+        if (2 * ++size > keys.length) {
+            grow();
+        }
+        return ABSENT;
+    }
+
+    /**
+     * gives the number of keys
+     * @return number of keys of the map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * gives the first slot of a key
+     * @param key - the key
+     * @param mask - capacity - 1
+     * @return slot, from a multiplicative hash of the key
+     */
+    private static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * doubles the capacity of the map
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[2 * oldKeys.length];
+        values = new int[2 * oldValues.length];
+        Arrays.fill(values, ABSENT);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldValues[i] != ABSENT) {
+                int slot = slot(oldKeys[i], mask);
+                while (values[slot] != ABSENT) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
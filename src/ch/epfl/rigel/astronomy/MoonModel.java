@@ -41,17 +41,28 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
      */
     @Override
     public Moon at(double daysSinceJ2010, EclipticToEquatorialConversion eclToEq) {
+        return at(new EphemerisContext(daysSinceJ2010, eclToEq));
+    }
+
+    /**
+     * calculator method for a model of the Moon, at the instant of the given context
+     * the Sun is taken from the context instead of being computed again
+     *
+     * @param context - ephemeris context of the instant
+     * @return corresponding Moon (in time & space)
+     */
+    @Override
+    public Moon at(EphemerisContext context) {
 
+        double daysSinceJ2010 = context.daysSinceJ2010();
 
         /*
          * declaration & initialisation of variables (in order)
-         * Sun respective to given parameters (s)
          * Sun's mean anomaly (sunMeanAnomaly)
          * Sun's ecliptic longitude (sunEclLon)
          */
-       Sun s =  SunModel.SUN.at(daysSinceJ2010, eclToEq);
-       double sunMeanAnomaly = s.meanAnomaly();
-       double sunEclLon = s.eclipticPos().lon();
+       double sunMeanAnomaly = context.sunMeanAnomaly();
+       double sunEclLon = context.sunEclipticLon();
 
 
         /*
@@ -116,13 +127,13 @@ public enum MoonModel implements CelestialObjectModel<Moon> {
         /*
          * declaration & initialisation of variables to calculate the coordinate conversion (in order)
          * ecliptic coordinates from calculated lon & lat (ecl)
-         * relative equatorial coordinates (eq) - obtained through conversion using eclToEq parameter
+         * relative equatorial coordinates (eq) - obtained through conversion of the context
          */
 
         eclLon = Angle.normalizePositive(eclLon);
 
         EclipticCoordinates ecl = EclipticCoordinates.of(eclLon, eclLat);
-        EquatorialCoordinates eq = eclToEq.apply(ecl);
+        EquatorialCoordinates eq = context.eclToEq().apply(ecl);
 
         return new Moon(eq, (float)angularSizeFromEarth, 0, (float)phaseF);
     }
@@ -2,9 +2,12 @@ package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.*;
+import ch.epfl.rigel.math.Angle;
 
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Observed Sky
@@ -24,9 +27,69 @@ public final class ObservedSky {
     private final List<Planet> allObservedPlanets;
     private final List<CartesianCoordinates> planetPos;
 
-    private final Map<Integer, CartesianCoordinates> starPos;
+    private final double[] starX;
+    private final double[] starY;
     private final StarCatalogue starCatalogue;
 
+    /**
+     * sorted indices of the stars whose positions are computed in culling mode (starX & starY being then at the same
+     * positions), null in full mode (starX & starY being then indexed as in the catalogue)
+     */
+    private final int[] starIndices;
+
+    /**
+     * atmosphere refracting the positions & dimming the magnitudes (null if it is ignored), & extinctions of the stars,
+     * at the same positions as starX & starY, & of the planets, in the same order as planets() (null without atmosphere)
+     */
+    private final Atmosphere atmosphere;
+    private final float[] starExtinction;
+    private final double[] planetExtinction;
+
+    /**
+     * parameters kept to derive the following frames (advancedTo) :
+     * observer's position, projection, pool, last exactly computed star projection (anchor) & its date in days since J2010
+     */
+    private final GeographicCoordinates observerPos;
+    private final StereographicProjection projection;
+    private final ForkJoinPool pool;
+    private final EquatorialToCartesianProjection anchorProjection;
+    private final double anchorDays;
+
+    /**
+     * field of view & margin of the culling mode (infinite field of view in full mode)
+     */
+    private final double fieldOfView;
+    private final double margin;
+
+    /**
+     * store mode : store of the stars (null in the other modes), limiting magnitude of its queries & center of the cone
+     * whose stars form starCatalogue
+     */
+    private final TiledStarStore starStore;
+    private final double maxMagnitude;
+    private final EquatorialCoordinates windowCentre;
+
+    /**
+     * maximal time in days between an incrementally derived sky & the last exactly computed one
+     */
+    static final double MAX_INCREMENTAL_DAYS = 1;
+
+    /**
+     * number of stars below which the projection of the stars is not split anymore between the threads of a pool
+     */
+    static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * angular radius of the visible cap above which all the stars are projected, culling them costing then
+     * about as much as projecting them (the cap covers a quarter of the sky)
+     */
+    static final double MAX_CULLING_RADIUS = Angle.ofDeg(60);
+
+    /**
+     * angle added to the radius of the visible cap for the cones queried from a store, so that the stars of a cone
+     * can be kept while the sky turns (about 40 minutes)
+     */
+    static final double STORE_WINDOW_MARGIN = Angle.ofDeg(10);
 
     /**
      * public constructor
@@ -37,36 +100,423 @@ public final class ObservedSky {
      * @param starC - used StarCatalogue
      */
     public ObservedSky(ZonedDateTime inst, GeographicCoordinates pos, StereographicProjection sterProj, StarCatalogue starC){
+        this(inst, pos, sterProj, starC, null);
+    }
 
-        // initialise attributes used in coordinate conversions
-        double daySinceJ2010 = Epoch.J2010.daysUntil(inst);
-        EclipticToEquatorialConversion eclToEq = new EclipticToEquatorialConversion(inst);
-        EquatorialToHorizontalConversion eqToHor = new EquatorialToHorizontalConversion(inst, pos);
+    /**
+     * public constructor, parallel mode
+     * constructs all private final attributes, the stars being projected in chunks by the threads of the given pool
+     * (sequentially if the catalogue has less than PARALLEL_THRESHOLD stars); gives exactly the same sky as the sequential constructor
+     * @param inst - a ZonedDateTime representing the desired moment and timezone
+     * @param pos - in GeographicCoordinates
+     * @param sterProj - used Stereographic Projection
+     * @param starC - used StarCatalogue
+     * @param pool - pool in which the stars are projected, or null to project them sequentially on the calling thread
+     */
+    public ObservedSky(ZonedDateTime inst, GeographicCoordinates pos, StereographicProjection sterProj, StarCatalogue starC, ForkJoinPool pool){
+        this(inst.toInstant().toEpochMilli(), pos, sterProj, starC, pool, Double.POSITIVE_INFINITY, 0,
+                null, Double.POSITIVE_INFINITY, null, null);
+    }
+
+    /**
+     * public constructor, field of view culling mode
+     * only the stars lying in the visible cap (centered on the center of the projection, of angular radius
+     * fieldOfView / 2 + margin) & the ones of the asterisms get a position, found with the sky index of the catalogue;
+     * the other ones are at (NaN, NaN). All the stars are projected if the visible cap is larger than MAX_CULLING_RADIUS
+     * @param inst - a ZonedDateTime representing the desired moment and timezone
+     * @param pos - in GeographicCoordinates
+     * @param sterProj - used Stereographic Projection
+     * @param starC - used StarCatalogue
+     * @param pool - pool in which the stars are projected, or null to project them sequentially on the calling thread
+     * @param fieldOfView - angular diameter of the viewed part of the sky around the center of the projection, in radians
+     *                    (can be infinite)
+     * @param margin - angle added to the radius of the visible cap, in radians
+     * @throws IllegalArgumentException if fieldOfView or margin is negative or NaN
+     */
+    public ObservedSky(ZonedDateTime inst, GeographicCoordinates pos, StereographicProjection sterProj, StarCatalogue starC,
+                       ForkJoinPool pool, double fieldOfView, double margin){
+        this(inst, pos, sterProj, starC, pool, fieldOfView, margin, (Atmosphere) null);
+    }
+
+    /**
+     * public constructor, field of view culling mode through an atmosphere
+     * as the culling mode, the horizontal positions of all the objects being raised by the refraction of the atmosphere
+     * & the magnitudes of the stars & planets increased by its extinction (see starApparentMagnitude & planetApparentMagnitude);
+     * the visible cap is enlarged by the largest refraction, so that no star refracted into it is culled
+     * @param inst - a ZonedDateTime representing the desired moment and timezone
+     * @param pos - in GeographicCoordinates
+     * @param sterProj - used Stereographic Projection
+     * @param starC - used StarCatalogue
+     * @param pool - pool in which the stars are projected, or null to project them sequentially on the calling thread
+     * @param fieldOfView - angular diameter of the viewed part of the sky around the center of the projection, in radians
+     *                    (can be infinite)
+     * @param margin - angle added to the radius of the visible cap, in radians
+     * @param atmosphere - atmosphere of the observer, or null to ignore it
+     * @throws IllegalArgumentException if fieldOfView or margin is negative or NaN
+     */
+    public ObservedSky(ZonedDateTime inst, GeographicCoordinates pos, StereographicProjection sterProj, StarCatalogue starC,
+                       ForkJoinPool pool, double fieldOfView, double margin, Atmosphere atmosphere){
+        this(inst.toInstant().toEpochMilli(), pos, sterProj, starC, pool, checkNonNegative(fieldOfView), checkNonNegative(margin),
+                null, Double.POSITIVE_INFINITY, null, atmosphere);
+    }
+
+    /**
+     * public constructor, store mode
+     * the stars are the ones of the store at most as faint as maxMagnitude lying in a cone around the center of the
+     * projection (the visible cap enlarged by STORE_WINDOW_MARGIN), & the ones of the asterisms : only the tiles of the
+     * store intersecting the cone are read. Their catalogue (stars()) is kept by advancedTo while the visible cap stays in
+     * the cone, the stars being culled to the visible cap as in culling mode
+     * @param inst - a ZonedDateTime representing the desired moment and timezone
+     * @param pos - in GeographicCoordinates
+     * @param sterProj - used Stereographic Projection
+     * @param store - store of the stars
+     * @param pool - pool in which the stars are projected, or null to project them sequentially on the calling thread
+     * @param fieldOfView - angular diameter of the viewed part of the sky around the center of the projection, in radians
+     *                    (can be infinite)
+     * @param margin - angle added to the radius of the visible cap, in radians
+     * @param maxMagnitude - limiting magnitude of the stars read from the store
+     * @throws IllegalArgumentException if fieldOfView or margin is negative or NaN
+     * @throws NullPointerException if store is null
+     * @throws java.io.UncheckedIOException if reading the store fails
+     */
+    public ObservedSky(ZonedDateTime inst, GeographicCoordinates pos, StereographicProjection sterProj, TiledStarStore store,
+                       ForkJoinPool pool, double fieldOfView, double margin, double maxMagnitude){
+        this(inst, pos, sterProj, store, pool, fieldOfView, margin, maxMagnitude, null);
+    }
+
+    /**
+     * public constructor, store mode through an atmosphere (see the culling mode through an atmosphere)
+     * @param inst - a ZonedDateTime representing the desired moment and timezone
+     * @param pos - in GeographicCoordinates
+     * @param sterProj - used Stereographic Projection
+     * @param store - store of the stars
+     * @param pool - pool in which the stars are projected, or null to project them sequentially on the calling thread
+     * @param fieldOfView - angular diameter of the viewed part of the sky around the center of the projection, in radians
+     *                    (can be infinite)
+     * @param margin - angle added to the radius of the visible cap, in radians
+     * @param maxMagnitude - limiting magnitude of the stars read from the store
+     * @param atmosphere - atmosphere of the observer, or null to ignore it
+     * @throws IllegalArgumentException if fieldOfView or margin is negative or NaN
+     * @throws NullPointerException if store is null
+     * @throws java.io.UncheckedIOException if reading the store fails
+     */
+    public ObservedSky(ZonedDateTime inst, GeographicCoordinates pos, StereographicProjection sterProj, TiledStarStore store,
+                       ForkJoinPool pool, double fieldOfView, double margin, double maxMagnitude, Atmosphere atmosphere){
+        this(inst.toInstant().toEpochMilli(), pos, sterProj, null, pool, checkNonNegative(fieldOfView), checkNonNegative(margin),
+                Objects.requireNonNull(store, "no store"), maxMagnitude, null, atmosphere);
+    }
 
+    /**
+     * validates an angle of the culling mode
+     * @param angle - angle in radians
+     * @return angle if it is positive or zero
+     * @throws IllegalArgumentException if angle is negative or NaN
+     */
+    private static double checkNonNegative(double angle){
+        Preconditions.checkArgument(angle >= 0);
+        return angle;
+    }
 
-        // compute sun, moon & planets
-        observedSun = SunModel.SUN.at(daySinceJ2010, eclToEq);
-        sunPos = sterProj.apply(eqToHor.apply(observedSun.equatorialPos()));
+    /**
+     * private constructor, the instant being given in milliseconds since 1970-01-01T00:00Z
+     * (the ZonedDateTime is converted once, the computations then use no java.time object)
+     * @param epochMillis - the instant
+     * @param pos - in GeographicCoordinates
+     * @param sterProj - used Stereographic Projection
+     * @param starC - used StarCatalogue
+     * @param pool - pool in which the stars are projected, or null to project them sequentially on the calling thread
+     * @param fieldOfView - angular diameter of the viewed part of the sky, infinite in full mode
+     * @param margin - angle added to the radius of the visible cap
+     * @param store - store of the stars in store mode, null otherwise
+     * @param maxMagnitude - limiting magnitude of the stars read from the store
+     * @param windowCentre - center of the cone whose stars form starC in store mode (null if starC is null)
+     * @param atmosphere - atmosphere of the observer, or null to ignore it
+     */
+    private ObservedSky(long epochMillis, GeographicCoordinates pos, StereographicProjection sterProj, StarCatalogue starC,
+                        ForkJoinPool pool, double fieldOfView, double margin,
+                        TiledStarStore store, double maxMagnitude, EquatorialCoordinates windowCentre, Atmosphere atmosphere){
+        this(epochMillis, pos, sterProj, starC, pool, fieldOfView, margin,
+                new EquatorialToCartesianProjection(new EquatorialToHorizontalConversion(epochMillis, pos), sterProj),
+                Epoch.J2010.daysUntil(epochMillis), store, maxMagnitude, windowCentre, atmosphere);
+    }
 
-        observedMoon = MoonModel.MOON.at(daySinceJ2010, eclToEq);
-        moonPos = sterProj.apply(eqToHor.apply(observedMoon.equatorialPos()));
+    /**
+     * private constructor used by the other ones & advancedTo
+     * the stars are projected by rotating the anchor projection around the celestial pole
+     * by the increase of the sidereal time since the anchor's date
+     * in store mode, the catalogue of the stars is queried again from the store unless the visible cap is still in the
+     * cone of starC
+     * @param epochMillis - the instant, in milliseconds since 1970-01-01T00:00Z
+     * @param pos - in GeographicCoordinates
+     * @param sterProj - used Stereographic Projection
+     * @param starC - used StarCatalogue (in store mode, the last one queried from the store or null)
+     * @param pool - pool in which the stars are projected, or null to project them sequentially on the calling thread
+     * @param fieldOfView - angular diameter of the viewed part of the sky, infinite in full mode
+     * @param margin - angle added to the radius of the visible cap
+     * @param anchor - projection of equatorial coordinates exactly computed at anchorDays for pos & sterProj
+     * @param anchorDays - date of the anchor in days since J2010
+     * @param store - store of the stars in store mode, null otherwise
+     * @param maxMagnitude - limiting magnitude of the stars read from the store
+     * @param windowCentre - center of the cone whose stars form starC in store mode (null if starC is null)
+     * @param atmosphere - atmosphere of the observer, or null to ignore it
+     */
+    private ObservedSky(long epochMillis, GeographicCoordinates pos, StereographicProjection sterProj, StarCatalogue starC,
+                        ForkJoinPool pool, double fieldOfView, double margin,
+                        EquatorialToCartesianProjection anchor, double anchorDays,
+                        TiledStarStore store, double maxMagnitude, EquatorialCoordinates windowCentre, Atmosphere atmosphere){
 
+        // initialise attributes used in coordinate conversions
+        double daySinceJ2010 = Epoch.J2010.daysUntil(epochMillis);
+        EphemerisContext ephemeris = new EphemerisContext(daySinceJ2010, new EclipticToEquatorialConversion(epochMillis));
+        EquatorialToCartesianProjection eqToPlane = (daySinceJ2010 == anchorDays)
+                ? anchor
+                : anchor.rotatedBy(SiderealTime.increaseDuring(daySinceJ2010 - anchorDays));
+        // the stars' coordinates are referred to J2000 : they are precessed & nutated to the date by the same rotation
+        // (the sun, moon & planets being computed in coordinates of date)
+        EquatorialToCartesianProjection starsToPlane = eqToPlane.withPrecession(PrecessionNutation.at(epochMillis));
+
+        observerPos = pos;
+        projection = sterProj;
+        this.pool = pool;
+        anchorProjection = anchor;
+        this.anchorDays = anchorDays;
+        this.fieldOfView = fieldOfView;
+        this.margin = margin;
+        this.atmosphere = atmosphere;
+
+        // compute sun, moon & planets, sharing the sun & earth's orbit through the ephemeris context
+        observedSun = SunModel.SUN.at(ephemeris);
+        sunPos = project(eqToPlane, observedSun.equatorialPos());
+
+        observedMoon = MoonModel.MOON.at(ephemeris);
+        moonPos = project(eqToPlane, observedMoon.equatorialPos());
+
+        // in store mode, the stars of a cone enclosing the visible cap with a margin
+        double visibleRadius = fieldOfView / 2 + margin;
+        if(store != null){
+            EquatorialCoordinates centre = starsToPlane.center();
+            if(starC == null || angularDistance(centre, windowCentre) > STORE_WINDOW_MARGIN){
+                starC = store.catalogue(centre, Math.min(Math.PI, visibleRadius + STORE_WINDOW_MARGIN), maxMagnitude);
+                windowCentre = centre;
+            }
+        }
         starCatalogue = starC;
+        starStore = store;
+        this.maxMagnitude = maxMagnitude;
+        this.windowCentre = windowCentre;
 
         planetPos = new ArrayList<>();
         allObservedPlanets = new ArrayList<>();
         for(PlanetModel p : PlanetModel.values()){
             if(!(p.name().equals("EARTH"))) {
-                Planet computedPlanet = p.at(daySinceJ2010, eclToEq);
+                Planet computedPlanet = p.at(ephemeris);
                 allObservedPlanets.add(computedPlanet);
-                planetPos.add(sterProj.apply(eqToHor.apply(computedPlanet.equatorialPos())));
+                planetPos.add(project(eqToPlane, computedPlanet.equatorialPos()));
+            }
+        }
+        if(atmosphere == null){
+            planetExtinction = null;
+        }
+        else{
+            planetExtinction = new double[allObservedPlanets.size()];
+            for(int i = 0; i < planetExtinction.length; ++i){
+                planetExtinction[i] = eqToPlane.extinction(allObservedPlanets.get(i).equatorialPos(), atmosphere);
             }
         }
 
-        // creates stars & stores their cartesian coords in a list
-        starPos = new HashMap<>();
-        for(Star s : starC.stars()){
-            starPos.put(s.hipparcosId(), sterProj.apply(eqToHor.apply(s.equatorialPos())));
+        // projects the stars' unit vectors, propagated to the instant with their proper motions, with a single rotation
+        // (including the precession & nutation)
+        // & stores their cartesian coords in two arrays, indexed as in the catalogue
+        double yearsSinceJ2000 = 100 * Epoch.J2000.julianCenturiesUntil(epochMillis);
+        StarPositions positions = starC.positionsAt(yearsSinceJ2000);
+        if(visibleRadius > MAX_CULLING_RADIUS){
+            starIndices = null;
+        }
+        else{
+            // the asterisms' stars are always projected, so that their lines can leave the field of view
+            // the refraction raising the stars by at most maxRefraction, the ones refracted into the visible cap are in the larger one
+            double coneRadius = (atmosphere == null) ? visibleRadius : visibleRadius + atmosphere.maxRefraction();
+            starIndices = union(starC.starsInCone(starsToPlane.center(), coneRadius, positions), starC.asterismStars());
+        }
+        int starCount = (starIndices == null) ? starC.stars().size() : starIndices.length;
+        starX = new double[starCount];
+        starY = new double[starCount];
+        starExtinction = (atmosphere == null) ? null : new float[starCount];
+        StarProjectionTask task = new StarProjectionTask(starsToPlane, atmosphere, positions, starIndices,
+                starX, starY, starExtinction, 0, starCount);
+        if(pool == null || starCount < PARALLEL_THRESHOLD){
+            // compute would fork the halves of a large catalogue onto the common pool when called outside of a pool
+            task.project(0, starCount);
+        }
+        else{
+            pool.invoke(task);
+        }
+    }
+
+    /**
+     * gives the sky seen at the given instant by the same observer, with the same projection & catalogue as .this
+     * used for animations : between two instants only the sidereal time changes for the stars, so their projection
+     * is derived from the last exactly computed one by a rotation around the celestial pole; it is computed exactly again
+     * once the given instant is more than MAX_INCREMENTAL_DAYS away from it. The sun, moon & planets are always computed exactly
+     * in store mode, the stars are queried again from the store once the visible cap left the cone of the current ones
+     * @param inst - the new instant
+     * @return the sky at the given instant
+     */
+    public ObservedSky advancedTo(ZonedDateTime inst){
+        long epochMillis = inst.toInstant().toEpochMilli();
+        if(Math.abs(Epoch.J2010.daysUntil(epochMillis) - anchorDays) > MAX_INCREMENTAL_DAYS){
+            return new ObservedSky(epochMillis, observerPos, projection, starCatalogue, pool, fieldOfView, margin,
+                    starStore, maxMagnitude, windowCentre, atmosphere);
+        }
+        return new ObservedSky(epochMillis, observerPos, projection, starCatalogue, pool, fieldOfView, margin,
+                anchorProjection, anchorDays, starStore, maxMagnitude, windowCentre, atmosphere);
+    }
+
+    /**
+     * projects a point of the sky, through the atmosphere of .this if there is one
+     * @param eqToPlane - projection of the equatorial coordinates
+     * @param eq - equatorial coordinates of the point
+     * @return cartesian coordinates of the point in the projection's plane
+     */
+    private CartesianCoordinates project(EquatorialToCartesianProjection eqToPlane, EquatorialCoordinates eq){
+        return (atmosphere == null) ? eqToPlane.apply(eq) : eqToPlane.apply(eq, atmosphere);
+    }
+
+    /**
+     * computes the angle between two points of the celestial sphere
+     * @param a - first point
+     * @param b - second point
+     * @return angle in radians, in [0, PI]
+     */
+    private static double angularDistance(EquatorialCoordinates a, EquatorialCoordinates b){
+        double cos = Math.sin(a.dec()) * Math.sin(b.dec()) + Math.cos(a.dec()) * Math.cos(b.dec()) * Math.cos(a.ra() - b.ra());
+        return Math.acos(Math.max(-1, Math.min(1, cos)));
+    }
+
+    /**
+     * merges two arrays of indices
+     * @param a - indices, sorted in place
+     * @param b - sorted indices without duplicates
+     * @return sorted indices of a or b, without duplicates
+     */
+    private static int[] union(int[] a, int[] b){
+        Arrays.sort(a);
+        int[] merged = new int[a.length + b.length];
+        int i = 0, j = 0, size = 0;
+        while(i < a.length || j < b.length){
+            int next = (j == b.length || (i < a.length && a[i] < b[j])) ? a[i++] : b[j++];
+            if(size == 0 || merged[size - 1] != next){
+                merged[size++] = next;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * checks whether .this was computed for the given observer's position & projection (same instances)
+     * i.e. whether advancedTo can be used to get the following frames
+     * @param pos - observer's position
+     * @param sterProj - projection
+     * @return true iff pos & sterProj are the ones used to build .this
+     */
+    public boolean isSeenFrom(GeographicCoordinates pos, StereographicProjection sterProj){
+        return observerPos == pos && projection == sterProj;
+    }
+
+    /**
+     * checks whether .this was computed for the given observer's position & projection (same instances),
+     * field of view & margin of the culling mode, i.e. whether advancedTo can be used to get the following frames
+     * @param pos - observer's position
+     * @param sterProj - projection
+     * @param fieldOfView - field of view of the culling mode (infinite for the full mode)
+     * @param margin - margin of the culling mode
+     * @return true iff the given parameters are the ones used to build .this
+     */
+    public boolean isSeenFrom(GeographicCoordinates pos, StereographicProjection sterProj, double fieldOfView, double margin){
+        return isSeenFrom(pos, sterProj) && this.fieldOfView == fieldOfView && this.margin == margin;
+    }
+
+    /**
+     * (nested static class)
+     * projection of a range of stars of the catalogue (or of a range of a list of star indices),
+     * split in halves between the threads of a ForkJoinPool
+     * every star is projected independently, so the result does not depend on the splitting
+     */
+    private static final class StarProjectionTask extends RecursiveAction {
+
+        /**
+         * version of the serialized form (a RecursiveAction being serializable), the task is never serialized
+         */
+        private static final long serialVersionUID = 1L;
+
+        private final EquatorialToCartesianProjection projection;
+        private final Atmosphere atmosphere;
+        private final StarPositions positions;
+        private final int[] indices;
+        private final double[] outX;
+        private final double[] outY;
+        private final float[] outExtinction;
+        private final int from;
+        private final int to;
+
+        /**
+         * constructor
+         * @param projection - projection applied to the unit vectors of the stars
+         * @param atmosphere - atmosphere refracting the stars before the projection, null if it is ignored
+         * @param positions - positions of the stars of the catalogue, whose unit vectors are projected
+         * @param indices - indices of the stars to project, null to project the stars of [from, to[ directly
+         * @param outX - array in which the x coordinates are written (at the same positions as in indices if given)
+         * @param outY - array in which the y coordinates are written (at the same positions as in indices if given)
+         * @param outExtinction - array in which the extinctions are written (at the same positions as in indices if given),
+         *                      null without atmosphere
+         * @param from - index of first star (or position in indices) to project (included)
+         * @param to - index of last star (or position in indices) to project (excluded)
+         */
+        private StarProjectionTask(EquatorialToCartesianProjection projection, Atmosphere atmosphere, StarPositions positions,
+                                   int[] indices, double[] outX, double[] outY, float[] outExtinction, int from, int to){
+            this.projection = projection;
+            this.atmosphere = atmosphere;
+            this.positions = positions;
+            this.indices = indices;
+            this.outX = outX;
+            this.outY = outY;
+            this.outExtinction = outExtinction;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * projects the range directly if it is small enough, splits it in two subtasks otherwise
+         */
+        @Override
+        protected void compute(){
+            if(to - from <= PARALLEL_THRESHOLD){
+                project(from, to);
+            }
+            else{
+                int middle = (from + to) >>> 1;
+                invokeAll(new StarProjectionTask(projection, atmosphere, positions, indices, outX, outY, outExtinction, from, middle),
+                        new StarProjectionTask(projection, atmosphere, positions, indices, outX, outY, outExtinction, middle, to));
+            }
+        }
+
+        /**
+         * projects a range of stars in the calling thread, without splitting it
+         * @param first - index of first star (or position in indices) to project (included)
+         * @param last - index of last star (or position in indices) to project (excluded)
+         */
+        private void project(int first, int last){
+            if(atmosphere != null){
+                projection.applyBatch(positions.unitX(), positions.unitY(), positions.unitZ(), indices, atmosphere,
+                        outX, outY, outExtinction, first, last);
+            }
+            else if(indices == null){
+                projection.applyBatch(positions.unitX(), positions.unitY(), positions.unitZ(), outX, outY, first, last);
+            }
+            else{
+                projection.applyBatch(positions.unitX(), positions.unitY(), positions.unitZ(), indices,
+                        outX, outY, first, last);
+            }
         }
     }
 
@@ -128,20 +578,286 @@ public final class ObservedSky {
 
     /**
      * getter method for all stars in star catalogue
-     * @return List of Stars
+     * the stars are created from the catalogue's columns when they are asked (see StarCatalogue.stars())
+     * @return immutable List of Stars
      */
     public List<Star> stars(){
-        return List.copyOf(starCatalogue.stars());
+        return starCatalogue.stars();
+    }
+
+    /**
+     * getter method for the magnitude of a star, read from the catalogue's columns without creating the star
+     * @param index - index of the star in stars()
+     * @return magnitude of the star
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    public double starMagnitude(int index){
+        return starCatalogue.starMagnitude()[index];
+    }
+
+    /**
+     * getter method for the apparent magnitude of a star, i.e. its magnitude increased by the extinction of the atmosphere
+     * @param index - index of the star in stars()
+     * @return apparent magnitude of the star (its magnitude without atmosphere, NaN if it was culled with one)
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    public double starApparentMagnitude(int index){
+        if(atmosphere == null){
+            return starMagnitude(index);
+        }
+        int k = positionOf(index);
+        return (k < 0) ? Double.NaN : computedStarApparentMagnitude(k);
+    }
+
+    /**
+     * getter method for the apparent magnitude of a planet, i.e. its magnitude increased by the extinction of the atmosphere
+     * @param index - index of the planet in planets()
+     * @return apparent magnitude of the planet (its magnitude without atmosphere)
+     * @throws IndexOutOfBoundsException if index is not a valid planet index
+     */
+    public double planetApparentMagnitude(int index){
+        double magnitude = allObservedPlanets.get(index).magnitude();
+        return (atmosphere == null) ? magnitude : magnitude + planetExtinction[index];
+    }
+
+    /**
+     * getter method for the atmosphere through which the sky is seen
+     * @return atmosphere of the observer, null if it is ignored
+     */
+    public Atmosphere atmosphere(){
+        return atmosphere;
     }
 
     /**
-     * getter method position of a star in cartesian coordinates in the projection's plane
-     * @param hipparcosId - to identify the star whose coordinates are to be fetched
-     * @return corresponding cartesian coordinates
+     * getter method for the color temperature of a star, read from the catalogue's columns without creating the star
+     * @param index - index of the star in stars()
+     * @return color temperature of the star
+     * @throws IndexOutOfBoundsException if index is not a valid star index
      */
-    public CartesianCoordinates starPosition(int hipparcosId){
-        Preconditions.checkArgument(starPos.containsKey((hipparcosId)));
-        return starPos.get(hipparcosId);
+    public int starColorTemperature(int index){
+        return starCatalogue.starColorTemperature(index);
+    }
+
+    /**
+     * getter method for the indices of the stars whose positions are computed
+     * @return sorted indices in stars() of the stars in the visible cap or in asterisms in culling mode, of all stars otherwise
+     */
+    public int[] starIndices(){
+        if(starIndices == null){
+            int[] all = new int[starCatalogue.stars().size()];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        return starIndices.clone();
+    }
+
+    /**
+     * gives the stars whose positions are computed & which are at most as faint as the given magnitude
+     * in full mode, the stars are read from the magnitude ordering of the catalogue, the faint ones never being visited
+     * @param maxMagnitude - limiting magnitude
+     * @return indices in stars() of the stars, brightest first in full mode & sorted in culling mode
+     */
+    public int[] starIndices(double maxMagnitude){
+        return toStarIndices(computedStars(maxMagnitude));
+    }
+
+    /**
+     * gives the stars of a selection whose positions are computed & that are at most as faint as the given magnitude,
+     * visiting only the selected stars
+     * @param selection - selection of stars of the catalogue of .this (see starCatalogue())
+     * @param maxMagnitude - limiting magnitude
+     * @return sorted indices in stars() of the selected stars that are computed & bright enough
+     * @throws IllegalArgumentException if the selection is not one of the catalogue of .this
+     */
+    public int[] starIndices(StarSelection selection, double maxMagnitude){
+        return toStarIndices(computedStars(selection, maxMagnitude));
+    }
+
+    /**
+     * getter method for the catalogue of the stars of .this, from which selections of its stars are made
+     * (in store mode, the catalogue of the stars read around the field of view)
+     * @return the star catalogue
+     */
+    public StarCatalogue starCatalogue(){
+        return starCatalogue;
+    }
+
+    /**
+     * getter method for positions of all stars in cartesian coordinates in the projection's plane in same order as stars()
+     * x and y are consecutively put in the array, as in planetPositions() : index 2i is x coord of star i, index 2i+1 its y coord
+     * (NaN for the stars culled in culling mode)
+     * @return double[] representing all coordinates as described
+     */
+    public double[] starPositions(){
+        double[] positions = new double[2 * starCatalogue.stars().size()];
+        if(starIndices != null){
+            Arrays.fill(positions, Double.NaN);
+        }
+        for(int k = 0; k < starX.length; ++k){
+            int i = (starIndices == null) ? k : starIndices[k];
+            positions[2 * i] = starX[k];
+            positions[2 * i + 1] = starY[k];
+        }
+        return positions;
+    }
+
+    /**
+     * gives the position in starX & starY of a star
+     * @param index - index of the star in stars()
+     * @return position of the star, or -1 if it was culled
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    private int positionOf(int index){
+        if(starIndices == null){
+            return index;
+        }
+        Objects.checkIndex(index, starCatalogue.stars().size());
+        return Math.max(-1, Arrays.binarySearch(starIndices, index));
+    }
+
+    /**
+     * getter method for x coordinate of a star in the projection's plane
+     * @param index - index of the star in stars() (i.e. in the star catalogue)
+     * @return x coordinate of the star (NaN if it was culled)
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    public double starX(int index){
+        int k = positionOf(index);
+        return (k < 0) ? Double.NaN : starX[k];
+    }
+
+    /**
+     * getter method for y coordinate of a star in the projection's plane
+     * @param index - index of the star in stars() (i.e. in the star catalogue)
+     * @return y coordinate of the star (NaN if it was culled)
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    public double starY(int index){
+        int k = positionOf(index);
+        return (k < 0) ? Double.NaN : starY[k];
+    }
+
+    /**
+     * gives the number of stars whose positions are computed, the computed star k (in [0, computedStarCount()[) being
+     * the k-th of starIndices() : the accessors of the computed stars read their values at k directly, without searching
+     * the star among the computed ones as starX, starY & starApparentMagnitude do
+     * @return number of computed stars
+     */
+    public int computedStarCount(){
+        return starX.length;
+    }
+
+    /**
+     * gives the computed stars that are at most as faint as the given magnitude
+     * in full mode, the stars are read from the magnitude ordering of the catalogue, the faint ones never being visited
+     * @param maxMagnitude - limiting magnitude
+     * @return numbers of the computed stars (see computedStarCount), brightest first in full mode & sorted in culling mode
+     */
+    public int[] computedStars(double maxMagnitude){
+        if(starIndices == null){
+            return starCatalogue.starsBrighterThan(maxMagnitude);
+        }
+        float[] magnitudes = starCatalogue.starMagnitude();
+        int[] result = new int[starIndices.length];
+        int n = 0;
+        for(int k = 0; k < starIndices.length; ++k){
+            if(magnitudes[starIndices[k]] <= maxMagnitude){
+                result[n++] = k;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * gives the computed stars of a selection that are at most as faint as the given magnitude,
+     * visiting only the selected stars
+     * @param selection - selection of stars of the catalogue of .this (see starCatalogue())
+     * @param maxMagnitude - limiting magnitude
+     * @return sorted numbers of the computed stars (see computedStarCount) that are selected & bright enough
+     * @throws IllegalArgumentException if the selection is not one of the catalogue of .this
+     */
+    public int[] computedStars(StarSelection selection, double maxMagnitude){
+        Preconditions.checkArgument(selection.catalogue() == starCatalogue);
+        float[] magnitudes = starCatalogue.starMagnitude();
+        int[] selected = selection.indexArray();
+        int[] result = new int[selected.length];
+        int n = 0;
+        // both arrays of indices being sorted, they are merged
+        for (int k = 0, c = 0; k < selected.length; ++k) {
+            int i = selected[k];
+            if (starIndices != null) {
+                while (c < starIndices.length && starIndices[c] < i) {
+                    ++c;
+                }
+                if (c == starIndices.length) {
+                    break;
+                }
+                if (starIndices[c] != i) {
+                    continue;
+                }
+            }
+            if (magnitudes[i] <= maxMagnitude) {
+                result[n++] = (starIndices == null) ? i : c;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * gives the index in stars() of a computed star
+     * @param k - number of the computed star, in [0, computedStarCount()[
+     * @return index of the star in stars()
+     * @throws IndexOutOfBoundsException if k is not the number of a computed star
+     */
+    public int computedStarIndex(int k){
+        Objects.checkIndex(k, starX.length);
+        return (starIndices == null) ? k : starIndices[k];
+    }
+
+    /**
+     * getter method for x coordinate of a computed star in the projection's plane
+     * @param k - number of the computed star, in [0, computedStarCount()[
+     * @return x coordinate of the star
+     * @throws IndexOutOfBoundsException if k is not the number of a computed star
+     */
+    public double computedStarX(int k){
+        return starX[k];
+    }
+
+    /**
+     * getter method for y coordinate of a computed star in the projection's plane
+     * @param k - number of the computed star, in [0, computedStarCount()[
+     * @return y coordinate of the star
+     * @throws IndexOutOfBoundsException if k is not the number of a computed star
+     */
+    public double computedStarY(int k){
+        return starY[k];
+    }
+
+    /**
+     * getter method for the apparent magnitude of a computed star, i.e. its magnitude increased by the extinction of
+     * the atmosphere
+     * @param k - number of the computed star, in [0, computedStarCount()[
+     * @return apparent magnitude of the star
+     * @throws IndexOutOfBoundsException if k is not the number of a computed star
+     */
+    public double computedStarApparentMagnitude(int k){
+        double magnitude = starCatalogue.starMagnitude()[computedStarIndex(k)];
+        return (atmosphere == null) ? magnitude : magnitude + starExtinction[k];
+    }
+
+    /**
+     * replaces, in place, numbers of computed stars by their indices in stars()
+     * @param computed - numbers of computed stars
+     * @return the same array, holding the indices of the stars
+     */
+    private int[] toStarIndices(int[] computed){
+        if(starIndices != null){
+            for(int k = 0; k < computed.length; ++k){
+                computed[k] = starIndices[computed[k]];
+            }
+        }
+        return computed;
     }
 
     /**
@@ -171,7 +887,20 @@ public final class ObservedSky {
      * @return Optional containing the closest celestial object, or Optional.empty() if no celestial objects are "in range"
      */
     public Optional<CelestialObject> objectClosestTo(CartesianCoordinates here, double maxDistance){
+        return objectClosestTo(here, maxDistance, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * computes the closest celestial object to the given coordinates, as objectClosestTo(here, maxDistance),
+     * ignoring the stars fainter than the given magnitude (e.g. the ones that are not drawn)
+     * @param here - cartesian coordinates in the projection's plane, reference point of distance
+     * @param maxDistance - maximal distance
+     * @param maxStarMagnitude - limiting magnitude of the stars
+     * @return Optional containing the closest celestial object, or Optional.empty() if no celestial objects are "in range"
+     */
+    public Optional<CelestialObject> objectClosestTo(CartesianCoordinates here, double maxDistance, double maxStarMagnitude){
         Preconditions.checkArgument(maxDistance >= 0);
+        float[] magnitudes = starCatalogue.starMagnitude();
 
         double minX = here.x() - maxDistance;
         double maxX = here.x() + maxDistance;
@@ -179,16 +908,6 @@ public final class ObservedSky {
         double maxY = here.y() + maxDistance;
         TreeMap<Double, CelestialObject> distancesToObjectMap = new TreeMap<>();
 
-        //check stars in square
-        List<Star> starsInSquare = new ArrayList<>();
-        for(Star s: starCatalogue.stars()){
-            int h = s.hipparcosId();
-            double xS = starPos.get(h).x();
-            double yS = starPos.get(h).y();
-            if((xS < maxX) && (xS > minX) && (yS < maxY) && (yS > minY)){
-                starsInSquare.add(s);
-            }
-        }
 
         // check planets
         int i = 0;
@@ -202,14 +921,17 @@ public final class ObservedSky {
             }
         }
 
-        // truncate stars in circle
-        for(Star s : starsInSquare){
-            int h = s.hipparcosId();
-            double x = starPos.get(h).x();
-            double y = starPos.get(h).y();
-            double d = Math.hypot(x - here.x(), y - here.y());
-            if(d < maxDistance){
-                distancesToObjectMap.put(d, s);
+        // check stars in square, then truncate them in circle (only the computed ones in culling mode)
+        List<Star> stars = starCatalogue.stars();
+        for(int k = 0; k < starX.length; ++k){
+            int j = (starIndices == null) ? k : starIndices[k];
+            double xS = starX[k];
+            double yS = starY[k];
+            if((xS < maxX) && (xS > minX) && (yS < maxY) && (yS > minY) && magnitudes[j] <= maxStarMagnitude){
+                double d = Math.hypot(xS - here.x(), yS - here.y());
+                if(d < maxDistance){
+                    distancesToObjectMap.put(d, stars.get(j));
+                }
             }
         }
 
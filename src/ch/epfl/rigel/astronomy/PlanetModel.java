@@ -98,17 +98,27 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
      */
     @Override
     public Planet at(double daysSinceJ2010, EclipticToEquatorialConversion eclToEq) {
+        return at(new EphemerisContext(daysSinceJ2010, eclToEq));
+    }
+
+    /**
+     * calculator method for model of planets at the instant of the given context
+     * Earth's position is taken from the context, so that it is computed once for all planets
+     *
+     * @param context - ephemeris context of the instant
+     * @return corresponding Planet (in time & space)
+     */
+    @Override
+    public Planet at(EphemerisContext context) {
 
         /*
          * 1) computing planet's position on its own orbit
          */
 
-        double meanAnomaly = (Angle.TAU / (DAYS_PER_YEAR)) * (daysSinceJ2010 / tropicalYear) + j2010Longitude
-                - perigeeLongitude;
-        double trueAnomaly = meanAnomaly + 2 * orbitEccentricity * Math.sin(meanAnomaly);
+        double trueAnomaly = trueAnomalyAt(context.daysSinceJ2010());
 
-        double ownRadius = orbitHalfGreatAxis * (1 - Math.pow(orbitEccentricity, 2)) / (1 + orbitEccentricity * Math.cos(trueAnomaly));
-        double ownLongitude = trueAnomaly + perigeeLongitude;
+        double ownRadius = radiusFor(trueAnomaly);
+        double ownLongitude = longitudeFor(trueAnomaly);
 
         /*
          * 2) planet's position is projected on ecliptic plane
@@ -128,11 +138,8 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
          * 3) get earth's position in ecliptic heliocentric coordinates
          */
 
-        double earthMeanAnom = (Angle.TAU / (DAYS_PER_YEAR)) * (daysSinceJ2010 / EARTH.tropicalYear) + EARTH.j2010Longitude
-                - EARTH.perigeeLongitude;
-        double earthTrueAnom = earthMeanAnom + 2 * EARTH.orbitEccentricity * Math.sin(earthMeanAnom);
-        double earthR = EARTH.orbitHalfGreatAxis * (1 - Math.pow(EARTH.orbitEccentricity, 2)) / (1 + EARTH.orbitEccentricity * Math.cos(earthTrueAnom));
-        double earthL = earthTrueAnom + EARTH.perigeeLongitude;
+        double earthR = context.earthRadius();
+        double earthL = context.earthLongitude();
 
         /*
          * 4) use earth coordinates and planet coordinates to get planet's position in ecliptic geocentric coordinates
@@ -180,6 +187,59 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
         double phase = (1 + Math.cos(eclLon - ownLongitude)) / 2;
         double magnitude = magnitudeAt1UA + 5 * Math.log10(ownRadius * dist / Math.sqrt(phase));
 
-        return new Planet(frenchName, eclToEq.apply(eclPos), (float) angSize, (float) magnitude);
+        return new Planet(frenchName, context.eclToEq().apply(eclPos), (float) angSize, (float) magnitude);
+    }
+
+    /**
+     * computes the true anomaly of the planet at a given time
+     * @param daysSinceJ2010 - days since J2010 (days)
+     * @return true anomaly in radians
+     */
+    double trueAnomalyAt(double daysSinceJ2010) {
+        double meanAnomaly = (Angle.TAU / (DAYS_PER_YEAR)) * (daysSinceJ2010 / tropicalYear) + j2010Longitude
+                - perigeeLongitude;
+        return meanAnomaly + 2 * orbitEccentricity * Math.sin(meanAnomaly);
+    }
+
+    /**
+     * computes the distance between the planet & the Sun for a given true anomaly
+     * @param trueAnomaly - true anomaly in radians
+     * @return radius of the orbit in UA
+     */
+    double radiusFor(double trueAnomaly) {
+        return orbitHalfGreatAxis * (1 - Math.pow(orbitEccentricity, 2)) / (1 + orbitEccentricity * Math.cos(trueAnomaly));
+    }
+
+    /**
+     * computes the heliocentric longitude of the planet on its orbit for a given true anomaly
+     * @param trueAnomaly - true anomaly in radians
+     * @return longitude in radians
+     */
+    double longitudeFor(double trueAnomaly) {
+        return trueAnomaly + perigeeLongitude;
+    }
+
+    /**
+     * getter method for the name
+     * @return name of the planet in french
+     */
+    String frenchName() {
+        return frenchName;
+    }
+
+    /**
+     * getter method for the angular size at 1 UA
+     * @return angular size of the planet seen from 1 UA, in radians
+     */
+    double angularSizeAt1UA() {
+        return angSizeAt1UA;
+    }
+
+    /**
+     * getter method for the magnitude at 1 UA
+     * @return magnitude of the planet seen from 1 UA
+     */
+    double magnitudeAt1UA() {
+        return magnitudeAt1UA;
     }
-}
\ No newline at end of file
+}
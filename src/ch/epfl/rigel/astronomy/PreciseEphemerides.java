@@ -0,0 +1,196 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticCoordinates;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+
+import java.util.Objects;
+
+/**
+ * Alternative, more precise models of the Sun, the Moon & the planets, built on periodic series
+ * whose truncation level is chosen at construction :
+ * the Earth (hence the Sun) & the other planets follow VSOP87 & the Moon ELP-2000/82
+ * all positions are geometric (no aberration nor nutation), those of the planets being corrected for light-time
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class PreciseEphemerides {
+
+    /**
+     * days between J2000 & J2010, days in a Julian century & in a Julian millennium
+     */
+    private static final double J2000_TO_J2010 = Epoch.J2000.daysUntil(Epoch.J2010.epochMillisAfter(0));
+    private static final double DAYS_IN_A_CENTURY = 36525;
+    private static final double DAYS_IN_A_MILLENNIUM = 365250;
+
+    /**
+     * light-time for 1 UA in days
+     */
+    private static final double LIGHT_TIME_PER_UA = 0.0057755183;
+
+    /**
+     * angular sizes of the Sun & of the Moon at their mean distances (1 UA, 384'400 km)
+     */
+    private static final double SUN_ANGULAR_SIZE = Angle.ofDeg(0.533128);
+    private static final double MOON_ANGULAR_SIZE = Angle.ofDeg(0.5181);
+    private static final double MOON_MEAN_DISTANCE = 384400;
+
+    /**
+     * series at the truncation level of .this
+     */
+    private final SeriesTruncation truncation;
+    private final Vsop87Earth earth;
+    private final Vsop87Planets planets;
+    private final Elp2000Moon moon;
+
+    /**
+     * public constructor
+     * @param truncation - truncation level of the periodic series
+     * @throws NullPointerException if truncation is null
+     */
+    public PreciseEphemerides(SeriesTruncation truncation) {
+        this.truncation = Objects.requireNonNull(truncation, "no truncation");
+        this.earth = new Vsop87Earth(truncation);
+        this.planets = new Vsop87Planets(truncation);
+        this.moon = new Elp2000Moon(truncation);
+    }
+
+    /**
+     * getter method for the truncation level
+     * @return truncation level of the periodic series
+     */
+    public SeriesTruncation truncation() {
+        return truncation;
+    }
+
+    /**
+     * gives the number of periodic terms evaluated at the truncation level of .this
+     * @return number of terms of the series of the Earth, of the other planets & of the Moon
+     */
+    public int termCount() {
+        return earth.termCount() + planets.termCount() + moon.termCount();
+    }
+
+    /**
+     * gives the model of the Sun
+     * @return model of the Sun, based on the position of the Earth given by VSOP87
+     */
+    public CelestialObjectModel<Sun> sun() {
+        return this::sunAt;
+    }
+
+    /**
+     * gives the model of the Moon
+     * @return model of the Moon, based on ELP-2000/82
+     */
+    public CelestialObjectModel<Moon> moon() {
+        return this::moonAt;
+    }
+
+    /**
+     * gives the model of the given planet
+     * like PlanetModel.EARTH, the model of the Earth gives null
+     * @param planet - the planet
+     * @return model of the planet
+     * @throws NullPointerException if planet is null
+     */
+    public CelestialObjectModel<Planet> planet(PlanetModel planet) {
+        Objects.requireNonNull(planet, "no planet");
+        return (daysSinceJ2010, eclToEq) -> planetAt(planet, daysSinceJ2010, eclToEq);
+    }
+
+    /**
+     * computes the Sun at a given time
+     * @param daysSinceJ2010 - days since J2010 (days)
+     * @param eclToEq - ecliptic to equatorial coordinates conversion
+     * @return corresponding Sun
+     */
+    private Sun sunAt(double daysSinceJ2010, EclipticToEquatorialConversion eclToEq) {
+        double tau = (daysSinceJ2010 + J2000_TO_J2010) / DAYS_IN_A_MILLENNIUM;
+        double t = tau * 10;
+
+        // the Sun is seen from the Earth in the direction opposite to the one of the Earth seen from the Sun
+        double lon = Angle.normalizePositive(earth.longitude(tau) + Math.PI);
+        double lat = -earth.latitude(tau);
+        double r = earth.radius(tau);
+        double meanAnomaly = Angle.normalizePositive(Angle.ofDeg(357.5291092 + 35999.0502909 * t));
+
+        EclipticCoordinates ecl = EclipticCoordinates.of(lon, lat);
+        return new Sun(ecl, eclToEq.apply(ecl), (float) (SUN_ANGULAR_SIZE / r), (float) meanAnomaly);
+    }
+
+    /**
+     * computes the Moon at a given time
+     * @param daysSinceJ2010 - days since J2010 (days)
+     * @param eclToEq - ecliptic to equatorial coordinates conversion
+     * @return corresponding Moon
+     */
+    private Moon moonAt(double daysSinceJ2010, EclipticToEquatorialConversion eclToEq) {
+        double t = (daysSinceJ2010 + J2000_TO_J2010) / DAYS_IN_A_CENTURY;
+        double[] position = moon.positionAt(t);
+        double lon = Angle.normalizePositive(position[0]);
+
+        double sunLon = earth.longitude(t / 10) + Math.PI;
+        double phase = (1 - Math.cos(lon - sunLon)) / 2;
+        double angularSize = MOON_ANGULAR_SIZE * MOON_MEAN_DISTANCE / position[2];
+
+        EquatorialCoordinates eq = eclToEq.apply(EclipticCoordinates.of(lon, position[1]));
+        return new Moon(eq, (float) angularSize, 0, (float) phase);
+    }
+
+    /**
+     * computes the given planet at a given time, with the same angular size & magnitude formulas as PlanetModel
+     * @param planet - the planet
+     * @param daysSinceJ2010 - days since J2010 (days)
+     * @param eclToEq - ecliptic to equatorial coordinates conversion
+     * @return corresponding Planet, null for the Earth
+     */
+    private Planet planetAt(PlanetModel planet, double daysSinceJ2010, EclipticToEquatorialConversion eclToEq) {
+        if (planet == PlanetModel.EARTH) {
+            return null;
+        }
+        double tau = (daysSinceJ2010 + J2000_TO_J2010) / DAYS_IN_A_MILLENNIUM;
+
+        double earthLon = earth.longitude(tau);
+        double earthLat = earth.latitude(tau);
+        double earthR = earth.radius(tau);
+        double earthX = earthR * Math.cos(earthLat) * Math.cos(earthLon);
+        double earthY = earthR * Math.cos(earthLat) * Math.sin(earthLon);
+        double earthZ = earthR * Math.sin(earthLat);
+
+        // the planet is seen where it was when the light now reaching the Earth left it
+        double[] p = planets.heliocentricPosition(planet, tau);
+        double dist = Math.sqrt(squaredDistance(p, earthX, earthY, earthZ));
+        p = planets.heliocentricPosition(planet, tau - LIGHT_TIME_PER_UA * dist / DAYS_IN_A_MILLENNIUM);
+        dist = Math.sqrt(squaredDistance(p, earthX, earthY, earthZ));
+
+        double x = p[0] - earthX;
+        double y = p[1] - earthY;
+        double z = p[2] - earthZ;
+        double eclLon = Angle.normalizePositive(Math.atan2(y, x));
+        double eclLat = Math.atan2(z, Math.hypot(x, y));
+
+        double ownRadius = Math.sqrt(p[0] * p[0] + p[1] * p[1] + p[2] * p[2]);
+        double ownLongitude = Math.atan2(p[1], p[0]);
+        double phase = (1 + Math.cos(eclLon - ownLongitude)) / 2;
+        double angularSize = planet.angularSizeAt1UA() / dist;
+        double magnitude = planet.magnitudeAt1UA() + 5 * Math.log10(ownRadius * dist / Math.sqrt(phase));
+
+        EquatorialCoordinates eq = eclToEq.apply(EclipticCoordinates.of(eclLon, eclLat));
+        return new Planet(planet.frenchName(), eq, (float) angularSize, (float) magnitude);
+    }
+
+    /**
+     * computes the squared distance between a position & the Earth
+     * @param p - coordinates x, y & z of the position
+     * @param earthX - coordinate x of the Earth
+     * @param earthY - coordinate y of the Earth
+     * @param earthZ - coordinate z of the Earth
+     * @return squared distance in UA^2
+     */
+    private static double squaredDistance(double[] p, double earthX, double earthY, double earthZ) {
+        double dx = p[0] - earthX, dy = p[1] - earthY, dz = p[2] - earthZ;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
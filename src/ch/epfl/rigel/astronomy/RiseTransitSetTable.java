@@ -0,0 +1,214 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.math.Angle;
+
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * Rise, transit & set times of all the stars of a catalogue for an observer, over consecutive days
+ * the positions of the stars being fixed, the times are given in closed form by the hour angle at which a star
+ * crosses the (geometric) horizon & by the local sidereal time at the start of each day
+ * the times of star s on day d are at index d * starCount() + s of the columns
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class RiseTransitSetTable {
+
+    /**
+     * value of the rise & set times of the stars that never cross the horizon
+     */
+    public static final long NO_EVENT = Long.MIN_VALUE;
+
+    /**
+     * visibility of a star from the observer
+     */
+    public enum Visibility {
+        /**
+         * the star rises & sets every day
+         */
+        RISES_AND_SETS,
+        /**
+         * the star never sets
+         */
+        CIRCUMPOLAR,
+        /**
+         * the star never rises
+         */
+        NEVER_RISES
+    }
+
+    private static final Visibility[] VISIBILITIES = Visibility.values();
+    private static final double MILLIS_IN_A_DAY = 24 * 60 * 60 * 1000;
+
+    /**
+     * local sidereal time gained per solar millisecond
+     */
+    private static final double SIDEREAL_RATE = SiderealTime.increaseDuring(1) / MILLIS_IN_A_DAY;
+
+    /**
+     * dimensions of the table
+     */
+    private final int starCount;
+    private final int dayCount;
+
+    /**
+     * per star : visibility (ordinal) & altitude at the upper transit (radians)
+     */
+    private final byte[] visibility;
+    private final double[] maxAlt;
+
+    /**
+     * per star & day : rise, transit & set times, in milliseconds since 1970-01-01T00:00Z
+     */
+    private final long[] rise;
+    private final long[] transit;
+    private final long[] set;
+
+    /**
+     * public constructor
+     * @param catalogue - catalogue of the stars
+     * @param observer - position of the observer
+     * @param start - start of the first day
+     * @param days - number of consecutive days of 24 hours
+     * @throws IllegalArgumentException if days is negative
+     */
+    public RiseTransitSetTable(StarCatalogue catalogue, GeographicCoordinates observer, ZonedDateTime start, int days) {
+        this(catalogue, observer, start.toInstant().toEpochMilli(), days);
+    }
+
+    /**
+     * public constructor, primitive version of RiseTransitSetTable(StarCatalogue, GeographicCoordinates, ZonedDateTime, int)
+     * the transit of each day is the first upper transit in [start, start + 24h[ of the day,
+     * the rise & set times being the ones just before & after it
+     * @param catalogue - catalogue of the stars
+     * @param observer - position of the observer
+     * @param startEpochMillis - start of the first day, in milliseconds since 1970-01-01T00:00Z
+     * @param days - number of consecutive days of 24 hours
+     * @throws IllegalArgumentException if days is negative
+     * @throws NullPointerException if catalogue or observer is null
+     */
+    public RiseTransitSetTable(StarCatalogue catalogue, GeographicCoordinates observer, long startEpochMillis, int days) {
+        Preconditions.checkArgument(days >= 0);
+        Objects.requireNonNull(observer, "no observer");
+        double[] ra = catalogue.starRa();
+        double[] dec = catalogue.starDec();
+        starCount = ra.length;
+        dayCount = days;
+
+        visibility = new byte[starCount];
+        maxAlt = new double[starCount];
+        // half the time spent above the horizon, in milliseconds
+        double[] halfArc = new double[starCount];
+        double sinLat = Math.sin(observer.lat());
+        double cosLat = Math.cos(observer.lat());
+        for (int s = 0; s < starCount; ++s) {
+            maxAlt[s] = Angle.ofDeg(90) - Math.abs(observer.lat() - dec[s]);
+            double cosHourAngle = -sinLat * Math.sin(dec[s]) / (cosLat * Math.cos(dec[s]));
+            if (cosHourAngle < -1) {
+                visibility[s] = (byte) Visibility.CIRCUMPOLAR.ordinal();
+            } else if (cosHourAngle <= 1) {
+                visibility[s] = (byte) Visibility.RISES_AND_SETS.ordinal();
+                halfArc[s] = Math.acos(cosHourAngle) / SIDEREAL_RATE;
+            } else {
+                visibility[s] = (byte) Visibility.NEVER_RISES.ordinal();
+            }
+        }
+
+        int size = Math.multiplyExact(starCount, dayCount);
+        rise = new long[size];
+        transit = new long[size];
+        set = new long[size];
+        for (int d = 0; d < dayCount; ++d) {
+            long dayStart = startEpochMillis + Math.round(d * MILLIS_IN_A_DAY);
+            double siderealTime = SiderealTime.local(dayStart, observer);
+            int first = d * starCount;
+            for (int s = 0; s < starCount; ++s) {
+                // the star transits when the local sidereal time equals its right ascension
+                long t = dayStart + Math.round(Angle.normalizePositive(ra[s] - siderealTime) / SIDEREAL_RATE);
+                transit[first + s] = t;
+                if (visibility[s] == Visibility.RISES_AND_SETS.ordinal()) {
+                    long half = Math.round(halfArc[s]);
+                    rise[first + s] = t - half;
+                    set[first + s] = t + half;
+                } else {
+                    rise[first + s] = NO_EVENT;
+                    set[first + s] = NO_EVENT;
+                }
+            }
+        }
+    }
+
+    /**
+     * gives the index of the times of a star on a day in the columns
+     * @param star - index of the star in the catalogue
+     * @param day - index of the day
+     * @return index in the columns
+     * @throws IndexOutOfBoundsException if star or day is not a valid index
+     */
+    public int index(int star, int day) {
+        Objects.checkIndex(star, starCount);
+        Objects.checkIndex(day, dayCount);
+        return day * starCount + star;
+    }
+
+    /**
+     * getter method for the number of stars
+     * @return number of stars of the catalogue
+     */
+    public int starCount() {
+        return starCount;
+    }
+
+    /**
+     * getter method for the number of days
+     * @return number of days of the table
+     */
+    public int dayCount() {
+        return dayCount;
+    }
+
+    /**
+     * gives the visibility of a star
+     * @param star - index of the star in the catalogue
+     * @return visibility of the star from the observer
+     * @throws IndexOutOfBoundsException if star is not a valid index
+     */
+    public Visibility visibility(int star) {
+        return VISIBILITIES[visibility[star]];
+    }
+
+    /**
+     * getter method for the maximal altitudes
+     * @return copy of the altitudes of the stars at their upper transit, in radians (negative if they never rise)
+     */
+    public double[] maxAlt() {
+        return maxAlt.clone();
+    }
+
+    /**
+     * getter method for the rise times
+     * @return copy of the column of rise times, in milliseconds since 1970-01-01T00:00Z (NO_EVENT if none)
+     */
+    public long[] rise() {
+        return rise.clone();
+    }
+
+    /**
+     * getter method for the transit times
+     * @return copy of the column of upper transit times, in milliseconds since 1970-01-01T00:00Z
+     */
+    public long[] transit() {
+        return transit.clone();
+    }
+
+    /**
+     * getter method for the set times
+     * @return copy of the column of set times, in milliseconds since 1970-01-01T00:00Z (NO_EVENT if none)
+     */
+    public long[] set() {
+        return set.clone();
+    }
+}
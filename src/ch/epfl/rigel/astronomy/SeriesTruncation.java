@@ -0,0 +1,61 @@
+package ch.epfl.rigel.astronomy;
+
+/**
+ * Truncation levels of the periodic series of PreciseEphemerides : the terms whose amplitude is smaller than the
+ * level are dropped, trading accuracy for speed
+ * amplitudes are angles in radians, those of distances being taken relatively to the mean distance
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public enum SeriesTruncation {
+
+    /**
+     * all the terms of the tables (about 1" for the Sun & 10" for the Moon)
+     */
+    FULL(0),
+
+    /**
+     * terms of at least 0.2"
+     */
+    FINE(1e-6),
+
+    /**
+     * terms of at least 2"
+     */
+    STANDARD(1e-5),
+
+    /**
+     * terms of at least 20"
+     */
+    COARSE(1e-4);
+
+    /**
+     * smallest amplitude of the kept terms
+     */
+    private final double minAmplitude;
+
+    /**
+     * private constructor
+     * @param minAmplitude - smallest amplitude of the kept terms, in radians
+     */
+    private SeriesTruncation(double minAmplitude) {
+        this.minAmplitude = minAmplitude;
+    }
+
+    /**
+     * getter method for the smallest amplitude
+     * @return smallest amplitude of the kept terms, in radians
+     */
+    public double minAmplitude() {
+        return minAmplitude;
+    }
+
+    /**
+     * tells whether a term of the given amplitude is kept
+     * @param amplitude - amplitude of the term, in radians (can be negative)
+     * @return true if the term is kept at this level
+     */
+    boolean keeps(double amplitude) {
+        return Math.abs(amplitude) >= minAmplitude;
+    }
+}
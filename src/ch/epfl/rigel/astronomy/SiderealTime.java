@@ -4,9 +4,7 @@ import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.math.Angle;
 import ch.epfl.rigel.math.Polynomial;
 
-import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
 
 /**
  * Sidereal Time
@@ -16,8 +14,10 @@ import java.time.temporal.ChronoUnit;
 public final class SiderealTime {
 
     private final static Polynomial S0_FORMAT = Polynomial.of(0.000025862, 2400.051336, 6.697374558);
-    private final static Polynomial S1_FORMAT = Polynomial.of(1.002737909, 0);
+    private final static double SIDEREAL_PER_SOLAR = 1.002737909;
+    private final static Polynomial S1_FORMAT = Polynomial.of(SIDEREAL_PER_SOLAR, 0);
     private final static int MILLIS_IN_AN_HOUR = 3600000;
+    private final static long MILLIS_IN_A_DAY = 24L * MILLIS_IN_AN_HOUR;
 
     /**
      * private default constructor
@@ -30,11 +30,20 @@ public final class SiderealTime {
      * @return corresponding sidereal time at greenwich in radians
      */
     public static double greenwich(ZonedDateTime when){
-        ZonedDateTime inGreenwichZone = when.withZoneSameInstant(ZoneOffset.UTC);
-        ZonedDateTime atMidnight = inGreenwichZone.truncatedTo(ChronoUnit.DAYS);
+        return greenwich(when.toInstant().toEpochMilli());
+    }
+
+    /**
+     * gives the greenwich sidereal time in radians corresponding to the given instant
+     * primitive version of greenwich(ZonedDateTime), no java.time object is used
+     * @param epochMillis - the instant, in milliseconds since 1970-01-01T00:00Z
+     * @return corresponding sidereal time at greenwich in radians
+     */
+    public static double greenwich(long epochMillis){
+        long atMidnight = Math.floorDiv(epochMillis, MILLIS_IN_A_DAY) * MILLIS_IN_A_DAY;
 
         double T = Epoch.J2000.julianCenturiesUntil(atMidnight);
-        double t = (double)(atMidnight.until(when, ChronoUnit.MILLIS))/ MILLIS_IN_AN_HOUR;
+        double t = (double)(epochMillis - atMidnight)/ MILLIS_IN_AN_HOUR;
 
         double s0 = S0_FORMAT.at(T);
         double s1 = S1_FORMAT.at(t);
@@ -53,7 +62,28 @@ public final class SiderealTime {
      * @return corresponding sidereal time at the specified location in radians
      */
     public static double local(ZonedDateTime when, GeographicCoordinates where){
-        double localRad = (greenwich(when) + where.lon());
+        return local(when.toInstant().toEpochMilli(), where);
+    }
+
+    /**
+     * gives the sidereal time at the specified location in radians, at the given instant
+     * primitive version of local(ZonedDateTime, GeographicCoordinates), no java.time object is used
+     * @param epochMillis - the instant, in milliseconds since 1970-01-01T00:00Z
+     * @param where - location wanted for the requested moment
+     * @return corresponding sidereal time at the specified location in radians
+     */
+    public static double local(long epochMillis, GeographicCoordinates where){
+        double localRad = (greenwich(epochMillis) + where.lon());
         return Angle.normalizePositive(localRad);
     }
+
+    /**
+     * gives the increase of the sidereal time (at any location) during the given number of solar days
+     * exact within a UT day, off by a few nanoradians per UT midnight crossed
+     * @param days - elapsed time in days (can be negative)
+     * @return corresponding increase of the sidereal time in radians (not normalized)
+     */
+    static double increaseDuring(double days){
+        return Angle.ofHr(24 * SIDEREAL_PER_SOLAR * days);
+    }
 }
@@ -0,0 +1,455 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical spatial index of unit vectors on the celestial sphere, built on an equal-angle cube map :
+ * each face of the cube is recursively split in four, the leaves being ordered along a Z-order curve so that the
+ * leaves of any cell of the hierarchy are contiguous
+ * the indexed vectors are sorted by leaf, a cell lying entirely inside a query being answered by a whole range
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+final class SkyIndex {
+
+    /**
+     * deepest level of the hierarchy (6 * 4^MAX_LEVEL leaves) & targeted mean number of vectors per leaf
+     */
+    private static final int MAX_LEVEL = 9;
+    private static final int VECTORS_PER_LEAF = 8;
+
+    /**
+     * indexed unit vectors, shared with the catalogue
+     */
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+
+    /**
+     * level of the leaves, indices of the vectors sorted by leaf & start of each leaf in sorted (one more than leaves)
+     */
+    private final int level;
+    private final int[] sorted;
+    private final int[] leafStart;
+
+    /**
+     * per level : coordinates on the faces of the cube of the centers of the cells (the same along both axes & on all
+     * faces) & angular radius of a cap containing any cell
+     */
+    private final double[][] centerCoordinates;
+    private final double[] capRadius;
+
+    /**
+     * package-private constructor, sorts the vectors by leaf with a counting sort
+     * @param x - x components of the unit vectors
+     * @param y - y components of the unit vectors
+     * @param z - z components of the unit vectors
+     */
+    SkyIndex(double[] x, double[] y, double[] z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        int n = x.length;
+
+        int l = 0;
+        while (l < MAX_LEVEL && 6L * (1L << (2 * l)) * VECTORS_PER_LEAF < n) {
+            ++l;
+        }
+        level = l;
+
+        centerCoordinates = new double[level + 1][];
+        capRadius = new double[level + 1];
+        for (int k = 0; k <= level; ++k) {
+            int size = 1 << k;
+            double step = 2.0 / size;
+            centerCoordinates[k] = new double[size];
+            for (int i = 0; i < size; ++i) {
+                centerCoordinates[k][i] = cubeCoordinate(-1 + (i + 0.5) * step);
+            }
+            capRadius[k] = cellCapRadius(k);
+        }
+
+        int leaves = 6 << (2 * level);
+        int[] leafOf = new int[n];
+        leafStart = new int[leaves + 1];
+        for (int i = 0; i < n; ++i) {
+            leafOf[i] = leafOf(x[i], y[i], z[i]);
+            ++leafStart[leafOf[i] + 1];
+        }
+        for (int c = 0; c < leaves; ++c) {
+            leafStart[c + 1] += leafStart[c];
+        }
+        sorted = new int[n];
+        int[] next = Arrays.copyOf(leafStart, leaves);
+        for (int i = 0; i < n; ++i) {
+            sorted[next[leafOf[i]]++] = i;
+        }
+    }
+
+    /**
+     * gives the indices of the vectors lying at most radius away from the given center
+     * @param cx - x component of the unit vector of the center
+     * @param cy - y component of the unit vector of the center
+     * @param cz - z component of the unit vector of the center
+     * @param radius - angular radius of the cone, in radians
+     * @return indices of the vectors in the cone, in no particular order
+     */
+    int[] inCone(double cx, double cy, double cz, double radius) {
+        // per level, squared chords beyond which a cell is outside the cone & under which it is inside
+        double[] outsideChord2 = new double[level + 1];
+        double[] insideChord2 = new double[level + 1];
+        for (int l = 0; l <= level; ++l) {
+            outsideChord2[l] = radius + capRadius[l] < Math.PI ? chord2(radius + capRadius[l]) : Double.POSITIVE_INFINITY;
+            insideChord2[l] = radius - capRadius[l] >= 0 ? chord2(radius - capRadius[l]) : -1;
+        }
+        Result result = new Result();
+        for (int face = 0; face < 6; ++face) {
+            visitCone(result, face, 0, 0, 0, cx, cy, cz, radius, outsideChord2, insideChord2);
+        }
+        return result.toArray();
+    }
+
+    /**
+     * gives the indices of the vectors lying in the intersection of the given half-spaces
+     * (the ones of the points p such that n . p >= 0, n being a normal)
+     * @param normals - flattened normals (x, y, z) of the half-spaces, of unit length
+     * @return indices of the vectors in all half-spaces, in no particular order
+     */
+    int[] inHalfSpaces(double[] normals) {
+        // per level, sine of the angle between the plane of a half-space & a cell's center beyond which it is on one side
+        double[] sinRadius = new double[level + 1];
+        for (int l = 0; l <= level; ++l) {
+            sinRadius[l] = Math.sin(capRadius[l]);
+        }
+        Result result = new Result();
+        for (int face = 0; face < 6; ++face) {
+            visitHalfSpaces(result, face, 0, 0, 0, normals, sinRadius);
+        }
+        return result.toArray();
+    }
+
+    /**
+     * visits a cell of the hierarchy for a cone query
+     * @param result - indices found so far
+     * @param face - face of the cube
+     * @param l - level of the cell
+     * @param i - column of the cell at its level
+     * @param j - row of the cell at its level
+     * @param outsideChord2 - per level, squared chord between the centers beyond which a cell is outside the cone
+     * @param insideChord2 - per level, squared chord between the centers under which a cell is inside the cone
+     */
+    private void visitCone(Result result, int face, int l, int i, int j, double cx, double cy, double cz,
+                           double radius, double[] outsideChord2, double[] insideChord2) {
+        double[] center = vectorOf(face, centerCoordinates[l][i], centerCoordinates[l][j]);
+        double dx = center[0] - cx, dy = center[1] - cy, dz = center[2] - cz;
+        double chord2 = dx * dx + dy * dy + dz * dz;
+        if (chord2 > outsideChord2[l]) {
+            return;
+        }
+        if (chord2 <= insideChord2[l]) {
+            result.addRange(sorted, cellFirstLeaf(face, l, i, j), cellLastLeaf(face, l, i, j), leafStart);
+        } else if (l == level) {
+            int leaf = cellFirstLeaf(face, l, i, j);
+            for (int k = leafStart[leaf]; k < leafStart[leaf + 1]; ++k) {
+                int v = sorted[k];
+                if (angle(x[v], y[v], z[v], cx, cy, cz) <= radius) {
+                    result.add(v);
+                }
+            }
+        } else {
+            for (int q = 0; q < 4; ++q) {
+                visitCone(result, face, l + 1, 2 * i + (q & 1), 2 * j + (q >> 1), cx, cy, cz, radius,
+                        outsideChord2, insideChord2);
+            }
+        }
+    }
+
+    /**
+     * visits a cell of the hierarchy for a half-spaces query
+     * @param result - indices found so far
+     * @param face - face of the cube
+     * @param l - level of the cell
+     * @param i - column of the cell at its level
+     * @param j - row of the cell at its level
+     * @param normals - flattened normals of the half-spaces
+     * @param sinRadius - per level, sine of the radius of the caps of the cells
+     */
+    private void visitHalfSpaces(Result result, int face, int l, int i, int j, double[] normals, double[] sinRadius) {
+        double[] center = vectorOf(face, centerCoordinates[l][i], centerCoordinates[l][j]);
+        boolean inside = true;
+        for (int k = 0; k < normals.length; k += 3) {
+            // sine of the angle between the plane bounding the half-space & the center of the cell, positive inside
+            double sinElevation = normals[k] * center[0] + normals[k + 1] * center[1] + normals[k + 2] * center[2];
+            if (sinElevation < -sinRadius[l]) {
+                return;
+            }
+            inside &= sinElevation >= sinRadius[l];
+        }
+        if (inside) {
+            result.addRange(sorted, cellFirstLeaf(face, l, i, j), cellLastLeaf(face, l, i, j), leafStart);
+        } else if (l == level) {
+            int leaf = cellFirstLeaf(face, l, i, j);
+            for (int k = leafStart[leaf]; k < leafStart[leaf + 1]; ++k) {
+                int v = sorted[k];
+                if (inHalfSpaces(normals, x[v], y[v], z[v])) {
+                    result.add(v);
+                }
+            }
+        } else {
+            for (int q = 0; q < 4; ++q) {
+                visitHalfSpaces(result, face, l + 1, 2 * i + (q & 1), 2 * j + (q >> 1), normals, sinRadius);
+            }
+        }
+    }
+
+    /**
+     * computes the squared length of the chord joining two points of the unit sphere
+     * @param angle - angle between the points, in [0, PI]
+     * @return squared length of the chord
+     */
+    private static double chord2(double angle) {
+        double halfChord = Math.sin(angle / 2);
+        return 4 * halfChord * halfChord;
+    }
+
+    /**
+     * tells whether a vector lies in all the given half-spaces
+     * @param normals - flattened normals of the half-spaces
+     * @return true if n . p >= 0 for every normal n
+     */
+    private static boolean inHalfSpaces(double[] normals, double px, double py, double pz) {
+        for (int k = 0; k < normals.length; k += 3) {
+            if (normals[k] * px + normals[k + 1] * py + normals[k + 2] * pz < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * computes the leaf containing a vector
+     * @return index of the leaf
+     */
+    private int leafOf(double px, double py, double pz) {
+        return cellOf(level, px, py, pz);
+    }
+
+    /**
+     * computes the cell of a level containing a vector, the cells of a level being numbered face by face along
+     * the Z-order curve (as the leaves)
+     * @param l - level of the cells
+     * @return index of the cell, in [0, 6 * 4^l[
+     */
+    static int cellOf(int l, double px, double py, double pz) {
+        double ax = Math.abs(px), ay = Math.abs(py), az = Math.abs(pz);
+        int face;
+        double a, b, major;
+        if (ax >= ay && ax >= az) {
+            face = px >= 0 ? 0 : 1;
+            major = ax;
+            a = py;
+            b = pz;
+        } else if (ay >= az) {
+            face = py >= 0 ? 2 : 3;
+            major = ay;
+            a = px;
+            b = pz;
+        } else {
+            face = pz >= 0 ? 4 : 5;
+            major = az;
+            a = px;
+            b = py;
+        }
+        int size = 1 << l;
+        int i = Math.min(size - 1, (int) ((faceCoordinate(a / major) + 1) / 2 * size));
+        int j = Math.min(size - 1, (int) ((faceCoordinate(b / major) + 1) / 2 * size));
+        return (face << (2 * l)) + interleave(i, j);
+    }
+
+    /**
+     * computes the center of a cell numbered as by cellOf
+     * @param l - level of the cell
+     * @param cell - index of the cell at its level
+     * @return components of the unit vector of the center of the cell
+     */
+    static double[] cellCenter(int l, int cell) {
+        int face = cell >> (2 * l);
+        int index = cell & ((1 << (2 * l)) - 1);
+        int i = 0, j = 0;
+        for (int bit = 0; bit < l; ++bit) {
+            i |= ((index >> (2 * bit)) & 1) << bit;
+            j |= ((index >> (2 * bit + 1)) & 1) << bit;
+        }
+        double step = 2.0 / (1 << l);
+        return vectorOf(face, cubeCoordinate(-1 + (i + 0.5) * step), cubeCoordinate(-1 + (j + 0.5) * step));
+    }
+
+    /**
+     * computes the angular radius of a cap containing any cell of a level, centered on the center of the cell
+     * @param l - level of the cells
+     * @return angular radius, in radians
+     */
+    static double cellCapRadius(int l) {
+        int size = 1 << l;
+        double radius = 0;
+        // the faces being symmetric, the cells of one quadrant are enough
+        for (int i = 0; i < (size + 1) / 2; ++i) {
+            for (int j = 0; j < (size + 1) / 2; ++j) {
+                radius = Math.max(radius, cellRadius(l, i, j));
+            }
+        }
+        return radius;
+    }
+
+    /**
+     * equal-angle coordinate on a face
+     * @param t - coordinate on the face of the cube, in [-1, 1]
+     * @return corresponding coordinate, in [-1, 1], proportional to the angle seen from the center of the sphere
+     */
+    private static double faceCoordinate(double t) {
+        return Math.atan(t) * 4 / Math.PI;
+    }
+
+    /**
+     * inverse of faceCoordinate
+     * @param u - equal-angle coordinate, in [-1, 1]
+     * @return coordinate on the face of the cube
+     */
+    private static double cubeCoordinate(double u) {
+        return Math.tan(u * Math.PI / 4);
+    }
+
+    /**
+     * computes the unit vector of a point of a face
+     * @param face - face of the cube
+     * @param a - first coordinate on the face of the cube
+     * @param b - second coordinate on the face of the cube
+     * @return components of the unit vector
+     */
+    private static double[] vectorOf(int face, double a, double b) {
+        double sign = (face & 1) == 0 ? 1 : -1;
+        double norm = Math.sqrt(1 + a * a + b * b);
+        switch (face >> 1) {
+            case 0:
+                return new double[]{sign / norm, a / norm, b / norm};
+            case 1:
+                return new double[]{a / norm, sign / norm, b / norm};
+            default:
+                return new double[]{a / norm, b / norm, sign / norm};
+        }
+    }
+
+    /**
+     * computes the radius of the smallest cap centered on the center of a cell containing it : the edges of the cells
+     * being arcs of great circles, the farthest point from its center is one of its corners
+     * (the radius is the same on every face)
+     * @param l - level of the cell
+     * @param i - column of the cell at its level
+     * @param j - row of the cell at its level
+     * @return angular radius of the cap, slightly increased to absorb the rounding of the queries
+     */
+    private static double cellRadius(int l, int i, int j) {
+        double step = 2.0 / (1 << l);
+        double u0 = -1 + i * step, v0 = -1 + j * step;
+        double[] center = vectorOf(0, cubeCoordinate(u0 + step / 2), cubeCoordinate(v0 + step / 2));
+        double radius = 0;
+        for (int corner = 0; corner < 4; ++corner) {
+            double[] c = vectorOf(0, cubeCoordinate(u0 + (corner & 1) * step), cubeCoordinate(v0 + (corner >> 1) * step));
+            radius = Math.max(radius, angle(center[0], center[1], center[2], c[0], c[1], c[2]));
+        }
+        return radius + 1e-12;
+    }
+
+    /**
+     * computes the angle between two unit vectors, accurately for small angles (also used by StarCatalogue)
+     * @return angle in radians
+     */
+    static double angle(double ax, double ay, double az, double bx, double by, double bz) {
+        double crossX = ay * bz - az * by;
+        double crossY = az * bx - ax * bz;
+        double crossZ = ax * by - ay * bx;
+        return Math.atan2(Math.sqrt(crossX * crossX + crossY * crossY + crossZ * crossZ), ax * bx + ay * by + az * bz);
+    }
+
+    /**
+     * gives the first leaf of a cell
+     * @return index of the first leaf of the cell
+     */
+    private int cellFirstLeaf(int face, int l, int i, int j) {
+        return (face << (2 * level)) + (interleave(i, j) << (2 * (level - l)));
+    }
+
+    /**
+     * gives the last leaf of a cell
+     * @return index of the last leaf of the cell (included)
+     */
+    private int cellLastLeaf(int face, int l, int i, int j) {
+        return cellFirstLeaf(face, l, i, j) + (1 << (2 * (level - l))) - 1;
+    }
+
+    /**
+     * interleaves the bits of two coordinates (Z-order curve)
+     * @param i - column
+     * @param j - row
+     * @return index along the Z-order curve, the bits of i at even positions
+     */
+    private static int interleave(int i, int j) {
+        int index = 0;
+        for (int bit = 0; bit < MAX_LEVEL; ++bit) {
+            index |= ((i >> bit) & 1) << (2 * bit);
+            index |= ((j >> bit) & 1) << (2 * bit + 1);
+        }
+        return index;
+    }
+
+    /**
+     * growable array of indices
+     */
+    private static final class Result {
+
+        private int[] indices = new int[16];
+        private int size;
+
+        /**
+         * adds an index
+         * @param index - index to be added
+         */
+        private void add(int index) {
+            ensureCapacity(size + 1);
+            indices[size++] = index;
+        }
+
+        /**
+         * adds the sorted indices of the leaves in [firstLeaf, lastLeaf]
+         * @param sorted - indices sorted by leaf
+         * @param firstLeaf - first leaf (included)
+         * @param lastLeaf - last leaf (included)
+         * @param leafStart - start of each leaf in sorted
+         */
+        private void addRange(int[] sorted, int firstLeaf, int lastLeaf, int[] leafStart) {
+            int from = leafStart[firstLeaf];
+            int to = leafStart[lastLeaf + 1];
+            ensureCapacity(size + to - from);
+            System.arraycopy(sorted, from, indices, size, to - from);
+            size += to - from;
+        }
+
+        /**
+         * grows the array if needed
+         * @param capacity - needed capacity
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity > indices.length) {
+                indices = Arrays.copyOf(indices, Math.max(capacity, 2 * indices.length));
+            }
+        }
+
+        /**
+         * gives the indices added so far
+         * @return copy of the indices
+         */
+        private int[] toArray() {
+            return Arrays.copyOf(indices, size);
+        }
+    }
+}
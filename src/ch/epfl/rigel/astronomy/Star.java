@@ -4,6 +4,8 @@ import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.coordinates.EquatorialCoordinates;
 import ch.epfl.rigel.math.ClosedInterval;
 
+import java.util.Objects;
+
 /**
  * A star
  * @author Victor Borruat (300666)
@@ -16,6 +18,13 @@ public final class Star extends CelestialObject {
      */
     private final int hipparcosId;
     private final int colorTemperature;
+    private final float colorIndex;
+    private final StarNames names;
+    private final int nameReference;
+    private final float properMotionRa;
+    private final float properMotionDec;
+    private final StarDetails details;
+    private final int detailsReference;
     private final static ClosedInterval COLOR_INTERVAL = ClosedInterval.of(-0.5, 5.5);
 
     /**
@@ -34,9 +43,119 @@ public final class Star extends CelestialObject {
         Preconditions.checkArgument((hipparcosId >= 0));
 
         this.hipparcosId = hipparcosId;
+        this.colorIndex = colorIndex;
+        this.names = null;
+        this.nameReference = 0;
+        this.properMotionRa = 0;
+        this.properMotionDec = 0;
+        this.details = null;
+        this.detailsReference = 0;
+
+        colorTemperature = colorTemperature(colorIndex);
+    }
 
-        //compute the color temperature
-        colorTemperature = (int) (4600 * (1.0 / ((0.92 * colorIndex) + 1.7) + 1.0 / (0.92 * colorIndex + 0.62)));
+    /**
+     * package private constructor of a star whose name is kept in a shared table, the String of the name being only
+     * created when asked
+     * @param hipparcosId - the hipparcos index
+     * @param names - table of the names
+     * @param nameReference - reference of the name in the table
+     * @param equatorialPos - equatorial position
+     * @param magnitude - of the star
+     * @param colorIndex - float
+     * @throws IllegalArgumentException if colorIndex is not in [-0.5, 5.5] or if hipparcosId is negative
+     * @throws NullPointerException if names is null
+     */
+    Star(int hipparcosId, StarNames names, int nameReference, EquatorialCoordinates equatorialPos, float magnitude,
+         float colorIndex) {
+        this(hipparcosId, names, nameReference, equatorialPos, magnitude, colorIndex, 0, 0);
+    }
+
+    /**
+     * package private constructor of a star having a proper motion, whose name is kept in a shared table
+     * @param hipparcosId - the hipparcos index
+     * @param names - table of the names
+     * @param nameReference - reference of the name in the table
+     * @param equatorialPos - equatorial position at J2000
+     * @param magnitude - of the star
+     * @param colorIndex - float
+     * @param properMotionRa - proper motion in right ascension, multiplied by cos(dec), in radians per Julian year
+     * @param properMotionDec - proper motion in declination, in radians per Julian year
+     * @throws IllegalArgumentException if colorIndex is not in [-0.5, 5.5] or if hipparcosId is negative
+     * @throws NullPointerException if names is null
+     */
+    Star(int hipparcosId, StarNames names, int nameReference, EquatorialCoordinates equatorialPos, float magnitude,
+         float colorIndex, float properMotionRa, float properMotionDec) {
+        this(hipparcosId, names, nameReference, equatorialPos, magnitude, colorIndex, properMotionRa, properMotionDec,
+                null, 0);
+    }
+
+    /**
+     * package private constructor of a star having a proper motion & secondary attributes read only when asked
+     * @param hipparcosId - the hipparcos index
+     * @param names - table of the names
+     * @param nameReference - reference of the name in the table
+     * @param equatorialPos - equatorial position at J2000
+     * @param magnitude - of the star
+     * @param colorIndex - float
+     * @param properMotionRa - proper motion in right ascension, multiplied by cos(dec), in radians per Julian year
+     * @param properMotionDec - proper motion in declination, in radians per Julian year
+     * @param details - secondary attributes of the stars of the document of the star, null if there are none
+     * @param detailsReference - start of the line of the star in the document of details
+     * @throws IllegalArgumentException if colorIndex is not in [-0.5, 5.5] or if hipparcosId is negative
+     * @throws NullPointerException if names is null
+     */
+    Star(int hipparcosId, StarNames names, int nameReference, EquatorialCoordinates equatorialPos, float magnitude,
+         float colorIndex, float properMotionRa, float properMotionDec, StarDetails details, int detailsReference) {
+        super(equatorialPos, 0f, magnitude);
+
+        Preconditions.checkInInterval(COLOR_INTERVAL, colorIndex);
+        Preconditions.checkArgument((hipparcosId >= 0));
+
+        this.hipparcosId = hipparcosId;
+        this.colorIndex = colorIndex;
+        this.names = Objects.requireNonNull(names, "no names");
+        this.nameReference = nameReference;
+        this.properMotionRa = properMotionRa;
+        this.properMotionDec = properMotionDec;
+        this.details = details;
+        this.detailsReference = detailsReference;
+
+        colorTemperature = colorTemperature(colorIndex);
+    }
+
+    /**
+     * computes the color temperature of a star (also used by StarCatalogue, which only keeps the color indices)
+     * @param colorIndex - color index B-V of the star
+     * @return the color temperature
+     */
+    static int colorTemperature(float colorIndex) {
+        return (int) (4600 * (1.0 / ((0.92 * colorIndex) + 1.7) + 1.0 / (0.92 * colorIndex + 0.62)));
+    }
+
+    /**
+     * redefinition of name() from CelestialObject, reading the name from the shared table if there is one
+     * @return name
+     */
+    @Override
+    public String name() {
+        return (names == null) ? super.name() : names.name(nameReference);
+    }
+
+    /**
+     * package private getter for the shared table of the name, kept by StarCatalogue
+     * @return table of the name, null if the star was given its name as a String
+     */
+    StarNames names(){
+        return names;
+    }
+
+    /**
+     * package private getter for the reference of the name in its shared table
+     * @return reference of the name in names(), meaningless if names() is null
+     */
+    int nameReference(){
+        return nameReference;
     }
 
     /**
@@ -48,6 +167,86 @@ public final class Star extends CelestialObject {
     }
 
 
+    /**
+     * package private getter for the color index, kept to write the star back (BinaryCatalogueLoader)
+     * @return the color index B-V
+     */
+    float colorIndex(){
+        return colorIndex;
+    }
+
+    /**
+     * package private getter for the proper motion in right ascension (see StarCatalogue.positionsAt)
+     * @return proper motion in right ascension, multiplied by cos(dec), in radians per Julian year
+     */
+    float properMotionRa(){
+        return properMotionRa;
+    }
+
+    /**
+     * package private getter for the proper motion in declination (see StarCatalogue.positionsAt)
+     * @return proper motion in declination, in radians per Julian year
+     */
+    float properMotionDec(){
+        return properMotionDec;
+    }
+
+    /**
+     * package private getter for the secondary attributes of the star, kept by StarCatalogue
+     * @return secondary attributes of the stars of the document of the star, null if there are none
+     */
+    StarDetails details(){
+        return details;
+    }
+
+    /**
+     * package private getter for the reference of the star in details()
+     * @return start of the line of the star in the document of details(), meaningless if details() is null
+     */
+    int detailsReference(){
+        return detailsReference;
+    }
+
+    /**
+     * gives the distance of the star, read from its document at the first access to its secondary attributes
+     * @return distance in parsecs, NaN if it is unknown
+     */
+    public double distance(){
+        return (details == null) ? Double.NaN : details.distance(detailsReference);
+    }
+
+    /**
+     * gives the absolute magnitude of the star, read from its document at the first access to its secondary attributes
+     * @return absolute magnitude, NaN if it is unknown
+     */
+    public double absoluteMagnitude(){
+        return (details == null) ? Double.NaN : details.absoluteMagnitude(detailsReference);
+    }
+
+    /**
+     * gives the luminosity of the star, read from its document at the first access to its secondary attributes
+     * @return luminosity in solar luminosities, NaN if it is unknown
+     */
+    public double luminosity(){
+        return (details == null) ? Double.NaN : details.luminosity(detailsReference);
+    }
+
+    /**
+     * gives the spectral type of the star, read from its document at the first access to its secondary attributes
+     * @return spectral type (e.g. "B8Ia"), empty if it is unknown
+     */
+    public String spectralType(){
+        return (details == null) ? "" : details.spectralType(detailsReference);
+    }
+
+    /**
+     * gives the variability of the star, read from its document at the first access to its secondary attributes
+     * @return designation of the star as a variable star, empty if it is not known to be variable
+     */
+    public String variability(){
+        return (details == null) ? "" : details.variability(detailsReference);
+    }
+
     /**
      * gives the color temperature using the colorIndex of the star
      * @return the color temperature
@@ -55,4 +254,40 @@ public final class Star extends CelestialObject {
     public int colorTemperature(){
         return colorTemperature;
     }
+
+    /**
+     * redefinition of equals from Object : two stars are equal if they have the same Hipparcos id, name, position,
+     * magnitude, color index & proper motion, so that the views created by StarCatalogue.stars() are equal to the stars given to
+     * the catalogue
+     * @param o - object to be compared with .this
+     * @return true iff o is a star equal to .this
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Star)) {
+            return false;
+        }
+        Star that = (Star) o;
+        return hipparcosId == that.hipparcosId
+                && Float.compare(colorIndex, that.colorIndex) == 0
+                && Float.compare(properMotionRa, that.properMotionRa) == 0
+                && Float.compare(properMotionDec, that.properMotionDec) == 0
+                && Double.compare(magnitude(), that.magnitude()) == 0
+                && Double.compare(equatorialPos().ra(), that.equatorialPos().ra()) == 0
+                && Double.compare(equatorialPos().dec(), that.equatorialPos().dec()) == 0
+                && ((names != null && names == that.names && nameReference == that.nameReference)
+                    || name().equals(that.name()));
+    }
+
+    /**
+     * redefinition of hashCode from Object, consistent with equals (the name is left out so that it is not created)
+     * @return hash code of the star
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(hipparcosId, colorIndex, magnitude(), equatorialPos().ra(), equatorialPos().dec());
+    }
 }
@@ -1,10 +1,15 @@
 package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Star Catalogue
@@ -15,48 +20,591 @@ public final class StarCatalogue {
 
     /**
      * declaration of private final attributes (in order)
-     * list of possible stars (stars)
-     * map associating asterisms to star indices (asterismsToIndexes)
+     * unmodifiable view of the stars, creating them from the columns below when they are asked (stars)
+     * map associating asterisms to the indices of their stars (asterismsToIndexes)
      */
     private final List<Star> stars;
-    private final Map<Asterism, List<Integer>> asterismsToIndexesMap;
+    private final Map<Asterism, int[]> asterismsToIndexesMap;
+
+    /**
+     * Hipparcos ids, color indices & names (tables & references in them) of the stars, at the same indices as in stars
+     * the catalogue keeps its stars in these primitive columns only, not as objects
+     */
+    private final int[] starHipparcosId;
+    private final float[] starColorIndex;
+    private final StarNames[] starNames;
+    private final int[] starNameReference;
+
+    /**
+     * secondary attributes of the stars (tables & references in them, see StarDetails), at the same indices as in stars
+     */
+    private final StarDetails[] starDetails;
+    private final int[] starDetailsReference;
+
+    /**
+     * right ascensions & declinations of the stars, in radians, at the same indices as in stars
+     */
+    private final double[] starRa;
+    private final double[] starDec;
+
+    /**
+     * direction cosines of the stars (components of their equatorial unit vectors), at the same indices as in stars
+     */
+    private final double[] starUnitX;
+    private final double[] starUnitY;
+    private final double[] starUnitZ;
+
+    /**
+     * magnitudes of the stars, at the same indices as in stars, & indices of the stars sorted by increasing magnitude
+     * (stars of equal magnitude being kept in the order of stars)
+     */
+    private final float[] starMagnitude;
+    private final int[] magnitudeOrder;
+
+    /**
+     * proper motions of the stars (in right ascension multiplied by cos(dec), & in declination), in radians per Julian
+     * year, at the same indices as in stars, & the largest proper motion of the catalogue
+     */
+    private final float[] starPmRa;
+    private final float[] starPmDec;
+    private final double maxProperMotion;
+
+    /**
+     * length of the epoch buckets, in Julian years : positionsAt gives the positions at the middle of the bucket
+     * of the asked epoch (the fastest stars moving by about 10 arcseconds a year) & number of buckets kept
+     */
+    private static final double EPOCH_BUCKET_YEARS = 1;
+    private static final int EPOCH_CACHE_SIZE = 4;
+
+    /**
+     * positions of the stars at J2000, propagated positions by epoch bucket in access order (least recently used
+     * first), & velocities of the unit vectors of the stars, in radians per Julian year, computed with the first
+     * propagation
+     */
+    private final StarPositions j2000Positions;
+    private final LinkedHashMap<Long, StarPositions> positionsCache = new LinkedHashMap<>(16, 0.75f, true);
+    private float[] velocityX;
+    private float[] velocityY;
+    private float[] velocityZ;
+
+    /**
+     * spatial index of the stars, built once with the catalogue
+     */
+    private final SkyIndex skyIndex;
+
+    /**
+     * indices of the stars belonging to at least one asterism, sorted & without duplicates
+     */
+    private final int[] asterismStars;
 
     /**
      * public constructor
+     * runs in time linear in the number of stars : the stars of the asterisms are found in a single pass over the
+     * catalogue, their Hipparcos ids selecting the candidates in a primitive hash map
+     * the given stars are not kept, only their attributes (see stars())
      * @param stars - list of stars
      * @param asterisms - list of asterisms
      * @throws IllegalArgumentException - if an asterism contains a star that is not in the given list of stars
+     * @throws NullPointerException - if one of the stars is null
      */
     public StarCatalogue(List<Star> stars, List<Asterism> asterisms){
-        for(Asterism a : asterisms){
-            Preconditions.checkArgument(stars.containsAll(a.stars()));
+        List<Star> givenStars = (stars instanceof RandomAccess) ? stars : new ArrayList<>(stars);
+        int n = givenStars.size();
+        starHipparcosId = new int[n];
+        starColorIndex = new float[n];
+        starNames = new StarNames[n];
+        starNameReference = new int[n];
+        starDetails = new StarDetails[n];
+        starDetailsReference = new int[n];
+        starRa = new double[n];
+        starDec = new double[n];
+        starUnitX = new double[n];
+        starUnitY = new double[n];
+        starUnitZ = new double[n];
+        starMagnitude = new float[n];
+        starPmRa = new float[n];
+        starPmDec = new float[n];
+        double maxPmSquared = 0;
+        // table of the names of the stars given with a String name, created if there is one
+        StarNames ownNames = null;
+        for (int i = 0; i < n; ++i) {
+            Star s = givenStars.get(i);
+            starHipparcosId[i] = s.hipparcosId();
+            starColorIndex[i] = s.colorIndex();
+            if (s.names() != null) {
+                starNames[i] = s.names();
+                starNameReference[i] = s.nameReference();
+            } else {
+                if (ownNames == null) {
+                    ownNames = new StarNames();
+                }
+                starNames[i] = ownNames;
+                starNameReference[i] = ownNames.add(s.name());
+            }
+            starDetails[i] = s.details();
+            starDetailsReference[i] = s.detailsReference();
+            starRa[i] = s.equatorialPos().ra();
+            starDec[i] = s.equatorialPos().dec();
+
+            double cosDec = Math.cos(starDec[i]);
+            starUnitX[i] = cosDec * Math.cos(starRa[i]);
+            starUnitY[i] = cosDec * Math.sin(starRa[i]);
+            starUnitZ[i] = Math.sin(starDec[i]);
+            starMagnitude[i] = (float) s.magnitude();
+            starPmRa[i] = s.properMotionRa();
+            starPmDec[i] = s.properMotionDec();
+            maxPmSquared = Math.max(maxPmSquared, (double) starPmRa[i] * starPmRa[i] + (double) starPmDec[i] * starPmDec[i]);
         }
+        maxProperMotion = Math.sqrt(maxPmSquared);
+        j2000Positions = new StarPositions(0, starUnitX, starUnitY, starUnitZ);
+        this.stars = new StarList();
+        magnitudeOrder = sortByMagnitude(starMagnitude);
+        skyIndex = new SkyIndex(starUnitX, starUnitY, starUnitZ);
 
-        this.stars = List.copyOf(stars);
-        Map<Star, Integer> starToIndexMap = new HashMap<>();
-        for (int i = 0; i < this.stars.size(); ++i) {
-            starToIndexMap.put(this.stars.get(i), i);
+        // distinct stars of the asterisms (slots), chained by Hipparcos id; the stars being equal by value, the ones of
+        // a catalogue's own stars() & asterisms() are found again (only the few stars sharing an id are compared)
+        List<Star> slotStars = new ArrayList<>();
+        List<int[]> asterismSlots = new ArrayList<>(asterisms.size());
+        IntIndexMap firstSlotOfId = new IntIndexMap(asterisms.size() * 8);
+        int[] nextSlotOfId = new int[16];
+        for (Asterism a : asterisms) {
+            int[] slots = new int[a.stars().size()];
+            for (int k = 0; k < slots.length; ++k) {
+                Star s = a.stars().get(k);
+                int slot = firstSlotOfId.get(s.hipparcosId());
+                while (slot != IntIndexMap.ABSENT && !slotStars.get(slot).equals(s)) {
+                    slot = nextSlotOfId[slot];
+                }
+                if (slot == IntIndexMap.ABSENT) {
+                    slot = slotStars.size();
+                    slotStars.add(s);
+                    if (slot == nextSlotOfId.length) {
+                        nextSlotOfId = Arrays.copyOf(nextSlotOfId, 2 * slot);
+                    }
+                    int first = firstSlotOfId.putIfAbsent(s.hipparcosId(), slot);
+                    // the new slot is put second in the chain of its id
+                    if (first == IntIndexMap.ABSENT) {
+                        nextSlotOfId[slot] = IntIndexMap.ABSENT;
+                    } else {
+                        nextSlotOfId[slot] = nextSlotOfId[first];
+                        nextSlotOfId[first] = slot;
+                    }
+                }
+                slots[k] = slot;
+            }
+            asterismSlots.add(slots);
         }
 
-        Map<Asterism, List<Integer>> modifAsterismIndexMap = new HashMap<>();
-        for(Asterism a: asterisms){
-            List<Integer> listOfIndices = new ArrayList<>();
-            for(Star s : a.stars()){
-                listOfIndices.add(starToIndexMap.get(s));
+        // index of each slot's star in the catalogue (its last occurrence), in a single pass
+        int[] slotIndex = new int[slotStars.size()];
+        Arrays.fill(slotIndex, -1);
+        if (slotStars.size() > 0) {
+            for (int i = 0; i < n; ++i) {
+                Star s = givenStars.get(i);
+                for (int slot = firstSlotOfId.get(s.hipparcosId()); slot != IntIndexMap.ABSENT; slot = nextSlotOfId[slot]) {
+                    if (slotStars.get(slot).equals(s)) {
+                        slotIndex[slot] = i;
+                        break;
+                    }
+                }
             }
-            modifAsterismIndexMap.put(a, listOfIndices);
+        }
+        for (int index : slotIndex) {
+            Preconditions.checkArgument(index >= 0);
+        }
+
+        Map<Asterism, int[]> modifAsterismIndexMap = new HashMap<>();
+        for (int a = 0; a < asterisms.size(); ++a) {
+            int[] indices = asterismSlots.get(a);
+            for (int k = 0; k < indices.length; ++k) {
+                indices[k] = slotIndex[indices[k]];
+            }
+            modifAsterismIndexMap.put(asterisms.get(a), indices);
         }
         asterismsToIndexesMap = Map.copyOf(modifAsterismIndexMap);
+        Arrays.sort(slotIndex);
+        asterismStars = slotIndex;
     }
 
     /**
      * getter method for stars
+     * the stars of the list are views created from the columns of the catalogue each time they are asked, equal to
+     * (but not the same objects as) the stars given to the catalogue
      * @return an immutable List<> of stars
      */
     public List<Star> stars(){
         return this.stars;
     }
 
+    /**
+     * creates the view of a star from the columns of the catalogue
+     * @param index - index of the star
+     * @return a new Star having the attributes of the star at index
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    private Star star(int index){
+        return new Star(starHipparcosId[index], starNames[index], starNameReference[index],
+                EquatorialCoordinates.of(starRa[index], starDec[index]), starMagnitude[index], starColorIndex[index],
+                starPmRa[index], starPmDec[index], starDetails[index], starDetailsReference[index]);
+    }
+
+    /**
+     * package private getter method for the color temperature of a star, without creating its view
+     * @param index - index of the star in stars()
+     * @return the color temperature of the star
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    int starColorTemperature(int index){
+        return Star.colorTemperature(starColorIndex[index]);
+    }
+
+    /**
+     * package private getter method for right ascensions of the stars
+     * the returned array is shared and must not be modified
+     * @return right ascensions in radians, in the same order as stars()
+     */
+    double[] starRa(){
+        return starRa;
+    }
+
+    /**
+     * package private getter method for declinations of the stars
+     * the returned array is shared and must not be modified
+     * @return declinations in radians, in the same order as stars()
+     */
+    double[] starDec(){
+        return starDec;
+    }
+
+    /**
+     * package private getter methods for the direction cosines of the stars, i.e. the components of their equatorial unit vectors
+     * (cos(dec)cos(ra), cos(dec)sin(ra), sin(dec)); the returned arrays are shared and must not be modified
+     * @return components in the same order as stars()
+     */
+    double[] starUnitX(){
+        return starUnitX;
+    }
+
+    double[] starUnitY(){
+        return starUnitY;
+    }
+
+    double[] starUnitZ(){
+        return starUnitZ;
+    }
+
+    /**
+     * gives the positions of the stars at an instant, propagated from J2000 with their proper motions
+     * @param when - the instant
+     * @return positions of the stars at the middle of the epoch bucket of when
+     */
+    public StarPositions positionsAt(ZonedDateTime when){
+        return positionsAt(100 * Epoch.J2000.julianCenturiesUntil(when));
+    }
+
+    /**
+     * package private method giving the positions of the stars at an epoch, propagated from J2000 with their proper
+     * motions : the unit vector of each star moves along the tangent of the sphere with its proper motion & is
+     * normalized again, all stars in a single loop over primitive columns
+     * the positions are computed once per epoch bucket, the last ones being kept; without any proper motion (or in the
+     * bucket of J2000) the positions at J2000 are given
+     * @param years - epoch in Julian years since J2000
+     * @return positions of the stars at the middle of the epoch bucket of years
+     */
+    synchronized StarPositions positionsAt(double years){
+        long bucket = Math.round(years / EPOCH_BUCKET_YEARS);
+        if (bucket == 0 || maxProperMotion == 0) {
+            return j2000Positions;
+        }
+        StarPositions positions = positionsCache.get(bucket);
+        if (positions == null) {
+            positions = propagate(bucket * EPOCH_BUCKET_YEARS);
+            positionsCache.put(bucket, positions);
+            if (positionsCache.size() > EPOCH_CACHE_SIZE) {
+                Iterator<Long> eldest = positionsCache.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * propagates the unit vectors of the stars
+     * @param years - epoch in Julian years since J2000
+     * @return positions of the stars at the epoch
+     */
+    private StarPositions propagate(double years){
+        int n = starRa.length;
+        if (velocityX == null) {
+            // velocity = pmRa * east + pmDec * north, east & north being the unit tangents at the J2000 position
+            velocityX = new float[n];
+            velocityY = new float[n];
+            velocityZ = new float[n];
+            for (int i = 0; i < n; ++i) {
+                double sinRa = Math.sin(starRa[i]), cosRa = Math.cos(starRa[i]);
+                double sinDec = Math.sin(starDec[i]), cosDec = Math.cos(starDec[i]);
+                velocityX[i] = (float) (-starPmRa[i] * sinRa - starPmDec[i] * sinDec * cosRa);
+                velocityY[i] = (float) (starPmRa[i] * cosRa - starPmDec[i] * sinDec * sinRa);
+                velocityZ[i] = (float) (starPmDec[i] * cosDec);
+            }
+        }
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        for (int i = 0; i < n; ++i) {
+            double px = starUnitX[i] + years * velocityX[i];
+            double py = starUnitY[i] + years * velocityY[i];
+            double pz = starUnitZ[i] + years * velocityZ[i];
+            double inverseNorm = 1 / Math.sqrt(px * px + py * py + pz * pz);
+            x[i] = px * inverseNorm;
+            y[i] = py * inverseNorm;
+            z[i] = pz * inverseNorm;
+        }
+        return new StarPositions(years, x, y, z);
+    }
+
+    /**
+     * package private method giving the stars lying at most radius away from a given center at the epoch of the given
+     * positions : the spatial index, built on the positions at J2000, is queried with a cone widened by the largest
+     * displacement of a star since J2000, & its stars are kept if their propagated positions are in the cone
+     * @param centre - center of the cone
+     * @param radius - angular radius of the cone, in radians
+     * @param positions - positions of the stars, given by positionsAt
+     * @return indices of the stars in the cone at the epoch of the positions, in no particular order
+     * @throws IllegalArgumentException if radius is negative
+     */
+    int[] starsInCone(EquatorialCoordinates centre, double radius, StarPositions positions){
+        if (positions == j2000Positions) {
+            return starsInCone(centre, radius);
+        }
+        int[] candidates = starsInCone(centre, Math.min(Math.PI, radius + maxProperMotion * Math.abs(positions.epoch())));
+        double cosDec = Math.cos(centre.dec());
+        double cx = cosDec * Math.cos(centre.ra()), cy = cosDec * Math.sin(centre.ra()), cz = Math.sin(centre.dec());
+        double[] x = positions.unitX(), y = positions.unitY(), z = positions.unitZ();
+        int n = 0;
+        for (int i : candidates) {
+            if (SkyIndex.angle(x[i], y[i], z[i], cx, cy, cz) <= radius) {
+                candidates[n++] = i;
+            }
+        }
+        return Arrays.copyOf(candidates, n);
+    }
+
+    /**
+     * sorts the indices of the stars by increasing magnitude, with a single sort of primitive keys
+     * each key holds the magnitude's bits (turned into an int having the same order as the floats) in its upper half
+     * & the index of the star in its lower half, so that the sort is stable
+     * @param magnitudes - magnitudes of the stars
+     * @return indices of the stars sorted by increasing magnitude
+     */
+    private static int[] sortByMagnitude(float[] magnitudes){
+        long[] keys = new long[magnitudes.length];
+        for (int i = 0; i < magnitudes.length; ++i) {
+            int bits = Float.floatToIntBits(magnitudes[i]);
+            int ordered = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+            keys[i] = ((long) ordered << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[magnitudes.length];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * package private getter method for the magnitudes of the stars
+     * the returned array is shared and must not be modified
+     * @return magnitudes, in the same order as stars()
+     */
+    float[] starMagnitude(){
+        return starMagnitude;
+    }
+
+    /**
+     * package private getter method for the indices of the stars sorted by increasing magnitude
+     * the returned array is shared and must not be modified
+     * @return indices in stars() of the stars, brightest first
+     */
+    int[] magnitudeOrder(){
+        return magnitudeOrder;
+    }
+
+    /**
+     * gives the number of stars at most as faint as the given magnitude, i.e. the length of the prefix
+     * of magnitudeOrder() holding them, found by binary search
+     * @param maxMagnitude - limiting magnitude
+     * @return number of stars of magnitude smaller or equal to maxMagnitude
+     */
+    int brighterCount(double maxMagnitude){
+        int low = 0, high = magnitudeOrder.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starMagnitude[magnitudeOrder[middle]] <= maxMagnitude) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * gives the stars at most as faint as the given magnitude, without scanning the catalogue
+     * @param maxMagnitude - limiting magnitude
+     * @return indices in stars() of the stars of magnitude smaller or equal to maxMagnitude, brightest first
+     */
+    public int[] starsBrighterThan(double maxMagnitude){
+        return Arrays.copyOf(magnitudeOrder, brighterCount(maxMagnitude));
+    }
+
+    /**
+     * gives the selection of all the stars of the catalogue
+     * @return selection of every star
+     */
+    public StarSelection all(){
+        int[] indices = new int[starRa.length];
+        Arrays.setAll(indices, i -> i);
+        return new StarSelection(this, indices);
+    }
+
+    /**
+     * gives the selection of the stars at most as faint as the given magnitude, without scanning the catalogue
+     * @param maxMagnitude - limiting magnitude (e.g. 6 for the naked-eye stars)
+     * @return selection of the stars of magnitude smaller or equal to maxMagnitude
+     */
+    public StarSelection brighterThan(double maxMagnitude){
+        int[] indices = starsBrighterThan(maxMagnitude);
+        Arrays.sort(indices);
+        return new StarSelection(this, indices);
+    }
+
+    /**
+     * gives the selection of the stars belonging to at least one asterism
+     * @return selection of the stars of the asterisms
+     */
+    public StarSelection inAsterisms(){
+        return new StarSelection(this, asterismStars);
+    }
+
+    /**
+     * gives the selection of the stars of a constellation, read from the tables of the names without creating them
+     * the constellation of a star is only known if its loader gave it (see HygDatabaseLoader)
+     * @param constellation - code of the constellation (e.g. "Ori")
+     * @return selection of the stars of the constellation
+     */
+    public StarSelection inConstellation(String constellation){
+        Objects.requireNonNull(constellation);
+        return selectIndices(i -> constellation.equals(starNames[i].constellation(starNameReference[i])));
+    }
+
+    /**
+     * gives the selection of the stars having a proper name (e.g. "Rigel"), as opposed to a name made of their
+     * Bayer designation & constellation; proper names are only known if the loader of the stars gave them
+     * (see HygDatabaseLoader)
+     * @return selection of the stars having a proper name
+     */
+    public StarSelection withProperName(){
+        return selectIndices(i -> starNames[i].isProper(starNameReference[i]));
+    }
+
+    /**
+     * gives the selection of the stars satisfying a predicate, evaluated once on each star (whose view is created)
+     * @param predicate - predicate on the stars
+     * @return selection of the stars satisfying the predicate
+     */
+    public StarSelection select(Predicate<Star> predicate){
+        return selectIndices(i -> predicate.test(star(i)));
+    }
+
+    /**
+     * gives the selection of the stars whose index satisfies a predicate, in a single pass over the catalogue
+     * @param predicate - predicate on the indices of the stars
+     * @return selection of the stars whose index satisfies the predicate
+     */
+    private StarSelection selectIndices(IntPredicate predicate){
+        int[] indices = new int[starRa.length];
+        int n = 0;
+        for (int i = 0; i < indices.length; ++i) {
+            if (predicate.test(i)) {
+                indices[n++] = i;
+            }
+        }
+        return new StarSelection(this, Arrays.copyOf(indices, n));
+    }
+
+    /**
+     * package private getter method for the stars belonging to asterisms
+     * the returned array is shared and must not be modified
+     * @return indices of the stars of all asterisms, sorted & without duplicates
+     */
+    int[] asterismStars(){
+        return asterismStars;
+    }
+
+    /**
+     * gives the stars lying at most radius away from a given center, using the spatial index of the catalogue
+     * @param centre - center of the cone
+     * @param radius - angular radius of the cone, in radians
+     * @return indices of the stars in the cone, in no particular order
+     * @throws IllegalArgumentException if radius is negative
+     */
+    public int[] starsInCone(EquatorialCoordinates centre, double radius){
+        Preconditions.checkArgument(radius >= 0);
+        double cosDec = Math.cos(centre.dec());
+        return skyIndex.inCone(cosDec * Math.cos(centre.ra()), cosDec * Math.sin(centre.ra()), Math.sin(centre.dec()),
+                radius);
+    }
+
+    /**
+     * gives the stars lying in a convex spherical polygon whose edges are arcs of great circles, using the spatial
+     * index of the catalogue
+     * the vertices may be given clockwise or counterclockwise, stars on an edge being inside
+     * @param vertices - consecutive vertices of the polygon, smaller than a hemisphere
+     * @return indices of the stars in the polygon, in no particular order
+     * @throws IllegalArgumentException if there are less than 3 vertices or if the polygon is not convex
+     */
+    public int[] starsInPolygon(List<EquatorialCoordinates> vertices){
+        int n = vertices.size();
+        Preconditions.checkArgument(n >= 3);
+        double[] v = new double[3 * n];
+        double mx = 0, my = 0, mz = 0;
+        for (int k = 0; k < n; ++k) {
+            EquatorialCoordinates vertex = vertices.get(k);
+            double cosDec = Math.cos(vertex.dec());
+            v[3 * k] = cosDec * Math.cos(vertex.ra());
+            v[3 * k + 1] = cosDec * Math.sin(vertex.ra());
+            v[3 * k + 2] = Math.sin(vertex.dec());
+            mx += v[3 * k];
+            my += v[3 * k + 1];
+            mz += v[3 * k + 2];
+        }
+
+        // normals of the great circles of the edges, oriented towards the mean of the vertices
+        double[] normals = new double[3 * n];
+        for (int k = 0; k < n; ++k) {
+            int a = 3 * k, b = 3 * ((k + 1) % n);
+            double nx = v[a + 1] * v[b + 2] - v[a + 2] * v[b + 1];
+            double ny = v[a + 2] * v[b] - v[a] * v[b + 2];
+            double nz = v[a] * v[b + 1] - v[a + 1] * v[b];
+            double norm = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            Preconditions.checkArgument(norm > 0);
+            double sign = nx * mx + ny * my + nz * mz < 0 ? -1 : 1;
+            normals[a] = sign * nx / norm;
+            normals[a + 1] = sign * ny / norm;
+            normals[a + 2] = sign * nz / norm;
+        }
+        // convex iff every vertex lies on the inner side of every edge
+        for (int e = 0; e < 3 * n; e += 3) {
+            for (int k = 0; k < 3 * n; k += 3) {
+                Preconditions.checkArgument(normals[e] * v[k] + normals[e + 1] * v[k + 1] + normals[e + 2] * v[k + 2]
+                        >= -1e-12);
+            }
+        }
+        return skyIndex.inHalfSpaces(normals);
+    }
+
     /**
      * getter method for asterisms
      * @return Set of asterisms
@@ -74,11 +622,42 @@ public final class StarCatalogue {
      * @throws IllegalArgumentException if parameter is not in list of asterisms of .this
      */
     public List<Integer> asterismIndices(Asterism asterism){
-        Preconditions.checkArgument(asterismsToIndexesMap.containsKey(asterism));
-        return List.copyOf(asterismsToIndexesMap.get(asterism));
+        return Arrays.stream(asterismStarIndices(asterism)).boxed().collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * package private getter method for indices of stars in given asterism, without boxing
+     * the returned array is shared and must not be modified
+     * @param asterism - the asterism whose star indices we want
+     * @return indices of the stars of the asterism in stars()
+     * @throws IllegalArgumentException if parameter is not in list of asterisms of .this
+     */
+    int[] asterismStarIndices(Asterism asterism){
+        int[] indices = asterismsToIndexesMap.get(asterism);
+        Preconditions.checkArgument(indices != null);
+        return indices;
     }
 
 
+    /**
+     * (nested class)
+     * unmodifiable list of the stars of the catalogue, whose elements are created on demand by star(int)
+     * @author Victor Borruat (300666)
+     * @author Raphaël Selz (302980)
+     */
+    private final class StarList extends AbstractList<Star> implements RandomAccess {
+
+        @Override
+        public Star get(int index){
+            return star(index);
+        }
+
+        @Override
+        public int size(){
+            return starRa.length;
+        }
+    }
+
     /**
      * (nested static class)
      * Star Catalogue Builder
@@ -0,0 +1,217 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.CsvParser;
+import ch.epfl.rigel.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Secondary attributes of the stars of a HYG document (distance, absolute magnitude, spectral type, luminosity &
+ * variability), shared by the stars of the document, each star only keeping the start of its line (int) in it
+ * the attributes are not parsed while loading : only the bytes of the five fields of each line are copied while the line
+ * is parsed, into a small document of their own (about a seventh of the HYG document, which is not kept); the fields of a star are parsed at the first
+ * access to one of its attributes, which are then kept in primitive columns
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+final class StarDetails {
+
+    /**
+     * columns of the CSV document that are read
+     */
+    private static final int DIST = 9;
+    private static final int ABSMAG = 14;
+    private static final int SPECT = 15;
+    private static final int LUM = 33;
+    private static final int VAR = 34;
+
+    /**
+     * distances from which the HYG database marks a distance as missing or dubious, in parsecs
+     */
+    private static final double UNKNOWN_DISTANCE = 100_000;
+
+    /**
+     * columns of the HYG document that are kept, & their columns in the kept document
+     */
+    private static final int[] KEPT_COLUMNS = {DIST, ABSMAG, SPECT, LUM, VAR};
+    private static final int KEPT_DIST = 0;
+    private static final int KEPT_ABSMAG = 1;
+    private static final int KEPT_SPECT = 2;
+    private static final int KEPT_LUM = 3;
+    private static final int KEPT_VAR = 4;
+
+    /**
+     * starts of the lines of the stars in the HYG document (ascending) & of their kept fields in kept, at the same
+     * indices, the kept fields of each star being a line of a CSV document
+     */
+    private int[] lineStarts = new int[0];
+    private int[] keptStarts = new int[0];
+    private ByteBuffer kept = ByteBuffer.allocate(0);
+
+    /**
+     * decoded stars : position of the attributes of the star whose line starts at a given index, & attributes
+     */
+    private final IntIndexMap decoded = new IntIndexMap(64);
+    private float[] distances = new float[64];
+    private float[] absoluteMagnitudes = new float[64];
+    private float[] luminosities = new float[64];
+    private String[] spectralTypes = new String[64];
+    private String[] variabilities = new String[64];
+
+    /**
+     * package private constructor
+     * creates the details of a document whose fields are not kept yet (see keepFields)
+     */
+    StarDetails() {
+    }
+
+    /**
+     * copies the fields of the secondary attributes of a line of the HYG document, as they are written in it, while
+     * the line is parsed (concurrently with the other lines, see HygDatabaseLoader)
+     * @param document - the HYG document
+     * @param row - row positioned on the line
+     * @return kept fields of the line, as a line of a CSV document
+     */
+    static byte[] fieldsOf(ByteBuffer document, CsvParser.Row row) {
+        int length = KEPT_COLUMNS.length;
+        for (int column : KEPT_COLUMNS) {
+            length += row.fieldEnd(column) - row.fieldStart(column);
+        }
+        byte[] fields = new byte[length];
+        int n = 0;
+        for (int c = 0; c < KEPT_COLUMNS.length; ++c) {
+            int start = row.fieldStart(KEPT_COLUMNS[c]);
+            int size = row.fieldEnd(KEPT_COLUMNS[c]) - start;
+            document.get(start, fields, n, size);
+            n += size;
+            fields[n++] = (byte) ((c == KEPT_COLUMNS.length - 1) ? '\n' : ',');
+        }
+        return fields;
+    }
+
+    /**
+     * keeps the fields of the secondary attributes of the stars (see fieldsOf), concatenated in the order of the
+     * document, before any of their attributes is asked
+     * @param lineStarts - starts of the lines of the stars in the document, in ascending order (kept without copy)
+     * @param fields - kept fields of the stars, at the same indices
+     * @throws IllegalArgumentException if there are not as many kept fields as lines
+     */
+    synchronized void keepFields(int[] lineStarts, byte[][] fields) {
+        Preconditions.checkArgument(lineStarts.length == fields.length);
+        int[] starts = new int[lineStarts.length];
+        int size = 0;
+        for (int k = 0; k < fields.length; ++k) {
+            starts[k] = size;
+            size += fields[k].length;
+        }
+        byte[] bytes = new byte[size];
+        for (int k = 0; k < fields.length; ++k) {
+            System.arraycopy(fields[k], 0, bytes, starts[k], fields[k].length);
+        }
+        this.lineStarts = lineStarts;
+        this.keptStarts = starts;
+        this.kept = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * gives the number of bytes kept for the attributes of the stars
+     * @return size of the kept document
+     */
+    synchronized int keptSize() {
+        return kept.capacity();
+    }
+
+    /**
+     * gives the distance of a star
+     * @param lineStart - start of the line of the star in the document (see CsvParser.Row.lineStart)
+     * @return distance in parsecs, NaN if it is missing or dubious
+     */
+    synchronized double distance(int lineStart) {
+        int slot = decode(lineStart);
+        return distances[slot];
+    }
+
+    /**
+     * gives the absolute magnitude of a star
+     * @param lineStart - start of the line of the star in the document
+     * @return absolute magnitude, NaN if it is missing
+     */
+    synchronized double absoluteMagnitude(int lineStart) {
+        int slot = decode(lineStart);
+        return absoluteMagnitudes[slot];
+    }
+
+    /**
+     * gives the luminosity of a star
+     * @param lineStart - start of the line of the star in the document
+     * @return luminosity in solar luminosities, NaN if it is missing
+     */
+    synchronized double luminosity(int lineStart) {
+        int slot = decode(lineStart);
+        return luminosities[slot];
+    }
+
+    /**
+     * gives the spectral type of a star
+     * @param lineStart - start of the line of the star in the document
+     * @return spectral type (e.g. "B8Ia"), empty if it is missing
+     */
+    synchronized String spectralType(int lineStart) {
+        int slot = decode(lineStart);
+        return spectralTypes[slot];
+    }
+
+    /**
+     * gives the variability of a star
+     * @param lineStart - start of the line of the star in the document
+     * @return designation of the star as a variable star, empty if it is not known to be variable
+     */
+    synchronized String variability(int lineStart) {
+        int slot = decode(lineStart);
+        return variabilities[slot];
+    }
+
+    /**
+     * gives the number of stars whose attributes were read
+     * @return number of decoded stars
+     */
+    synchronized int decodedCount() {
+        return decoded.size();
+    }
+
+    /**
+     * gives the position of the attributes of a star in the columns, parsing its line if it was not yet
+     * @param lineStart - start of the line of the star in the document
+     * @return position of the attributes of the star (to be found before reading a column, which it may grow)
+     * @throws IllegalArgumentException if no star of the document starts at lineStart
+     */
+    private int decode(int lineStart) {
+        int slot = decoded.get(lineStart);
+        if (slot != IntIndexMap.ABSENT) {
+            return slot;
+        }
+        int k = Arrays.binarySearch(lineStarts, lineStart);
+        Preconditions.checkArgument(k >= 0);
+        slot = decoded.size();
+        if (slot == distances.length) {
+            distances = Arrays.copyOf(distances, 2 * slot);
+            absoluteMagnitudes = Arrays.copyOf(absoluteMagnitudes, 2 * slot);
+            luminosities = Arrays.copyOf(luminosities, 2 * slot);
+            spectralTypes = Arrays.copyOf(spectralTypes, 2 * slot);
+            variabilities = Arrays.copyOf(variabilities, 2 * slot);
+        }
+        int s = slot;
+        CsvParser.parseLine(kept, keptStarts[k], row -> {
+            double distance = row.isBlank(KEPT_DIST) ? Double.NaN : row.parseDouble(KEPT_DIST);
+            distances[s] = (float) (distance >= UNKNOWN_DISTANCE ? Double.NaN : distance);
+            absoluteMagnitudes[s] = row.isBlank(KEPT_ABSMAG) ? Float.NaN : row.parseFloat(KEPT_ABSMAG);
+            luminosities[s] = row.isBlank(KEPT_LUM) ? Float.NaN : (float) row.parseDouble(KEPT_LUM);
+            spectralTypes[s] = row.string(KEPT_SPECT).strip();
+            variabilities[s] = row.string(KEPT_VAR).strip();
+            return null;
+        });
+        decoded.putIfAbsent(lineStart, slot);
+        return slot;
+    }
+}
@@ -0,0 +1,203 @@
+package ch.epfl.rigel.astronomy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of star names shared by the stars of a catalogue, each star only keeping a reference (int) into it
+ * a name is either stored whole, in a table of UTF-8 bytes (proper names), or as two components
+ * (e.g. Bayer & constellation codes) referring to a dictionary of distinct tokens, joined by a space;
+ * the String of a name is only created when asked (see Star.name())
+ * the table also knows the constellation of the names added with one & which names are proper names, so that
+ * StarCatalogue can select stars by constellation without creating their names
+ * a table is not thread-safe while names are added : it is filled by a single thread (in the order of the document for
+ * the loaders, the references thus not depending on any scheduling) before being shared, & only read afterwards
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+final class StarNames {
+
+    /**
+     * maximal number of distinct first & second components (15 & 16 bits of the references)
+     */
+    private static final int MAX_FIRST_TOKENS = 1 << 15;
+    private static final int MAX_SECOND_TOKENS = 1 << 16;
+
+    /**
+     * whole names : UTF-8 bytes of name i in [offsets[i], offsets[i + 1][
+     */
+    private byte[] bytes;
+    private int size;
+    private int[] offsets;
+    private int count;
+
+    /**
+     * constellation (token identifier, -1 if unknown) of whole name i & whole names that are proper names
+     */
+    private int[] constellations;
+    private final BitSet properNames = new BitSet();
+
+    /**
+     * dictionary of the components
+     */
+    private final List<String> tokens = new ArrayList<>();
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+
+    /**
+     * package private constructor of an empty table
+     */
+    StarNames() {
+        this(new byte[1 << 12], new int[1 << 8], 0);
+    }
+
+    /**
+     * private constructor
+     * @param bytes - table of bytes
+     * @param offsets - offsets of the names in bytes, count + 1 of them being valid
+     * @param count - number of whole names
+     */
+    private StarNames(byte[] bytes, int[] offsets, int count) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.count = count;
+        this.size = offsets[count];
+        this.constellations = new int[offsets.length];
+        Arrays.fill(constellations, -1);
+    }
+
+    /**
+     * gives a table of existing whole names (see BinaryCatalogueLoader), whose arrays are used without copy
+     * the reference of name i is wholeName(i)
+     * @param bytes - UTF-8 bytes of the names
+     * @param offsets - offsets of the names in bytes, name i being in [offsets[i], offsets[i + 1][
+     * @return table of the names
+     * @throws IllegalArgumentException if there is no offset
+     */
+    static StarNames of(byte[] bytes, int[] offsets) {
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("no offset");
+        }
+        return new StarNames(bytes, offsets, offsets.length - 1);
+    }
+
+    /**
+     * gives the reference of the i-th whole name of the table
+     * @param index - index of the whole name
+     * @return its reference (negative)
+     */
+    static int wholeName(int index) {
+        return ~index;
+    }
+
+    /**
+     * adds a name stored whole, whose constellation is unknown
+     * @param name - the name
+     * @return reference of the name
+     */
+    int add(String name) {
+        return addWhole(name, -1);
+    }
+
+    /**
+     * adds a proper name (e.g. "Rigel"), stored whole
+     * @param name - the name
+     * @param constellation - code of the constellation of the star
+     * @return reference of the name
+     */
+    int addProper(String name, String constellation) {
+        int reference = addWhole(name, token(constellation));
+        properNames.set(~reference);
+        return reference;
+    }
+
+    /**
+     * adds a name stored whole
+     * @param name - the name
+     * @param constellation - token identifier of the constellation, -1 if unknown
+     * @return reference of the name
+     */
+    private int addWhole(String name, int constellation) {
+        byte[] b = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length - size < b.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(size + b.length, 2 * bytes.length));
+        }
+        if (offsets.length == count + 1) {
+            offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+            int old = constellations.length;
+            constellations = Arrays.copyOf(constellations, offsets.length);
+            Arrays.fill(constellations, old, constellations.length, -1);
+        }
+        constellations[count] = constellation;
+        System.arraycopy(b, 0, bytes, size, b.length);
+        size += b.length;
+        offsets[++count] = size;
+        return wholeName(count - 1);
+    }
+
+    /**
+     * adds the name first + " " + second, stored as two components if the dictionary is not full
+     * @param first - first component (e.g. Bayer code)
+     * @param second - second component (e.g. constellation code)
+     * @return reference of the name
+     */
+    int add(String first, String second) {
+        int a = token(first);
+        int b = token(second);
+        if (a >= MAX_FIRST_TOKENS || b >= MAX_SECOND_TOKENS) {
+            return addWhole(first + " " + second, b);
+        }
+        return a * MAX_SECOND_TOKENS + b;
+    }
+
+    /**
+     * gives the name of a reference
+     * @param reference - reference given by add or wholeName
+     * @return the name
+     */
+    String name(int reference) {
+        if (reference < 0) {
+            int i = ~reference;
+            return new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+        return tokens.get(reference / MAX_SECOND_TOKENS) + " " + tokens.get(reference % MAX_SECOND_TOKENS);
+    }
+
+    /**
+     * gives the constellation of a name, the second component of the names made of two components
+     * @param reference - reference given by add, addProper or wholeName
+     * @return code of the constellation, null if it is unknown
+     */
+    String constellation(int reference) {
+        int token = (reference < 0) ? constellations[~reference] : reference % MAX_SECOND_TOKENS;
+        return (token < 0) ? null : tokens.get(token);
+    }
+
+    /**
+     * tells whether a name was added as a proper name (see addProper)
+     * @param reference - reference given by add, addProper or wholeName
+     * @return true iff the name is a proper name
+     */
+    boolean isProper(int reference) {
+        return reference < 0 && properNames.get(~reference);
+    }
+
+    /**
+     * gives the identifier of a token, adding it to the dictionary if needed
+     * @param token - the token
+     * @return its identifier
+     */
+    private int token(String token) {
+        Integer id = tokenIds.get(token);
+        if (id == null) {
+            id = tokens.size();
+            tokens.add(token);
+            tokenIds.put(token, id);
+        }
+        return id;
+    }
+}
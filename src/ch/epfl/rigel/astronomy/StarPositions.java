@@ -0,0 +1,98 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+
+/**
+ * Positions of all the stars of a catalogue at an epoch, propagated from J2000 with their proper motions
+ * (see StarCatalogue.positionsAt); the positions are kept as the components of the unit vectors of the stars,
+ * their equatorial coordinates being computed when asked
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class StarPositions {
+
+    private final double epoch;
+    private final double[] unitX;
+    private final double[] unitY;
+    private final double[] unitZ;
+
+    /**
+     * package private constructor
+     * @param epoch - epoch of the positions, in Julian years since J2000
+     * @param unitX - x components of the unit vectors of the stars, used without copy
+     * @param unitY - y components of the unit vectors of the stars, used without copy
+     * @param unitZ - z components of the unit vectors of the stars, used without copy
+     */
+    StarPositions(double epoch, double[] unitX, double[] unitY, double[] unitZ) {
+        this.epoch = epoch;
+        this.unitX = unitX;
+        this.unitY = unitY;
+        this.unitZ = unitZ;
+    }
+
+    /**
+     * getter method for the epoch of the positions (the middle of the epoch bucket they were computed for)
+     * @return epoch in Julian years since J2000
+     */
+    public double epoch() {
+        return epoch;
+    }
+
+    /**
+     * gives the number of stars
+     * @return number of positions
+     */
+    public int size() {
+        return unitX.length;
+    }
+
+    /**
+     * gives the right ascension of a star at the epoch
+     * @param index - index of the star in the catalogue
+     * @return right ascension in radians, in [0, 2PI[
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    public double ra(int index) {
+        double ra = Angle.normalizePositive(Math.atan2(unitY[index], unitX[index]));
+        // a tiny negative angle is normalized to 2PI itself, by rounding
+        return (ra >= Angle.TAU) ? 0 : ra;
+    }
+
+    /**
+     * gives the declination of a star at the epoch
+     * @param index - index of the star in the catalogue
+     * @return declination in radians, in [-PI/2, PI/2]
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    public double dec(int index) {
+        return Math.asin(Math.max(-1, Math.min(1, unitZ[index])));
+    }
+
+    /**
+     * gives the equatorial position of a star at the epoch
+     * @param index - index of the star in the catalogue
+     * @return equatorial coordinates of the star
+     * @throws IndexOutOfBoundsException if index is not a valid star index
+     */
+    public EquatorialCoordinates position(int index) {
+        return EquatorialCoordinates.of(ra(index), dec(index));
+    }
+
+    /**
+     * package private getter methods for the components of the unit vectors of the stars
+     * the returned arrays are shared and must not be modified
+     * @return components in the same order as the stars of the catalogue
+     */
+    double[] unitX() {
+        return unitX;
+    }
+
+    double[] unitY() {
+        return unitY;
+    }
+
+    double[] unitZ() {
+        return unitZ;
+    }
+}
@@ -0,0 +1,177 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable subset of the stars of a catalogue (e.g. the naked-eye stars, the stars of a constellation), given by the
+ * sorted indices of its stars in the catalogue : selecting stars never copies them nor creates a new catalogue
+ * selections of the same catalogue are combined with and, or & not (see StarCatalogue for the basic ones)
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class StarSelection {
+
+    private final StarCatalogue catalogue;
+
+    /**
+     * indices of the stars in the catalogue, sorted & without duplicates
+     */
+    private final int[] indices;
+
+    /**
+     * package private constructor
+     * @param catalogue - catalogue of the stars
+     * @param indices - indices of the stars in the catalogue, sorted & without duplicates, used without copy
+     */
+    StarSelection(StarCatalogue catalogue, int[] indices) {
+        this.catalogue = catalogue;
+        this.indices = indices;
+    }
+
+    /**
+     * getter method for the catalogue of the selection
+     * @return catalogue whose stars are selected
+     */
+    public StarCatalogue catalogue() {
+        return catalogue;
+    }
+
+    /**
+     * gives the number of selected stars
+     * @return number of stars in the selection
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * tells whether a star of the catalogue is selected
+     * @param index - index of the star in the catalogue
+     * @return true iff the star is in the selection
+     */
+    public boolean contains(int index) {
+        return Arrays.binarySearch(indices, index) >= 0;
+    }
+
+    /**
+     * getter method for the indices of the selected stars
+     * @return sorted indices of the stars in catalogue().stars()
+     */
+    public int[] indices() {
+        return indices.clone();
+    }
+
+    /**
+     * package private getter method for the indices of the selected stars
+     * the returned array is shared and must not be modified
+     * @return sorted indices of the stars in catalogue().stars()
+     */
+    int[] indexArray() {
+        return indices;
+    }
+
+    /**
+     * gives the selected stars, created when they are asked (see StarCatalogue.stars())
+     * @return immutable list of the stars, in the order of the catalogue
+     */
+    public List<Star> stars() {
+        return new SelectedStars(catalogue.stars());
+    }
+
+    /**
+     * gives the stars selected by both .this & that
+     * @param that - selection of the same catalogue
+     * @return intersection of the selections
+     * @throws IllegalArgumentException if that selects stars of another catalogue
+     */
+    public StarSelection and(StarSelection that) {
+        Preconditions.checkArgument(that.catalogue == catalogue);
+        int[] a = indices, b = that.indices;
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                ++i;
+            } else if (a[i] > b[j]) {
+                ++j;
+            } else {
+                result[n++] = a[i];
+                ++i;
+                ++j;
+            }
+        }
+        return new StarSelection(catalogue, Arrays.copyOf(result, n));
+    }
+
+    /**
+     * gives the stars selected by .this or that
+     * @param that - selection of the same catalogue
+     * @return union of the selections
+     * @throws IllegalArgumentException if that selects stars of another catalogue
+     */
+    public StarSelection or(StarSelection that) {
+        Preconditions.checkArgument(that.catalogue == catalogue);
+        int[] a = indices, b = that.indices;
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[n++] = b[j++];
+            } else {
+                result[n++] = a[i];
+                ++i;
+                ++j;
+            }
+        }
+        return new StarSelection(catalogue, Arrays.copyOf(result, n));
+    }
+
+    /**
+     * gives the stars of the catalogue that are not selected by .this
+     * @return complement of the selection in the catalogue
+     */
+    public StarSelection not() {
+        int[] result = new int[catalogue.stars().size() - indices.length];
+        int n = 0, k = 0;
+        for (int index = 0; n < result.length; ++index) {
+            if (k < indices.length && indices[k] == index) {
+                ++k;
+            } else {
+                result[n++] = index;
+            }
+        }
+        return new StarSelection(catalogue, result);
+    }
+
+    /**
+     * (nested class)
+     * unmodifiable list of the selected stars
+     * @author Victor Borruat (300666)
+     * @author Raphaël Selz (302980)
+     */
+    private final class SelectedStars extends AbstractList<Star> implements RandomAccess {
+
+        private final List<Star> stars;
+
+        private SelectedStars(List<Star> stars) {
+            this.stars = stars;
+        }
+
+        @Override
+        public Star get(int index) {
+            return stars.get(indices[index]);
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+    }
+}
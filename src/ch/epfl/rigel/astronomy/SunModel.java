@@ -61,4 +61,14 @@ public enum SunModel implements CelestialObjectModel<Sun> {
 
         return new Sun(ecl, eq, angularSize, (float)meanAnomaly);
     }
+
+    /**
+     * gives the Sun of the given context, so that it is computed only once per instant
+     * @param context - ephemeris context of the instant
+     * @return corresponding Sun (in time & space)
+     */
+    @Override
+    public Sun at(EphemerisContext context) {
+        return context.sun();
+    }
 }
@@ -0,0 +1,43 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converter tool writing a HYG CSV catalogue & its asterisms as the tiled star store read by TiledStarStore
+ * usage : TiledCatalogueConverter hygdata.csv asterisms.txt catalogue.tiles
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class TiledCatalogueConverter {
+
+    /**
+     * private default constructor
+     */
+    private TiledCatalogueConverter() {}
+
+    /**
+     * converts the catalogue given by the command line arguments
+     * @param args - paths of the HYG CSV catalogue, of the asterisms & of the store to be written
+     * @throws IOException if reading or writing one of the files fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("usage : TiledCatalogueConverter <hygdata.csv> <asterisms.txt> <catalogue.tiles>");
+            System.exit(1);
+        }
+        StarCatalogue catalogue;
+        try (InputStream hygStream = Files.newInputStream(Path.of(args[0]));
+             InputStream asterismStream = Files.newInputStream(Path.of(args[1]))) {
+            catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(asterismStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+        TiledStarStore.write(catalogue, Path.of(args[2]));
+        System.out.printf("%d stars & %d asterisms written to %s (%d bytes)%n",
+                catalogue.stars().size(), catalogue.asterisms().size(), args[2], Files.size(Path.of(args[2])));
+    }
+}
@@ -0,0 +1,556 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disk-backed store of the stars of a catalogue too large to be kept in memory
+ * the stars are partitioned in tiles by sky region (cells of the cube map of SkyIndex) & magnitude band; a tile is
+ * memory-mapped & decoded only when a query needs it, the decoded tiles being kept in an LRU cache whose approximate
+ * heap footprint is bounded by a byte budget. The stars of the asterisms are kept apart & always loaded
+ * a query gives a (small) StarCatalogue of the stars of a cone, to be observed by ObservedSky
+ * file layout (big-endian) : header, tile directory, asterisms, asterisms' stars, then the tiles, each holding its stars
+ * in columns (Hipparcos ids, right ascensions, declinations, magnitudes, color indices, proper motions in right ascension
+ * & declination, offsets of the names & names)
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class TiledStarStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x52475454;
+    private static final int VERSION = 2;
+
+    /**
+     * upper limits of the magnitude bands, the last band holding the fainter stars
+     */
+    static final float[] BAND_LIMITS = {6, 9, 12};
+    private static final int BAND_COUNT = BAND_LIMITS.length + 1;
+
+    /**
+     * targeted mean number of stars per sky region & maximal level of the regions in the cube map
+     */
+    private static final int STARS_PER_REGION = 4096;
+    private static final int MAX_LEVEL = 6;
+
+    /**
+     * approximate heap footprint of a decoded star in bytes (Star, its coordinates, unit vector, magnitude & proper motion),
+     * the bytes of its name excluded
+     */
+    static final int BYTES_PER_STAR = 120;
+
+    /**
+     * bytes of a star in a tile, the bytes of its name excluded
+     */
+    private static final int STAR_RECORD_BYTES = 2 * Integer.BYTES + 2 * Double.BYTES + 4 * Float.BYTES;
+
+    private final FileChannel channel;
+    private final int starCount;
+
+    /**
+     * level of the regions in the cube map, unit vectors of their centers (flattened) & radius of a cap containing any
+     */
+    private final int level;
+    private final double[] regionCenters;
+    private final double regionRadius;
+
+    /**
+     * tile directory : tile t (region t / BAND_COUNT, band t % BAND_COUNT) lies in [tileOffsets[t], tileOffsets[t + 1][
+     * & holds tileSizes[t] stars
+     */
+    private final long[] tileOffsets;
+    private final int[] tileSizes;
+
+    /**
+     * stars of the asterisms, always loaded, & asterisms
+     */
+    private final Tile pinned;
+    private final List<Asterism> asterisms;
+
+    /**
+     * cache of the decoded tiles, by index, in access order (least recently used first)
+     */
+    private final long byteBudget;
+    private final LinkedHashMap<Integer, Tile> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+    private long tileLoads;
+
+    /**
+     * private constructor, reads the header, directory & asterisms
+     * @param channel - channel of the file
+     * @param byteBudget - budget of the cache in bytes
+     * @throws IOException if reading fails
+     */
+    private TiledStarStore(FileChannel channel, long byteBudget) throws IOException {
+        this.channel = channel;
+        this.byteBudget = byteBudget;
+
+        ByteBuffer header = map(0, 4 * Integer.BYTES);
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("not a tiled star store");
+        }
+        level = header.getInt();
+        if (level < 0 || level > MAX_LEVEL || header.getInt() != BAND_COUNT) {
+            throw new IOException("invalid tiled star store");
+        }
+        int regionCount = 6 << (2 * level);
+        int tileCount = regionCount * BAND_COUNT;
+
+        long position = header.capacity();
+        ByteBuffer directory = map(position, BAND_LIMITS.length * Float.BYTES + 4 * Integer.BYTES
+                + (tileCount + 1) * Long.BYTES + tileCount * Integer.BYTES);
+        for (float limit : BAND_LIMITS) {
+            if (directory.getFloat() != limit) {
+                throw new IOException("invalid magnitude bands");
+            }
+        }
+        starCount = directory.getInt();
+        int pinnedCount = directory.getInt();
+        int asterismCount = directory.getInt();
+        int asterismStarCount = directory.getInt();
+        tileOffsets = new long[tileCount + 1];
+        tileSizes = new int[tileCount];
+        directory.asLongBuffer().get(tileOffsets);
+        directory.position(directory.position() + (tileCount + 1) * Long.BYTES);
+        directory.asIntBuffer().get(tileSizes);
+        position += directory.capacity();
+
+        ByteBuffer asterismData = map(position, (asterismCount + 1 + asterismStarCount) * Integer.BYTES);
+        int[] asterismStarts = new int[asterismCount + 1];
+        int[] asterismStars = new int[asterismStarCount];
+        asterismData.asIntBuffer().get(asterismStarts);
+        asterismData.position((asterismCount + 1) * Integer.BYTES);
+        asterismData.asIntBuffer().get(asterismStars);
+        position += asterismData.capacity();
+
+        pinned = readTile(position, tileOffsets[0], pinnedCount);
+        asterisms = new ArrayList<>(asterismCount);
+        for (int a = 0; a < asterismCount; ++a) {
+            List<Star> stars = new ArrayList<>(asterismStarts[a + 1] - asterismStarts[a]);
+            for (int k = asterismStarts[a]; k < asterismStarts[a + 1]; ++k) {
+                stars.add(pinned.stars.get(asterismStars[k]));
+            }
+            asterisms.add(new Asterism(stars));
+        }
+
+        regionCenters = new double[3 * regionCount];
+        for (int r = 0; r < regionCount; ++r) {
+            System.arraycopy(SkyIndex.cellCenter(level, r), 0, regionCenters, 3 * r, 3);
+        }
+        regionRadius = SkyIndex.cellCapRadius(level);
+    }
+
+    /**
+     * opens a store written by write
+     * @param path - path of the file of the store
+     * @param byteBudget - approximate maximal heap footprint of the cached tiles, in bytes (the tiles needed by a query
+     *                   are loaded even if they exceed it)
+     * @return the store, to be closed once not used anymore
+     * @throws IOException if the file cannot be read or does not hold a tiled star store
+     * @throws IllegalArgumentException if byteBudget is negative
+     */
+    public static TiledStarStore open(Path path, long byteBudget) throws IOException {
+        Preconditions.checkArgument(byteBudget >= 0);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new TiledStarStore(channel, byteBudget);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            channel.close();
+            throw new IOException("invalid tiled star store", e);
+        }
+    }
+
+    /**
+     * getter method for the number of stars
+     * @return number of stars of the store, asterisms' stars included
+     */
+    public int starCount() {
+        return starCount;
+    }
+
+    /**
+     * getter method for the approximate heap footprint of the cached tiles
+     * @return footprint in bytes
+     */
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * getter method for the number of tiles read from the file since the store was opened
+     * @return number of tile loads (a tile evicted & needed again being counted twice)
+     */
+    public synchronized long tileLoads() {
+        return tileLoads;
+    }
+
+    /**
+     * gives the catalogue of the stars of a cone, at most as faint as the given magnitude, & of all the asterisms
+     * only the tiles of the regions intersecting the cone & of the bands reaching maxMagnitude are read
+     * @param centre - center of the cone
+     * @param radius - angular radius of the cone, in radians (PI or more for the whole sky)
+     * @param maxMagnitude - limiting magnitude
+     * @return catalogue of the stars of the asterisms, followed by the stars of the cone, in the order of the tiles
+     * @throws IllegalArgumentException if radius is negative
+     * @throws UncheckedIOException if reading a tile fails
+     */
+    public synchronized StarCatalogue catalogue(EquatorialCoordinates centre, double radius, double maxMagnitude) {
+        Preconditions.checkArgument(radius >= 0);
+        double cosDec = Math.cos(centre.dec());
+        double cx = cosDec * Math.cos(centre.ra()), cy = cosDec * Math.sin(centre.ra()), cz = Math.sin(centre.dec());
+        double minStarDot = (radius < Math.PI) ? Math.cos(radius) : Double.NEGATIVE_INFINITY;
+        double minRegionDot = (radius + regionRadius < Math.PI) ? Math.cos(radius + regionRadius) : Double.NEGATIVE_INFINITY;
+
+        List<Star> stars = new ArrayList<>(pinned.stars);
+        for (int r = 0; r < regionCenters.length / 3; ++r) {
+            if (regionCenters[3 * r] * cx + regionCenters[3 * r + 1] * cy + regionCenters[3 * r + 2] * cz < minRegionDot) {
+                continue;
+            }
+            for (int band = 0; band < BAND_COUNT; ++band) {
+                int t = r * BAND_COUNT + band;
+                if (tileSizes[t] == 0 || (band > 0 && maxMagnitude <= BAND_LIMITS[band - 1])) {
+                    continue;
+                }
+                Tile tile = tile(t);
+                for (int i = 0; i < tile.magnitudes.length; ++i) {
+                    if (tile.magnitudes[i] <= maxMagnitude
+                            && tile.ux[i] * cx + tile.uy[i] * cy + tile.uz[i] * cz >= minStarDot) {
+                        stars.add(tile.stars.get(i));
+                    }
+                }
+            }
+        }
+        return new StarCatalogue(stars, asterisms);
+    }
+
+    /**
+     * gives a tile, from the cache or read from the file, evicting the least recently used tiles beyond the budget
+     * @param t - index of the tile
+     * @return the decoded tile
+     * @throws UncheckedIOException if reading the tile fails
+     */
+    private Tile tile(int t) {
+        Tile tile = cache.get(t);
+        if (tile == null) {
+            try {
+                tile = readTile(tileOffsets[t], tileOffsets[t + 1], tileSizes[t]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ++tileLoads;
+            cache.put(t, tile);
+            residentBytes += tile.bytes;
+            Iterator<Map.Entry<Integer, Tile>> eldest = cache.entrySet().iterator();
+            while (residentBytes > byteBudget && cache.size() > 1) {
+                residentBytes -= eldest.next().getValue().bytes;
+                eldest.remove();
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * memory-maps & decodes a tile
+     * @param from - start of the tile in the file
+     * @param to - end of the tile in the file
+     * @param count - number of stars of the tile
+     * @return the tile
+     * @throws IOException if reading fails or if the tile is invalid
+     */
+    private Tile readTile(long from, long to, int count) throws IOException {
+        ByteBuffer buffer = map(from, Math.toIntExact(to - from));
+        int[] hipparcosIds = new int[count];
+        double[] ra = new double[count];
+        double[] dec = new double[count];
+        float[] magnitudes = new float[count];
+        float[] colorIndices = new float[count];
+        float[] pmRa = new float[count];
+        float[] pmDec = new float[count];
+        int[] nameOffsets = new int[count + 1];
+        try {
+            buffer.asIntBuffer().get(hipparcosIds);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            buffer.asDoubleBuffer().get(ra);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            buffer.asDoubleBuffer().get(dec);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            buffer.asFloatBuffer().get(magnitudes);
+            buffer.position(buffer.position() + count * Float.BYTES);
+            buffer.asFloatBuffer().get(colorIndices);
+            buffer.position(buffer.position() + count * Float.BYTES);
+            buffer.asFloatBuffer().get(pmRa);
+            buffer.position(buffer.position() + count * Float.BYTES);
+            buffer.asFloatBuffer().get(pmDec);
+            buffer.position(buffer.position() + count * Float.BYTES);
+            buffer.asIntBuffer().get(nameOffsets);
+            buffer.position(buffer.position() + (count + 1) * Integer.BYTES);
+            byte[] names = new byte[buffer.remaining()];
+            buffer.get(names);
+            return new Tile(hipparcosIds, ra, dec, magnitudes, colorIndices, pmRa, pmDec, StarNames.of(names, nameOffsets),
+                    names.length);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("invalid tile", e);
+        }
+    }
+
+    /**
+     * memory-maps a part of the file
+     * @param position - start of the part
+     * @param size - size of the part in bytes
+     * @return buffer of the part
+     * @throws IOException if the part is not in the file or if mapping fails
+     */
+    private ByteBuffer map(long position, int size) throws IOException {
+        if (position < 0 || size < 0 || position + size > channel.size()) {
+            throw new IOException("truncated tiled star store");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * closes the file of the store & empties the cache (the catalogues already given stay valid)
+     * @throws IOException if closing the file fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        cache.clear();
+        residentBytes = 0;
+        channel.close();
+    }
+
+    /**
+     * writes a catalogue as a tiled star store, the stars of each tile being kept in the order of the catalogue
+     * @param catalogue - catalogue to be written
+     * @param path - path of the file to be written
+     * @throws IOException in case of input/output error
+     */
+    public static void write(StarCatalogue catalogue, Path path) throws IOException {
+        List<Star> stars = catalogue.stars();
+        int n = stars.size();
+        int l = 0;
+        while (l < MAX_LEVEL && (6L << (2 * l)) * STARS_PER_REGION < n) {
+            ++l;
+        }
+        int tileCount = (6 << (2 * l)) * BAND_COUNT;
+
+        // tile of each star, -1 for the asterisms' stars, & their position in the pinned stars
+        int[] asterismStars = catalogue.asterismStars();
+        int[] pinnedIndex = new int[n];
+        Arrays.fill(pinnedIndex, -1);
+        for (int k = 0; k < asterismStars.length; ++k) {
+            pinnedIndex[asterismStars[k]] = k;
+        }
+        byte[][] names = new byte[n][];
+        int[] tileOf = new int[n];
+        int[] tileSizes = new int[tileCount];
+        long[] tileBytes = new long[tileCount];
+        long pinnedBytes = Integer.BYTES;
+        double[] ux = catalogue.starUnitX(), uy = catalogue.starUnitY(), uz = catalogue.starUnitZ();
+        for (int i = 0; i < n; ++i) {
+            names[i] = stars.get(i).name().getBytes(StandardCharsets.UTF_8);
+            if (pinnedIndex[i] >= 0) {
+                tileOf[i] = -1;
+                pinnedBytes += STAR_RECORD_BYTES + names[i].length;
+            } else {
+                int t = SkyIndex.cellOf(l, ux[i], uy[i], uz[i]) * BAND_COUNT + bandOf(stars.get(i).magnitude());
+                tileOf[i] = t;
+                ++tileSizes[t];
+                tileBytes[t] += STAR_RECORD_BYTES + names[i].length;
+            }
+        }
+
+        // stars sorted by tile (counting sort, stable)
+        int[] tileStart = new int[tileCount + 1];
+        for (int t = 0; t < tileCount; ++t) {
+            tileStart[t + 1] = tileStart[t] + tileSizes[t];
+        }
+        int[] sorted = new int[tileStart[tileCount]];
+        int[] next = Arrays.copyOf(tileStart, tileCount);
+        for (int i = 0; i < n; ++i) {
+            if (tileOf[i] >= 0) {
+                sorted[next[tileOf[i]]++] = i;
+            }
+        }
+
+        List<int[]> asterisms = new ArrayList<>();
+        int asterismStarCount = 0;
+        for (Asterism a : catalogue.asterisms()) {
+            int[] indices = catalogue.asterismStarIndices(a);
+            int[] pinnedIndices = new int[indices.length];
+            for (int k = 0; k < pinnedIndices.length; ++k) {
+                pinnedIndices[k] = pinnedIndex[indices[k]];
+            }
+            asterisms.add(pinnedIndices);
+            asterismStarCount += pinnedIndices.length;
+        }
+
+        long headerBytes = 4 * Integer.BYTES + BAND_LIMITS.length * Float.BYTES + 4 * Integer.BYTES
+                + (tileCount + 1) * (long) Long.BYTES + tileCount * (long) Integer.BYTES
+                + (asterisms.size() + 1 + asterismStarCount) * (long) Integer.BYTES;
+        long[] tileOffsets = new long[tileCount + 1];
+        tileOffsets[0] = headerBytes + pinnedBytes;
+        for (int t = 0; t < tileCount; ++t) {
+            tileOffsets[t + 1] = tileOffsets[t] + (tileSizes[t] == 0 ? 0 : tileBytes[t] + Integer.BYTES);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(l);
+            out.writeInt(BAND_COUNT);
+            for (float limit : BAND_LIMITS) {
+                out.writeFloat(limit);
+            }
+            out.writeInt(n);
+            out.writeInt(asterismStars.length);
+            out.writeInt(asterisms.size());
+            out.writeInt(asterismStarCount);
+            for (long offset : tileOffsets) {
+                out.writeLong(offset);
+            }
+            for (int size : tileSizes) {
+                out.writeInt(size);
+            }
+            int start = 0;
+            out.writeInt(start);
+            for (int[] indices : asterisms) {
+                start += indices.length;
+                out.writeInt(start);
+            }
+            for (int[] indices : asterisms) {
+                for (int index : indices) {
+                    out.writeInt(index);
+                }
+            }
+            writeTile(out, stars, names, asterismStars, 0, asterismStars.length);
+            for (int t = 0; t < tileCount; ++t) {
+                if (tileSizes[t] > 0) {
+                    writeTile(out, stars, names, sorted, tileStart[t], tileStart[t + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * writes the columns of a tile
+     * @param out - output stream
+     * @param stars - stars of the catalogue
+     * @param names - UTF-8 names of the stars
+     * @param indices - indices of the stars of the tile, in [from, to[
+     * @param from - first position in indices (included)
+     * @param to - last position in indices (excluded)
+     * @throws IOException in case of input/output error
+     */
+    private static void writeTile(DataOutputStream out, List<Star> stars, byte[][] names, int[] indices, int from, int to)
+            throws IOException {
+        for (int k = from; k < to; ++k) {
+            out.writeInt(stars.get(indices[k]).hipparcosId());
+        }
+        for (int k = from; k < to; ++k) {
+            out.writeDouble(stars.get(indices[k]).equatorialPos().ra());
+        }
+        for (int k = from; k < to; ++k) {
+            out.writeDouble(stars.get(indices[k]).equatorialPos().dec());
+        }
+        for (int k = from; k < to; ++k) {
+            out.writeFloat((float) stars.get(indices[k]).magnitude());
+        }
+        for (int k = from; k < to; ++k) {
+            out.writeFloat(stars.get(indices[k]).colorIndex());
+        }
+        for (int k = from; k < to; ++k) {
+            out.writeFloat(stars.get(indices[k]).properMotionRa());
+        }
+        for (int k = from; k < to; ++k) {
+            out.writeFloat(stars.get(indices[k]).properMotionDec());
+        }
+        int offset = 0;
+        out.writeInt(offset);
+        for (int k = from; k < to; ++k) {
+            offset += names[indices[k]].length;
+            out.writeInt(offset);
+        }
+        for (int k = from; k < to; ++k) {
+            out.write(names[indices[k]]);
+        }
+    }
+
+    /**
+     * gives the magnitude band of a star
+     * @param magnitude - magnitude of the star
+     * @return index of the first band whose upper limit is at least magnitude, the last band otherwise
+     */
+    private static int bandOf(double magnitude) {
+        int band = 0;
+        while (band < BAND_LIMITS.length && !(magnitude <= BAND_LIMITS[band])) {
+            ++band;
+        }
+        return band;
+    }
+
+    /**
+     * (nested static class)
+     * decoded tile : its stars, with their unit vectors & magnitudes in columns for the queries
+     */
+    private static final class Tile {
+
+        private final List<Star> stars;
+        private final double[] ux;
+        private final double[] uy;
+        private final double[] uz;
+        private final float[] magnitudes;
+        private final long bytes;
+
+        /**
+         * constructor, creates the stars
+         * @param hipparcosIds - Hipparcos ids of the stars
+         * @param ra - right ascensions of the stars
+         * @param dec - declinations of the stars
+         * @param magnitudes - magnitudes of the stars
+         * @param colorIndices - color indices of the stars
+         * @param pmRa - proper motions in right ascension of the stars
+         * @param pmDec - proper motions in declination of the stars
+         * @param names - names of the stars, the one of star i being StarNames.wholeName(i)
+         * @param nameBytes - size in bytes of the names
+         */
+        private Tile(int[] hipparcosIds, double[] ra, double[] dec, float[] magnitudes, float[] colorIndices,
+                     float[] pmRa, float[] pmDec, StarNames names, int nameBytes) {
+            int count = hipparcosIds.length;
+            List<Star> stars = new ArrayList<>(count);
+            ux = new double[count];
+            uy = new double[count];
+            uz = new double[count];
+            for (int i = 0; i < count; ++i) {
+                stars.add(new Star(hipparcosIds[i], names, StarNames.wholeName(i), EquatorialCoordinates.of(ra[i], dec[i]),
+                        magnitudes[i], colorIndices[i], pmRa[i], pmDec[i]));
+                double cosDec = Math.cos(dec[i]);
+                ux[i] = cosDec * Math.cos(ra[i]);
+                uy[i] = cosDec * Math.sin(ra[i]);
+                uz[i] = Math.sin(dec[i]);
+            }
+            this.stars = List.copyOf(stars);
+            this.magnitudes = magnitudes;
+            this.bytes = (long) count * BYTES_PER_STAR + nameBytes;
+        }
+    }
+}
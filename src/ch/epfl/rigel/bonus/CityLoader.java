@@ -1,12 +1,10 @@
 package ch.epfl.rigel.bonus;
 
+import ch.epfl.rigel.CsvParser;
 import ch.epfl.rigel.coordinates.GeographicCoordinates;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 
 /**
  * ** BONUS **
@@ -21,28 +19,37 @@ public enum CityLoader {
      */
     INSTANCE;
 
+    /**
+     * columns of the CSV document that are read
+     */
+    private static final int CITY_ASCII = 1;
+    private static final int LAT = 2;
+    private static final int LNG = 3;
+    private static final int COUNTRY = 4;
+
     /**
      * loads the name, country, and coordinates of each city present in the read document
+     * the document is parsed byte by byte, in chunks of lines parsed concurrently (see CsvParser);
+     * quoted fields may contain commas (e.g. "Korea, South")
      * @param inputStream - the document
      * @param builder - from CityCatalogue.Builder
      * @throws IOException - if acting upon the InputStream fails
      */
     public void load(InputStream inputStream, CityCatalogue.Builder builder) throws IOException {
-        try (BufferedReader r = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII))) {
-
-            String line = r.readLine();
-            while ((line = r.readLine()) != null) {
-
-                String[] parts = line.split(",");
-                GeographicCoordinates coordinates =
-                        GeographicCoordinates.ofDeg(Double.parseDouble(parts[3].substring(1, parts[3].length() - 1)),
-                                Double.parseDouble(parts[2].substring(1, parts[2].length() - 1)));
-
-                City c = new City(parts[1].substring(0, parts[1].length() - 1) + "  - " + parts[4].substring(1), coordinates);
-
+        try (InputStream in = inputStream) {
+            for (City c : CsvParser.parse(CsvParser.bufferOf(in), 1, CityLoader::city)) {
                 builder.addCity(c);
             }
-
         }
     }
+
+    /**
+     * creates the city of a line of the document, named "city  - country" (quotes included)
+     * @param row - the line
+     * @return corresponding city
+     */
+    private static City city(CsvParser.Row row) {
+        GeographicCoordinates coordinates = GeographicCoordinates.ofDeg(row.parseDouble(LNG), row.parseDouble(LAT));
+        return new City("\"" + row.string(CITY_ASCII) + "  - " + row.string(COUNTRY) + "\"", coordinates);
+    }
 }
@@ -0,0 +1,193 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.math.Angle;
+
+import java.util.function.Function;
+
+/**
+ * Atmosphere of the observer, applied after the conversion to horizontal coordinates :
+ * the refraction raises the objects towards the zenith (Saemundsson's formula, from the geometric altitude,
+ * scaled by the pressure & temperature) and the extinction makes them fainter (Kasten & Young's airmass)
+ * both only depend on the altitude, so they are tabulated once against its sine (the z component of the unit vector in
+ * the horizontal frame) & linearly interpolated : applying them to a star costs no trigonometric function
+ * (see EquatorialToCartesianProjection)
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class Atmosphere implements Function<HorizontalCoordinates, HorizontalCoordinates> {
+
+    /**
+     * number of intervals of the tables, regularly spaced on the sine of the geometric altitude in [-1, 1]
+     * (about 0.03° near the horizon, where the refraction varies the most)
+     */
+    static final int TABLE_STEPS = 4096;
+
+    /**
+     * altitude below which Saemundsson's formula is not used anymore (it diverges at about -2.9°) : the refraction then
+     * decreases linearly down to zero at the nadir, the sky below the horizon being kept continuous (in the step of the
+     * tables containing this altitude, the interpolation is then less precise, a few arcseconds)
+     */
+    private static final double MIN_FORMULA_ALTITUDE = Angle.ofDeg(-1);
+
+    /**
+     * standard atmosphere : 1010 hPa, 10°C & 0.2 magnitudes of extinction per airmass (visual band, clear sky)
+     * (declared after the constants used by the constructor, which must be initialized first)
+     */
+    public static final Atmosphere STANDARD = new Atmosphere(1010, 10, 0.2);
+
+    private final double pressure;
+    private final double temperature;
+    private final double extinctionCoefficient;
+
+    /**
+     * tables of the scale & lift of the refraction (see scale & lift) & of the extinction, indexed by the sine of the
+     * geometric altitude, TABLE_STEPS + 1 entries each
+     */
+    private final double[] scale;
+    private final double[] lift;
+    private final double[] extinction;
+
+    /**
+     * public constructor
+     * tabulates the refraction & the extinction of the atmosphere
+     * @param pressure - atmospheric pressure at the observer, in hectopascals
+     * @param temperature - air temperature at the observer, in degrees Celsius
+     * @param extinctionCoefficient - extinction at the zenith, in magnitudes per airmass
+     * @throws IllegalArgumentException if pressure or extinctionCoefficient is negative, or if temperature is
+     * not above the absolute zero
+     */
+    public Atmosphere(double pressure, double temperature, double extinctionCoefficient) {
+        Preconditions.checkArgument(pressure >= 0 && temperature > -273 && extinctionCoefficient >= 0);
+        this.pressure = pressure;
+        this.temperature = temperature;
+        this.extinctionCoefficient = extinctionCoefficient;
+
+        scale = new double[TABLE_STEPS + 1];
+        lift = new double[TABLE_STEPS + 1];
+        extinction = new double[TABLE_STEPS + 1];
+        for (int k = 0; k <= TABLE_STEPS; ++k) {
+            double sinAlt = Math.max(-1, Math.min(1, 2.0 * k / TABLE_STEPS - 1));
+            double alt = Math.asin(sinAlt);
+            extinction[k] = extinction(alt);
+            if (k == 0 || k == TABLE_STEPS) {
+                continue;
+            }
+            // raising a unit vector v by r towards the zenith Z gives cos(r) * v + sin(r) * (Z - sin(alt) * v) / cos(alt)
+            double r = refraction(alt);
+            double cosAlt = Math.sqrt(1 - sinAlt * sinAlt);
+            scale[k] = Math.cos(r) - Math.sin(r) * sinAlt / cosAlt;
+            lift[k] = Math.sin(r) / cosAlt;
+        }
+        // at the zenith & at the nadir, the refraction vanishes as cos(alt) : the limits are extrapolated
+        scale[0] = 2 * scale[1] - scale[2];
+        lift[0] = 2 * lift[1] - lift[2];
+        scale[TABLE_STEPS] = 2 * scale[TABLE_STEPS - 1] - scale[TABLE_STEPS - 2];
+        lift[TABLE_STEPS] = 2 * lift[TABLE_STEPS - 1] - lift[TABLE_STEPS - 2];
+    }
+
+    /**
+     * getter method for the pressure
+     * @return atmospheric pressure in hectopascals
+     */
+    public double pressure() {
+        return pressure;
+    }
+
+    /**
+     * getter method for the temperature
+     * @return air temperature in degrees Celsius
+     */
+    public double temperature() {
+        return temperature;
+    }
+
+    /**
+     * getter method for the extinction coefficient
+     * @return extinction at the zenith, in magnitudes per airmass
+     */
+    public double extinctionCoefficient() {
+        return extinctionCoefficient;
+    }
+
+    /**
+     * computes the refraction of an object from its geometric altitude, with Saemundsson's formula
+     * (corrected to vanish at the zenith), without using the tables
+     * @param altitude - geometric altitude in radians, in [-PI/2, PI/2]
+     * @return angle by which the object is raised, in radians
+     */
+    public double refraction(double altitude) {
+        double h = Angle.toDeg(Math.max(altitude, MIN_FORMULA_ALTITUDE));
+        double minutes = 1.02 / Math.tan(Angle.ofDeg(h + 10.3 / (h + 5.11))) + 0.0019279;
+        double r = Angle.ofArcsec(60 * minutes) * (pressure / 1010) * (283 / (273 + temperature));
+        if (altitude < MIN_FORMULA_ALTITUDE) {
+            r *= (altitude + Math.PI / 2) / (MIN_FORMULA_ALTITUDE + Math.PI / 2);
+        }
+        return r;
+    }
+
+    /**
+     * gives the largest refraction, reached at MIN_FORMULA_ALTITUDE (about 39' in the standard atmosphere) :
+     * no object moves by more than this angle
+     * @return maximal refraction in radians
+     */
+    public double maxRefraction() {
+        return refraction(MIN_FORMULA_ALTITUDE);
+    }
+
+    /**
+     * computes the airmass crossed by the light of an object, relative to the zenith, with Kasten & Young's formula
+     * @param apparentAltitude - apparent (refracted) altitude in radians, the objects below the horizon getting the
+     *                         airmass of the horizon (about 38)
+     * @return airmass, 1 at the zenith
+     */
+    public static double airmass(double apparentAltitude) {
+        double h = Math.max(0, apparentAltitude);
+        return 1 / (Math.sin(h) + 0.50572 * Math.pow(Angle.toDeg(h) + 6.07995, -1.6364));
+    }
+
+    /**
+     * computes the extinction of an object from its geometric altitude, without using the tables
+     * @param altitude - geometric altitude in radians, in [-PI/2, PI/2]
+     * @return increase of the magnitude of the object
+     */
+    public double extinction(double altitude) {
+        return extinctionCoefficient * airmass(altitude + refraction(altitude));
+    }
+
+    /**
+     * applies the refraction to the given horizontal coordinates, with the tables
+     * @param hor - geometric horizontal coordinates
+     * @return apparent horizontal coordinates, at the same azimuth
+     */
+    @Override
+    public HorizontalCoordinates apply(HorizontalCoordinates hor) {
+        double sinAlt = Math.sin(hor.alt());
+        double t = (sinAlt + 1) * (TABLE_STEPS / 2.0);
+        int k = Math.min((int) t, TABLE_STEPS - 1);
+        double f = t - k;
+        double a = scale[k] + f * (scale[k + 1] - scale[k]);
+        double b = lift[k] + f * (lift[k + 1] - lift[k]);
+        double alt = Math.atan2(a * sinAlt + b, a * Math.cos(hor.alt()));
+        return HorizontalCoordinates.of(hor.az(), alt);
+    }
+
+    /**
+     * package private getter methods for the tables, indexed by the sine of the geometric altitude, entry k being at
+     * 2 * k / TABLE_STEPS - 1 : the refracted unit vector of v is scale * v + lift * Z (Z being the zenith) & the
+     * extinction is the increase of the magnitude
+     * the returned arrays are shared and must not be modified
+     * @return tables of TABLE_STEPS + 1 entries
+     */
+    double[] scaleTable() {
+        return scale;
+    }
+
+    double[] liftTable() {
+        return lift;
+    }
+
+    double[] extinctionTable() {
+        return extinction;
+    }
+}
@@ -1,5 +1,6 @@
 package ch.epfl.rigel.coordinates;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.astronomy.Epoch;
 import ch.epfl.rigel.math.Angle;
 import ch.epfl.rigel.math.Polynomial;
@@ -32,7 +33,16 @@ public final class EclipticToEquatorialConversion implements Function<EclipticCo
      * @param when - a ZonedDateTime
      */
     public EclipticToEquatorialConversion(ZonedDateTime when){
-        double epsilon = OBLIQUE_FORMULA.at(Epoch.J2000.julianCenturiesUntil(when));
+        this(when.toInstant().toEpochMilli());
+    }
+
+    /**
+     * public construction method, primitive version of EclipticToEquatorialConversion(ZonedDateTime)
+     * sets the private attributes
+     * @param epochMillis - the instant, in milliseconds since 1970-01-01T00:00Z
+     */
+    public EclipticToEquatorialConversion(long epochMillis){
+        double epsilon = OBLIQUE_FORMULA.at(Epoch.J2000.julianCenturiesUntil(epochMillis));
         this.cosEpsilon = Math.cos(epsilon);
         this.sinEpsilon = Math.sin(epsilon);
     }
@@ -53,6 +63,29 @@ public final class EclipticToEquatorialConversion implements Function<EclipticCo
         return EquatorialCoordinates.of(rightAscension, declination);
     }
 
+    /**
+     * converts the ecliptic coordinates in [from, to[ of the given arrays into equatorial coordinates
+     * gives the same results as apply, without creating any coordinates object
+     * @param lon - ecliptic longitudes in radians
+     * @param lat - ecliptic latitudes in radians
+     * @param outRa - array in which the right ascensions (radians) are written, at the same indices
+     * @param outDec - array in which the declinations (radians) are written, at the same indices
+     * @param from - first index to be converted (included)
+     * @param to - last index to be converted (excluded)
+     * @throws IllegalArgumentException if [from, to[ is not a valid range of indices of all arrays
+     */
+    public void applyBatch(double[] lon, double[] lat, double[] outRa, double[] outDec, int from, int to) {
+        Preconditions.checkRange(from, to, lon, lat, outRa, outDec);
+        for (int i = from; i < to; ++i) {
+            double sinLon = Math.sin(lon[i]);
+            double rightAscension = Math.atan2((sinLon * cosEpsilon - (Math.tan(lat[i]) * sinEpsilon)), Math.cos(lon[i]));
+            double declination = Math.asin(Math.sin(lat[i]) * cosEpsilon + Math.cos(lat[i]) * sinEpsilon * sinLon);
+
+            outRa[i] = Angle.normalizePositive(rightAscension);
+            outDec[i] = declination;
+        }
+    }
+
     /**
      * override of equals, is undefined
      * @throws UnsupportedOperationException - can't compare coordinates
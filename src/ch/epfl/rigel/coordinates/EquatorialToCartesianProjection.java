@@ -0,0 +1,352 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.math.Angle;
+
+import java.util.function.Function;
+
+/**
+ * Composition of the conversion from equatorial to horizontal coordinates and of the stereographic projection,
+ * fused into a single rotation of the equatorial unit vector followed by the projection divide
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class EquatorialToCartesianProjection implements Function<EquatorialCoordinates, CartesianCoordinates> {
+
+    /**
+     * rotation matrix (row-major) taking an equatorial unit vector to the frame of the projection :
+     * row 0 gives the numerator of x, row 1 the numerator of y & row 2 the depth along the projection's center
+     */
+    private final double[] rotation;
+
+    /**
+     * equatorial unit vector of the zenith (its dot product with the unit vector of an object is the sine of the
+     * object's altitude), & image of the zenith through the rotation (constant, the zenith being fixed in the horizontal frame)
+     */
+    private final double[] zenith;
+    private final double[] zenithImage;
+
+    /**
+     * public constructor
+     * builds the rotation matrix from the local sidereal time & latitude of eqToHor and the center of sterProj
+     * @param eqToHor - conversion from equatorial to horizontal coordinates
+     * @param sterProj - stereographic projection applied to the horizontal coordinates
+     */
+    public EquatorialToCartesianProjection(EquatorialToHorizontalConversion eqToHor, StereographicProjection sterProj) {
+        double cosLst = Math.cos(eqToHor.siderealTime());
+        double sinLst = Math.sin(eqToHor.siderealTime());
+        double cosLat = eqToHor.cosLat();
+        double sinLat = eqToHor.sinLat();
+        double cosAz = Math.cos(sterProj.centerAz());
+        double sinAz = Math.sin(sterProj.centerAz());
+        double cosAlt = sterProj.cosCenterAlt();
+        double sinAlt = sterProj.sinCenterAlt();
+
+        // equatorial -> hour angle frame
+        double[] toHourAngle = {
+                cosLst, sinLst, 0,
+                sinLst, -cosLst, 0,
+                0, 0, 1};
+        // hour angle frame -> horizontal frame (north, east, zenith)
+        double[] toHorizontal = {
+                -sinLat, 0, cosLat,
+                0, -1, 0,
+                cosLat, 0, sinLat};
+        // horizontal frame -> (forward, right, zenith) relative to the azimuth of the center
+        double[] toCenterAz = {
+                cosAz, sinAz, 0,
+                -sinAz, cosAz, 0,
+                0, 0, 1};
+        // (forward, right, zenith) -> (x numerator, y numerator, depth) relative to the altitude of the center
+        double[] toPlane = {
+                0, 1, 0,
+                -sinAlt, 0, cosAlt,
+                cosAlt, 0, sinAlt};
+
+        rotation = multiply(toPlane, multiply(toCenterAz, multiply(toHorizontal, toHourAngle)));
+        zenith = new double[]{cosLat * cosLst, cosLat * sinLst, sinLat};
+        zenithImage = new double[]{0, cosAlt, sinAlt};
+    }
+
+    /**
+     * private constructor from an already computed rotation matrix
+     * @param rotation - rotation matrix (row-major)
+     * @param zenith - equatorial unit vector of the zenith
+     * @param zenithImage - image of the zenith through the rotation
+     */
+    private EquatorialToCartesianProjection(double[] rotation, double[] zenith, double[] zenithImage) {
+        this.rotation = rotation;
+        this.zenith = zenith;
+        this.zenithImage = zenithImage;
+    }
+
+    /**
+     * gives the projection obtained when the local sidereal time of .this is increased by the given angle,
+     * everything else (observer's latitude, projection's center) being unchanged
+     * the sky then rotates around the celestial pole, which amounts to a rotation of the equatorial unit vectors around z
+     * @param deltaSiderealTime - increase of the local sidereal time in radians (can be negative)
+     * @return corresponding projection
+     */
+    public EquatorialToCartesianProjection rotatedBy(double deltaSiderealTime) {
+        double cosDelta = Math.cos(deltaSiderealTime);
+        double sinDelta = Math.sin(deltaSiderealTime);
+        double[] aroundPole = {
+                cosDelta, sinDelta, 0,
+                -sinDelta, cosDelta, 0,
+                0, 0, 1};
+        double[] rotatedZenith = {
+                cosDelta * zenith[0] - sinDelta * zenith[1],
+                sinDelta * zenith[0] + cosDelta * zenith[1],
+                zenith[2]};
+        return new EquatorialToCartesianProjection(multiply(rotation, aroundPole), rotatedZenith, zenithImage);
+    }
+
+    /**
+     * gives the projection of the coordinates referred to the mean equator & equinox of J2000 (the ones of the stars) :
+     * they are first precessed & nutated to the true equator & equinox of date, the rotations being multiplied once,
+     * so that projecting a star still costs a single matrix product
+     * @param precessionNutation - precession & nutation at the instant of the projection (see PrecessionNutation.at)
+     * @return corresponding projection of J2000 coordinates
+     */
+    public EquatorialToCartesianProjection withPrecession(PrecessionNutation precessionNutation) {
+        double[] toDate = precessionNutation.meanSiderealMatrix();
+        double[] precessedZenith = new double[3];
+        for (int col = 0; col < 3; ++col) {
+            precessedZenith[col] = zenith[0] * toDate[col] + zenith[1] * toDate[3 + col] + zenith[2] * toDate[6 + col];
+        }
+        return new EquatorialToCartesianProjection(multiply(rotation, toDate), precessedZenith, zenithImage);
+    }
+
+    /**
+     * computes the unit vector of the given equatorial coordinates, then applies the projection to it
+     * equivalent (up to rounding) to sterProj.apply(eqToHor.apply(eq))
+     * @param eq - equatorial coordinates
+     * @return corresponding cartesian coordinates in the projection's plane
+     */
+    @Override
+    public CartesianCoordinates apply(EquatorialCoordinates eq) {
+        double cosDec = Math.cos(eq.dec());
+        double ux = cosDec * Math.cos(eq.ra());
+        double uy = cosDec * Math.sin(eq.ra());
+        double uz = Math.sin(eq.dec());
+
+        double d = 1.0 / (1 + rotation[6] * ux + rotation[7] * uy + rotation[8] * uz);
+        double x = d * (rotation[0] * ux + rotation[1] * uy + rotation[2] * uz);
+        double y = d * (rotation[3] * ux + rotation[4] * uy + rotation[5] * uz);
+        return CartesianCoordinates.of(x, y);
+    }
+
+    /**
+     * computes the unit vector of the given equatorial coordinates, raises it by the refraction of the given atmosphere,
+     * then applies the projection to it
+     * equivalent (up to the interpolation of the tables) to sterProj.apply(atmosphere.apply(eqToHor.apply(eq)))
+     * @param eq - equatorial coordinates
+     * @param atmosphere - atmosphere of the observer
+     * @return corresponding cartesian coordinates in the projection's plane
+     */
+    public CartesianCoordinates apply(EquatorialCoordinates eq, Atmosphere atmosphere) {
+        double cosDec = Math.cos(eq.dec());
+        double ux = cosDec * Math.cos(eq.ra());
+        double uy = cosDec * Math.sin(eq.ra());
+        double uz = Math.sin(eq.dec());
+
+        double[] scale = atmosphere.scaleTable();
+        double[] lift = atmosphere.liftTable();
+        double t = (sinAltitude(ux, uy, uz) + 1) * (Atmosphere.TABLE_STEPS / 2.0);
+        int k = Math.min((int) t, Atmosphere.TABLE_STEPS - 1);
+        double f = t - k;
+        double a = scale[k] + f * (scale[k + 1] - scale[k]);
+        double b = lift[k] + f * (lift[k + 1] - lift[k]);
+
+        double d = 1.0 / (1 + a * (rotation[6] * ux + rotation[7] * uy + rotation[8] * uz) + b * zenithImage[2]);
+        double x = d * a * (rotation[0] * ux + rotation[1] * uy + rotation[2] * uz);
+        double y = d * (a * (rotation[3] * ux + rotation[4] * uy + rotation[5] * uz) + b * zenithImage[1]);
+        return CartesianCoordinates.of(x, y);
+    }
+
+    /**
+     * computes the extinction of the object of the given equatorial coordinates by the given atmosphere
+     * @param eq - equatorial coordinates
+     * @param atmosphere - atmosphere of the observer
+     * @return increase of the magnitude of the object (up to the interpolation of the tables)
+     */
+    public double extinction(EquatorialCoordinates eq, Atmosphere atmosphere) {
+        double cosDec = Math.cos(eq.dec());
+        double[] extinction = atmosphere.extinctionTable();
+        double t = (sinAltitude(cosDec * Math.cos(eq.ra()), cosDec * Math.sin(eq.ra()), Math.sin(eq.dec())) + 1)
+                * (Atmosphere.TABLE_STEPS / 2.0);
+        int k = Math.min((int) t, Atmosphere.TABLE_STEPS - 1);
+        return extinction[k] + (t - k) * (extinction[k + 1] - extinction[k]);
+    }
+
+    /**
+     * computes the sine of the geometric altitude of an equatorial unit vector
+     * @param ux - x component of the unit vector
+     * @param uy - y component of the unit vector
+     * @param uz - z component of the unit vector
+     * @return sine of the altitude, in [-1, 1]
+     */
+    private double sinAltitude(double ux, double uy, double uz) {
+        return Math.max(-1, Math.min(1, zenith[0] * ux + zenith[1] * uy + zenith[2] * uz));
+    }
+
+    /**
+     * applies the projection to the equatorial unit vectors in [from, to[ of the given arrays
+     * costs one matrix product & one division per vector, no trigonometric function is evaluated
+     * @param ux - x components of the unit vectors (cos(dec) * cos(ra))
+     * @param uy - y components of the unit vectors (cos(dec) * sin(ra))
+     * @param uz - z components of the unit vectors (sin(dec))
+     * @param outX - array in which the x coordinates are written, at the same indices
+     * @param outY - array in which the y coordinates are written, at the same indices
+     * @param from - first index to be projected (included)
+     * @param to - last index to be projected (excluded)
+     * @throws IllegalArgumentException if [from, to[ is not a valid range of indices of all arrays
+     */
+    public void applyBatch(double[] ux, double[] uy, double[] uz, double[] outX, double[] outY, int from, int to) {
+        Preconditions.checkRange(from, to, ux, uy, uz, outX, outY);
+        double m00 = rotation[0], m01 = rotation[1], m02 = rotation[2];
+        double m10 = rotation[3], m11 = rotation[4], m12 = rotation[5];
+        double m20 = rotation[6], m21 = rotation[7], m22 = rotation[8];
+        for (int i = from; i < to; ++i) {
+            double x = ux[i];
+            double y = uy[i];
+            double z = uz[i];
+            double d = 1.0 / (1 + m20 * x + m21 * y + m22 * z);
+            outX[i] = d * (m00 * x + m01 * y + m02 * z);
+            outY[i] = d * (m10 * x + m11 * y + m12 * z);
+        }
+    }
+
+    /**
+     * applies the projection to the equatorial unit vectors whose indices are in [from, to[ of the given array of indices,
+     * the coordinates of the vector of index indices[k] being written at index k of outX & outY
+     * @param ux - x components of the unit vectors (cos(dec) * cos(ra))
+     * @param uy - y components of the unit vectors (cos(dec) * sin(ra))
+     * @param uz - z components of the unit vectors (sin(dec))
+     * @param indices - indices of the unit vectors to be projected
+     * @param outX - array in which the x coordinates are written, at the same positions as in indices
+     * @param outY - array in which the y coordinates are written, at the same positions as in indices
+     * @param from - first position in indices to be projected (included)
+     * @param to - last position in indices to be projected (excluded)
+     * @throws IllegalArgumentException if [from, to[ is not a valid range of positions of indices, outX & outY
+     * @throws ArrayIndexOutOfBoundsException if one of the indices is not a valid index of ux, uy & uz
+     */
+    public void applyBatch(double[] ux, double[] uy, double[] uz, int[] indices, double[] outX, double[] outY,
+                           int from, int to) {
+        Preconditions.checkRange(from, to, outX, outY);
+        Preconditions.checkArgument(to <= indices.length);
+        double m00 = rotation[0], m01 = rotation[1], m02 = rotation[2];
+        double m10 = rotation[3], m11 = rotation[4], m12 = rotation[5];
+        double m20 = rotation[6], m21 = rotation[7], m22 = rotation[8];
+        for (int k = from; k < to; ++k) {
+            int i = indices[k];
+            double x = ux[i];
+            double y = uy[i];
+            double z = uz[i];
+            double d = 1.0 / (1 + m20 * x + m21 * y + m22 * z);
+            outX[k] = d * (m00 * x + m01 * y + m02 * z);
+            outY[k] = d * (m10 * x + m11 * y + m12 * z);
+        }
+    }
+
+    /**
+     * applies the refraction of the given atmosphere & the projection to the equatorial unit vectors whose indices are
+     * in [from, to[ of the given array of indices (or in [from, to[ directly), as apply(eq, atmosphere), & gives their extinction
+     * the refracted unit vector being scale * v + lift * zenith, its image is scale * (rotation of v) + lift * (image of
+     * the zenith) : besides the matrix product, each vector costs one dot product with the zenith & the interpolation of
+     * the tables, no trigonometric function is evaluated
+     * @param ux - x components of the unit vectors (cos(dec) * cos(ra))
+     * @param uy - y components of the unit vectors (cos(dec) * sin(ra))
+     * @param uz - z components of the unit vectors (sin(dec))
+     * @param indices - indices of the unit vectors to be projected, null to project the ones of [from, to[
+     * @param atmosphere - atmosphere of the observer
+     * @param outX - array in which the x coordinates are written, at the same positions as in indices (or at the same indices)
+     * @param outY - array in which the y coordinates are written, at the same positions as in indices (or at the same indices)
+     * @param outExtinction - array in which the extinctions are written, at the same positions as in indices (or at the same indices)
+     * @param from - first position in indices (or index) to be projected (included)
+     * @param to - last position in indices (or index) to be projected (excluded)
+     * @throws IllegalArgumentException if [from, to[ is not a valid range of positions of indices, outX, outY & outExtinction
+     * @throws ArrayIndexOutOfBoundsException if one of the indices is not a valid index of ux, uy & uz
+     */
+    public void applyBatch(double[] ux, double[] uy, double[] uz, int[] indices, Atmosphere atmosphere,
+                           double[] outX, double[] outY, float[] outExtinction, int from, int to) {
+        Preconditions.checkRange(from, to, outX, outY);
+        Preconditions.checkArgument(to <= outExtinction.length && (indices == null || to <= indices.length));
+        double m00 = rotation[0], m01 = rotation[1], m02 = rotation[2];
+        double m10 = rotation[3], m11 = rotation[4], m12 = rotation[5];
+        double m20 = rotation[6], m21 = rotation[7], m22 = rotation[8];
+        double z0 = zenith[0], z1 = zenith[1], z2 = zenith[2];
+        double zenithY = zenithImage[1], zenithDepth = zenithImage[2];
+        double[] scale = atmosphere.scaleTable();
+        double[] lift = atmosphere.liftTable();
+        double[] extinction = atmosphere.extinctionTable();
+        double halfSteps = Atmosphere.TABLE_STEPS / 2.0;
+        for (int k = from; k < to; ++k) {
+            int i = (indices == null) ? k : indices[k];
+            double x = ux[i];
+            double y = uy[i];
+            double z = uz[i];
+            double sinAlt = Math.max(-1, Math.min(1, z0 * x + z1 * y + z2 * z));
+            double t = (sinAlt + 1) * halfSteps;
+            int j = Math.min((int) t, Atmosphere.TABLE_STEPS - 1);
+            double f = t - j;
+            double a = scale[j] + f * (scale[j + 1] - scale[j]);
+            double b = lift[j] + f * (lift[j + 1] - lift[j]);
+            double d = 1.0 / (1 + a * (m20 * x + m21 * y + m22 * z) + b * zenithDepth);
+            outX[k] = d * a * (m00 * x + m01 * y + m02 * z);
+            outY[k] = d * (a * (m10 * x + m11 * y + m12 * z) + b * zenithY);
+            outExtinction[k] = (float) (extinction[j] + f * (extinction[j + 1] - extinction[j]));
+        }
+    }
+
+    /**
+     * gives the equatorial coordinates of the center of the projection, i.e. of the point projected on the origin
+     * (its unit vector is the last row of the rotation matrix, along which the depth is measured)
+     * @return equatorial coordinates of the center of the projection
+     */
+    public EquatorialCoordinates center() {
+        double ra = Angle.normalizePositive(Math.atan2(rotation[7], rotation[6]));
+        // a tiny negative angle is rounded to 2 * PI by the normalization
+        if (ra >= Angle.TAU) {
+            ra = 0;
+        }
+        double dec = Math.asin(Math.max(-1, Math.min(1, rotation[8])));
+        return EquatorialCoordinates.of(ra, dec);
+    }
+
+    /**
+     * product of two 3x3 matrices stored in row-major order (shared with PrecessionNutation)
+     * @param a - left matrix
+     * @param b - right matrix
+     * @return a * b
+     */
+    static double[] multiply(double[] a, double[] b) {
+        double[] product = new double[9];
+        for (int row = 0; row < 3; ++row) {
+            for (int col = 0; col < 3; ++col) {
+                product[3 * row + col] = a[3 * row] * b[col]
+                        + a[3 * row + 1] * b[3 + col]
+                        + a[3 * row + 2] * b[6 + col];
+            }
+        }
+        return product;
+    }
+
+    /**
+     * override of equals, is undefined
+     * @throws UnsupportedOperationException - can't compare coordinates
+     */
+    @Override
+    public final boolean equals(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * override of hashCode, is undefined
+     * @throws UnsupportedOperationException - can't compare coordinates
+     */
+    @Override
+    public final int hashCode() {
+        throw new UnsupportedOperationException();
+    }
+}
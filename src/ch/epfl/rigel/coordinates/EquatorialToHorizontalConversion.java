@@ -1,5 +1,6 @@
 package ch.epfl.rigel.coordinates;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.astronomy.SiderealTime;
 import ch.epfl.rigel.math.Angle;
 
@@ -28,7 +29,16 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
      * builds the sidereal time with the given parameters, along with the cosine & sine of the observer's latitude
      */
     public EquatorialToHorizontalConversion(ZonedDateTime when, GeographicCoordinates where){
-        this.siderealTimeAt = SiderealTime.local(when, where);
+        this(when.toInstant().toEpochMilli(), where);
+    }
+
+    /**
+     * public constructor, primitive version of EquatorialToHorizontalConversion(ZonedDateTime, GeographicCoordinates)
+     * @param epochMillis the instant, in milliseconds since 1970-01-01T00:00Z
+     * @param where GeographicCoordinates
+     */
+    public EquatorialToHorizontalConversion(long epochMillis, GeographicCoordinates where){
+        this.siderealTimeAt = SiderealTime.local(epochMillis, where);
         this.cosPhi = Math.cos(where.lat());
         this.sinPhi = Math.sin(where.lat());
     }
@@ -49,6 +59,55 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
         return HorizontalCoordinates.of(azimuth, hauteur);
     }
 
+    /**
+     * converts the equatorial coordinates in [from, to[ of the given arrays into horizontal coordinates
+     * gives the same results as apply, without creating any coordinates object
+     * @param ra - right ascensions in radians
+     * @param dec - declinations in radians
+     * @param outAz - array in which the azimuths (radians) are written, at the same indices
+     * @param outAlt - array in which the altitudes (radians) are written, at the same indices
+     * @param from - first index to be converted (included)
+     * @param to - last index to be converted (excluded)
+     * @throws IllegalArgumentException if [from, to[ is not a valid range of indices of all arrays
+     */
+    public void applyBatch(double[] ra, double[] dec, double[] outAz, double[] outAlt, int from, int to) {
+        Preconditions.checkRange(from, to, ra, dec, outAz, outAlt);
+        for (int i = from; i < to; ++i) {
+            double angleH = siderealTimeAt - ra[i];
+            double sinDec = Math.sin(dec[i]);
+            double cosDec = Math.cos(dec[i]);
+            double hauteur = Math.asin(sinDec * sinPhi + cosDec * cosPhi * Math.cos(angleH));
+            double azimuth = Math.atan2(-cosDec * cosPhi * Math.sin(angleH), sinDec - sinPhi * Math.sin(hauteur));
+
+            outAz[i] = Angle.normalizePositive(azimuth);
+            outAlt[i] = hauteur;
+        }
+    }
+
+    /**
+     * package private getter method for the local sidereal time used by the conversion
+     * @return local sidereal time in radians
+     */
+    double siderealTime() {
+        return siderealTimeAt;
+    }
+
+    /**
+     * package private getter method for the cosine of the observer's latitude
+     * @return cos(latitude)
+     */
+    double cosLat() {
+        return cosPhi;
+    }
+
+    /**
+     * package private getter method for the sine of the observer's latitude
+     * @return sin(latitude)
+     */
+    double sinLat() {
+        return sinPhi;
+    }
+
     /**
      * override of equals, is undefined
      * @throws UnsupportedOperationException - can't compare coordinates
@@ -0,0 +1,274 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.rigel.math.Polynomial;
+
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+
+/**
+ * Precession & nutation of the equatorial coordinates at an instant : conversion from the coordinates referred to the mean
+ * equator & equinox of J2000 (the ones of the star catalogues) to the ones referred to the true equator & equinox of date
+ * the precession is the one of IAU 2006 (angles zeta, z & theta) & the nutation the one of IAU 2000B truncated to its
+ * 15 largest lunisolar terms (a few milliarcseconds); the frame bias & the difference between TT & UT are neglected
+ * both are combined in a single rotation matrix, computed once per TIME_QUANTUM_MILLIS & cached (see at), which is
+ * folded into the projection of the stars (see EquatorialToCartesianProjection.withPrecession) : it costs nothing per star
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class PrecessionNutation implements Function<EquatorialCoordinates, EquatorialCoordinates> {
+
+    /**
+     * duration of the time quantum : the rotation is computed at the middle of the quantum of the instant, from which it
+     * differs by less than 0.01 arcsecond
+     */
+    static final long TIME_QUANTUM_MILLIS = 3_600_000;
+
+    /**
+     * number of rotations kept in the cache, in access order (least recently used first)
+     */
+    private static final int CACHE_SIZE = 8;
+    private static final LinkedHashMap<Long, PrecessionNutation> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * precession angles & mean obliquity of IAU 2006 as polynomials of the Julian centuries since J2000
+     */
+    private static final Polynomial ZETA = Polynomial.of(Angle.ofArcsec(-0.0000003173), Angle.ofArcsec(-0.000005971),
+            Angle.ofArcsec(0.01801828), Angle.ofArcsec(0.2988499), Angle.ofArcsec(2306.083227), Angle.ofArcsec(2.650545));
+    private static final Polynomial Z = Polynomial.of(Angle.ofArcsec(-0.0000002904), Angle.ofArcsec(-0.000028596),
+            Angle.ofArcsec(0.01826837), Angle.ofArcsec(1.0927348), Angle.ofArcsec(2306.077181), Angle.ofArcsec(-2.650545));
+    private static final Polynomial THETA = Polynomial.of(Angle.ofArcsec(-0.0000001274), Angle.ofArcsec(-0.000007089),
+            Angle.ofArcsec(-0.04182264), Angle.ofArcsec(-0.4294934), Angle.ofArcsec(2004.191903), 0);
+    private static final Polynomial OBLIQUITY = Polynomial.of(Angle.ofArcsec(-0.0000000434), Angle.ofArcsec(-0.000000576),
+            Angle.ofArcsec(0.00200340), Angle.ofArcsec(-0.0001831), Angle.ofArcsec(-46.836769), Angle.ofArcsec(84381.406));
+
+    /**
+     * largest lunisolar terms of IAU 2000B : multipliers of the Delaunay arguments (l, l', F, D, Omega), then the
+     * coefficients of the nutation in longitude (sin, sin * T, cos) & in obliquity (cos, cos * T, sin) in 1e-7 arcseconds
+     */
+    private static final double[][] NUTATION_TERMS = {
+            {0, 0, 0, 0, 1, -172064161, -174666, 33386, 92052331, 9086, 15377},
+            {0, 0, 2, -2, 2, -13170906, -1675, -13696, 5730336, -3015, -4587},
+            {0, 0, 2, 0, 2, -2276413, -234, 2796, 978459, -485, 1374},
+            {0, 0, 0, 0, 2, 2074554, 207, -698, -897492, 470, -291},
+            {0, 1, 0, 0, 0, 1475877, -3633, 11817, 73871, -184, -1924},
+            {0, 1, 2, -2, 2, -516821, 1226, -524, 224386, -677, -174},
+            {1, 0, 0, 0, 0, 711159, 73, -872, -6750, 0, 358},
+            {0, 0, 2, 0, 1, -387298, -367, 380, 200728, 18, 318},
+            {1, 0, 2, 0, 2, -301461, -36, 816, 129025, -63, 367},
+            {0, -1, 2, -2, 2, 215829, -494, 111, -95929, 299, 132},
+            {0, 0, 2, -2, 1, 128227, 137, 181, -68982, -9, 39},
+            {-1, 0, 2, 0, 2, 123457, 11, 19, -53311, 32, -4},
+            {-1, 0, 0, 2, 0, 156994, 10, -168, -1235, 0, 82},
+            {1, 0, 0, 0, 1, 63110, 63, 27, -33228, 0, -9},
+            {-1, 0, 0, 0, 1, -57976, -63, -189, 31429, 0, -75}};
+
+    /**
+     * constant offsets of IAU 2000B replacing its planetary terms, in arcseconds
+     */
+    private static final double PLANETARY_LONGITUDE_OFFSET = -0.000135;
+    private static final double PLANETARY_OBLIQUITY_OFFSET = 0.000388;
+
+    private static final double ARCSEC_IN_A_TURN = 1_296_000;
+
+    private final double nutationInLongitude;
+    private final double nutationInObliquity;
+    private final double equationOfEquinoxes;
+
+    /**
+     * rotation matrices (row-major) from J2000 to the true equator & equinox of date, & to the true equator of date with
+     * the right ascensions shifted by the equation of the equinoxes (see meanSiderealMatrix)
+     */
+    private final double[] matrix;
+    private final double[] meanSiderealMatrix;
+
+    /**
+     * private constructor
+     * computes the precession & nutation at the given instant
+     * @param t - instant in Julian centuries since J2000
+     */
+    private PrecessionNutation(double t) {
+        // Delaunay arguments in arcseconds (IAU 2000)
+        double[] arguments = {
+                (485868.249036 + 1717915923.2178 * t) % ARCSEC_IN_A_TURN,
+                (1287104.79305 + 129596581.0481 * t) % ARCSEC_IN_A_TURN,
+                (335779.526232 + 1739527262.8478 * t) % ARCSEC_IN_A_TURN,
+                (1072260.70369 + 1602961601.2090 * t) % ARCSEC_IN_A_TURN,
+                (450160.398036 - 6962890.5431 * t) % ARCSEC_IN_A_TURN};
+        double deltaPsi = 0;
+        double deltaEpsilon = 0;
+        for (double[] term : NUTATION_TERMS) {
+            double argument = 0;
+            for (int k = 0; k < arguments.length; ++k) {
+                argument += term[k] * arguments[k];
+            }
+            double sin = Math.sin(Angle.ofArcsec(argument));
+            double cos = Math.cos(Angle.ofArcsec(argument));
+            deltaPsi += (term[5] + term[6] * t) * sin + term[7] * cos;
+            deltaEpsilon += (term[8] + term[9] * t) * cos + term[10] * sin;
+        }
+        nutationInLongitude = Angle.ofArcsec(deltaPsi * 1e-7 + PLANETARY_LONGITUDE_OFFSET);
+        nutationInObliquity = Angle.ofArcsec(deltaEpsilon * 1e-7 + PLANETARY_OBLIQUITY_OFFSET);
+
+        double meanObliquity = OBLIQUITY.at(t);
+        equationOfEquinoxes = nutationInLongitude * Math.cos(meanObliquity);
+
+        double[] precession = EquatorialToCartesianProjection.multiply(rotationZ(-Z.at(t)),
+                EquatorialToCartesianProjection.multiply(rotationY(THETA.at(t)), rotationZ(-ZETA.at(t))));
+        double[] nutation = EquatorialToCartesianProjection.multiply(rotationX(-(meanObliquity + nutationInObliquity)),
+                EquatorialToCartesianProjection.multiply(rotationZ(-nutationInLongitude), rotationX(meanObliquity)));
+        matrix = EquatorialToCartesianProjection.multiply(nutation, precession);
+        meanSiderealMatrix = EquatorialToCartesianProjection.multiply(rotationZ(equationOfEquinoxes), matrix);
+    }
+
+    /**
+     * gives the precession & nutation at the given instant
+     * @param when - the instant
+     * @return precession & nutation computed at the middle of the time quantum of the instant
+     */
+    public static PrecessionNutation at(ZonedDateTime when) {
+        return at(when.toInstant().toEpochMilli());
+    }
+
+    /**
+     * gives the precession & nutation at the given instant, primitive version of at(ZonedDateTime)
+     * the rotations of the last CACHE_SIZE time quanta asked are kept, so that the frames of an animation share them
+     * @param epochMillis - the instant, in milliseconds since 1970-01-01T00:00Z
+     * @return precession & nutation computed at the middle of the time quantum of the instant
+     */
+    public static PrecessionNutation at(long epochMillis) {
+        long quantum = Math.floorDiv(epochMillis, TIME_QUANTUM_MILLIS);
+        synchronized (CACHE) {
+            PrecessionNutation cached = CACHE.get(quantum);
+            if (cached == null) {
+                long middle = quantum * TIME_QUANTUM_MILLIS + TIME_QUANTUM_MILLIS / 2;
+                cached = new PrecessionNutation(Epoch.J2000.julianCenturiesUntil(middle));
+                CACHE.put(quantum, cached);
+                if (CACHE.size() > CACHE_SIZE) {
+                    Iterator<Long> eldest = CACHE.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * getter method for the nutation in longitude
+     * @return nutation in longitude (delta psi) in radians
+     */
+    public double nutationInLongitude() {
+        return nutationInLongitude;
+    }
+
+    /**
+     * getter method for the nutation in obliquity
+     * @return nutation in obliquity (delta epsilon) in radians
+     */
+    public double nutationInObliquity() {
+        return nutationInObliquity;
+    }
+
+    /**
+     * getter method for the equation of the equinoxes, i.e. the difference between the apparent & the mean sidereal time
+     * @return equation of the equinoxes in radians
+     */
+    public double equationOfEquinoxes() {
+        return equationOfEquinoxes;
+    }
+
+    /**
+     * converts the given J2000 equatorial coordinates into coordinates referred to the true equator & equinox of date
+     * @param eq - equatorial coordinates referred to the mean equator & equinox of J2000
+     * @return corresponding equatorial coordinates referred to the true equator & equinox of date
+     */
+    @Override
+    public EquatorialCoordinates apply(EquatorialCoordinates eq) {
+        double cosDec = Math.cos(eq.dec());
+        double ux = cosDec * Math.cos(eq.ra());
+        double uy = cosDec * Math.sin(eq.ra());
+        double uz = Math.sin(eq.dec());
+        double x = matrix[0] * ux + matrix[1] * uy + matrix[2] * uz;
+        double y = matrix[3] * ux + matrix[4] * uy + matrix[5] * uz;
+        double z = matrix[6] * ux + matrix[7] * uy + matrix[8] * uz;
+
+        double ra = Angle.normalizePositive(Math.atan2(y, x));
+        // a tiny negative angle is rounded to 2 * PI by the normalization
+        if (ra >= Angle.TAU) {
+            ra = 0;
+        }
+        return EquatorialCoordinates.of(ra, Math.asin(Math.max(-1, Math.min(1, z))));
+    }
+
+    /**
+     * package private getter method for the rotation to be applied before the conversion to horizontal coordinates :
+     * EquatorialToHorizontalConversion uses the mean sidereal time, so the true right ascensions are decreased by the
+     * equation of the equinoxes (which gives the hour angles of the apparent sidereal time)
+     * the returned array is shared and must not be modified
+     * @return rotation matrix (row-major) applied to the J2000 unit vectors
+     */
+    double[] meanSiderealMatrix() {
+        return meanSiderealMatrix;
+    }
+
+    /**
+     * rotation matrix of the frame around the x axis (R1)
+     * @param angle - angle in radians
+     * @return rotation matrix (row-major)
+     */
+    private static double[] rotationX(double angle) {
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        return new double[]{
+                1, 0, 0,
+                0, cos, sin,
+                0, -sin, cos};
+    }
+
+    /**
+     * rotation matrix of the frame around the y axis (R2)
+     * @param angle - angle in radians
+     * @return rotation matrix (row-major)
+     */
+    private static double[] rotationY(double angle) {
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        return new double[]{
+                cos, 0, -sin,
+                0, 1, 0,
+                sin, 0, cos};
+    }
+
+    /**
+     * rotation matrix of the frame around the z axis (R3)
+     * @param angle - angle in radians
+     * @return rotation matrix (row-major)
+     */
+    private static double[] rotationZ(double angle) {
+        double cos = Math.cos(angle), sin = Math.sin(angle);
+        return new double[]{
+                cos, sin, 0,
+                -sin, cos, 0,
+                0, 0, 1};
+    }
+
+    /**
+     * override of equals, is undefined
+     * @throws UnsupportedOperationException - can't compare coordinates
+     */
+    @Override
+    public final boolean equals(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * override of hashCode, is undefined
+     * @throws UnsupportedOperationException - can't compare coordinates
+     */
+    @Override
+    public final int hashCode() {
+        throw new UnsupportedOperationException();
+    }
+}
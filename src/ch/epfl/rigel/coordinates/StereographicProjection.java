@@ -1,5 +1,6 @@
 package ch.epfl.rigel.coordinates;
 
+import ch.epfl.rigel.Preconditions;
 import ch.epfl.rigel.math.Angle;
 
 import java.util.function.Function;
@@ -47,6 +48,30 @@ public final class StereographicProjection implements Function<HorizontalCoordin
         return CartesianCoordinates.of(x, y);
     }
 
+    /**
+     * applies the projection to the horizontal coordinates in [from, to[ of the given arrays
+     * gives the same results as apply, without creating any coordinates object
+     * @param az - azimuths in radians
+     * @param alt - altitudes in radians
+     * @param outX - array in which the x coordinates are written, at the same indices
+     * @param outY - array in which the y coordinates are written, at the same indices
+     * @param from - first index to be projected (included)
+     * @param to - last index to be projected (excluded)
+     * @throws IllegalArgumentException if [from, to[ is not a valid range of indices of all arrays
+     */
+    public void applyBatch(double[] az, double[] alt, double[] outX, double[] outY, int from, int to) {
+        Preconditions.checkRange(from, to, az, alt, outX, outY);
+        for (int i = from; i < to; ++i) {
+            double lambdaDelta = az[i] - lambda0;
+            double sinAlt = Math.sin(alt[i]);
+            double cosAlt = Math.cos(alt[i]);
+            double cosLambdaDelta = Math.cos(lambdaDelta);
+            double d = 1.0 / (1 + sinAlt * sinPhi + cosAlt * cosPhi * cosLambdaDelta);
+            outX[i] = d * cosAlt * Math.sin(lambdaDelta);
+            outY[i] = d * (sinAlt * cosPhi - cosAlt * sinPhi * cosLambdaDelta);
+        }
+    }
+
     /**
      * computes the center of the circle corresponding to the parallel passing by given horizontal coordinates
      * @param hor - horizontal coordinates
@@ -102,6 +127,30 @@ public final class StereographicProjection implements Function<HorizontalCoordin
 
     }
 
+    /**
+     * package private getter method for the azimuth of the projection's center
+     * @return azimuth of the center in radians
+     */
+    double centerAz() {
+        return lambda0;
+    }
+
+    /**
+     * package private getter method for the cosine of the altitude of the projection's center
+     * @return cos(altitude of the center)
+     */
+    double cosCenterAlt() {
+        return cosPhi;
+    }
+
+    /**
+     * package private getter method for the sine of the altitude of the projection's center
+     * @return sin(altitude of the center)
+     */
+    double sinCenterAlt() {
+        return sinPhi;
+    }
+
     /**
      * override of equals, is undefined
      * @throws UnsupportedOperationException - can't compare horizontal coordinates
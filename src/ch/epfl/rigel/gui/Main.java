@@ -1,8 +1,11 @@
 package ch.epfl.rigel.gui;
 
 import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.BinaryCatalogueLoader;
 import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.Star;
 import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.TiledStarStore;
 import ch.epfl.rigel.bonus.CityCatalogue;
 import ch.epfl.rigel.bonus.CityLoader;
 import ch.epfl.rigel.bonus.PredictiveTextField;
@@ -28,8 +31,12 @@ import javafx.stage.Stage;
 import javafx.util.converter.LocalTimeStringConverter;
 import javafx.util.converter.NumberStringConverter;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
@@ -45,6 +52,7 @@ import java.util.function.UnaryOperator;
 public class Main extends Application {
 
     private final StarCatalogue catalogue;
+    private final TiledStarStore starStore;
     private final CityCatalogue cityCatalogue;
     private final Font fontAwesome;
 
@@ -52,20 +60,65 @@ public class Main extends Application {
     private final static HorizontalCoordinates INIT_PROJ_CENTER = HorizontalCoordinates.ofDeg(180.000000000001, 15);
 
     /**
-     * main constructor class, used to instantiate the StarCatalogue
-     * @throws IOException - if any sort of Exception occurs
+     * system property giving the path of a tiled star store (see TiledCatalogueConverter) used instead of the catalogue
+     * of the resources, & byte budget of its cache
      */
-    public Main() throws IOException{
-        try (InputStream hs = getClass()
-                .getResourceAsStream("/hygdata_v3.csv")) {
+    private final static String STORE_PROPERTY = "rigel.store";
+    private final static long STORE_BUDGET = 64L << 20;
+
+    /**
+     * loads the star catalogue, from the precompiled binary catalogue if there is one (see BinaryCatalogueConverter),
+     * from the HYG CSV catalogue & the asterisms otherwise
+     * @return the star catalogue
+     * @throws IOException - if reading the resources fails
+     */
+    private StarCatalogue loadCatalogue() throws IOException {
+        try (InputStream bs = openResource("/catalogue.bin")) {
+            if (bs != null) {
+                return new StarCatalogue.Builder().loadFrom(bs, BinaryCatalogueLoader.INSTANCE).build();
+            }
+        }
+        try (InputStream hs = openResource("/hygdata_v3.csv")) {
             try (InputStream asterStream = getClass()
                     .getResourceAsStream("/asterisms.txt")) {
-                catalogue = new StarCatalogue.Builder()
+                return new StarCatalogue.Builder()
                         .loadFrom(hs, HygDatabaseLoader.INSTANCE)
                         .loadFrom(asterStream, AsterismLoader.INSTANCE)
                         .build();
             }
         }
+    }
+
+    /**
+     * opens a resource, as a file stream if it is a file on disk so that the loaders memory-map it
+     * (see CsvParser.bufferOf), as a stream of its content otherwise (e.g. in a jar)
+     * @param name - name of the resource
+     * @return stream of the resource, null if there is none
+     * @throws IOException - if opening the resource fails
+     */
+    private InputStream openResource(String name) throws IOException {
+        URL url = getClass().getResource(name);
+        if (url == null) {
+            return null;
+        }
+        if (url.getProtocol().equals("file")) {
+            try {
+                return new FileInputStream(Path.of(url.toURI()).toFile());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        return url.openStream();
+    }
+
+    /**
+     * main constructor class, used to instantiate the StarCatalogue
+     * @throws IOException - if any sort of Exception occurs
+     */
+    public Main() throws IOException{
+        String storePath = System.getProperty(STORE_PROPERTY);
+        starStore = (storePath == null) ? null : TiledStarStore.open(Path.of(storePath), STORE_BUDGET);
+        catalogue = (starStore == null) ? loadCatalogue() : null;
         try(InputStream worldcities = getClass()
                 .getResourceAsStream("/worldcities.csv")) {
 
@@ -85,6 +138,17 @@ public class Main extends Application {
      */
     public static void main(String[] args) {launch(args);}
 
+    /**
+     * stop method : closes the star store if there is one
+     * @throws IOException - if closing the store fails
+     */
+    @Override
+    public void stop() throws IOException {
+        if (starStore != null) {
+            starStore.close();
+        }
+    }
+
     /**
      * start method
      * build the main window (and secondary window)
@@ -114,7 +178,9 @@ public class Main extends Application {
         /*
          * setting sky canvas manager, canvas, and animator
          */
-        SkyCanvasManager skyCanvasManager = new SkyCanvasManager(catalogue, dateTimeBean, observerLocationBean, viewingParametersBean);
+        SkyCanvasManager skyCanvasManager = (starStore == null)
+                ? new SkyCanvasManager(catalogue, dateTimeBean, observerLocationBean, viewingParametersBean)
+                : new SkyCanvasManager(starStore, dateTimeBean, observerLocationBean, viewingParametersBean);
 
         Canvas skyCanvas = skyCanvasManager.canvas();
 
@@ -131,7 +197,8 @@ public class Main extends Application {
         HBox controlBar = new HBox();
         controlBar.getChildren().addAll(makeTopLeftBox(observerLocationBean, citySelection), new Separator(Orientation.VERTICAL),
                 makeTopCenterBox(dateTimeBean, timeAnimator), new Separator(Orientation.VERTICAL), makeTopRightBox(dateTimeBean, timeAnimator, skyCanvas),
-                new Separator(Orientation.VERTICAL), asterismToggleChoice(viewingParametersBean));
+                new Separator(Orientation.VERTICAL), asterismToggleChoice(viewingParametersBean),
+                new Separator(Orientation.VERTICAL), atmosphereToggleChoice(viewingParametersBean));
         controlBar.setStyle("-fx-spacing: 4; -fx-padding: 4;");
 
         /*
@@ -331,7 +398,9 @@ public class Main extends Application {
         Text t = new Text();
         skyCanvasManager.objectUnderMouseProperty().addListener(
                 (p, o, n) -> {
-                    if (n != null){
+                    if (n instanceof Star){
+                        t.setText(n.info() + starDetails((Star) n));
+                    } else if (n != null){
                         t.setText(n.info());
                     } else {
                         t.setText("");
@@ -340,6 +409,21 @@ public class Main extends Application {
         return t;
     }
 
+    // secondary attributes of the star under the mouse, read from the catalogue only for it
+    private static String starDetails(Star star){
+        List<String> details = new ArrayList<>();
+        if (!star.spectralType().isEmpty()) {
+            details.add(star.spectralType());
+        }
+        if (!Double.isNaN(star.distance())) {
+            details.add(String.format(Locale.ROOT, "%.1f pc", star.distance()));
+        }
+        if (!star.variability().isEmpty()) {
+            details.add("variable " + star.variability());
+        }
+        return details.isEmpty() ? "" : " (" + String.join(", ", details) + ")";
+    }
+
     private Text mousePos(SkyCanvasManager skyCanvasManager){
         Text pos = new Text();
         skyCanvasManager.getMouseAltDegProperty().addListener((observable, oldValue, newValue) ->
@@ -370,6 +454,27 @@ public class Main extends Application {
         return toggleChoice;
     }
 
+    private HBox atmosphereToggleChoice(ViewingParametersBean viewingParametersBean){
+        Label atmosphere = new Label("Atmosphère :");
+        String toggleOnUniCode = "\uf205";
+        String toggleOffUniCode = "\uf204";
+        Button toggle = new Button(viewingParametersBean.getToggleAtmosphere() ? toggleOnUniCode : toggleOffUniCode);
+        toggle.setFont(fontAwesome);
+        toggle.setOnAction( e-> {
+            if(viewingParametersBean.getToggleAtmosphere()){
+                toggle.setText(toggleOffUniCode);
+                viewingParametersBean.setToggleAtmosphere(false);
+            }
+            else{
+                toggle.setText(toggleOnUniCode);
+                viewingParametersBean.setToggleAtmosphere(true);
+            }
+        });
+        HBox toggleChoice = new HBox(atmosphere, toggle);
+        toggleChoice.setStyle("-fx-spacing: inherit; -fx-alignment: baseline-left;");
+        return toggleChoice;
+    }
+
     private HBox citySelectionToggle(Stage citySelection){
         Button chooseCity = new Button("Choisir la ville");
         chooseCity.setOnAction( e -> {
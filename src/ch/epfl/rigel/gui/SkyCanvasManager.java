@@ -3,7 +3,9 @@ package ch.epfl.rigel.gui;
 import ch.epfl.rigel.astronomy.CelestialObject;
 import ch.epfl.rigel.astronomy.ObservedSky;
 import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.astronomy.TiledStarStore;
 
+import ch.epfl.rigel.coordinates.Atmosphere;
 import ch.epfl.rigel.coordinates.CartesianCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
 import ch.epfl.rigel.coordinates.StereographicProjection;
@@ -23,6 +25,7 @@ import javafx.scene.transform.Transform;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Sky Canvas Manager - manager for the sky ; creates everything (notably links between beans & the painter, observed sky & stereographic projection)
@@ -36,15 +39,19 @@ public class SkyCanvasManager {
     private final ObservableValue<StereographicProjection> projection;
     private final ObservableValue<ObservedSky> observedSky;
     private final ObservableValue<Transform> planeToCanvas;
+    private final ObservableValue<Double> limitingMagnitude;
     private final ObservableValue<Double> mouseAzDeg;
     private final ObservableValue<Double> mouseAltDeg;
     private final ObservableValue<CelestialObject> objectUnderMouse;
     private final ObjectProperty<Point2D> mousePosition;
     private final ObservableValue<HorizontalCoordinates> mouseHorizontalPosition;
 
+    private ObservedSky lastObservedSky;
+
     private final static double MAX_DISTANCE = 10;
     private final static ClosedInterval FOV_LIMIT = ClosedInterval.of(Angle.ofDeg(30), Angle.ofDeg(150));
     private final static ClosedInterval ALT_LIMIT = ClosedInterval.of(Angle.ofDeg(5), Angle.ofDeg(90));
+    private final static double CULLING_MARGIN = Angle.ofDeg(2);
 
     /*
     bonus drag and drop attributes
@@ -62,6 +69,31 @@ public class SkyCanvasManager {
      * @param vpb -  ViewingParametersBean
      */
     public SkyCanvasManager(StarCatalogue starCatalogue, DateTimeBean dtb, ObserverLocationBean olb, ViewingParametersBean vpb) {
+        this(starCatalogue, null, dtb, olb, vpb);
+    }
+
+    /**
+     * constructor for a catalogue kept on disk : only the stars around the field of view that are not sub-pixel
+     * are read from the store (see ObservedSky's store mode)
+     * @param starStore - store of the stars
+     * @param dtb - DateTimeBean
+     * @param olb - ObserverLocationBean
+     * @param vpb -  ViewingParametersBean
+     */
+    public SkyCanvasManager(TiledStarStore starStore, DateTimeBean dtb, ObserverLocationBean olb, ViewingParametersBean vpb) {
+        this(null, starStore, dtb, olb, vpb);
+    }
+
+    /**
+     * private constructor
+     * @param starCatalogue - star catalogue to be loaded, null if starStore is not
+     * @param starStore - store of the stars, null if starCatalogue is not
+     * @param dtb - DateTimeBean
+     * @param olb - ObserverLocationBean
+     * @param vpb -  ViewingParametersBean
+     */
+    private SkyCanvasManager(StarCatalogue starCatalogue, TiledStarStore starStore, DateTimeBean dtb, ObserverLocationBean olb,
+                             ViewingParametersBean vpb) {
 
         /*
          * creating the canvas, painter
@@ -82,10 +114,33 @@ public class SkyCanvasManager {
                             canvas.getWidth() / 2, canvas.getHeight() / 2);
                 }, canvas.heightProperty(), canvas.widthProperty(), projection, vpb.fOVDegProperty());
 
-
-        observedSky = Bindings.createObjectBinding(() -> new ObservedSky(dtb.getZonedDateTime(), olb.getCoordinates(),
-                        projection.getValue(), starCatalogue),
-                dtb.dateProperty(), dtb.timeProperty(), dtb.zoneProperty(), projection, olb.coordinatesProperty());
+        // stars fainter than it would be sub-pixel : neither drawn nor pointed at
+        limitingMagnitude = Bindings.createObjectBinding(() ->
+                SkyCanvasPainter.limitingMagnitude(projection.getValue(), planeToCanvas.getValue()), projection, planeToCanvas);
+
+
+        // when only the instant changed (animation), the sky is derived from the previous one
+        // only the stars in the field of view (plus a margin) are projected
+        // the atmosphere, when toggled, refracts the positions & dims the stars
+        observedSky = Bindings.createObjectBinding(() -> {
+                    double fieldOfView = visibleFieldOfView(vpb);
+                    Atmosphere atmosphere = vpb.getToggleAtmosphere() ? Atmosphere.STANDARD : null;
+                    if (lastObservedSky != null && lastObservedSky.isSeenFrom(olb.getCoordinates(), projection.getValue(),
+                            fieldOfView, CULLING_MARGIN) && lastObservedSky.atmosphere() == atmosphere) {
+                        lastObservedSky = lastObservedSky.advancedTo(dtb.getZonedDateTime());
+                    } else if (starStore != null) {
+                        lastObservedSky = new ObservedSky(dtb.getZonedDateTime(), olb.getCoordinates(), projection.getValue(),
+                                starStore, ForkJoinPool.commonPool(), fieldOfView, CULLING_MARGIN, limitingMagnitude.getValue(),
+                                atmosphere);
+                    } else {
+                        lastObservedSky = new ObservedSky(dtb.getZonedDateTime(), olb.getCoordinates(),
+                                projection.getValue(), starCatalogue, ForkJoinPool.commonPool(), fieldOfView, CULLING_MARGIN,
+                                atmosphere);
+                    }
+                    return lastObservedSky;
+                },
+                dtb.dateProperty(), dtb.timeProperty(), dtb.zoneProperty(), projection, olb.coordinatesProperty(),
+                vpb.fOVDegProperty(), canvas.widthProperty(), canvas.heightProperty(), vpb.toggleAtmosphereProperty());
 
 
         /*
@@ -109,12 +164,12 @@ public class SkyCanvasManager {
             try {
                 Point2D inversed = planeToCanvas.getValue().inverseTransform(mousePosition.get());
                 Optional<CelestialObject> optionalCelestialObject = observedSky.getValue().objectClosestTo(CartesianCoordinates.of(inversed.getX(), inversed.getY()),
-                        MAX_DISTANCE / planeToCanvas.getValue().getMxx());
+                        MAX_DISTANCE / planeToCanvas.getValue().getMxx(), limitingMagnitude.getValue());
                 return (optionalCelestialObject.orElse(null));
             } catch (NonInvertibleTransformException e) {
                 return null;
             }
-        }, observedSky, mousePosition, planeToCanvas);
+        }, observedSky, mousePosition, planeToCanvas, limitingMagnitude);
 
         mouseAzDeg = Bindings.createObjectBinding(() -> {
             if (mouseHorizontalPosition.getValue() != null) {
@@ -207,7 +262,7 @@ public class SkyCanvasManager {
                     StereographicProjection proj = projection.getValue();
                     Transform trans = planeToCanvas.getValue();
                     skyCanvasPainter.clear();
-                    skyCanvasPainter.drawStars(sky, proj, trans, vpb.getToggleAsterism());
+                    skyCanvasPainter.drawStars(sky, proj, trans, vpb.getToggleAsterism(), limitingMagnitude.getValue());
                     skyCanvasPainter.drawPlanets(sky, proj, trans);
                     skyCanvasPainter.drawSun(sky, proj, trans);
                     skyCanvasPainter.drawMoon(sky, proj, trans);
@@ -218,6 +273,21 @@ public class SkyCanvasManager {
         }
     }
 
+    /**
+     * computes the angular diameter of the part of the sky shown on the canvas, seen from the center of the projection :
+     * the field of view of vpb spans the width of the canvas, its corners being farther away
+     * @param vpb - ViewingParametersBean
+     * @return angle spanned by the diagonal of the canvas, in radians (infinite while the canvas is empty)
+     */
+    private double visibleFieldOfView(ViewingParametersBean vpb) {
+        if (canvas.getWidth() <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // the projection maps an angle a from its center to a distance tan(a / 2)
+        double diagonalRatio = Math.hypot(canvas.getWidth(), canvas.getHeight()) / canvas.getWidth();
+        return 4 * Math.atan(Math.tan(Angle.ofDeg(vpb.getFOVDeg()) / 4) * diagonalRatio);
+    }
+
     // update the proj center when drag and dropped
     private void updateProjCenter(ViewingParametersBean vpb) {
         try {
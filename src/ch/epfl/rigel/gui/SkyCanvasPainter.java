@@ -29,6 +29,7 @@ public class SkyCanvasPainter {
     private static final ClosedInterval MAG_LIMIT = ClosedInterval.of(- 2, 5);
     private static final double SUN_HALO_OPACITY_FACTOR = 0.25;
     private static final double SUN_HALO_DIAMETER_FACTOR = 2.2;
+    private static final double MIN_STAR_DIAMETER = 0.5;
 
     /**
      * public constructor
@@ -44,6 +45,20 @@ public class SkyCanvasPainter {
     }
 
 
+    /**
+     * computes the limiting magnitude of the drawn stars : the diameter of a star decreasing with its magnitude,
+     * the stars fainter than it would be drawn smaller than MIN_STAR_DIAMETER pixels (almost invisible)
+     * @param sterProj - the projection used
+     * @param t - the transformation from projection to the canvas, giving the pixel density
+     * @return limiting magnitude, infinite if even the faintest stars are drawn large enough
+     */
+    public static double limitingMagnitude(StereographicProjection sterProj, Transform t) {
+        double halfDegreeDiameter = sterProj.applyToAngle(Angle.ofDeg(0.5)) * t.getMxx();
+        // inverse of computeStarAndPlanetDiameter, above the upper bound of MAG_LIMIT every star has the same size
+        double magnitude = (99 - 140 * MIN_STAR_DIAMETER / halfDegreeDiameter) / 17;
+        return (magnitude >= MAG_LIMIT.high()) ? Double.POSITIVE_INFINITY : magnitude;
+    }
+
     /**
      * painting method to clear the canvas and go back to a "black screen"
      */
@@ -118,7 +133,8 @@ public class SkyCanvasPainter {
             double y = o.planetPositions()[2 * i + 1];
 
             Point2D planetPoint = t.transform(new Point2D(x, y));
-            double diameter = computeStarAndPlanetDiameter(p.magnitude(), str) * t.getMxx();
+            // magnitude dimmed by the atmosphere of the sky, if any
+            double diameter = computeStarAndPlanetDiameter(o.planetApparentMagnitude(i), str) * t.getMxx();
 
             ctx.setFill(Color.LIGHTGRAY);
             ctx.fillOval(planetPoint.getX() - diameter / 2, planetPoint.getY() - diameter / 2, diameter, diameter);
@@ -128,16 +144,41 @@ public class SkyCanvasPainter {
     }
 
     /**
-     * painting method to draw the stars according to their position and the asterisms
+     * painting method to draw the stars according to their position and the asterisms,
+     * the stars fainter than limitingMagnitude(str, t) being skipped
      * @param o - the whole observed sky
      * @param str - the projection used
      * @param t - the transformation from projection to the canvas
      */
     public void drawStars(ObservedSky o, StereographicProjection str, Transform t, boolean toggleAsterisms){
+        drawStars(o, str, t, toggleAsterisms, limitingMagnitude(str, t));
+    }
+
+    /**
+     * painting method to draw the stars at most as faint as a given magnitude according to their position and the asterisms
+     * @param o - the whole observed sky
+     * @param str - the projection used
+     * @param t - the transformation from projection to the canvas
+     * @param maxMagnitude - limiting magnitude of the drawn stars
+     */
+    public void drawStars(ObservedSky o, StereographicProjection str, Transform t, boolean toggleAsterisms, double maxMagnitude){
+        drawStars(o, str, t, toggleAsterisms, maxMagnitude, null);
+    }
+
+    /**
+     * painting method to draw only the selected stars at most as faint as a given magnitude, & the asterisms
+     * @param o - the whole observed sky
+     * @param str - the projection used
+     * @param t - the transformation from projection to the canvas
+     * @param maxMagnitude - limiting magnitude of the drawn stars
+     * @param selection - selection of the stars of o.starCatalogue() to be drawn, null to draw all of them
+     * @throws IllegalArgumentException if the selection is not one of the catalogue of o
+     */
+    public void drawStars(ObservedSky o, StereographicProjection str, Transform t, boolean toggleAsterisms, double maxMagnitude,
+                          StarSelection selection){
         GraphicsContext ctx = this.canvas.getGraphicsContext2D();
 
         Bounds canvasBounds = canvas.getBoundsInLocal();
-        List<Star> starList = o.stars();
         if (toggleAsterisms) {
             for (Asterism a : o.asterisms()) {
                 List<Integer> indices = o.asterismIndices(a);
@@ -146,9 +187,8 @@ public class SkyCanvasPainter {
                 Iterator<Integer> iter = indices.iterator();
                 Point2D lastPoint = null;
                 while (iter.hasNext()) {
-                    int hipparcosFirst = starList.get(iter.next()).hipparcosId();
-                    CartesianCoordinates firstCoords = o.starPosition(hipparcosFirst);
-                    Point2D p1 = t.transform(firstCoords.x(), firstCoords.y());
+                    int index = iter.next();
+                    Point2D p1 = t.transform(o.starX(index), o.starY(index));
 
                     if (lastPoint != null) {
                         if (canvasBounds.contains(p1) || canvasBounds.contains(lastPoint)) {
@@ -165,15 +205,20 @@ public class SkyCanvasPainter {
             }
         }
 
-        for (Star s : starList){
-            double x =  o.starPosition(s.hipparcosId()).x();
-            double y = o.starPosition(s.hipparcosId()).y();
+        // only the stars whose positions were computed (all of them unless the sky was culled to the field of view),
+        // selected & bright enough, the other ones not being visited at all; their magnitudes & temperatures are read
+        // from the catalogue's columns, without creating the Star objects (the magnitudes being dimmed by the atmosphere, if any)
+        // the computed stars being read by their number, the star is never searched among the computed ones
+        int[] drawn = (selection == null) ? o.computedStars(maxMagnitude) : o.computedStars(selection, maxMagnitude);
+        for (int k : drawn){
+            double x = o.computedStarX(k);
+            double y = o.computedStarY(k);
 
-            double size = computeStarAndPlanetDiameter(s.magnitude(), str) * t.getMxx();
+            double size = computeStarAndPlanetDiameter(o.computedStarApparentMagnitude(k), str) * t.getMxx();
 
             Point2D p = t.transform(x, y);
 
-            ctx.setFill(BlackBodyColor.colorForTemperature(s.colorTemperature()));
+            ctx.setFill(BlackBodyColor.colorForTemperature(o.starColorTemperature(o.computedStarIndex(k))));
             ctx.fillOval(p.getX() - size/2, p.getY() - size/2, size, size);
         }
 
@@ -14,6 +14,7 @@ public class ViewingParametersBean{
     private final DoubleProperty fOVDeg;
     private final ObjectProperty<HorizontalCoordinates> center;
     private final BooleanProperty toggleAsterism;
+    private final BooleanProperty toggleAtmosphere;
 
     /**
      * default constructor
@@ -22,6 +23,7 @@ public class ViewingParametersBean{
         fOVDeg = new SimpleDoubleProperty();
         center = new SimpleObjectProperty<>();
         toggleAsterism = new SimpleBooleanProperty();
+        toggleAtmosphere = new SimpleBooleanProperty();
     }
 
     /**
@@ -115,4 +117,29 @@ public class ViewingParametersBean{
     public void setToggleAsterism(boolean b){
         this.toggleAsterism.set(b);
     }
+
+    /**
+     * getter method for the property containing the boolean determining if the sky is seen
+     * through the atmosphere (refraction & extinction) or not
+     * @return toggleAtmosphere
+     */
+    public ReadOnlyBooleanProperty toggleAtmosphereProperty() {
+        return toggleAtmosphere;
+    }
+
+    /**
+     * getter method for the boolean determining if the sky is seen through the atmosphere or not
+     * @return toggleAtmosphere.get()
+     */
+    public boolean getToggleAtmosphere(){
+        return this.toggleAtmosphere.get();
+    }
+
+    /**
+     * setter method for the boolean determining if the sky is seen through the atmosphere or not
+     * @param b -  the new boolean value
+     */
+    public void setToggleAtmosphere(boolean b){
+        this.toggleAtmosphere.set(b);
+    }
 }
@@ -0,0 +1,148 @@
+package ch.epfl.rigel.math;
+
+import ch.epfl.rigel.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A truncated Chebyshev series on a closed interval : sum of c_k * T_k(x), x being mapped from the interval to [-1, 1]
+ * @author Victor Borruat (300666)
+ * @author Raphaël Selz (302980)
+ */
+public final class ChebyshevSeries {
+
+	/**
+	 * declaration of private final attributes
+	 * interval on which the series is defined (interval), coefficients in increasing order of degree (coefficients)
+	 */
+	private final ClosedInterval interval;
+	private final double[] coefficients;
+
+	/**
+	 * private constructor
+	 * @param interval - interval on which the series is defined
+	 * @param coefficients - coefficients in increasing order of degree
+	 */
+	private ChebyshevSeries(ClosedInterval interval, double[] coefficients) {
+		this.interval = interval;
+		this.coefficients = coefficients;
+	}
+
+	/**
+	 * builds the series with the given coefficients
+	 * @param interval - interval on which the series is defined
+	 * @param coefficients - coefficients in increasing order of degree (c_0 first)
+	 * @return the series with the given coefficients
+	 * @throws IllegalArgumentException if no coefficient is given
+	 */
+	public static ChebyshevSeries of(ClosedInterval interval, double... coefficients) {
+		Preconditions.checkArgument(coefficients.length > 0);
+		return new ChebyshevSeries(interval, coefficients.clone());
+	}
+
+	/**
+	 * gives the Chebyshev nodes of the given degree in the interval, at which interpolating expects its values
+	 * @param interval - interval of the nodes
+	 * @param degree - degree of the interpolating series (degree + 1 nodes)
+	 * @return the nodes, in increasing order
+	 * @throws IllegalArgumentException if degree is negative
+	 */
+	public static double[] nodes(ClosedInterval interval, int degree) {
+		Preconditions.checkArgument(degree >= 0);
+		double[] nodes = new double[degree + 1];
+		for (int k = 0; k <= degree; ++k) {
+			double x = -Math.cos(Math.PI * (k + 0.5) / (degree + 1));
+			nodes[k] = interval.low() + (x + 1) * interval.size() / 2;
+		}
+		return nodes;
+	}
+
+	/**
+	 * builds the series interpolating the given values at the Chebyshev nodes of the interval
+	 * @param interval - interval on which the series is defined
+	 * @param values - values at nodes(interval, values.length - 1), in the same order
+	 * @return the interpolating series, of degree values.length - 1
+	 * @throws IllegalArgumentException if no value is given
+	 */
+	public static ChebyshevSeries interpolating(ClosedInterval interval, double[] values) {
+		Preconditions.checkArgument(values.length > 0);
+		int n = values.length;
+		double[] coefficients = new double[n];
+		for (int j = 0; j < n; ++j) {
+			double sum = 0;
+			for (int k = 0; k < n; ++k) {
+				// nodes are in increasing order, i.e. x_k = -cos(...) = cos(PI - ...) : T_j(x_k) = (-1)^j cos(j * ...)
+				double sign = (j % 2 == 0) ? 1 : -1;
+				sum += values[k] * sign * Math.cos(Math.PI * j * (k + 0.5) / n);
+			}
+			coefficients[j] = (j == 0 ? 1.0 : 2.0) * sum / n;
+		}
+		return new ChebyshevSeries(interval, coefficients);
+	}
+
+	/**
+	 * evaluates the series with Clenshaw's recurrence
+	 * @param x - value at which the series is evaluated, normally in the interval
+	 * @return the value of the series at x
+	 */
+	public double at(double x) {
+		double u = (2 * x - interval.low() - interval.high()) / interval.size();
+		double b1 = 0;
+		double b2 = 0;
+		for (int k = coefficients.length - 1; k >= 1; --k) {
+			double b0 = coefficients[k] + 2 * u * b1 - b2;
+			b2 = b1;
+			b1 = b0;
+		}
+		return coefficients[0] + u * b1 - b2;
+	}
+
+	/**
+	 * getter method for the interval
+	 * @return interval on which the series is defined
+	 */
+	public ClosedInterval interval() {
+		return interval;
+	}
+
+	/**
+	 * getter method for the coefficients
+	 * @return copy of the coefficients in increasing order of degree
+	 */
+	public double[] coefficients() {
+		return coefficients.clone();
+	}
+
+	/**
+	 * getter method for the degree
+	 * @return degree of the series
+	 */
+	public int degree() {
+		return coefficients.length - 1;
+	}
+
+	/**
+	 * redefinition of toString() method of Object class
+	 * @return textual representation of the series
+	 */
+	@Override
+	public String toString() {
+		return "ChebyshevSeries" + interval + Arrays.toString(coefficients);
+	}
+
+	/**
+	 * redefinition of equals
+	 * @throws UnsupportedOperationException - can't compare real values
+	 */
+	@Override
+	public boolean equals(Object o) { throw new UnsupportedOperationException(); }
+
+	/**
+	 * redefinition of hashCode
+	 * @throws UnsupportedOperationException - can't compare real values
+	 */
+	@Override
+	public int hashCode() {
+		throw new UnsupportedOperationException();
+	}
+}
@@ -0,0 +1,133 @@
+package ch.epfl.rigel;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyCsvParserTest {
+
+    private static ByteBuffer buffer(String document) {
+        return ByteBuffer.wrap(document.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static List<String> fields(String document) {
+        return CsvParser.parse(buffer(document), 0, row -> {
+            StringBuilder b = new StringBuilder();
+            for (int i = 0; i < row.fieldCount(); ++i) {
+                b.append(i == 0 ? "" : "|").append(row.string(i));
+            }
+            return b.toString();
+        });
+    }
+
+    @Test
+    void parseSplitsLinesAndFields() {
+        assertEquals(List.of("a|b|c", "d||f", "", "g"), fields("a,b,c\nd,,f\n\ng"));
+        assertEquals(List.of("a|b", "c"), fields("a,b\r\nc\r\n"));
+        assertEquals(List.of("a", "b"), fields("a\rb"));
+        assertEquals(List.of(), fields(""));
+    }
+
+    @Test
+    void parseHandlesQuotedFields() {
+        assertEquals(List.of("Seoul|Korea, South|1"), fields("\"Seoul\",\"Korea, South\",1\n"));
+        assertEquals(List.of("say \"hi\"|x"), fields("\"say \"\"hi\"\"\",x"));
+        assertEquals(List.of("|"), fields("\"\","));
+    }
+
+    @Test
+    void parseSkipsHeaderAndNullValues() {
+        List<String> values = CsvParser.parse(buffer("h1,h2\nh3\n1,a\n2,b\n3,c\n"), 2,
+                row -> row.parseInt(0) == 2 ? null : row.string(1));
+        assertEquals(List.of("a", "c"), values);
+    }
+
+    @Test
+    void parseKeepsOrderOfLinesAcrossChunks() {
+        int lines = 3 * CsvParser.CHUNK_SIZE / 10;
+        StringBuilder b = new StringBuilder("index,square\n");
+        for (int i = 0; i < lines; ++i) {
+            b.append(i).append(',').append((long) i * i).append('\n');
+        }
+        List<Integer> values = CsvParser.parse(buffer(b.toString()), 1, row -> {
+            int i = row.parseInt(0);
+            assertEquals((double) i * i, row.parseDouble(1));
+            return i;
+        });
+        assertEquals(lines, values.size());
+        for (int i = 0; i < lines; ++i) {
+            assertEquals(i, values.get(i));
+        }
+    }
+
+    @Test
+    void numbersAreParsedLikeTheJdk() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        List<String> texts = new ArrayList<>(List.of("0", "-0", "+3", "1.", ".5", "-.25", "0.000001",
+                "123456789012345678", "1e10", "-2.5E-3", "6.02214076e23", "3.141592653589793238", "  42  "));
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            double v = rng.nextDouble(-1e6, 1e6) * Math.pow(10, -rng.nextInt(10));
+            texts.add(String.format(Locale.ROOT, "%." + rng.nextInt(17) + "f", v));
+            texts.add(Double.toString(v));
+            texts.add(Float.toString((float) v));
+        }
+        StringBuilder b = new StringBuilder();
+        for (String text : texts) {
+            b.append(text).append('\n');
+        }
+        List<double[]> values = CsvParser.parse(buffer(b.toString()), 0,
+                row -> new double[]{row.parseDouble(0), row.parseFloat(0)});
+        for (int i = 0; i < texts.size(); ++i) {
+            String text = texts.get(i).strip();
+            assertEquals(Double.parseDouble(text), values.get(i)[0], text);
+            assertEquals(Float.parseFloat(text), (float) values.get(i)[1], text);
+        }
+    }
+
+    @Test
+    void intsAreParsedLikeTheJdk() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            int v = i % 2 == 0 ? rng.nextInt() : rng.nextInt(-1000, 1000);
+            int parsed = CsvParser.parse(buffer("x," + v), 0, row -> row.parseInt(1)).get(0);
+            assertEquals(v, parsed);
+        }
+    }
+
+    @Test
+    void blankAndMissingFields() {
+        List<boolean[]> values = CsvParser.parse(buffer("a, ,,\"\"\n"), 0, row -> new boolean[]{
+                row.isBlank(0), row.isBlank(1), row.isBlank(2), row.isBlank(3), row.isBlank(4)});
+        assertArrayEquals(new boolean[]{false, true, true, true, true}, values.get(0));
+        assertEquals("", CsvParser.parse(buffer("a"), 0, row -> row.string(3)).get(0));
+    }
+
+    @Test
+    void fieldSpansAreTheFieldsAsWritten() {
+        String document = "a,\"Korea, South\",\"say \"\"hi\"\"\",,x\n";
+        List<String> spans = CsvParser.parse(buffer(document), 0, row -> {
+            StringBuilder b = new StringBuilder();
+            for (int i = 0; i < 6; ++i) {
+                b.append(i == 0 ? "" : "|").append(document, row.fieldStart(i), row.fieldEnd(i));
+            }
+            return b.toString();
+        });
+        assertEquals(List.of("a|\"Korea, South\"|\"say \"\"hi\"\"\"||x|"), spans);
+    }
+
+    @Test
+    void invalidNumbersFail() {
+        assertThrows(NumberFormatException.class, () -> CsvParser.parse(buffer("1x"), 0, row -> row.parseInt(0)));
+        assertThrows(NumberFormatException.class, () -> CsvParser.parse(buffer("1.2.3"), 0, row -> row.parseDouble(0)));
+        assertThrows(NumberFormatException.class, () -> CsvParser.parse(buffer("x,"), 0, row -> row.parseFloat(1)));
+    }
+}
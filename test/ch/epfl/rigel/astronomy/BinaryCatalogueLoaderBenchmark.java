@@ -0,0 +1,63 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Benchmark of the loading of the catalogue from the HYG CSV document & the asterisms, & from the binary catalogue,
+ * read from memory & memory-mapped from a file : the binary catalogue should load several times faster
+ * (not a unit test, to be run by hand)
+ */
+public final class BinaryCatalogueLoaderBenchmark {
+
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws IOException {
+        byte[] data;
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryCatalogueLoader.write(csvCatalogue(), out);
+            data = out.toByteArray();
+        }
+        Path path = Files.createTempFile("catalogue", ".bin");
+        try {
+            Files.write(path, data);
+            double csv = Double.POSITIVE_INFINITY, memory = Double.POSITIVE_INFINITY, mapped = Double.POSITIVE_INFINITY;
+            for (int run = 0; run < RUNS; ++run) {
+                long start = System.nanoTime();
+                csvCatalogue();
+                csv = Math.min(csv, (System.nanoTime() - start) / 1e6);
+
+                start = System.nanoTime();
+                new StarCatalogue.Builder().loadFrom(new ByteArrayInputStream(data), BinaryCatalogueLoader.INSTANCE).build();
+                memory = Math.min(memory, (System.nanoTime() - start) / 1e6);
+
+                start = System.nanoTime();
+                try (InputStream in = new FileInputStream(path.toFile())) {
+                    new StarCatalogue.Builder().loadFrom(in, BinaryCatalogueLoader.INSTANCE).build();
+                }
+                mapped = Math.min(mapped, (System.nanoTime() - start) / 1e6);
+            }
+            System.out.printf(Locale.ROOT, "csv %.2f ms, binary from memory %.2f ms (x%.1f), binary mapped %.2f ms (x%.1f)%n",
+                    csv, memory, csv / memory, mapped, csv / mapped);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static StarCatalogue csvCatalogue() throws IOException {
+        try (InputStream hygStream = BinaryCatalogueLoaderBenchmark.class.getResourceAsStream("/hygdata_v3.csv");
+             InputStream astStream = BinaryCatalogueLoaderBenchmark.class.getResourceAsStream("/asterisms.txt")) {
+            return new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(astStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+    }
+}
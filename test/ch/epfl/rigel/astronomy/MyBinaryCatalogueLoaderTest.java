@@ -0,0 +1,107 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.test.TestCatalogues;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyBinaryCatalogueLoaderTest {
+
+    private static byte[] binary(StarCatalogue catalogue) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCatalogueLoader.write(catalogue, out);
+        return out.toByteArray();
+    }
+
+    private static Set<List<Integer>> asterismIndices(StarCatalogue catalogue) {
+        Set<List<Integer>> indices = new HashSet<>();
+        for (Asterism a : catalogue.asterisms()) {
+            indices.add(catalogue.asterismIndices(a));
+        }
+        return indices;
+    }
+
+    private static void assertSameCatalogue(StarCatalogue expected, StarCatalogue actual) {
+        assertEquals(expected.stars().size(), actual.stars().size());
+        for (int i = 0; i < expected.stars().size(); ++i) {
+            Star e = expected.stars().get(i), a = actual.stars().get(i);
+            assertEquals(e.hipparcosId(), a.hipparcosId());
+            assertEquals(e.name(), a.name());
+            assertEquals(e.equatorialPos().ra(), a.equatorialPos().ra());
+            assertEquals(e.equatorialPos().dec(), a.equatorialPos().dec());
+            assertEquals(e.magnitude(), a.magnitude());
+            assertEquals(e.colorTemperature(), a.colorTemperature());
+            assertEquals(e.properMotionRa(), a.properMotionRa());
+            assertEquals(e.properMotionDec(), a.properMotionDec());
+        }
+        assertEquals(asterismIndices(expected), asterismIndices(actual));
+    }
+
+    @Test
+    void binaryCatalogueRoundTripsFromStream() throws IOException {
+        StarCatalogue csv = TestCatalogues.hygCatalogueWithAsterisms();
+        StarCatalogue binary = new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(binary(csv)), BinaryCatalogueLoader.INSTANCE)
+                .build();
+        assertSameCatalogue(csv, binary);
+    }
+
+    @Test
+    void binaryCatalogueRoundTripsFromMappedFile() throws IOException {
+        StarCatalogue csv = TestCatalogues.hygCatalogueWithAsterisms();
+        Path file = Files.createTempFile("catalogue", ".bin");
+        try {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                BinaryCatalogueLoader.write(csv, out);
+            }
+            StarCatalogue binary;
+            try (InputStream in = new FileInputStream(file.toFile())) {
+                binary = new StarCatalogue.Builder().loadFrom(in, BinaryCatalogueLoader.INSTANCE).build();
+            }
+            assertSameCatalogue(csv, binary);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void asterismIndicesAreRelativeToTheLoadedStars() throws IOException {
+        StarCatalogue csv = TestCatalogues.hygCatalogueWithAsterisms();
+        Star extra = csv.stars().get(0);
+        StarCatalogue binary = new StarCatalogue.Builder()
+                .addStar(extra)
+                .loadFrom(new ByteArrayInputStream(binary(csv)), BinaryCatalogueLoader.INSTANCE)
+                .build();
+        assertEquals(csv.stars().size() + 1, binary.stars().size());
+        for (Asterism a : binary.asterisms()) {
+            for (int i : binary.asterismIndices(a)) {
+                assertTrue(i >= 1);
+            }
+        }
+    }
+
+    @Test
+    void loadFailsOnInvalidData() throws IOException {
+        byte[] valid = binary(TestCatalogues.hygCatalogueWithAsterisms());
+        byte[] wrongMagic = valid.clone();
+        wrongMagic[0] ^= 1;
+        byte[] truncated = Arrays.copyOf(valid, valid.length / 2);
+        for (byte[] data : List.of(new byte[3], wrongMagic, truncated)) {
+            assertThrows(IOException.class, () -> new StarCatalogue.Builder()
+                    .loadFrom(new ByteArrayInputStream(data), BinaryCatalogueLoader.INSTANCE));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyEphemerisColumnsTest {
+
+    private static final GeographicCoordinates EPFL = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final long START = ZonedDateTime.parse("2020-02-17T20:15:00+01:00").toInstant().toEpochMilli();
+
+    private static List<CelestialObjectModel<? extends CelestialObject>> bodies() {
+        List<CelestialObjectModel<? extends CelestialObject>> bodies = new ArrayList<>();
+        bodies.add(SunModel.SUN);
+        bodies.add(MoonModel.MOON);
+        bodies.addAll(PlanetModel.ALL);
+        return bodies;
+    }
+
+    private static long[] instants(int count) {
+        long[] instants = new long[count];
+        for (int i = 0; i < count; ++i) {
+            instants[i] = START + i * 3_600_000L;
+        }
+        return instants;
+    }
+
+    @Test
+    void columnsMatchModelsAndConversion() {
+        List<CelestialObjectModel<? extends CelestialObject>> bodies = bodies();
+        long[] instants = instants(30);
+        EphemerisColumns columns = new EphemerisColumns(bodies, instants, EPFL);
+        assertEquals(bodies.size(), columns.bodyCount());
+        assertEquals(instants.length, columns.instantCount());
+
+        double[] ra = columns.ra(), dec = columns.dec(), az = columns.az(), alt = columns.alt();
+        double[] magnitude = columns.magnitude(), angularSize = columns.angularSize();
+        for (int i = 0; i < instants.length; ++i) {
+            ZonedDateTime when = ZonedDateTime.ofInstant(Instant.ofEpochMilli(instants[i]), ZoneOffset.UTC);
+            EphemerisContext context = new EphemerisContext(when);
+            EquatorialToHorizontalConversion eqToHor = new EquatorialToHorizontalConversion(when, EPFL);
+            for (int b = 0; b < bodies.size(); ++b) {
+                int index = columns.index(b, i);
+                CelestialObject object = bodies.get(b).at(context);
+                if (object == null) {
+                    assertTrue(Double.isNaN(ra[index]) && Double.isNaN(az[index]) && Double.isNaN(magnitude[index]));
+                    continue;
+                }
+                HorizontalCoordinates hor = eqToHor.apply(object.equatorialPos());
+                assertEquals(object.equatorialPos().ra(), ra[index]);
+                assertEquals(object.equatorialPos().dec(), dec[index]);
+                assertEquals(hor.az(), az[index], 1e-12);
+                assertEquals(hor.alt(), alt[index], 1e-12);
+                assertEquals(object.magnitude(), magnitude[index]);
+                assertEquals(object.angularSize(), angularSize[index]);
+            }
+        }
+    }
+
+    @Test
+    void parallelColumnsAreIdentical() {
+        long[] instants = instants(10 * EphemerisColumns.PARALLEL_THRESHOLD + 3);
+        EphemerisColumns sequential = new EphemerisColumns(bodies(), instants, EPFL);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        EphemerisColumns parallel = new EphemerisColumns(bodies(), instants, EPFL, pool);
+        pool.shutdown();
+        assertArrayEquals(sequential.ra(), parallel.ra());
+        assertArrayEquals(sequential.dec(), parallel.dec());
+        assertArrayEquals(sequential.az(), parallel.az());
+        assertArrayEquals(sequential.alt(), parallel.alt());
+        assertArrayEquals(sequential.magnitude(), parallel.magnitude());
+        assertArrayEquals(sequential.angularSize(), parallel.angularSize());
+    }
+
+    @Test
+    void columnsAreCopiedAndIndicesChecked() {
+        long[] instants = instants(3);
+        EphemerisColumns columns = new EphemerisColumns(List.of(SunModel.SUN), instants, EPFL);
+        instants[0] = 0;
+        assertEquals(START, columns.epochMillis()[0]);
+        columns.ra()[0] = -1;
+        assertNotEquals(-1, columns.ra()[0]);
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.index(1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.index(0, 3));
+        assertThrows(NullPointerException.class, () -> new EphemerisColumns(List.of(SunModel.SUN), instants, null));
+    }
+}
@@ -0,0 +1,62 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyEphemerisContextTest {
+
+    private static final ZonedDateTime WHEN = ZonedDateTime.of(LocalDate.of(2003, Month.NOVEMBER, 22),
+            LocalTime.of(0, 0), ZoneOffset.UTC);
+
+    @Test
+    void sunIsComputedOnce() {
+        EphemerisContext context = new EphemerisContext(WHEN);
+        assertSame(context.sun(), context.sun());
+        assertSame(context.sun(), SunModel.SUN.at(context));
+    }
+
+    @Test
+    void modelsGiveSameResultsWithAndWithoutContext() {
+        double days = Epoch.J2010.daysUntil(WHEN);
+        EclipticToEquatorialConversion eclToEq = new EclipticToEquatorialConversion(WHEN);
+        EphemerisContext context = new EphemerisContext(days, eclToEq);
+
+        Sun sun = SunModel.SUN.at(days, eclToEq);
+        assertEquals(sun.equatorialPos().ra(), context.sun().equatorialPos().ra());
+        assertEquals(sun.meanAnomaly(), context.sunMeanAnomaly());
+
+        Moon moon = MoonModel.MOON.at(days, eclToEq);
+        Moon moonFromContext = MoonModel.MOON.at(context);
+        assertEquals(moon.equatorialPos().ra(), moonFromContext.equatorialPos().ra());
+        assertEquals(moon.equatorialPos().dec(), moonFromContext.equatorialPos().dec());
+        assertEquals(moon.info(), moonFromContext.info());
+
+        for (PlanetModel p : PlanetModel.ALL) {
+            if (p != PlanetModel.EARTH) {
+                Planet planet = p.at(days, eclToEq);
+                Planet planetFromContext = p.at(context);
+                assertEquals(planet.equatorialPos().ra(), planetFromContext.equatorialPos().ra());
+                assertEquals(planet.equatorialPos().dec(), planetFromContext.equatorialPos().dec());
+                assertEquals(planet.magnitude(), planetFromContext.magnitude());
+                assertEquals(planet.angularSize(), planetFromContext.angularSize());
+            }
+        }
+    }
+
+    @Test
+    void earthOrbitIsConsistentWithPlanetModel() {
+        EphemerisContext context = new EphemerisContext(WHEN);
+        double trueAnomaly = PlanetModel.EARTH.trueAnomalyAt(context.daysSinceJ2010());
+        assertEquals(PlanetModel.EARTH.radiusFor(trueAnomaly), context.earthRadius());
+        assertEquals(PlanetModel.EARTH.longitudeFor(trueAnomaly), context.earthLongitude());
+        assertEquals(1, context.earthRadius(), 0.02);
+    }
+}
@@ -0,0 +1,106 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.ClosedInterval;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyEphemerisTableTest {
+
+    private static final ClosedInterval RANGE = ClosedInterval.of(-30, 30);
+    private static final double MAX_ERROR = 1e-9;
+
+    private static double angleBetween(EquatorialCoordinates a, EquatorialCoordinates b) {
+        // haversine formula, accurate for small angles
+        double sinHalfDec = Math.sin((a.dec() - b.dec()) / 2);
+        double sinHalfRa = Math.sin((a.ra() - b.ra()) / 2);
+        double h = sinHalfDec * sinHalfDec + Math.cos(a.dec()) * Math.cos(b.dec()) * sinHalfRa * sinHalfRa;
+        return 2 * Math.asin(Math.sqrt(h));
+    }
+
+    private static void assertCloseToModel(EphemerisTable table, CelestialObjectModel<? extends CelestialObject> model) {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; ++i) {
+            double days = RANGE.low() + rng.nextDouble() * RANGE.size();
+            CelestialObject object = model.at(days,
+                    new EclipticToEquatorialConversion(Epoch.J2010.epochMillisAfter(days)));
+            assertTrue(angleBetween(object.equatorialPos(), table.equatorialPosAt(days)) <= 2 * MAX_ERROR);
+            assertEquals(object.angularSize(), table.angularSizeAt(days), 1e-6);
+            // magnitudes are only bounded while the object is bright enough (Mercury & Venus at inferior conjunction)
+            if (object.magnitude() < 7) {
+                assertEquals(object.magnitude(), table.magnitudeAt(days), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    void tableOfSunMoonAndPlanetsMatchesModels() {
+        assertCloseToModel(EphemerisTable.tabulate(SunModel.SUN, RANGE, 8, 10, MAX_ERROR), SunModel.SUN);
+        assertCloseToModel(EphemerisTable.tabulate(MoonModel.MOON, RANGE, 1, 10, MAX_ERROR), MoonModel.MOON);
+        for (PlanetModel p : PlanetModel.ALL) {
+            if (p != PlanetModel.EARTH) {
+                assertCloseToModel(EphemerisTable.tabulate(p, RANGE, 8, 10, MAX_ERROR), p);
+            }
+        }
+    }
+
+    @Test
+    void segmentsAreSplitWhenBoundIsNotReached() {
+        EphemerisTable coarse = EphemerisTable.tabulate(MoonModel.MOON, RANGE, 60, 4, MAX_ERROR);
+        assertTrue(coarse.segmentCount() > 1);
+        assertEquals(RANGE.low(), coarse.range().low());
+        assertEquals(RANGE.high(), coarse.range().high());
+        assertCloseToModel(coarse, MoonModel.MOON);
+    }
+
+    @Test
+    void tabulateFailsOnInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> EphemerisTable.tabulate(PlanetModel.EARTH, RANGE, 8, 10, MAX_ERROR));
+        assertThrows(IllegalArgumentException.class,
+                () -> EphemerisTable.tabulate(SunModel.SUN, RANGE, 0, 10, MAX_ERROR));
+        assertThrows(IllegalArgumentException.class,
+                () -> EphemerisTable.tabulate(SunModel.SUN, RANGE, 8, 0, MAX_ERROR));
+        assertThrows(IllegalArgumentException.class,
+                () -> EphemerisTable.tabulate(SunModel.SUN, RANGE, 8, 10, 0));
+    }
+
+    @Test
+    void evaluationFailsOutOfRange() {
+        EphemerisTable table = EphemerisTable.tabulate(SunModel.SUN, RANGE, 8, 10, MAX_ERROR);
+        assertThrows(IllegalArgumentException.class, () -> table.equatorialPosAt(RANGE.high() + 1));
+        assertThrows(IllegalArgumentException.class, () -> table.magnitudeAt(RANGE.low() - 1));
+        table.equatorialPosAt(RANGE.high());
+        table.equatorialPosAt(RANGE.low());
+    }
+
+    @Test
+    void writeToAndReadFromRoundTrip() throws IOException {
+        EphemerisTable table = EphemerisTable.tabulate(PlanetModel.MARS, RANGE, 8, 10, MAX_ERROR);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        table.writeTo(out);
+        EphemerisTable read = EphemerisTable.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(table.segmentCount(), read.segmentCount());
+        assertEquals(table.degree(), read.degree());
+        assertEquals(table.maxError(), read.maxError());
+        for (double d = RANGE.low(); d <= RANGE.high(); d += 0.7) {
+            assertEquals(table.equatorialPosAt(d).ra(), read.equatorialPosAt(d).ra());
+            assertEquals(table.equatorialPosAt(d).dec(), read.equatorialPosAt(d).dec());
+            assertEquals(table.angularSizeAt(d), read.angularSizeAt(d));
+        }
+    }
+
+    @Test
+    void readFromFailsOnOtherData() {
+        assertThrows(IOException.class,
+                () -> EphemerisTable.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+}
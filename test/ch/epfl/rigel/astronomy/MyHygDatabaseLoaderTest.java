@@ -1,10 +1,14 @@
 package ch.epfl.rigel.astronomy;
 
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
 import ch.epfl.rigel.math.Angle;
 import org.junit.jupiter.api.*;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -104,4 +108,65 @@ class MyHygDatabaseLoaderTest {
 
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void hygLoaderMatchesLineByLineParsing() throws IOException {
+        List<Star> expected = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream(HYG_CATALOGUE_NAME), StandardCharsets.US_ASCII))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                String name = !parts[6].isBlank() ? parts[6]
+                        : !parts[27].isBlank() ? parts[27] + " " + parts[29]
+                        : "? " + parts[29];
+                expected.add(new Star(parts[1].isBlank() ? 0 : Integer.parseInt(parts[1]), name,
+                        EquatorialCoordinates.of(Double.parseDouble(parts[23]), Double.parseDouble(parts[24])),
+                        parts[13].isBlank() ? 0 : Float.parseFloat(parts[13]),
+                        parts[16].isBlank() ? 0 : (float) Double.parseDouble(parts[16])));
+            }
+        }
+
+        List<Star> stars;
+        try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            stars = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).stars();
+        }
+        assertEquals(expected.size(), stars.size());
+        for (int i = 0; i < stars.size(); ++i) {
+            Star e = expected.get(i), s = stars.get(i);
+            assertEquals(e.hipparcosId(), s.hipparcosId());
+            assertEquals(e.name(), s.name());
+            assertEquals(e.equatorialPos().ra(), s.equatorialPos().ra());
+            assertEquals(e.equatorialPos().dec(), s.equatorialPos().dec());
+            assertEquals(e.magnitude(), s.magnitude());
+            assertEquals(e.colorIndex(), s.colorIndex());
+        }
+    }
+
+    @Test
+    void hygLoaderAddsTheNamesInTheOrderOfTheDocument() throws IOException {
+        List<Star> stars;
+        try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            stars = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).stars();
+        }
+        // the proper names are the only names stored whole : the i-th of the document is the i-th of the table
+        int properNames = 0;
+        for (Star s : stars) {
+            if (s.names().isProper(s.nameReference())) {
+                assertEquals(StarNames.wholeName(properNames++), s.nameReference());
+            }
+        }
+        assertTrue(properNames > 100);
+
+        for (int run = 0; run < 3; ++run) {
+            List<Star> again;
+            try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+                again = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).stars();
+            }
+            for (int i = 0; i < stars.size(); ++i) {
+                assertEquals(stars.get(i).nameReference(), again.get(i).nameReference());
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyIntIndexMapTest {
+
+    @Test
+    void mapBehavesLikeHashMapPutIfAbsent() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; ++i) {
+            IntIndexMap map = new IntIndexMap(rng.nextInt(0, 10));
+            Map<Integer, Integer> expected = new HashMap<>();
+            int bound = 1 + rng.nextInt(5000);
+            for (int k = 0; k < 2000; ++k) {
+                int key = (k % 3 == 0) ? rng.nextInt() : rng.nextInt(-bound, bound);
+                int index = rng.nextInt(0, Integer.MAX_VALUE);
+                Integer previous = expected.putIfAbsent(key, index);
+                assertEquals(previous == null ? IntIndexMap.ABSENT : previous, map.putIfAbsent(key, index));
+            }
+            assertEquals(expected.size(), map.size());
+            for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+                assertEquals(e.getValue(), map.get(e.getKey()));
+            }
+            for (int k = 0; k < 100; ++k) {
+                int key = rng.nextInt();
+                assertEquals(expected.getOrDefault(key, IntIndexMap.ABSENT), map.get(key));
+            }
+        }
+    }
+}
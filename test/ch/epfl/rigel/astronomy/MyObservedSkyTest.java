@@ -1,11 +1,20 @@
 package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.coordinates.*;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,4 +50,257 @@ class MyObservedSkyTest {
             assertEquals("Tau Phe", sky.objectClosestTo(stereo.apply(new EquatorialToHorizontalConversion(time, geoCoords)
             .apply(EquatorialCoordinates.of(0.004696959812148989,-0.861893035343076))),0.1).get().name());
 }
-}
\ No newline at end of file
+
+@Test
+    void starPositionsAreIndexedByCatalogueOrder() {
+            Star s1 = new Star(0, "A", EquatorialCoordinates.of(0.1, 0.2), 1f, 0f);
+            Star s2 = new Star(0, "B", EquatorialCoordinates.of(1.1, -0.3), 2f, 0f);
+            Star s3 = new Star(42, "C", EquatorialCoordinates.of(4.2, 0.7), 3f, 0f);
+            StarCatalogue catalogue = new StarCatalogue(List.of(s1, s2, s3), List.of());
+            ZonedDateTime time = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(0, 0), ZoneOffset.UTC);
+            GeographicCoordinates geoCoords = GeographicCoordinates.ofDeg(30, 45);
+            StereographicProjection stereo = new StereographicProjection(HorizontalCoordinates.ofDeg(20, 22));
+            EquatorialToHorizontalConversion convEquToHor = new EquatorialToHorizontalConversion(time, geoCoords);
+            ObservedSky sky = new ObservedSky(time, geoCoords, stereo, catalogue);
+
+            double[] positions = sky.starPositions();
+            assertEquals(6, positions.length);
+            for (int i = 0; i < catalogue.stars().size(); ++i) {
+                CartesianCoordinates expected = stereo.apply(convEquToHor.apply(ofDate(catalogue.stars().get(i).equatorialPos(), time)));
+                assertEquals(expected.x(), sky.starX(i), 1e-12);
+                assertEquals(expected.y(), sky.starY(i), 1e-12);
+                assertEquals(expected.x(), positions[2 * i], 1e-12);
+                assertEquals(expected.y(), positions[2 * i + 1], 1e-12);
+            }
+            assertNotEquals(sky.starX(0), sky.starX(1));
+}
+
+@Test
+    void parallelConstructionIsIdenticalToSequentialOne() {
+            SplittableRandom rng = TestRandomizer.newRandom();
+            List<Star> stars = new ArrayList<>();
+            for (int i = 0; i < 5 * ObservedSky.PARALLEL_THRESHOLD + 17; ++i) {
+                stars.add(new Star(i, "S" + i, EquatorialCoordinates.of(rng.nextDouble(0, 2 * Math.PI),
+                        rng.nextDouble(-Math.PI / 2, Math.PI / 2)), 1f, 0f));
+            }
+            StarCatalogue catalogue = new StarCatalogue(stars, List.of());
+            ZonedDateTime time = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(0, 0), ZoneOffset.UTC);
+            GeographicCoordinates geoCoords = GeographicCoordinates.ofDeg(30, 45);
+            StereographicProjection stereo = new StereographicProjection(HorizontalCoordinates.ofDeg(20, 22));
+
+            ObservedSky sequential = new ObservedSky(time, geoCoords, stereo, catalogue);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                ObservedSky parallel = new ObservedSky(time, geoCoords, stereo, catalogue, pool);
+                assertArrayEquals(sequential.starPositions(), parallel.starPositions());
+            } finally {
+                pool.shutdown();
+            }
+}
+
+@Test
+    void advancedToMatchesExactConstruction() throws IOException {
+            StarCatalogue catalogue;
+            try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+                catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+            }
+            ZonedDateTime time = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 0), ZoneOffset.UTC);
+            GeographicCoordinates geoCoords = GeographicCoordinates.ofDeg(6.57, 46.52);
+            StereographicProjection stereo = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 40));
+
+            ObservedSky sky = new ObservedSky(time, geoCoords, stereo, catalogue);
+            assertTrue(sky.isSeenFrom(geoCoords, stereo));
+            for (int step = 0; step < 40; ++step) {
+                time = time.plusMinutes(17).plusNanos(123_456);
+                sky = sky.advancedTo(time);
+                ObservedSky exact = new ObservedSky(time, geoCoords, stereo, catalogue);
+                assertProjectedPositionsClose(exact.starPositions(), sky.starPositions());
+                assertProjectedPositionsClose(exact.planetPositions(), sky.planetPositions());
+                assertProjectedPositionsClose(new double[]{exact.moonPosition().x(), exact.moonPosition().y()},
+                        new double[]{sky.moonPosition().x(), sky.moonPosition().y()});
+                assertProjectedPositionsClose(new double[]{exact.sunPosition().x(), exact.sunPosition().y()},
+                        new double[]{sky.sunPosition().x(), sky.sunPosition().y()});
+            }
+            time = time.plusDays(3);
+            assertArrayEquals(new ObservedSky(time, geoCoords, stereo, catalogue).starPositions(),
+                    sky.advancedTo(time).starPositions(), 1e-9);
+}
+
+@Test
+    void culledSkyProjectsExactlyTheStarsOfTheVisibleCap() throws IOException {
+            StarCatalogue catalogue;
+            try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+                StarCatalogue.Builder builder = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE);
+                try (InputStream astStream = getClass().getResourceAsStream("/asterisms.txt")) {
+                    catalogue = builder.loadFrom(astStream, AsterismLoader.INSTANCE).build();
+                }
+            }
+            ZonedDateTime time = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 0), ZoneOffset.UTC);
+            GeographicCoordinates geoCoords = GeographicCoordinates.ofDeg(6.57, 46.52);
+            StereographicProjection stereo = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 40));
+            double fieldOfView = Angle.ofDeg(30), margin = Angle.ofDeg(2);
+
+            ObservedSky full = new ObservedSky(time, geoCoords, stereo, catalogue);
+            ObservedSky culled = new ObservedSky(time, geoCoords, stereo, catalogue, null, fieldOfView, margin);
+            assertTrue(culled.isSeenFrom(geoCoords, stereo, fieldOfView, margin));
+            assertFalse(culled.isSeenFrom(geoCoords, stereo, Angle.ofDeg(40), margin));
+
+            for (int step = 0; step < 3; ++step) {
+                EquatorialToHorizontalConversion eqToHor = new EquatorialToHorizontalConversion(time, geoCoords);
+                HorizontalCoordinates center = HorizontalCoordinates.ofDeg(180, 40);
+                Set<Integer> asterismStars = new HashSet<>();
+                for (Asterism a : catalogue.asterisms()) {
+                    asterismStars.addAll(catalogue.asterismIndices(a));
+                }
+                Set<Integer> computed = new HashSet<>();
+                for (int i : culled.starIndices()) {
+                    computed.add(i);
+                }
+                assertTrue(computed.containsAll(asterismStars));
+                StarPositions positions = catalogue.positionsAt(time);
+                for (int i = 0; i < catalogue.stars().size(); ++i) {
+                    HorizontalCoordinates h = eqToHor.apply(ofDate(positions.position(i), time));
+                    double distance = Math.acos(Math.sin(h.alt()) * Math.sin(center.alt())
+                            + Math.cos(h.alt()) * Math.cos(center.alt()) * Math.cos(h.az() - center.az()));
+                    boolean visible = distance < fieldOfView / 2 + margin - 1e-9;
+                    if (visible || asterismStars.contains(i)) {
+                        assertTrue(computed.contains(i));
+                        assertEquals(full.starX(i), culled.starX(i), 1e-8);
+                        assertEquals(full.starY(i), culled.starY(i), 1e-8);
+                    } else if (distance > fieldOfView / 2 + margin + 1e-9) {
+                        assertFalse(computed.contains(i));
+                        assertTrue(Double.isNaN(culled.starX(i)) && Double.isNaN(culled.starY(i)));
+                    }
+                }
+                assertTrue(computed.size() < asterismStars.size() + catalogue.stars().size() / 20);
+
+                time = time.plusMinutes(47);
+                full = new ObservedSky(time, geoCoords, stereo, catalogue);
+                culled = culled.advancedTo(time);
+            }
+
+            // limiting magnitude
+            for (ObservedSky sky : List.of(full, culled)) {
+                int[] all = sky.starIndices();
+                int[] bright = sky.starIndices(3);
+                assertEquals(Arrays.stream(all).filter(i -> catalogue.stars().get(i).magnitude() <= 3).count(), bright.length);
+                for (int i : bright) {
+                    assertTrue(catalogue.stars().get(i).magnitude() <= 3);
+                }
+            }
+
+            // too large to be culled
+            ObservedSky wide = new ObservedSky(time, geoCoords, stereo, catalogue, null, Angle.ofDeg(150), margin);
+            assertEquals(catalogue.stars().size(), wide.starIndices().length);
+            assertArrayEquals(full.starPositions(), wide.starPositions());
+            assertThrows(IllegalArgumentException.class,
+                    () -> new ObservedSky(ZonedDateTime.now(), geoCoords, stereo, catalogue, null, -1, 0));
+}
+
+@Test
+    void atmosphereRefractsPositionsAndDimsMagnitudes() throws IOException {
+            StarCatalogue catalogue;
+            try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+                catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+            }
+            ZonedDateTime time = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 0), ZoneOffset.UTC);
+            GeographicCoordinates geoCoords = GeographicCoordinates.ofDeg(6.57, 46.52);
+            StereographicProjection stereo = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 10));
+            double fieldOfView = Angle.ofDeg(40), margin = Angle.ofDeg(2);
+            Atmosphere atmosphere = Atmosphere.STANDARD;
+
+            ObservedSky vacuum = new ObservedSky(time, geoCoords, stereo, catalogue, null, fieldOfView, margin);
+            ObservedSky sky = new ObservedSky(time, geoCoords, stereo, catalogue, null, fieldOfView, margin, atmosphere);
+            assertNull(vacuum.atmosphere());
+            assertSame(atmosphere, sky.atmosphere());
+            assertArrayEquals(vacuum.starPositions(),
+                    new ObservedSky(time, geoCoords, stereo, catalogue, null, fieldOfView, margin, null).starPositions());
+
+            for (int step = 0; step < 2; ++step) {
+                EquatorialToHorizontalConversion eqToHor = new EquatorialToHorizontalConversion(time, geoCoords);
+                StarPositions positions = catalogue.positionsAt(time);
+                int checked = 0;
+                for (int i : vacuum.starIndices()) {
+                    HorizontalCoordinates h = eqToHor.apply(ofDate(positions.position(i), time));
+                    // the interpolation of the refraction is less precise in the step of the tables where it stops
+                    // following Saemundsson's formula, at -1° (a few arcseconds, see MyAtmosphereTest)
+                    double tolerance = (Math.abs(h.alt() - Angle.ofDeg(-1)) < Angle.ofDeg(0.1)) ? Angle.ofArcsec(4) : 1e-6;
+                    HorizontalCoordinates refracted = HorizontalCoordinates.of(h.az(), h.alt() + atmosphere.refraction(h.alt()));
+                    CartesianCoordinates expected = stereo.apply(refracted);
+                    assertEquals(expected.x(), sky.starX(i), tolerance);
+                    assertEquals(expected.y(), sky.starY(i), tolerance);
+                    assertEquals(catalogue.stars().get(i).magnitude() + atmosphere.extinction(h.alt()),
+                            sky.starApparentMagnitude(i), 1e-3);
+                    assertEquals(catalogue.stars().get(i).magnitude(), vacuum.starApparentMagnitude(i), 1e-6);
+                    ++checked;
+                }
+                assertTrue(checked > 100);
+                for (int p = 0; p < sky.planets().size(); ++p) {
+                    assertTrue(sky.planetApparentMagnitude(p) > vacuum.planetApparentMagnitude(p));
+                }
+
+                time = time.plusMinutes(31);
+                vacuum = vacuum.advancedTo(time);
+                sky = sky.advancedTo(time);
+                assertSame(atmosphere, sky.atmosphere());
+            }
+}
+
+@Test
+    void computedStarsGiveTheSameValuesAsTheStarIndices() throws IOException {
+            StarCatalogue catalogue;
+            try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+                catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+            }
+            ZonedDateTime time = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 0), ZoneOffset.UTC);
+            GeographicCoordinates geoCoords = GeographicCoordinates.ofDeg(6.57, 46.52);
+            StereographicProjection stereo = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 10));
+            double fieldOfView = Angle.ofDeg(40), margin = Angle.ofDeg(2);
+            StarSelection hydra = catalogue.inConstellation("Hya");
+
+            List<ObservedSky> skies = List.of(
+                    new ObservedSky(time, geoCoords, stereo, catalogue),
+                    new ObservedSky(time, geoCoords, stereo, catalogue, null, fieldOfView, margin),
+                    new ObservedSky(time, geoCoords, stereo, catalogue, null, fieldOfView, margin, Atmosphere.STANDARD));
+            for (ObservedSky sky : skies) {
+                assertEquals(sky.starIndices().length, sky.computedStarCount());
+                assertComputedStarsMatch(sky, sky.computedStars(5), sky.starIndices(5));
+                assertComputedStarsMatch(sky, sky.computedStars(hydra, 5), sky.starIndices(hydra, 5));
+                assertTrue(sky.computedStars(hydra, 5).length > 0);
+                assertThrows(IndexOutOfBoundsException.class, () -> sky.computedStarIndex(sky.computedStarCount()));
+            }
+}
+
+    /**
+     * precesses & nutates J2000 coordinates to the date, the right ascension being shifted by the equation of the
+     * equinoxes as EquatorialToHorizontalConversion uses the mean sidereal time
+     */
+    private static EquatorialCoordinates ofDate(EquatorialCoordinates j2000, ZonedDateTime time) {
+            PrecessionNutation precessionNutation = PrecessionNutation.at(time);
+            EquatorialCoordinates trueOfDate = precessionNutation.apply(j2000);
+            return EquatorialCoordinates.of(Angle.normalizePositive(trueOfDate.ra() - precessionNutation.equationOfEquinoxes()),
+                    trueOfDate.dec());
+    }
+
+    private static void assertComputedStarsMatch(ObservedSky sky, int[] computed, int[] indices) {
+            assertEquals(indices.length, computed.length);
+            for (int j = 0; j < computed.length; ++j) {
+                int k = computed[j], i = indices[j];
+                assertEquals(i, sky.computedStarIndex(k));
+                assertEquals(sky.starX(i), sky.computedStarX(k));
+                assertEquals(sky.starY(i), sky.computedStarY(k));
+                assertEquals(sky.starApparentMagnitude(i), sky.computedStarApparentMagnitude(k));
+            }
+    }
+
+    private static void assertProjectedPositionsClose(double[] expected, double[] actual) {
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; i += 2) {
+                // sidereal time drifts by a few nanoradians per UT midnight crossed,
+                // the projection stretches distances by (1 + r^2) / 2, r being the distance to the center
+                double rSquared = expected[i] * expected[i] + expected[i + 1] * expected[i + 1];
+                double error = Math.hypot(expected[i] - actual[i], expected[i + 1] - actual[i + 1]);
+                assertTrue(error < 1e-8 * (1 + rSquared));
+            }
+    }
+}
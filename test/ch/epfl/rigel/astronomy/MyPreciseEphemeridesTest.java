@@ -0,0 +1,132 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticCoordinates;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyPreciseEphemeridesTest {
+
+    private static double angleBetween(EquatorialCoordinates a, EquatorialCoordinates b) {
+        double sinHalfDec = Math.sin((a.dec() - b.dec()) / 2);
+        double sinHalfRa = Math.sin((a.ra() - b.ra()) / 2);
+        double h = sinHalfDec * sinHalfDec + Math.cos(a.dec()) * Math.cos(b.dec()) * sinHalfRa * sinHalfRa;
+        return 2 * Math.asin(Math.sqrt(h));
+    }
+
+    private static void assertPosition(double lonDeg, double latDeg, ZonedDateTime when,
+                                       CelestialObject object, double toleranceDeg) {
+        EquatorialCoordinates expected = new EclipticToEquatorialConversion(when)
+                .apply(EclipticCoordinates.of(Angle.ofDeg(lonDeg), Angle.ofDeg(latDeg)));
+        assertEquals(0, Angle.toDeg(angleBetween(expected, object.equatorialPos())), toleranceDeg);
+    }
+
+    private static <O extends CelestialObject> O at(CelestialObjectModel<O> model, ZonedDateTime when) {
+        return model.at(Epoch.J2010.daysUntil(when), new EclipticToEquatorialConversion(when));
+    }
+
+    // examples 25.b, 47.a & 33.a of J. Meeus, Astronomical Algorithms (dynamical time taken as UTC)
+    private static final ZonedDateTime SUN_DATE = ZonedDateTime.of(1992, 10, 13, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime MOON_DATE = ZonedDateTime.of(1992, 4, 12, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final ZonedDateTime VENUS_DATE = ZonedDateTime.of(1992, 12, 20, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    void sunMatchesReferenceExample() {
+        Sun sun = at(new PreciseEphemerides(SeriesTruncation.FULL).sun(), SUN_DATE);
+        assertEquals(199.907372, Angle.toDeg(sun.eclipticPos().lon()), 1e-5);
+        assertEquals(0.000179, Angle.toDeg(sun.eclipticPos().lat()), 1e-6);
+        assertPosition(199.907372, 0.000179, SUN_DATE, sun, 1e-5);
+    }
+
+    @Test
+    void moonMatchesReferenceExample() {
+        Moon moon = at(new PreciseEphemerides(SeriesTruncation.FULL).moon(), MOON_DATE);
+        assertPosition(133.162655, -3.229126, MOON_DATE, moon, 1e-5);
+        // 0.5181 degrees at 384'400 km, seen from 368'409.7 km
+        assertEquals(Angle.ofDeg(0.5181) * 384400 / 368409.7, moon.angularSize(), 1e-7);
+    }
+
+    @Test
+    void planetMatchesReferenceExample() {
+        Planet venus = at(new PreciseEphemerides(SeriesTruncation.FULL).planet(PlanetModel.VENUS), VENUS_DATE);
+        assertPosition(313.08102, -2.08474, VENUS_DATE, venus, 0.01);
+        assertEquals("Vénus", venus.name());
+    }
+
+    @Test
+    void planetSeriesMatchReferenceExample() {
+        // example 32.a : Venus on 1992 December 20 at 0h TD
+        double tau = Epoch.J2000.daysUntil(VENUS_DATE) / 365250;
+        double[] p = new Vsop87Planets(SeriesTruncation.FULL).heliocentricPosition(PlanetModel.VENUS, tau);
+        double r = Math.sqrt(p[0] * p[0] + p[1] * p[1] + p[2] * p[2]);
+        assertEquals(26.11428, Angle.toDeg(Angle.normalizePositive(Math.atan2(p[1], p[0]))), 1e-5);
+        assertEquals(-2.62070, Angle.toDeg(Math.asin(p[2] / r)), 1e-5);
+        assertEquals(0.724603, r, 1e-6);
+    }
+
+    @Test
+    void truncationAppliesToPlanets() {
+        PreciseEphemerides full = new PreciseEphemerides(SeriesTruncation.FULL);
+        PreciseEphemerides coarse = new PreciseEphemerides(SeriesTruncation.COARSE);
+        for (PlanetModel p : PlanetModel.ALL) {
+            if (p != PlanetModel.EARTH) {
+                double difference = Angle.toDeg(angleBetween(at(full.planet(p), VENUS_DATE).equatorialPos(),
+                        at(coarse.planet(p), VENUS_DATE).equatorialPos()));
+                assertTrue(difference > 0, p.name());
+                assertEquals(0, difference, 0.1, p.name());
+            }
+        }
+    }
+
+    @Test
+    void earthGivesNull() {
+        assertNull(at(new PreciseEphemerides(SeriesTruncation.FULL).planet(PlanetModel.EARTH), VENUS_DATE));
+    }
+
+    @Test
+    void truncationTradesTermsForAccuracy() {
+        int previousTerms = Integer.MAX_VALUE;
+        for (SeriesTruncation truncation : SeriesTruncation.values()) {
+            PreciseEphemerides ephemerides = new PreciseEphemerides(truncation);
+            assertTrue(ephemerides.termCount() <= previousTerms);
+            previousTerms = ephemerides.termCount();
+
+            // the error stays of the order of the dropped amplitudes
+            double tolerance = Math.max(1e-5, 20 * Angle.toDeg(truncation.minAmplitude()));
+            assertPosition(199.907372, 0.000179, SUN_DATE, at(ephemerides.sun(), SUN_DATE), tolerance);
+            assertPosition(133.162655, -3.229126, MOON_DATE, at(ephemerides.moon(), MOON_DATE), tolerance);
+            assertPosition(313.08102, -2.08474, VENUS_DATE, at(ephemerides.planet(PlanetModel.VENUS), VENUS_DATE),
+                    Math.max(0.01, tolerance));
+        }
+        assertTrue(new PreciseEphemerides(SeriesTruncation.COARSE).termCount()
+                < new PreciseEphemerides(SeriesTruncation.FULL).termCount());
+    }
+
+    @Test
+    void modelsAgreeWithAnalyticModels() {
+        ZonedDateTime when = ZonedDateTime.parse("2020-04-17T21:00:00+02:00");
+        PreciseEphemerides ephemerides = new PreciseEphemerides(SeriesTruncation.STANDARD);
+        assertEquals(0, Angle.toDeg(angleBetween(at(SunModel.SUN, when).equatorialPos(),
+                at(ephemerides.sun(), when).equatorialPos())), 0.05);
+        assertEquals(0, Angle.toDeg(angleBetween(at(MoonModel.MOON, when).equatorialPos(),
+                at(ephemerides.moon(), when).equatorialPos())), 0.5);
+        for (PlanetModel p : PlanetModel.ALL) {
+            if (p != PlanetModel.EARTH) {
+                assertEquals(0, Angle.toDeg(angleBetween(at(p, when).equatorialPos(),
+                        at(ephemerides.planet(p), when).equatorialPos())), 2);
+            }
+        }
+    }
+
+    @Test
+    void constructorFailsOnNull() {
+        assertThrows(NullPointerException.class, () -> new PreciseEphemerides(null));
+        assertThrows(NullPointerException.class, () -> new PreciseEphemerides(SeriesTruncation.FULL).planet(null));
+    }
+}
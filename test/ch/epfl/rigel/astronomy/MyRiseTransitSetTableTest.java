@@ -0,0 +1,94 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestCatalogues;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyRiseTransitSetTableTest {
+
+    private static final GeographicCoordinates EPFL = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final long START = ZonedDateTime.parse("2020-04-04T12:00:00+02:00").toInstant().toEpochMilli();
+    private static final long DAY = 24 * 3600 * 1000L;
+
+    private static HorizontalCoordinates horizontalAt(Star star, long epochMillis) {
+        return new EquatorialToHorizontalConversion(epochMillis, EPFL).apply(star.equatorialPos());
+    }
+
+    @Test
+    void eventsMatchHorizontalCoordinates() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogue();
+        RiseTransitSetTable table = new RiseTransitSetTable(catalogue, EPFL, START, 3);
+        long[] rise = table.rise(), transit = table.transit(), set = table.set();
+        double[] maxAlt = table.maxAlt();
+
+        for (int s = 0; s < catalogue.stars().size(); s += 37) {
+            Star star = catalogue.stars().get(s);
+            for (int d = 0; d < table.dayCount(); ++d) {
+                int index = table.index(s, d);
+                assertTrue(transit[index] >= START + d * DAY && transit[index] < START + (d + 1) * DAY);
+
+                HorizontalCoordinates atTransit = horizontalAt(star, transit[index]);
+                assertEquals(maxAlt[s], atTransit.alt(), 1e-5);
+
+                switch (table.visibility(s)) {
+                    case RISES_AND_SETS:
+                        assertEquals(0, horizontalAt(star, rise[index]).alt(), 1e-5);
+                        assertEquals(0, horizontalAt(star, set[index]).alt(), 1e-5);
+                        assertTrue(rise[index] < transit[index] && transit[index] < set[index]);
+                        assertTrue(horizontalAt(star, rise[index] + 60_000).alt() > 0);
+                        break;
+                    case CIRCUMPOLAR:
+                        assertEquals(RiseTransitSetTable.NO_EVENT, rise[index]);
+                        assertTrue(horizontalAt(star, transit[index] + DAY / 2).alt() > 0);
+                        break;
+                    case NEVER_RISES:
+                        assertEquals(RiseTransitSetTable.NO_EVENT, set[index]);
+                        assertTrue(maxAlt[s] < 0);
+                        break;
+                }
+            }
+        }
+    }
+
+    @Test
+    void visibilityDependsOnDeclination() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogue();
+        RiseTransitSetTable table = new RiseTransitSetTable(catalogue, EPFL, START, 1);
+        double lat = EPFL.lat();
+        for (int s = 0; s < catalogue.stars().size(); ++s) {
+            double dec = catalogue.stars().get(s).equatorialPos().dec();
+            RiseTransitSetTable.Visibility expected = dec > Angle.ofDeg(90) - lat
+                    ? RiseTransitSetTable.Visibility.CIRCUMPOLAR
+                    : dec < lat - Angle.ofDeg(90)
+                    ? RiseTransitSetTable.Visibility.NEVER_RISES
+                    : RiseTransitSetTable.Visibility.RISES_AND_SETS;
+            assertEquals(expected, table.visibility(s));
+        }
+    }
+
+    @Test
+    void wholeCatalogueForAYearHasAllEvents() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogue();
+        RiseTransitSetTable table = new RiseTransitSetTable(catalogue, EPFL, START, 365);
+        assertEquals(365L * catalogue.stars().size(), table.transit().length);
+        assertEquals(365L * catalogue.stars().size(), table.rise().length);
+        assertEquals(365L * catalogue.stars().size(), table.set().length);
+    }
+
+    @Test
+    void constructorFailsOnInvalidArguments() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogue();
+        assertThrows(IllegalArgumentException.class, () -> new RiseTransitSetTable(catalogue, EPFL, START, -1));
+        assertThrows(NullPointerException.class, () -> new RiseTransitSetTable(catalogue, null, START, 1));
+        RiseTransitSetTable table = new RiseTransitSetTable(catalogue, EPFL, START, 1);
+        assertThrows(IndexOutOfBoundsException.class, () -> table.index(0, 1));
+    }
+}
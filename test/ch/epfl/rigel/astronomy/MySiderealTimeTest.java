@@ -2,10 +2,13 @@ package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
 import java.time.*;
+import java.time.temporal.ChronoUnit;
 
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
 import static java.time.ZoneOffset.UTC;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,5 +42,42 @@ class MySiderealTimeTest {
         assertEquals(hmsToRad(0, 24, 5.23), res, hmsToRad(0, 0, 0.01 / 2));
     }
 
+    @Test
+    void epochMillisVersionsMatchReferenceValues() {
+        var rng = TestRandomizer.newRandom();
+        var where = GeographicCoordinates.ofDeg(6.57, 46.52);
+        var j2000 = ZonedDateTime.of(LocalDate.of(2000, Month.JANUARY, 1), LocalTime.NOON, UTC);
+        var j2010 = ZonedDateTime.of(LocalDate.of(2009, Month.DECEMBER, 31), LocalTime.MIDNIGHT, UTC);
+        for (int i = 0; i < RANDOM_ITERATIONS; i++) {
+            var when = ZonedDateTime.of(LocalDate.of(1950, Month.JANUARY, 1), LocalTime.MIDNIGHT, ZoneId.of("Europe/Zurich"))
+                    .plus(rng.nextLong(0, 4_000_000_000_000L), ChronoUnit.MILLIS);
+            long millis = when.toInstant().toEpochMilli();
+
+            double days = ChronoUnit.MILLIS.between(j2010, when) / 86_400_000d;
+            double centuries = ChronoUnit.MILLIS.between(j2000, when) / (36_525 * 86_400_000d);
+            assertEquals(days, Epoch.J2010.daysUntil(millis), 1e-9);
+            assertEquals(centuries, Epoch.J2000.julianCenturiesUntil(millis), 1e-14);
+
+            // Duffett-Smith's formula, from the Greenwich midnight of the day of the instant
+            var midnight = when.withZoneSameInstant(UTC).truncatedTo(ChronoUnit.DAYS);
+            double t0 = ChronoUnit.MILLIS.between(j2000, midnight) / (36_525 * 86_400_000d);
+            double hours = ChronoUnit.MILLIS.between(midnight, when) / 3_600_000d;
+            double greenwich = Angle.ofHr(6.697374558 + 2400.051336 * t0 + 0.000025862 * t0 * t0 + 1.002737909 * hours);
+            assertEquals(0, angleBetween(greenwich, SiderealTime.greenwich(millis)), 1e-9);
+            assertEquals(0, angleBetween(greenwich + where.lon(), SiderealTime.local(millis, where)), 1e-9);
+        }
+    }
 
-}
\ No newline at end of file
+    private static double angleBetween(double a, double b) {
+        return Angle.normalizePositive(b - a + Math.PI) - Math.PI;
+    }
+
+    @Test
+    void greenwichWorksBeforeEpochMillisOrigin() {
+        var when = ZonedDateTime.of(LocalDate.of(1960, Month.MARCH, 1), LocalTime.of(18, 30), UTC);
+        var midnight = ZonedDateTime.of(LocalDate.of(1960, Month.MARCH, 1), LocalTime.MIDNIGHT, UTC);
+        double expected = Angle.normalizePositive(Angle.ofHr(6.697374558 + 2400.051336 * Epoch.J2000.julianCenturiesUntil(midnight)
+                + 0.000025862 * Math.pow(Epoch.J2000.julianCenturiesUntil(midnight), 2) + 1.002737909 * 18.5));
+        assertEquals(expected, SiderealTime.greenwich(when.toInstant().toEpochMilli()), 1e-9);
+    }
+}
@@ -0,0 +1,246 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestCatalogues;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyStarCatalogueTest {
+
+    private static EquatorialCoordinates randomPosition(SplittableRandom rng) {
+        // uniform on the sphere
+        return EquatorialCoordinates.of(rng.nextDouble(0, Angle.TAU), Math.asin(rng.nextDouble(-1, 1)));
+    }
+
+    private static StarCatalogue randomCatalogue(SplittableRandom rng, int count) {
+        List<Star> stars = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            stars.add(new Star(i, "s" + i, randomPosition(rng), 0, 0));
+        }
+        return new StarCatalogue(stars, List.of());
+    }
+
+    private static double[] unit(EquatorialCoordinates c) {
+        return new double[]{Math.cos(c.dec()) * Math.cos(c.ra()), Math.cos(c.dec()) * Math.sin(c.ra()), Math.sin(c.dec())};
+    }
+
+    private static double angle(EquatorialCoordinates a, EquatorialCoordinates b) {
+        double[] u = unit(a), v = unit(b);
+        double cx = u[1] * v[2] - u[2] * v[1], cy = u[2] * v[0] - u[0] * v[2], cz = u[0] * v[1] - u[1] * v[0];
+        return Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), u[0] * v[0] + u[1] * v[1] + u[2] * v[2]);
+    }
+
+    private static int[] linearCone(StarCatalogue catalogue, EquatorialCoordinates centre, double radius) {
+        List<Star> stars = catalogue.stars();
+        return IntStream.range(0, stars.size())
+                .filter(i -> angle(stars.get(i).equatorialPos(), centre) <= radius)
+                .toArray();
+    }
+
+    private static int[] sorted(int[] indices) {
+        int[] copy = indices.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    void starsInConeMatchesLinearScanOnRandomCatalogue() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        StarCatalogue catalogue = randomCatalogue(rng, 20_000);
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; ++i) {
+            EquatorialCoordinates centre = randomPosition(rng);
+            double radius = rng.nextDouble(0, Angle.ofDeg(i % 10 == 0 ? 120 : 10));
+            assertArrayEquals(linearCone(catalogue, centre, radius), sorted(catalogue.starsInCone(centre, radius)));
+        }
+    }
+
+    @Test
+    void starsInConeMatchesLinearScanOnHygCatalogue() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogue();
+        EquatorialCoordinates[] centres = {
+                EquatorialCoordinates.of(0, Angle.ofDeg(90)),
+                EquatorialCoordinates.of(Angle.ofHr(5.9), Angle.ofDeg(7.4)),
+                EquatorialCoordinates.of(Angle.ofDeg(45), Angle.ofDeg(35.26)),
+                EquatorialCoordinates.of(Angle.ofHr(18), Angle.ofDeg(-30))
+        };
+        for (EquatorialCoordinates centre : centres) {
+            for (double radius : new double[]{0, Angle.ofDeg(1), Angle.ofDeg(15), Angle.ofDeg(60), Math.PI}) {
+                assertArrayEquals(linearCone(catalogue, centre, radius), sorted(catalogue.starsInCone(centre, radius)));
+            }
+        }
+        assertEquals(catalogue.stars().size(), catalogue.starsInCone(centres[0], Math.PI).length);
+    }
+
+    @Test
+    void starsInPolygonMatchesLinearScan() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        StarCatalogue catalogue = randomCatalogue(rng, 20_000);
+        for (int i = 0; i < RANDOM_ITERATIONS / 10; ++i) {
+            // polygon around a random centre, in both orientations
+            EquatorialCoordinates centre = randomPosition(rng);
+            double[] c = unit(centre);
+            // orthonormal basis of the plane tangent to the sphere at the centre, the polygon being regular in it
+            double[] axis = Math.abs(c[2]) < 0.9 ? new double[]{0, 0, 1} : new double[]{1, 0, 0};
+            double[] e = {c[1] * axis[2] - c[2] * axis[1], c[2] * axis[0] - c[0] * axis[2], c[0] * axis[1] - c[1] * axis[0]};
+            double norm = Math.sqrt(e[0] * e[0] + e[1] * e[1] + e[2] * e[2]);
+            e = new double[]{e[0] / norm, e[1] / norm, e[2] / norm};
+            double[] f = {c[1] * e[2] - c[2] * e[1], c[2] * e[0] - c[0] * e[2], c[0] * e[1] - c[1] * e[0]};
+            int n = 3 + rng.nextInt(6);
+            double size = rng.nextDouble(0.01, 1.2);
+            List<EquatorialCoordinates> vertices = new ArrayList<>();
+            for (int k = 0; k < n; ++k) {
+                double t = (i % 2 == 0 ? 1 : -1) * Angle.TAU * k / n;
+                double x = c[0] + size * (Math.cos(t) * e[0] + Math.sin(t) * f[0]);
+                double y = c[1] + size * (Math.cos(t) * e[1] + Math.sin(t) * f[1]);
+                double z = c[2] + size * (Math.cos(t) * e[2] + Math.sin(t) * f[2]);
+                vertices.add(EquatorialCoordinates.of(Angle.normalizePositive(Math.atan2(y, x)),
+                        Math.atan2(z, Math.hypot(x, y))));
+            }
+
+            List<Integer> expected = new ArrayList<>();
+            for (int s = 0; s < catalogue.stars().size(); ++s) {
+                double[] p = unit(catalogue.stars().get(s).equatorialPos());
+                boolean inside = true;
+                for (int k = 0; k < n; ++k) {
+                    double[] a = unit(vertices.get(k)), b = unit(vertices.get((k + 1) % n));
+                    double[] normal = {a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0]};
+                    double side = normal[0] * p[0] + normal[1] * p[1] + normal[2] * p[2];
+                    double centreSide = normal[0] * c[0] + normal[1] * c[1] + normal[2] * c[2];
+                    inside &= side * Math.signum(centreSide) >= 0;
+                }
+                if (inside) {
+                    expected.add(s);
+                }
+            }
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(),
+                    sorted(catalogue.starsInPolygon(vertices)));
+        }
+    }
+
+    @Test
+    void starsBrighterThanAreSortedByMagnitude() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogue();
+        List<Star> stars = catalogue.stars();
+        for (double maxMagnitude : new double[]{-30, -1.46, 0, 2.5, 4, 6.5, Double.POSITIVE_INFINITY}) {
+            int[] expected = IntStream.range(0, stars.size())
+                    .filter(i -> stars.get(i).magnitude() <= maxMagnitude)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(i -> stars.get(i).magnitude()))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            assertArrayEquals(expected, catalogue.starsBrighterThan(maxMagnitude));
+        }
+        assertEquals("Sirius", stars.get(catalogue.starsBrighterThan(-1)[0]).name());
+    }
+
+    @Test
+    void queriesFailOnInvalidArguments() {
+        StarCatalogue catalogue = randomCatalogue(TestRandomizer.newRandom(), 100);
+        EquatorialCoordinates a = EquatorialCoordinates.of(0, 0);
+        EquatorialCoordinates b = EquatorialCoordinates.of(Angle.ofDeg(10), 0);
+        EquatorialCoordinates c = EquatorialCoordinates.of(Angle.ofDeg(5), Angle.ofDeg(10));
+        EquatorialCoordinates d = EquatorialCoordinates.of(Angle.ofDeg(5), Angle.ofDeg(2));
+        assertThrows(IllegalArgumentException.class, () -> catalogue.starsInCone(a, -1e-9));
+        assertThrows(IllegalArgumentException.class, () -> catalogue.starsInPolygon(List.of(a, b)));
+        assertThrows(IllegalArgumentException.class, () -> catalogue.starsInPolygon(List.of(a, b, b)));
+        assertThrows(IllegalArgumentException.class, () -> catalogue.starsInPolygon(List.of(a, b, c, d)));
+        assertDoesNotThrow(() -> catalogue.starsInPolygon(List.of(a, b, c)));
+        assertDoesNotThrow(() -> catalogue.starsInPolygon(List.of(c, b, a)));
+    }
+
+    @Test
+    void smallConesOnLargeCataloguesFindTheExpectedNumberOfStars() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        StarCatalogue catalogue = randomCatalogue(rng, 1_000_000);
+        double radius = Angle.ofDeg(1);
+        int found = 0;
+        for (int i = 0; i < 1000; ++i) {
+            found += catalogue.starsInCone(randomPosition(rng), radius).length;
+        }
+        // a cone of 1 degree covers 7.6e-5 of the sphere
+        assertEquals(76 * 1000, found, 5 * 1000);
+    }
+
+    @Test
+    void asterismsAreResolvedByValue() {
+        EquatorialCoordinates pos = EquatorialCoordinates.of(0, 0);
+        Star a = new Star(0, "a", pos, 0, 0);
+        Star b = new Star(0, "b", pos, 0, 0);
+        Star c = new Star(7, "c", pos, 0, 0);
+        Star d = new Star(7, "d", pos, 0, 0);
+        Asterism first = new Asterism(List.of(b, c, a));
+        Asterism second = new Asterism(List.of(d, b));
+        StarCatalogue catalogue = new StarCatalogue(List.of(a, b, c, d, new Star(0, "e", pos, 0, 0)), List.of(first, second));
+        assertEquals(List.of(1, 2, 0), catalogue.asterismIndices(first));
+        assertEquals(List.of(3, 1), catalogue.asterismIndices(second));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, catalogue.asterismStars());
+
+        Asterism equal = new Asterism(List.of(new Star(7, "c", pos, 0, 0), new Star(0, "a", pos, 0, 0)));
+        StarCatalogue withEqual = new StarCatalogue(List.of(a, b, c, d), List.of(first, equal));
+        assertEquals(List.of(2, 0), withEqual.asterismIndices(equal));
+        assertArrayEquals(new int[]{0, 1, 2}, withEqual.asterismStars());
+
+        Asterism missing = new Asterism(List.of(new Star(7, "c", pos, 0.5f, 0)));
+        assertThrows(IllegalArgumentException.class, () -> new StarCatalogue(List.of(a, b, c, d), List.of(first, missing)));
+    }
+
+    @Test
+    void catalogueCanBeRebuiltFromItsOwnStarsAndAsterisms() throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = MyStarCatalogueTest.class.getResourceAsStream("/hygdata_v3.csv");
+             InputStream asterismStream = MyStarCatalogueTest.class.getResourceAsStream("/asterisms.txt")) {
+            catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(asterismStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+        List<Asterism> asterisms = new ArrayList<>(catalogue.asterisms());
+        StarCatalogue rebuilt = assertDoesNotThrow(() -> new StarCatalogue(catalogue.stars(), asterisms));
+
+        assertEquals(catalogue.stars().size(), rebuilt.stars().size());
+        assertArrayEquals(catalogue.asterismStars(), rebuilt.asterismStars());
+        for (Asterism a : asterisms) {
+            assertEquals(catalogue.asterismIndices(a), rebuilt.asterismIndices(a));
+        }
+    }
+
+    @Test
+    void starsAreViewsEqualToTheGivenStars() throws IOException {
+        List<Star> given;
+        try (InputStream hygStream = MyStarCatalogueTest.class.getResourceAsStream("/hygdata_v3.csv")) {
+            given = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).stars();
+        }
+        EquatorialCoordinates pos = EquatorialCoordinates.of(1, 0.5);
+        List<Star> stars = new ArrayList<>(given);
+        stars.add(new Star(42, "Named", pos, 2.5f, 1.25f));
+        StarCatalogue catalogue = new StarCatalogue(stars, List.of());
+
+        assertEquals(stars.size(), catalogue.stars().size());
+        for (int i = 0; i < stars.size(); ++i) {
+            Star expected = stars.get(i), view = catalogue.stars().get(i);
+            assertNotSame(expected, view);
+            assertEquals(expected, view);
+            assertEquals(expected.hashCode(), view.hashCode());
+            assertEquals(expected.name(), view.name());
+            assertEquals(expected.colorTemperature(), view.colorTemperature());
+            assertEquals(expected.colorTemperature(), catalogue.starColorTemperature(i));
+            assertEquals(expected.equatorialPos().ra(), view.equatorialPos().ra());
+        }
+        assertNotEquals(new Star(42, "Other", pos, 2.5f, 1.25f), catalogue.stars().get(stars.size() - 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> catalogue.stars().get(stars.size()));
+        assertThrows(UnsupportedOperationException.class, () -> catalogue.stars().set(0, stars.get(0)));
+    }
+}
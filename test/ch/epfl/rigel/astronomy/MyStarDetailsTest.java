@@ -0,0 +1,123 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.test.TestCatalogues;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyStarDetailsTest {
+
+    private static Star named(List<Star> stars, String name) {
+        return stars.stream().filter(s -> s.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void detailsAreReadFromTheDocument() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygBuilder().build();
+        Star rigel = named(catalogue.stars(), "Rigel");
+        assertEquals(264.5503, rigel.distance(), 1e-4);
+        assertEquals(-6.933, rigel.absoluteMagnitude(), 1e-6);
+        assertEquals(51665.42425669497, rigel.luminosity(), 1e-2);
+        assertEquals("B8Ia", rigel.spectralType());
+        assertEquals("", rigel.variability());
+
+        // lines 7 & 11 of the document (stars 5 & 9 of the catalogue)
+        assertEquals("YY", catalogue.stars().get(5).variability());
+        assertEquals("M3III", catalogue.stars().get(5).spectralType());
+        assertTrue(Double.isNaN(catalogue.stars().get(9).distance()));
+    }
+
+    @Test
+    void detailsAreOnlyDecodedWhenAsked() throws IOException {
+        List<Star> stars = TestCatalogues.hygBuilder().stars();
+        StarDetails details = stars.get(0).details();
+        assertNotNull(details);
+        assertEquals(0, details.decodedCount());
+
+        Star rigel = named(stars, "Rigel");
+        assertEquals(0, details.decodedCount());
+        rigel.spectralType();
+        rigel.distance();
+        assertEquals(1, details.decodedCount());
+
+        StarCatalogue catalogue = new StarCatalogue(stars, List.of());
+        assertEquals("B8Ia", named(catalogue.stars(), "Rigel").spectralType());
+        assertEquals(1, details.decodedCount());
+        for (Star s : catalogue.stars()) {
+            s.luminosity();
+        }
+        assertEquals(stars.size(), details.decodedCount());
+    }
+
+    @Test
+    void detailsAreReadFromMappedFiles() throws IOException {
+        Path path = Files.createTempFile("hyg", ".csv");
+        try {
+            try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+                Files.write(path, hygStream.readAllBytes());
+            }
+            StarCatalogue catalogue;
+            try (InputStream hygStream = new FileInputStream(path.toFile())) {
+                catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+            }
+            Star betelgeuse = named(catalogue.stars(), "Betelgeuse");
+            assertEquals("M2Ib", betelgeuse.spectralType());
+            assertEquals("Alp", betelgeuse.variability());
+            assertEquals(152.6718, betelgeuse.distance(), 1e-4);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void onlyTheFieldsOfTheDetailsAreKept() throws IOException {
+        long documentSize;
+        try (InputStream hygStream = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+            documentSize = hygStream.readAllBytes().length;
+        }
+        List<Star> stars = TestCatalogues.hygBuilder().stars();
+        StarDetails details = stars.get(0).details();
+        assertTrue(details.keptSize() < documentSize / 5, "kept " + details.keptSize() + " bytes");
+
+        Star last = stars.get(stars.size() - 1);
+        assertEquals(last.spectralType(), new StarCatalogue(stars, List.of()).stars().get(stars.size() - 1).spectralType());
+        assertThrows(IllegalArgumentException.class, () -> details.distance(last.detailsReference() + 1));
+    }
+
+    @Test
+    void quotedFieldsAreKeptAsWritten() throws IOException {
+        String header = "id,hip,hd,hr,gl,bf,proper,ra,dec,dist,pmra,pmdec,rv,mag,absmag,spect,ci,x,y,z,vx,vy,vz,"
+                + "rarad,decrad,pmrarad,pmdecrad,bayer,flam,con,comp,comp_primary,base,lum,var,var_min,var_max\n";
+        String line = "1,2,,,,,Star,0,0,12.5,0,0,0,1.5,0.25,\"K0, III\",0.5,0,0,0,0,0,0,"
+                + "0.1,0.2,0,0,,,Ori,1,1,,3.5,\"say \"\"hi\"\"\",,\n";
+        Star star;
+        try (InputStream in = new ByteArrayInputStream((header + line).getBytes(StandardCharsets.US_ASCII))) {
+            star = new StarCatalogue.Builder().loadFrom(in, HygDatabaseLoader.INSTANCE).stars().get(0);
+        }
+        assertEquals(12.5, star.distance(), 1e-6);
+        assertEquals(0.25, star.absoluteMagnitude(), 1e-6);
+        assertEquals("K0, III", star.spectralType());
+        assertEquals(3.5, star.luminosity(), 1e-6);
+        assertEquals("say \"hi\"", star.variability());
+    }
+
+    @Test
+    void starsWithoutDocumentHaveNoDetails() {
+        Star star = new Star(1, "a", EquatorialCoordinates.of(0, 0), 0, 0);
+        assertTrue(Double.isNaN(star.distance()));
+        assertTrue(Double.isNaN(star.absoluteMagnitude()));
+        assertTrue(Double.isNaN(star.luminosity()));
+        assertEquals("", star.spectralType());
+        assertEquals("", star.variability());
+    }
+}
@@ -0,0 +1,65 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyStarNamesTest {
+
+    @Test
+    void namesAreGivenBackFromTheirReferences() {
+        StarNames names = new StarNames();
+        int rigel = names.add("Rigel");
+        int alpha = names.add("Alp", "Ori");
+        int unknown = names.add("?", "Phe");
+        int accented = names.add("Épsilon Ündefined");
+        assertEquals("Rigel", names.name(rigel));
+        assertEquals("Alp Ori", names.name(alpha));
+        assertEquals("? Phe", names.name(unknown));
+        assertEquals("Épsilon Ündefined", names.name(accented));
+        assertEquals(alpha, names.add("Alp", "Ori"));
+    }
+
+    @Test
+    void tableGrowsAndKeepsOlderNames() {
+        StarNames names = new StarNames();
+        int[] references = new int[10_000];
+        for (int i = 0; i < references.length; ++i) {
+            references[i] = (i % 2 == 0) ? names.add("name " + i) : names.add("b" + (i % 97), "c" + (i % 89));
+        }
+        for (int i = 0; i < references.length; ++i) {
+            assertEquals((i % 2 == 0) ? "name " + i : "b" + (i % 97) + " c" + (i % 89), names.name(references[i]));
+        }
+    }
+
+    @Test
+    void namesAreStoredWholeWhenDictionaryIsFull() {
+        StarNames names = new StarNames();
+        for (int i = 0; i < (1 << 16) + 10; ++i) {
+            assertEquals(i + " x", names.name(names.add(Integer.toString(i), "x")));
+        }
+    }
+
+    @Test
+    void existingTableIsReadWithoutCopy() {
+        byte[] bytes = "SiriusVega".getBytes(StandardCharsets.UTF_8);
+        StarNames names = StarNames.of(bytes, new int[]{0, 6, 6, 10});
+        assertEquals("Sirius", names.name(StarNames.wholeName(0)));
+        assertEquals("", names.name(StarNames.wholeName(1)));
+        assertEquals("Vega", names.name(StarNames.wholeName(2)));
+        assertThrows(IllegalArgumentException.class, () -> StarNames.of(bytes, new int[0]));
+    }
+
+    @Test
+    void starsReadTheirNameFromTheTable() {
+        StarNames names = new StarNames();
+        Star star = new Star(24436, names, names.add("Bet", "Ori"), EquatorialCoordinates.of(0, 0), 0, 0);
+        assertEquals("Bet Ori", star.name());
+        assertEquals("Bet Ori", star.info());
+        assertEquals("Bet Ori", star.toString());
+        assertThrows(NullPointerException.class, () -> new Star(0, null, 0, EquatorialCoordinates.of(0, 0), 0, 0));
+    }
+}
@@ -0,0 +1,129 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestCatalogues;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyStarPositionsTest {
+
+    private static final StarNames NAMES = new StarNames();
+
+    private static Star movingStar(EquatorialCoordinates pos, float pmRa, float pmDec) {
+        return new Star(1, NAMES, NAMES.add("s"), pos, 0, 0, pmRa, pmDec);
+    }
+
+    @Test
+    void hygLoaderReadsProperMotions() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogue();
+        Star rigel = null;
+        for (Star s : catalogue.stars()) {
+            if (s.name().equals("Rigel")) {
+                rigel = s;
+            }
+        }
+        assertNotNull(rigel);
+        assertEquals(0.00000000906601582638889, rigel.properMotionRa(), 1e-15);
+        assertEquals(-0.000000002714956, rigel.properMotionDec(), 1e-15);
+    }
+
+    @Test
+    void positionsAtJ2000AreTheCataloguePositions() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogue();
+        ZonedDateTime j2000 = ZonedDateTime.of(LocalDate.of(2000, Month.JANUARY, 1), LocalTime.NOON, ZoneOffset.UTC);
+        StarPositions positions = catalogue.positionsAt(j2000);
+        assertEquals(0, positions.epoch());
+        assertEquals(catalogue.stars().size(), positions.size());
+        for (int i = 0; i < positions.size(); ++i) {
+            assertEquals(catalogue.starRa()[i], positions.ra(i), 1e-12);
+            assertEquals(catalogue.starDec()[i], positions.dec(i), 1e-12);
+        }
+        assertSame(positions, catalogue.positionsAt(0.4));
+    }
+
+    @Test
+    void positionsFollowTheProperMotions() {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        List<Star> stars = new ArrayList<>();
+        for (int i = 0; i < RANDOM_ITERATIONS; ++i) {
+            EquatorialCoordinates pos = EquatorialCoordinates.of(rng.nextDouble(0, Angle.TAU),
+                    rng.nextDouble(-Angle.ofDeg(80), Angle.ofDeg(80)));
+            stars.add(movingStar(pos, (float) rng.nextDouble(-5e-5, 5e-5), (float) rng.nextDouble(-5e-5, 5e-5)));
+        }
+        StarCatalogue catalogue = new StarCatalogue(stars, List.of());
+        for (double years : new double[]{-20, 3, 150}) {
+            StarPositions positions = catalogue.positionsAt(years);
+            assertEquals(years, positions.epoch());
+            for (int i = 0; i < stars.size(); ++i) {
+                Star s = stars.get(i);
+                double dec = s.equatorialPos().dec();
+                double expectedDec = dec + s.properMotionDec() * years;
+                double expectedRa = s.equatorialPos().ra() + s.properMotionRa() * years / Math.cos(dec);
+                double deltaRa = Angle.normalizePositive(positions.ra(i) - expectedRa + Math.PI) - Math.PI;
+                // the stars move along great circles, away from the first order approximation by the square of the angle
+                double angle = Math.hypot(s.properMotionRa(), s.properMotionDec()) * Math.abs(years);
+                double tolerance = 1e-12 + angle * angle * (1 + Math.tan(Math.abs(dec)));
+                assertEquals(0, deltaRa * Math.cos(dec), tolerance);
+                assertEquals(expectedDec, positions.dec(i), tolerance);
+            }
+        }
+    }
+
+    @Test
+    void rightAscensionsJustBelowTauStayInRange() {
+        // the second star moves to about 1e-16 radians before 2PI, whose normalization rounds to 2PI itself
+        StarCatalogue catalogue = new StarCatalogue(List.of(
+                new Star(1, "a", EquatorialCoordinates.of(Math.nextDown(Angle.TAU), 0.2), 0, 0),
+                movingStar(EquatorialCoordinates.of(Math.nextDown(Angle.TAU), 0), 1e-16f, 0)), List.of());
+        for (double years : new double[]{0, 10, 11, 12}) {
+            StarPositions positions = catalogue.positionsAt(years);
+            for (int i = 0; i < positions.size(); ++i) {
+                int index = i;
+                assertTrue(positions.ra(index) >= 0 && positions.ra(index) < Angle.TAU);
+                assertDoesNotThrow(() -> positions.position(index));
+            }
+        }
+    }
+
+    @Test
+    void positionsAreCachedPerEpochBucket() {
+        StarCatalogue catalogue = new StarCatalogue(List.of(movingStar(EquatorialCoordinates.of(1, 0.2), 1e-5f, 0)),
+                List.of());
+        StarPositions positions = catalogue.positionsAt(100.2);
+        assertEquals(100, positions.epoch());
+        assertSame(positions, catalogue.positionsAt(99.7));
+        assertNotSame(positions, catalogue.positionsAt(101));
+        assertEquals(0.2, catalogue.positionsAt(-1000).dec(0), 1e-4);
+        assertTrue(catalogue.positionsAt(1000).ra(0) > 1.009);
+
+        StarCatalogue fixed = new StarCatalogue(List.of(new Star(1, "a", EquatorialCoordinates.of(1, 0.2), 0, 0)),
+                List.of());
+        assertSame(fixed.positionsAt(0), fixed.positionsAt(1e4));
+    }
+
+    @Test
+    void conesFindTheStarsAtTheirPropagatedPositions() {
+        // a star moving by 1 degree every 100 years
+        float pm = (float) Angle.ofDeg(0.01);
+        StarCatalogue catalogue = new StarCatalogue(List.of(movingStar(EquatorialCoordinates.of(1, 0), pm, 0)), List.of());
+        EquatorialCoordinates farther = EquatorialCoordinates.of(1 + Angle.ofDeg(5), 0);
+        double radius = Angle.ofDeg(0.5);
+        assertEquals(0, catalogue.starsInCone(farther, radius, catalogue.positionsAt(0)).length);
+        assertEquals(1, catalogue.starsInCone(farther, radius, catalogue.positionsAt(500)).length);
+        assertEquals(0, catalogue.starsInCone(farther, radius, catalogue.positionsAt(600)).length);
+    }
+}
@@ -0,0 +1,137 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestCatalogues;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static ch.epfl.test.TestRandomizer.RANDOM_ITERATIONS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyStarSelectionTest {
+
+    private static int[] filter(StarCatalogue catalogue, IntPredicate predicate) {
+        return IntStream.range(0, catalogue.stars().size()).filter(predicate).toArray();
+    }
+
+    private static StarSelection randomSelection(SplittableRandom rng, StarCatalogue catalogue) {
+        double p = rng.nextDouble();
+        return catalogue.select(s -> rng.nextDouble() < p);
+    }
+
+    @Test
+    void basicSelectionsMatchLinearScans() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogueWithAsterisms();
+        List<Star> stars = catalogue.stars();
+
+        assertArrayEquals(filter(catalogue, i -> true), catalogue.all().indices());
+        assertArrayEquals(filter(catalogue, i -> stars.get(i).magnitude() <= 4), catalogue.brighterThan(4).indices());
+        assertArrayEquals(catalogue.asterismStars(), catalogue.inAsterisms().indices());
+
+        StarSelection orion = catalogue.inConstellation("Ori");
+        StarSelection proper = catalogue.withProperName();
+        for (int i = 0; i < stars.size(); ++i) {
+            boolean designatedInOrion = stars.get(i).name().endsWith(" Ori") && !proper.contains(i);
+            assertTrue(!designatedInOrion || orion.contains(i));
+            assertTrue(!orion.contains(i) || designatedInOrion || proper.contains(i));
+        }
+        assertTrue(orion.stars().stream().anyMatch(s -> s.name().equals("Rigel")));
+        assertTrue(orion.stars().stream().anyMatch(s -> s.name().equals("Betelgeuse")));
+
+        assertTrue(proper.size() > 0);
+        for (Star s : proper.stars()) {
+            assertFalse(s.name().startsWith("?"));
+        }
+        assertTrue(proper.stars().stream().anyMatch(s -> s.name().equals("Sirius")));
+        assertTrue(proper.not().stars().stream().noneMatch(s -> s.name().equals("Sirius")));
+    }
+
+    @Test
+    void combinationsMatchSetOperations() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogueWithAsterisms();
+        SplittableRandom rng = TestRandomizer.newRandom();
+        for (int k = 0; k < RANDOM_ITERATIONS / 100; ++k) {
+            StarSelection a = randomSelection(rng, catalogue);
+            StarSelection b = randomSelection(rng, catalogue);
+            assertArrayEquals(filter(catalogue, i -> a.contains(i) && b.contains(i)), a.and(b).indices());
+            assertArrayEquals(filter(catalogue, i -> a.contains(i) || b.contains(i)), a.or(b).indices());
+            assertArrayEquals(filter(catalogue, i -> !a.contains(i)), a.not().indices());
+            assertArrayEquals(a.indices(), a.not().not().indices());
+        }
+    }
+
+    @Test
+    void selectionsOfOtherCataloguesAreRejected() throws IOException {
+        StarCatalogue first = TestCatalogues.hygCatalogueWithAsterisms(), second = TestCatalogues.hygCatalogueWithAsterisms();
+        assertThrows(IllegalArgumentException.class, () -> first.all().and(second.all()));
+        assertThrows(IllegalArgumentException.class, () -> first.all().or(second.all()));
+
+        ZonedDateTime when = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+        ObservedSky sky = new ObservedSky(when, GeographicCoordinates.ofDeg(6.57, 46.52),
+                new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45)), first);
+        assertThrows(IllegalArgumentException.class, () -> sky.starIndices(second.all(), 6));
+    }
+
+    @Test
+    void observedSkyVisitsOnlyTheSelectedComputedStars() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogueWithAsterisms();
+        ZonedDateTime when = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+        GeographicCoordinates where = GeographicCoordinates.ofDeg(6.57, 46.52);
+        StereographicProjection projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45));
+        StarSelection orion = catalogue.inConstellation("Ori");
+
+        ObservedSky full = new ObservedSky(when, where, projection, catalogue);
+        assertArrayEquals(filter(catalogue, i -> orion.contains(i) && catalogue.starMagnitude()[i] <= 5),
+                full.starIndices(orion, 5));
+
+        ObservedSky culled = new ObservedSky(when, where, projection, catalogue, ForkJoinPool.commonPool(),
+                Angle.ofDeg(40), Angle.ofDeg(2));
+        List<Integer> computed = new ArrayList<>();
+        for (int i : culled.starIndices()) {
+            computed.add(i);
+        }
+        assertArrayEquals(filter(catalogue, i -> orion.contains(i) && computed.contains(i)
+                && catalogue.starMagnitude()[i] <= 5), culled.starIndices(orion, 5));
+        for (int i : culled.starIndices(orion, 5)) {
+            assertFalse(Double.isNaN(culled.starX(i)));
+        }
+    }
+
+    @Test
+    void selectedStarsAreViewsOfTheCatalogue() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogueWithAsterisms();
+        StarSelection bright = catalogue.brighterThan(2);
+        int[] indices = bright.indices();
+        assertEquals(indices.length, bright.stars().size());
+        for (int k = 0; k < indices.length; ++k) {
+            assertEquals(catalogue.stars().get(indices[k]), bright.stars().get(k));
+        }
+        assertThrows(UnsupportedOperationException.class, () -> bright.stars().clear());
+        indices[0] = -1;
+        assertNotEquals(-1, bright.indices()[0]);
+    }
+
+    @Test
+    void selectionsWorkOnCataloguesWithoutConstellations() {
+        EquatorialCoordinates pos = EquatorialCoordinates.of(0, 0);
+        StarCatalogue catalogue = new StarCatalogue(List.of(new Star(1, "a", pos, 1, 0), new Star(2, "b", pos, 7, 0)),
+                List.of());
+        assertEquals(0, catalogue.inConstellation("Ori").size());
+        assertEquals(0, catalogue.withProperName().size());
+        assertArrayEquals(new int[]{1}, catalogue.brighterThan(1).not().indices());
+        assertEquals(0, catalogue.all().not().size());
+    }
+}
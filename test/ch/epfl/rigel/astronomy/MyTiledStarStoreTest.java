@@ -0,0 +1,189 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestCatalogues;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyTiledStarStoreTest {
+
+    private static Path written(StarCatalogue catalogue) throws IOException {
+        Path path = Files.createTempFile("rigel", ".tiles");
+        path.toFile().deleteOnExit();
+        TiledStarStore.write(catalogue, path);
+        return path;
+    }
+
+    private static String key(Star s) {
+        return s.hipparcosId() + "|" + s.name() + "|" + s.equatorialPos().ra() + "|" + s.equatorialPos().dec()
+                + "|" + s.magnitude() + "|" + s.colorTemperature();
+    }
+
+    private static Set<String> keys(List<Star> stars) {
+        Set<String> keys = new HashSet<>();
+        for (Star s : stars) {
+            keys.add(key(s));
+        }
+        return keys;
+    }
+
+    private static Set<String> expectedKeys(StarCatalogue catalogue, EquatorialCoordinates centre, double radius,
+                                            double maxMagnitude) {
+        List<Star> expected = new ArrayList<>();
+        for (int i : catalogue.asterismStars()) {
+            expected.add(catalogue.stars().get(i));
+        }
+        for (int i : catalogue.starsInCone(centre, radius)) {
+            if (catalogue.starMagnitude()[i] <= maxMagnitude) {
+                expected.add(catalogue.stars().get(i));
+            }
+        }
+        return keys(expected);
+    }
+
+    private static StarCatalogue randomCatalogue(SplittableRandom rng, int count) {
+        List<Star> stars = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            EquatorialCoordinates pos = EquatorialCoordinates.of(rng.nextDouble(0, Angle.TAU), Math.asin(rng.nextDouble(-1, 1)));
+            stars.add(new Star(i, "s" + i, pos, (float) rng.nextDouble(-1, 14), (float) rng.nextDouble(-0.5, 5.5)));
+        }
+        return new StarCatalogue(stars, List.of());
+    }
+
+    @Test
+    void wholeSkyGivesBackTheCatalogue() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogueWithAsterisms();
+        try (TiledStarStore store = TiledStarStore.open(written(catalogue), Long.MAX_VALUE)) {
+            assertEquals(catalogue.stars().size(), store.starCount());
+            StarCatalogue all = store.catalogue(EquatorialCoordinates.of(0, 0), Math.PI, Double.POSITIVE_INFINITY);
+            assertEquals(catalogue.stars().size(), all.stars().size());
+            assertEquals(keys(catalogue.stars()), keys(all.stars()));
+
+            Set<List<String>> expectedAsterisms = new HashSet<>(), asterisms = new HashSet<>();
+            for (Asterism a : catalogue.asterisms()) {
+                expectedAsterisms.add(a.stars().stream().map(MyTiledStarStoreTest::key).toList());
+            }
+            for (Asterism a : all.asterisms()) {
+                asterisms.add(a.stars().stream().map(MyTiledStarStoreTest::key).toList());
+            }
+            assertEquals(expectedAsterisms, asterisms);
+        }
+    }
+
+    @Test
+    void conesGiveTheStarsOfTheConeAndOfTheAsterisms() throws IOException {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        StarCatalogue catalogue = TestCatalogues.hygCatalogueWithAsterisms();
+        try (TiledStarStore store = TiledStarStore.open(written(catalogue), 1 << 20)) {
+            for (int i = 0; i < 50; ++i) {
+                EquatorialCoordinates centre = EquatorialCoordinates.of(rng.nextDouble(0, Angle.TAU),
+                        Math.asin(rng.nextDouble(-1, 1)));
+                double radius = rng.nextDouble(0, Angle.ofDeg(90));
+                double maxMagnitude = rng.nextDouble(-1, 8);
+                StarCatalogue window = store.catalogue(centre, radius, maxMagnitude);
+                assertEquals(expectedKeys(catalogue, centre, radius, maxMagnitude), keys(window.stars()));
+                assertEquals(catalogue.asterisms().size(), window.asterisms().size());
+            }
+        }
+    }
+
+    @Test
+    void cacheStaysWithinItsBudget() throws IOException {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        StarCatalogue catalogue = randomCatalogue(rng, 200_000);
+        Path path = written(catalogue);
+        long budget = 1 << 20;
+        try (TiledStarStore store = TiledStarStore.open(path, budget)) {
+            for (int i = 0; i < 20; ++i) {
+                EquatorialCoordinates centre = EquatorialCoordinates.of(rng.nextDouble(0, Angle.TAU),
+                        Math.asin(rng.nextDouble(-1, 1)));
+                StarCatalogue window = store.catalogue(centre, Angle.ofDeg(20), 13);
+                assertEquals(expectedKeys(catalogue, centre, Angle.ofDeg(20), 13), keys(window.stars()));
+                assertTrue(store.residentBytes() <= budget, "resident " + store.residentBytes());
+            }
+        }
+
+        try (TiledStarStore store = TiledStarStore.open(path, Long.MAX_VALUE)) {
+            EquatorialCoordinates centre = EquatorialCoordinates.of(1, 0.5);
+            store.catalogue(centre, Angle.ofDeg(10), 20);
+            long loads = store.tileLoads();
+            assertTrue(loads > 0);
+            store.catalogue(centre, Angle.ofDeg(10), 20);
+            assertEquals(loads, store.tileLoads());
+        }
+    }
+
+    @Test
+    void faintBandsAreNotReadForBrightLimits() throws IOException {
+        StarCatalogue catalogue = randomCatalogue(TestRandomizer.newRandom(), 200_000);
+        try (TiledStarStore store = TiledStarStore.open(written(catalogue), Long.MAX_VALUE)) {
+            store.catalogue(EquatorialCoordinates.of(0, 0), Math.PI, TiledStarStore.BAND_LIMITS[0]);
+            long brightLoads = store.tileLoads();
+            store.catalogue(EquatorialCoordinates.of(0, 0), Math.PI, Double.POSITIVE_INFINITY);
+            assertEquals(TiledStarStore.BAND_LIMITS.length + 1, store.tileLoads() / brightLoads);
+        }
+    }
+
+    @Test
+    void storeModeProjectsTheStarsLikeTheCatalogue() throws IOException {
+        StarCatalogue catalogue = TestCatalogues.hygCatalogueWithAsterisms();
+        ZonedDateTime when = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+        GeographicCoordinates where = GeographicCoordinates.ofDeg(6.57, 46.52);
+        StereographicProjection projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45));
+        ObservedSky full = new ObservedSky(when, where, projection, catalogue);
+        Map<String, Integer> indexOf = new HashMap<>();
+        for (int i = 0; i < catalogue.stars().size(); ++i) {
+            indexOf.put(key(catalogue.stars().get(i)), i);
+        }
+
+        try (TiledStarStore store = TiledStarStore.open(written(catalogue), Long.MAX_VALUE)) {
+            ObservedSky sky = new ObservedSky(when, where, projection, store, null, Angle.ofDeg(40), Angle.ofDeg(2), 5);
+            assertTrue(sky.stars().size() < catalogue.stars().size());
+            assertSamePositions(full, indexOf, sky);
+            assertSamePositions(full.advancedTo(when.plusHours(3)), indexOf, sky.advancedTo(when.plusHours(3)));
+        }
+    }
+
+    private static void assertSamePositions(ObservedSky expected, Map<String, Integer> indexOf, ObservedSky sky) {
+        int[] indices = sky.starIndices();
+        assertTrue(indices.length > 0);
+        for (int i : indices) {
+            int j = indexOf.get(key(sky.stars().get(i)));
+            assertEquals(expected.starX(j), sky.starX(i), 1e-12);
+            assertEquals(expected.starY(j), sky.starY(i), 1e-12);
+        }
+    }
+
+    @Test
+    void openFailsOnInvalidFiles() throws IOException {
+        Path path = Files.createTempFile("rigel", ".tiles");
+        path.toFile().deleteOnExit();
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+        assertThrows(IOException.class, () -> TiledStarStore.open(path, 0));
+
+        Path valid = written(TestCatalogues.hygCatalogueWithAsterisms());
+        byte[] bytes = Files.readAllBytes(valid);
+        Files.write(path, Arrays.copyOf(bytes, 100));
+        assertThrows(IOException.class, () -> TiledStarStore.open(path, 0));
+        assertThrows(IllegalArgumentException.class, () -> TiledStarStore.open(valid, -1));
+    }
+}
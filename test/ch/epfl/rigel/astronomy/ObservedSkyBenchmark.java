@@ -0,0 +1,71 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of the construction of ObservedSky, sequential, culled to the field of view & parallel, for growing catalogue sizes & pool sizes
+ * (not a unit test, to be run by hand)
+ */
+public final class ObservedSkyBenchmark {
+
+    private static final int[] CATALOGUE_SIZES = {5_000, 50_000, 500_000, 2_000_000};
+    private static final int RUNS = 20;
+    private static final double CULLED_FOV = Angle.ofDeg(30);
+
+    public static void main(String[] args) {
+        ZonedDateTime when = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+        GeographicCoordinates where = GeographicCoordinates.ofDeg(6.57, 46.52);
+        StereographicProjection projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45));
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (int size : CATALOGUE_SIZES) {
+            StarCatalogue catalogue = randomCatalogue(size);
+            double sequential = millisPerSky(() -> new ObservedSky(when, where, projection, catalogue));
+            System.out.printf(Locale.ROOT, "%,9d stars  sequential      %8.3f ms%n", size, sequential);
+            double culled = millisPerSky(() -> new ObservedSky(when, where, projection, catalogue, null, CULLED_FOV, 0));
+            System.out.printf(Locale.ROOT, "%,9d stars  culled to 30°   %8.3f ms  (x%.2f)%n", size, culled, sequential / culled);
+
+            for (int threads = 1; threads <= cores; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                double parallel = millisPerSky(() -> new ObservedSky(when, where, projection, catalogue, pool));
+                pool.shutdown();
+                System.out.printf(Locale.ROOT, "%,9d stars  %2d thread(s)    %8.3f ms  (x%.2f)%n",
+                        size, threads, parallel, sequential / parallel);
+            }
+        }
+    }
+
+    private static double millisPerSky(Runnable construction) {
+        for (int i = 0; i < RUNS; ++i) {
+            construction.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; ++i) {
+            construction.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    private static StarCatalogue randomCatalogue(int size) {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        List<Star> stars = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            EquatorialCoordinates pos = EquatorialCoordinates.of(rng.nextDouble(0, 2 * Math.PI),
+                    rng.nextDouble(-Math.PI / 2, Math.PI / 2));
+            stars.add(new Star(i, "", pos, (float) rng.nextDouble(-1, 8), (float) rng.nextDouble(-0.5, 5.5)));
+        }
+        return new StarCatalogue(stars, List.of());
+    }
+}
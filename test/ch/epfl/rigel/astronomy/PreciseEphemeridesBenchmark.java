@@ -0,0 +1,53 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+import java.time.ZonedDateTime;
+import java.util.Locale;
+
+/**
+ * Benchmark of the evaluation cost of the Sun, the Moon & the planets, by the analytic models
+ * & by PreciseEphemerides at each truncation level (not a unit test, to be run by hand)
+ */
+public final class PreciseEphemeridesBenchmark {
+
+    private static final int EVALUATIONS = 200_000;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        ZonedDateTime when = ZonedDateTime.parse("2020-02-17T20:15:00+01:00");
+        double days = Epoch.J2010.daysUntil(when);
+        EclipticToEquatorialConversion eclToEq = new EclipticToEquatorialConversion(when);
+
+        System.out.printf(Locale.ROOT, "%-10s %6s %10s %10s %10s%n", "model", "terms", "sun (ns)", "moon (ns)", "mars (ns)");
+        System.out.printf(Locale.ROOT, "%-10s %6s %10.0f %10.0f %10.0f%n", "analytic", "-",
+                nanosPerEvaluation(SunModel.SUN, days, eclToEq),
+                nanosPerEvaluation(MoonModel.MOON, days, eclToEq),
+                nanosPerEvaluation(PlanetModel.MARS, days, eclToEq));
+
+        for (SeriesTruncation truncation : SeriesTruncation.values()) {
+            PreciseEphemerides ephemerides = new PreciseEphemerides(truncation);
+            System.out.printf(Locale.ROOT, "%-10s %6d %10.0f %10.0f %10.0f%n", truncation, ephemerides.termCount(),
+                    nanosPerEvaluation(ephemerides.sun(), days, eclToEq),
+                    nanosPerEvaluation(ephemerides.moon(), days, eclToEq),
+                    nanosPerEvaluation(ephemerides.planet(PlanetModel.MARS), days, eclToEq));
+        }
+    }
+
+    private static double nanosPerEvaluation(CelestialObjectModel<?> model, double days,
+                                             EclipticToEquatorialConversion eclToEq) {
+        double best = Double.POSITIVE_INFINITY;
+        Object sink = null;
+        for (int run = 0; run < RUNS; ++run) {
+            long start = System.nanoTime();
+            for (int i = 0; i < EVALUATIONS; ++i) {
+                sink = model.at(days + i * 1e-4, eclToEq);
+            }
+            best = Math.min(best, (double) (System.nanoTime() - start) / EVALUATIONS);
+        }
+        if (sink == null) {
+            throw new AssertionError();
+        }
+        return best;
+    }
+}
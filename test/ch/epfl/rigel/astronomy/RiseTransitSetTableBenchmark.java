@@ -0,0 +1,42 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.Locale;
+
+/**
+ * Benchmark of the computation of the rises, transits & sets of the whole catalogue, for growing numbers of days :
+ * a year should take well under a second
+ * (not a unit test, to be run by hand)
+ */
+public final class RiseTransitSetTableBenchmark {
+
+    private static final GeographicCoordinates EPFL = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final long START = ZonedDateTime.parse("2020-04-04T12:00:00+02:00").toInstant().toEpochMilli();
+    private static final int[] DAYS = {1, 30, 365};
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = RiseTransitSetTableBenchmark.class.getResourceAsStream("/hygdata_v3.csv")) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+        // warm-up
+        new RiseTransitSetTable(catalogue, EPFL, START, 10);
+
+        System.out.println(" days  stars        time");
+        for (int days : DAYS) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int run = 0; run < RUNS; ++run) {
+                long start = System.nanoTime();
+                new RiseTransitSetTable(catalogue, EPFL, START, days);
+                best = Math.min(best, (System.nanoTime() - start) / 1e6);
+            }
+            System.out.printf(Locale.ROOT, "%5d  %5d  %8.1f ms (%5.1f ns/star/day)%n",
+                    days, catalogue.stars().size(), best, best * 1e6 / days / catalogue.stars().size());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of the loading of the asterisms & of the construction of StarCatalogue, for growing catalogue sizes :
+ * the time per star should stay about constant; & of the queries of small cones (1 degree), whose time should stay
+ * well under a millisecond even on the largest catalogues
+ * (not a unit test, to be run by hand)
+ */
+public final class StarCatalogueBenchmark {
+
+    private static final int[] CATALOGUE_SIZES = {5_000, 50_000, 500_000, 2_000_000};
+    private static final int ASTERISMS = 150;
+    private static final int STARS_PER_ASTERISM = 5;
+    private static final int RUNS = 5;
+    private static final int CONES = 1000;
+    private static final double CONE_RADIUS = Angle.ofDeg(1);
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("    stars   asterisms loading        catalogue construction   1 deg cone");
+        for (int size : CATALOGUE_SIZES) {
+            SplittableRandom rng = TestRandomizer.newRandom();
+            StarCatalogue.Builder stars = new StarCatalogue.Builder();
+            for (int i = 0; i < size; ++i) {
+                EquatorialCoordinates pos = EquatorialCoordinates.of(rng.nextDouble(0, Angle.TAU),
+                        Math.asin(rng.nextDouble(-1, 1)));
+                stars.addStar(new Star(i + 1, "", pos, (float) rng.nextDouble(-1, 12), (float) rng.nextDouble(-0.5, 5.5)));
+            }
+            StringBuilder asterisms = new StringBuilder();
+            for (int a = 0; a < ASTERISMS; ++a) {
+                for (int k = 0; k < STARS_PER_ASTERISM; ++k) {
+                    asterisms.append(k == 0 ? "" : ",").append(1 + rng.nextInt(size));
+                }
+                asterisms.append('\n');
+            }
+            byte[] asterismBytes = asterisms.toString().getBytes(StandardCharsets.US_ASCII);
+
+            double loading = 0, construction = 0, cone = 0;
+            for (int run = 0; run < 2 * RUNS; ++run) {
+                StarCatalogue.Builder builder = new StarCatalogue.Builder();
+                for (Star s : stars.stars()) {
+                    builder.addStar(s);
+                }
+                long start = System.nanoTime();
+                builder.loadFrom(new ByteArrayInputStream(asterismBytes), AsterismLoader.INSTANCE);
+                long loaded = System.nanoTime();
+                StarCatalogue catalogue = builder.build();
+                long built = System.nanoTime();
+                for (int c = 0; c < CONES; ++c) {
+                    catalogue.starsInCone(EquatorialCoordinates.of(rng.nextDouble(0, Angle.TAU),
+                            Math.asin(rng.nextDouble(-1, 1))), CONE_RADIUS);
+                }
+                long queried = System.nanoTime();
+                // the first runs warm up
+                if (run >= RUNS) {
+                    loading += (loaded - start) / 1e6 / RUNS;
+                    construction += (built - loaded) / 1e6 / RUNS;
+                    cone += (queried - built) / 1e6 / RUNS / CONES;
+                }
+            }
+            System.out.printf(Locale.ROOT, "%,9d  %9.2f ms (%5.1f ns/star)  %9.2f ms (%5.1f ns/star)  %7.4f ms%n",
+                    size, loading, loading * 1e6 / size, construction, construction * 1e6 / size, cone);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmark of the resident heap of a catalogue kept in memory & of the same catalogue read from a tiled star store
+ * while sweeping the sky, for growing catalogue sizes
+ * (not a unit test, to be run by hand, e.g. with -Xmx2g)
+ */
+public final class TiledStarStoreBenchmark {
+
+    private static final int[] CATALOGUE_SIZES = {100_000, 500_000, 2_000_000};
+    private static final long BUDGET = 32L << 20;
+    private static final double RADIUS = Angle.ofDeg(25);
+    private static final double MAX_MAGNITUDE = 12;
+    private static final int VIEWS = 36;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("    stars   in memory      store heap   cached tiles   tile loads   query");
+        for (int size : CATALOGUE_SIZES) {
+            Path path = Files.createTempFile("rigel", ".tiles");
+            path.toFile().deleteOnExit();
+
+            long base = usedHeap();
+            StarCatalogue catalogue = randomCatalogue(size);
+            long inMemory = usedHeap() - base;
+            TiledStarStore.write(catalogue, path);
+            catalogue = null;
+
+            base = usedHeap();
+            long start, elapsed = 0;
+            StarCatalogue window = null;
+            long storeHeap, cached, loads;
+            try (TiledStarStore store = TiledStarStore.open(path, BUDGET)) {
+                for (int v = 0; v < VIEWS; ++v) {
+                    // a sweep along the ecliptic-like great circle, then a return to the first views
+                    EquatorialCoordinates centre = EquatorialCoordinates.of(Angle.TAU * (v % 24) / 24, Angle.ofDeg(20));
+                    start = System.nanoTime();
+                    window = store.catalogue(centre, RADIUS, MAX_MAGNITUDE);
+                    elapsed += System.nanoTime() - start;
+                }
+                storeHeap = usedHeap() - base;
+                cached = store.residentBytes();
+                loads = store.tileLoads();
+            }
+            System.out.printf(Locale.ROOT, "%,9d  %8.1f MB  %10.1f MB  %10.1f MB  %11d  %6.1f ms  (window of %,d stars, file of %.1f MB)%n",
+                    size, inMemory / 1e6, storeHeap / 1e6, cached / 1e6, loads, elapsed / 1e6 / VIEWS,
+                    window.stars().size(), Files.size(path) / 1e6);
+            Files.delete(path);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static StarCatalogue randomCatalogue(int size) {
+        SplittableRandom rng = TestRandomizer.newRandom();
+        List<Star> stars = new ArrayList<>(size);
+        StarNames names = new StarNames();
+        for (int i = 0; i < size; ++i) {
+            EquatorialCoordinates pos = EquatorialCoordinates.of(rng.nextDouble(0, Angle.TAU),
+                    Math.asin(rng.nextDouble(-1, 1)));
+            // magnitudes growing in number towards the faint end, as in real catalogues
+            float magnitude = (float) (1.5 + 2.5 * Math.log10(1 + rng.nextDouble() * 1e5));
+            stars.add(new Star(i + 1, names, names.add("HIP", Integer.toString(i + 1)), pos, magnitude,
+                    (float) rng.nextDouble(-0.5, 5.5)));
+        }
+        return new StarCatalogue(stars, List.of());
+    }
+}
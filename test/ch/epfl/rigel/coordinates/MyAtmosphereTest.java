@@ -0,0 +1,56 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyAtmosphereTest {
+
+    @Test
+    void refractionMatchesKnownValues() {
+        Atmosphere atmosphere = Atmosphere.STANDARD;
+        // Saemundsson : about 29' at the horizon, 1' at 45°, nothing at the zenith
+        assertEquals(28.98, Angle.toDeg(atmosphere.refraction(0)) * 60, 0.05);
+        assertEquals(1.0, Angle.toDeg(atmosphere.refraction(Angle.ofDeg(45))) * 60, 0.03);
+        assertEquals(0, atmosphere.refraction(Math.PI / 2), 1e-9);
+        assertEquals(0, atmosphere.refraction(-Math.PI / 2), 1e-12);
+        assertEquals(atmosphere.refraction(Angle.ofDeg(-1)), atmosphere.maxRefraction());
+
+        // denser air refracts more
+        Atmosphere cold = new Atmosphere(1030, -20, 0.2);
+        assertTrue(cold.refraction(Angle.ofDeg(10)) > atmosphere.refraction(Angle.ofDeg(10)));
+        assertEquals(0, new Atmosphere(0, 10, 0).refraction(Angle.ofDeg(10)));
+        assertThrows(IllegalArgumentException.class, () -> new Atmosphere(-1, 10, 0.2));
+        assertThrows(IllegalArgumentException.class, () -> new Atmosphere(1010, 10, -0.2));
+    }
+
+    @Test
+    void airmassAndExtinctionMatchKnownValues() {
+        assertEquals(1, Atmosphere.airmass(Math.PI / 2), 1e-3);
+        assertEquals(2, Atmosphere.airmass(Angle.ofDeg(30)), 0.01);
+        assertEquals(37.92, Atmosphere.airmass(0), 0.01);
+        assertEquals(Atmosphere.airmass(0), Atmosphere.airmass(Angle.ofDeg(-10)));
+
+        assertEquals(0.2, Atmosphere.STANDARD.extinction(Math.PI / 2), 1e-3);
+        assertEquals(0, new Atmosphere(1010, 10, 0).extinction(Angle.ofDeg(20)));
+    }
+
+    @Test
+    void applyMatchesRefraction() {
+        var rng = TestRandomizer.newRandom();
+        Atmosphere atmosphere = Atmosphere.STANDARD;
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; ++i) {
+            double az = rng.nextDouble(0, 2 * Math.PI);
+            double alt = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+            HorizontalCoordinates refracted = atmosphere.apply(HorizontalCoordinates.of(az, alt));
+            assertEquals(az, refracted.az());
+            // the interpolation of the tables is far below an arcsecond, except next to -1° where the formula stops
+            double tolerance = (Math.abs(alt - Angle.ofDeg(-1)) < Angle.ofDeg(0.1)) ? Angle.ofArcsec(4) : Angle.ofArcsec(0.2);
+            assertEquals(alt + atmosphere.refraction(alt), refracted.alt(), tolerance);
+        }
+        HorizontalCoordinates horizon = atmosphere.apply(HorizontalCoordinates.of(1, 0));
+        assertEquals(28.98, Angle.toDeg(horizon.alt()) * 60, 0.05);
+    }
+}
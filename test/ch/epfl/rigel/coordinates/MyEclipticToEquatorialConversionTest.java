@@ -1,6 +1,7 @@
 package ch.epfl.rigel.coordinates;
 
 import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
@@ -47,4 +48,27 @@ class MyEclipticToEquatorialConversionTest {
         assertEquals(Angle.ofDMS(19, 32, 6.01), converted.lat(), 1e-7);
     }
 
-}
\ No newline at end of file
+    @Test
+    void applyBatchGivesSameResultsAsApply() {
+        var rng = TestRandomizer.newRandom();
+        var conversion = new EclipticToEquatorialConversion(ZonedDateTime.of(LocalDate.of(2009, Month.JULY, 6),
+                LocalTime.of(0, 0), UTC));
+
+        int n = TestRandomizer.RANDOM_ITERATIONS;
+        double[] lon = new double[n];
+        double[] lat = new double[n];
+        for (int i = 0; i < n; ++i) {
+            lon[i] = rng.nextDouble(0, 2 * Math.PI);
+            lat[i] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+        }
+        double[] ra = new double[n];
+        double[] dec = new double[n];
+        conversion.applyBatch(lon, lat, ra, dec, 0, n);
+
+        for (int i = 0; i < n; ++i) {
+            EquatorialCoordinates expected = conversion.apply(EclipticCoordinates.of(lon[i], lat[i]));
+            assertEquals(expected.ra(), ra[i]);
+            assertEquals(expected.dec(), dec[i]);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyEquatorialToCartesianProjectionTest {
+
+    @Test
+    void applyMatchesScalarPath() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; ++i) {
+            var when = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 30), ZoneOffset.UTC)
+                    .plusMinutes(rng.nextInt(0, 1_000_000));
+            var where = GeographicCoordinates.ofDeg(rng.nextDouble(-180, 180), rng.nextDouble(-89, 89));
+            var center = HorizontalCoordinates.of(rng.nextDouble(0, 2 * Math.PI), rng.nextDouble(-Math.PI / 2, Math.PI / 2));
+            var eqToHor = new EquatorialToHorizontalConversion(when, where);
+            var sterProj = new StereographicProjection(center);
+            var fused = new EquatorialToCartesianProjection(eqToHor, sterProj);
+
+            var eq = EquatorialCoordinates.of(rng.nextDouble(0, 2 * Math.PI), rng.nextDouble(-Math.PI / 2, Math.PI / 2));
+            CartesianCoordinates expected = sterProj.apply(eqToHor.apply(eq));
+            CartesianCoordinates actual = fused.apply(eq);
+            double tolerance = 1e-9 * Math.max(1, Math.hypot(expected.x(), expected.y()));
+            assertEquals(expected.x(), actual.x(), tolerance);
+            assertEquals(expected.y(), actual.y(), tolerance);
+        }
+    }
+
+    @Test
+    void applyBatchMatchesApply() {
+        var rng = TestRandomizer.newRandom();
+        var when = ZonedDateTime.of(LocalDate.of(2020, Month.FEBRUARY, 17), LocalTime.of(20, 15), ZoneOffset.ofHours(1));
+        var eqToHor = new EquatorialToHorizontalConversion(when, GeographicCoordinates.ofDeg(6.57, 46.52));
+        var fused = new EquatorialToCartesianProjection(eqToHor, new StereographicProjection(HorizontalCoordinates.ofDeg(277, -23)));
+
+        int n = TestRandomizer.RANDOM_ITERATIONS;
+        double[] ra = new double[n];
+        double[] dec = new double[n];
+        double[] ux = new double[n];
+        double[] uy = new double[n];
+        double[] uz = new double[n];
+        for (int i = 0; i < n; ++i) {
+            ra[i] = rng.nextDouble(0, 2 * Math.PI);
+            dec[i] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+            ux[i] = Math.cos(dec[i]) * Math.cos(ra[i]);
+            uy[i] = Math.cos(dec[i]) * Math.sin(ra[i]);
+            uz[i] = Math.sin(dec[i]);
+        }
+        double[] x = new double[n];
+        double[] y = new double[n];
+        fused.applyBatch(ux, uy, uz, x, y, 0, n);
+
+        for (int i = 0; i < n; ++i) {
+            CartesianCoordinates expected = fused.apply(EquatorialCoordinates.of(ra[i], dec[i]));
+            assertEquals(expected.x(), x[i]);
+            assertEquals(expected.y(), y[i]);
+        }
+    }
+
+    @Test
+    void refractedApplyMatchesScalarPath() {
+        var rng = TestRandomizer.newRandom();
+        Atmosphere atmosphere = Atmosphere.STANDARD;
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; ++i) {
+            var when = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 30), ZoneOffset.UTC)
+                    .plusMinutes(rng.nextInt(0, 1_000_000));
+            var where = GeographicCoordinates.ofDeg(rng.nextDouble(-180, 180), rng.nextDouble(-89, 89));
+            var center = HorizontalCoordinates.of(rng.nextDouble(0, 2 * Math.PI), rng.nextDouble(-Math.PI / 2, Math.PI / 2));
+            var eqToHor = new EquatorialToHorizontalConversion(when, where);
+            var sterProj = new StereographicProjection(center);
+            var fused = new EquatorialToCartesianProjection(eqToHor, sterProj);
+
+            var eq = EquatorialCoordinates.of(rng.nextDouble(0, 2 * Math.PI), rng.nextDouble(-Math.PI / 2, Math.PI / 2));
+            HorizontalCoordinates hor = eqToHor.apply(eq);
+            CartesianCoordinates expected = sterProj.apply(HorizontalCoordinates.of(hor.az(),
+                    hor.alt() + atmosphere.refraction(hor.alt())));
+            CartesianCoordinates actual = fused.apply(eq, atmosphere);
+            double tolerance = 1e-6 * Math.max(1, expected.x() * expected.x() + expected.y() * expected.y());
+            assertEquals(expected.x(), actual.x(), tolerance);
+            assertEquals(expected.y(), actual.y(), tolerance);
+            assertEquals(atmosphere.extinction(hor.alt()), fused.extinction(eq, atmosphere), 1e-3);
+
+            // increasing the sidereal time by delta amounts to decreasing the right ascension by delta
+            double delta = rng.nextDouble(-1, 1);
+            var shifted = EquatorialCoordinates.of(Angle.normalizePositive(eq.ra() - delta), eq.dec());
+            CartesianCoordinates rotated = fused.rotatedBy(delta).apply(eq, atmosphere);
+            expected = fused.apply(shifted, atmosphere);
+            assertEquals(expected.x(), rotated.x(), 1e-9 * Math.max(1, expected.x() * expected.x() + expected.y() * expected.y()));
+            assertEquals(expected.y(), rotated.y(), 1e-9 * Math.max(1, expected.x() * expected.x() + expected.y() * expected.y()));
+        }
+    }
+
+    @Test
+    void refractedApplyBatchMatchesApply() {
+        var rng = TestRandomizer.newRandom();
+        var when = ZonedDateTime.of(LocalDate.of(2020, Month.FEBRUARY, 17), LocalTime.of(20, 15), ZoneOffset.ofHours(1));
+        var eqToHor = new EquatorialToHorizontalConversion(when, GeographicCoordinates.ofDeg(6.57, 46.52));
+        var fused = new EquatorialToCartesianProjection(eqToHor, new StereographicProjection(HorizontalCoordinates.ofDeg(277, 23)))
+                .rotatedBy(0.3);
+        Atmosphere atmosphere = Atmosphere.STANDARD;
+
+        int n = TestRandomizer.RANDOM_ITERATIONS;
+        EquatorialCoordinates[] eq = new EquatorialCoordinates[n];
+        double[] ux = new double[n];
+        double[] uy = new double[n];
+        double[] uz = new double[n];
+        int[] indices = new int[n];
+        for (int i = 0; i < n; ++i) {
+            eq[i] = EquatorialCoordinates.of(rng.nextDouble(0, 2 * Math.PI), rng.nextDouble(-Math.PI / 2, Math.PI / 2));
+            ux[i] = Math.cos(eq[i].dec()) * Math.cos(eq[i].ra());
+            uy[i] = Math.cos(eq[i].dec()) * Math.sin(eq[i].ra());
+            uz[i] = Math.sin(eq[i].dec());
+            indices[i] = n - 1 - i;
+        }
+        double[] x = new double[n];
+        double[] y = new double[n];
+        float[] extinction = new float[n];
+        fused.applyBatch(ux, uy, uz, null, atmosphere, x, y, extinction, 0, n);
+        for (int i = 0; i < n; ++i) {
+            CartesianCoordinates expected = fused.apply(eq[i], atmosphere);
+            double tolerance = 1e-12 * Math.max(1, expected.x() * expected.x() + expected.y() * expected.y());
+            assertEquals(expected.x(), x[i], tolerance);
+            assertEquals(expected.y(), y[i], tolerance);
+            assertEquals(fused.extinction(eq[i], atmosphere), extinction[i], 1e-6);
+        }
+        fused.applyBatch(ux, uy, uz, indices, atmosphere, x, y, extinction, 0, n);
+        for (int k = 0; k < n; ++k) {
+            CartesianCoordinates expected = fused.apply(eq[indices[k]], atmosphere);
+            double tolerance = 1e-12 * Math.max(1, expected.x() * expected.x() + expected.y() * expected.y());
+            assertEquals(expected.x(), x[k], tolerance);
+            assertEquals(expected.y(), y[k], tolerance);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> fused.applyBatch(ux, uy, uz, null, atmosphere, x, y, new float[n - 1], 0, n));
+    }
+
+    @Test
+    void applyBatchFailsOnInvalidRange() {
+        var when = ZonedDateTime.of(LocalDate.of(2020, Month.FEBRUARY, 17), LocalTime.of(20, 15), ZoneOffset.ofHours(1));
+        var eqToHor = new EquatorialToHorizontalConversion(when, GeographicCoordinates.ofDeg(6.57, 46.52));
+        var fused = new EquatorialToCartesianProjection(eqToHor, new StereographicProjection(HorizontalCoordinates.ofDeg(0, 0)));
+        double[] a = new double[3];
+        double[] b = new double[2];
+        assertThrows(IllegalArgumentException.class, () -> fused.applyBatch(a, a, a, a, b, 0, 3));
+    }
+}
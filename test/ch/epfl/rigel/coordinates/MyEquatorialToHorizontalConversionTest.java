@@ -0,0 +1,65 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyEquatorialToHorizontalConversionTest {
+
+    @Test
+    void applyBatchGivesSameResultsAsApply() {
+        var rng = TestRandomizer.newRandom();
+        var when = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 30), ZoneOffset.UTC);
+        var conversion = new EquatorialToHorizontalConversion(when, GeographicCoordinates.ofDeg(6.57, 46.52));
+
+        int n = TestRandomizer.RANDOM_ITERATIONS;
+        double[] ra = new double[n];
+        double[] dec = new double[n];
+        for (int i = 0; i < n; ++i) {
+            ra[i] = rng.nextDouble(0, 2 * Math.PI);
+            dec[i] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+        }
+        double[] az = new double[n];
+        double[] alt = new double[n];
+        conversion.applyBatch(ra, dec, az, alt, 0, n);
+
+        for (int i = 0; i < n; ++i) {
+            HorizontalCoordinates expected = conversion.apply(EquatorialCoordinates.of(ra[i], dec[i]));
+            assertEquals(expected.az(), az[i]);
+            assertEquals(expected.alt(), alt[i]);
+        }
+    }
+
+    @Test
+    void applyBatchOnlyWritesGivenRange() {
+        var when = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 30), ZoneOffset.UTC);
+        var conversion = new EquatorialToHorizontalConversion(when, GeographicCoordinates.ofDeg(6.57, 46.52));
+        double[] ra = {0.1, 0.2, 0.3, 0.4};
+        double[] dec = {0.1, 0.2, 0.3, 0.4};
+        double[] az = new double[4];
+        double[] alt = new double[4];
+        conversion.applyBatch(ra, dec, az, alt, 1, 3);
+        assertEquals(0, az[0]);
+        assertEquals(0, alt[3]);
+        assertNotEquals(0, az[1]);
+        assertNotEquals(0, alt[2]);
+    }
+
+    @Test
+    void applyBatchFailsOnInvalidRange() {
+        var when = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 30), ZoneOffset.UTC);
+        var conversion = new EquatorialToHorizontalConversion(when, GeographicCoordinates.ofDeg(6.57, 46.52));
+        double[] a = new double[4];
+        double[] b = new double[3];
+        assertThrows(IllegalArgumentException.class, () -> conversion.applyBatch(a, a, a, b, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> conversion.applyBatch(a, a, a, a, 3, 2));
+        assertThrows(IllegalArgumentException.class, () -> conversion.applyBatch(a, a, a, a, -1, 2));
+    }
+}
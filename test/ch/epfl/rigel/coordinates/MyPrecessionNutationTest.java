@@ -0,0 +1,87 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyPrecessionNutationTest {
+
+    @Test
+    void applyWorksOnMeeusExample() {
+        // theta Persei, Meeus examples 21.b & 23.a : 2028 November 13.19 TD, proper motion applied over 28.867 years
+        double years = 28.867;
+        var j2000 = EquatorialCoordinates.of(Angle.ofHr(2 + 44 / 60.0 + (11.986 + 0.03425 * years) / 3600),
+                Angle.ofDMS(49, 13, 42.48 - 0.0895 * years));
+        var precessionNutation = PrecessionNutation.at(
+                ZonedDateTime.of(LocalDate.of(2028, Month.NOVEMBER, 13), LocalTime.of(4, 32), ZoneOffset.UTC));
+
+        assertEquals(Angle.ofArcsec(14.861), precessionNutation.nutationInLongitude(), Angle.ofArcsec(0.01));
+        assertEquals(Angle.ofArcsec(2.705), precessionNutation.nutationInObliquity(), Angle.ofArcsec(0.01));
+
+        // mean position of date plus nutation; Meeus uses the precession of IAU 1976, whose rate in longitude is
+        // 0.3"/century higher than the one of IAU 2006 (about 0.1" in right ascension here)
+        var trueOfDate = precessionNutation.apply(j2000);
+        assertEquals(Angle.ofHr(2 + 46 / 60.0 + 11.331 / 3600) + Angle.ofArcsec(15.843), trueOfDate.ra(), Angle.ofArcsec(0.15));
+        assertEquals(Angle.ofDMS(49, 20, 54.54) + Angle.ofArcsec(6.218), trueOfDate.dec(), Angle.ofArcsec(0.06));
+    }
+
+    @Test
+    void atIsCachedPerTimeQuantum() {
+        var when = ZonedDateTime.of(LocalDate.of(2020, Month.APRIL, 4), LocalTime.of(21, 0), ZoneOffset.UTC);
+        var precessionNutation = PrecessionNutation.at(when);
+        assertSame(precessionNutation, PrecessionNutation.at(when.plusMinutes(59)));
+        assertSame(precessionNutation, PrecessionNutation.at(when.toInstant().toEpochMilli() + 1234));
+        assertNotSame(precessionNutation, PrecessionNutation.at(when.plusHours(1)));
+        assertNotSame(precessionNutation, PrecessionNutation.at(when.minusNanos(1)));
+    }
+
+    @Test
+    void precessionGrowsAwayFromJ2000() {
+        var star = EquatorialCoordinates.of(Angle.ofDeg(101.287), Angle.ofDeg(-16.716));
+        var j2000 = ZonedDateTime.of(LocalDate.of(2000, Month.JANUARY, 1), LocalTime.of(12, 0), ZoneOffset.UTC);
+        // Sirius : the precession turns it around the ecliptic pole by 50.3" per year, at an ecliptic latitude of -39.6°
+        double[] maxShifts = {Angle.ofArcsec(20), Angle.ofDeg(0.225), Angle.ofDeg(1.085)};
+        double[] minShifts = {0, Angle.ofDeg(0.205), Angle.ofDeg(1.065)};
+        int[] years = {0, 20, 100};
+        for (int k = 0; k < years.length; ++k) {
+            var ofDate = PrecessionNutation.at(j2000.plusYears(years[k])).apply(star);
+            double shift = Math.acos(Math.sin(star.dec()) * Math.sin(ofDate.dec())
+                    + Math.cos(star.dec()) * Math.cos(ofDate.dec()) * Math.cos(star.ra() - ofDate.ra()));
+            assertTrue(shift >= minShifts[k] && shift <= maxShifts[k]);
+        }
+    }
+
+    @Test
+    void projectionWithPrecessionMatchesScalarPath() {
+        var rng = TestRandomizer.newRandom();
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; ++i) {
+            var when = ZonedDateTime.of(LocalDate.of(1900, Month.JANUARY, 1), LocalTime.of(0, 0), ZoneOffset.UTC)
+                    .plusHours(rng.nextInt(0, 2_000_000));
+            var where = GeographicCoordinates.ofDeg(rng.nextDouble(-180, 180), rng.nextDouble(-89, 89));
+            var sterProj = new StereographicProjection(HorizontalCoordinates.of(rng.nextDouble(0, 2 * Math.PI),
+                    rng.nextDouble(-Math.PI / 2, Math.PI / 2)));
+            var eqToHor = new EquatorialToHorizontalConversion(when, where);
+            var precessionNutation = PrecessionNutation.at(when);
+            var precessed = new EquatorialToCartesianProjection(eqToHor, sterProj).withPrecession(precessionNutation);
+
+            var j2000 = EquatorialCoordinates.of(rng.nextDouble(0, 2 * Math.PI), rng.nextDouble(-Math.PI / 2, Math.PI / 2));
+            var trueOfDate = precessionNutation.apply(j2000);
+            // the hour angles are the ones of the apparent sidereal time
+            var shifted = EquatorialCoordinates.of(
+                    Angle.normalizePositive(trueOfDate.ra() - precessionNutation.equationOfEquinoxes()), trueOfDate.dec());
+            CartesianCoordinates expected = sterProj.apply(eqToHor.apply(shifted));
+            CartesianCoordinates actual = precessed.apply(j2000);
+            double tolerance = 1e-9 * Math.max(1, expected.x() * expected.x() + expected.y() * expected.y());
+            assertEquals(expected.x(), actual.x(), tolerance);
+            assertEquals(expected.y(), actual.y(), tolerance);
+        }
+    }
+}
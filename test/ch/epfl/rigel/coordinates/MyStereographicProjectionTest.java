@@ -1,6 +1,7 @@
 package ch.epfl.rigel.coordinates;
 
 import ch.epfl.rigel.math.Angle;
+import ch.epfl.test.TestRandomizer;
 import org.junit.jupiter.api.Test;
 
 import java.util.stream.Stream;
@@ -53,4 +54,27 @@ class MyStereographicProjectionTest {
         double ang = new StereographicProjection(HorizontalCoordinates.ofDeg(45,45)).circleRadiusForParallel(HorizontalCoordinates.ofDeg(0, 27));
         assertEquals(0.7673831803, ang, 1e-7);
     }
-}
\ No newline at end of file
+
+    @Test
+    void applyBatchGivesSameResultsAsApply() {
+        var rng = TestRandomizer.newRandom();
+        StereographicProjection sP = new StereographicProjection(HorizontalCoordinates.ofDeg(277, -23));
+
+        int n = TestRandomizer.RANDOM_ITERATIONS;
+        double[] az = new double[n];
+        double[] alt = new double[n];
+        for (int i = 0; i < n; ++i) {
+            az[i] = rng.nextDouble(0, 2 * Math.PI);
+            alt[i] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+        }
+        double[] x = new double[n];
+        double[] y = new double[n];
+        sP.applyBatch(az, alt, x, y, 0, n);
+
+        for (int i = 0; i < n; ++i) {
+            CartesianCoordinates expected = sP.apply(HorizontalCoordinates.of(az[i], alt[i]));
+            assertEquals(expected.x(), x[i]);
+            assertEquals(expected.y(), y[i]);
+        }
+    }
+}
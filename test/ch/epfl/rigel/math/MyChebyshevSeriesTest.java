@@ -0,0 +1,79 @@
+package ch.epfl.rigel.math;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyChebyshevSeriesTest {
+
+    @Test
+    void ofFailsWithoutCoefficients() {
+        assertThrows(IllegalArgumentException.class, () -> ChebyshevSeries.of(ClosedInterval.of(0, 1)));
+    }
+
+    @Test
+    void atWorksOnKnownSeries() {
+        // 1 + 2 T_1(u) + 3 T_2(u) = 1 + 2u + 3(2u^2 - 1) on [-1, 1]
+        ChebyshevSeries s = ChebyshevSeries.of(ClosedInterval.of(-1, 1), 1, 2, 3);
+        for (double u = -1; u <= 1; u += 0.125) {
+            assertEquals(1 + 2 * u + 3 * (2 * u * u - 1), s.at(u), 1e-12);
+        }
+        // same series with u mapped from [10, 14]
+        ChebyshevSeries shifted = ChebyshevSeries.of(ClosedInterval.of(10, 14), 1, 2, 3);
+        assertEquals(s.at(0.5), shifted.at(13), 1e-12);
+        assertEquals(2, shifted.degree());
+    }
+
+    @Test
+    void nodesAreIncreasingAndInInterval() {
+        ClosedInterval interval = ClosedInterval.of(3, 7);
+        double[] nodes = ChebyshevSeries.nodes(interval, 9);
+        assertEquals(10, nodes.length);
+        for (int i = 0; i < nodes.length; ++i) {
+            assertTrue(interval.contains(nodes[i]));
+            if (i > 0) {
+                assertTrue(nodes[i - 1] < nodes[i]);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> ChebyshevSeries.nodes(interval, -1));
+    }
+
+    @Test
+    void interpolatingReproducesPolynomialsExactly() {
+        var rng = TestRandomizer.newRandom();
+        ClosedInterval interval = ClosedInterval.of(-2, 5);
+        for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; ++i) {
+            Polynomial p = Polynomial.of(rng.nextDouble() + 1, rng.nextDouble(), rng.nextDouble(), rng.nextDouble());
+            double[] nodes = ChebyshevSeries.nodes(interval, 3);
+            double[] values = new double[nodes.length];
+            for (int k = 0; k < nodes.length; ++k) {
+                values[k] = p.at(nodes[k]);
+            }
+            ChebyshevSeries s = ChebyshevSeries.interpolating(interval, values);
+            double x = interval.low() + rng.nextDouble() * interval.size();
+            assertEquals(p.at(x), s.at(x), 1e-9);
+        }
+    }
+
+    @Test
+    void interpolatingConvergesOnSmoothFunctions() {
+        ClosedInterval interval = ClosedInterval.of(0, 3);
+        double[] nodes = ChebyshevSeries.nodes(interval, 16);
+        double[] values = new double[nodes.length];
+        for (int k = 0; k < nodes.length; ++k) {
+            values[k] = Math.sin(nodes[k]);
+        }
+        ChebyshevSeries s = ChebyshevSeries.interpolating(interval, values);
+        for (double x = 0; x <= 3; x += 0.01) {
+            assertEquals(Math.sin(x), s.at(x), 1e-13);
+        }
+    }
+
+    @Test
+    void equalsAndHashCodeThrow() {
+        ChebyshevSeries s = ChebyshevSeries.of(ClosedInterval.of(0, 1), 1);
+        assertThrows(UnsupportedOperationException.class, () -> s.equals(s));
+        assertThrows(UnsupportedOperationException.class, s::hashCode);
+    }
+}
@@ -0,0 +1,33 @@
+package ch.epfl.test;
+
+import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public final class TestCatalogues {
+    public final static String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+    public final static String ASTERISM_DOC_NAME = "/asterisms.txt";
+
+    private TestCatalogues() {}
+
+    // Builder loaded with the stars of the HYG database, without asterisms.
+    public static StarCatalogue.Builder hygBuilder() throws IOException {
+        try (InputStream hygStream = TestCatalogues.class.getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            return new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE);
+        }
+    }
+
+    public static StarCatalogue hygCatalogue() throws IOException {
+        return hygBuilder().build();
+    }
+
+    // HYG database & asterisms, as loaded by the application.
+    public static StarCatalogue hygCatalogueWithAsterisms() throws IOException {
+        try (InputStream astStream = TestCatalogues.class.getResourceAsStream(ASTERISM_DOC_NAME)) {
+            return hygBuilder().loadFrom(astStream, AsterismLoader.INSTANCE).build();
+        }
+    }
+}